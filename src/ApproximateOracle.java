@@ -0,0 +1,272 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * This class represents an approximate distance oracle of a (read-only) graph by Thorup and Zwick:
+ * for a parameter k it answers every distance query in O(k) lookups with an estimate between
+ * the distance and (2k-1) times the distance, in about k*n^(1+1/k) entries of memory - so k
+ * trades the memory for the stretch (k=1 is an exact all-pairs table, k=2 has stretch 3 in
+ * O(n^1.5) memory, k=log(n) has stretch O(log(n)) in O(n*log(n)) memory).
+ * 1. Sampling: A(0) is all the nodes, and every node of A(i-1) is also in A(i) with probability
+ *    n^(-1/k), for i < k (A(k) is empty).
+ * 2. Pivots: p(i, v) is the node of A(i) nearest to v, found for all the nodes by one
+ *    multi-source Dijkstra search per level.
+ * 3. Bunches: a node w of A(i)\A(i+1) enters the bunch of every node v closer to it than
+ *    p(i+1, v). The nodes v are found by a Dijkstra search from w that does not pass the
+ *    nodes beyond that bound (the cluster of w), one search per node, in parallel.
+ * A query climbs the levels: w = u; while w is not in the bunch of v: swap u and v and take
+ * w = p(i, u) of the next level i; the answer is d(w, u) + d(w, v).
+ * The pivots and the bunches (sorted by node, binary searched) are flat primitive arrays.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class ApproximateOracle {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final int NONE = -1;
+
+    private final int k;
+    private final KeyIndex index; //key -> id 0..n-1
+    private final int[][] pivot; //by level and id
+    private final double[][] pivotDist;
+    //the bunch of every id: offset, node ids (increasing) and distances
+    private final int[] offset;
+    private final int[] bunch;
+    private final double[] bunchDist;
+
+    private ApproximateOracle(int k, KeyIndex index, int[][] pivot, double[][] pivotDist,
+                              int[] offset, int[] bunch, double[] bunchDist) {
+        this.k = k;
+        this.index = index;
+        this.pivot = pivot;
+        this.pivotDist = pivotDist;
+        this.offset = offset;
+        this.bunch = bunch;
+        this.bunchDist = bunchDist;
+    }
+
+    /**
+     * Builds the oracle of a graph on all the processors.
+     * @param g the graph (must not change meanwhile)
+     * @param k the stretch parameter (at least 1): the stretch is 2k-1
+     * @return the oracle.
+     */
+    public static ApproximateOracle build(weighted_graph g, int k) {
+        return build(g, k, Parallel.defaultThreads(), 1);
+    }
+
+    /**
+     * Builds the oracle of a graph.
+     * @param g the graph (must not change meanwhile)
+     * @param k the stretch parameter (at least 1): the stretch is 2k-1
+     * @param threads the number of threads of the build
+     * @param seed the seed of the sampling
+     * @return the oracle.
+     */
+    public static ApproximateOracle build(weighted_graph g, int k, int threads, long seed) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        indexed_graph ig = g instanceof indexed_graph ? (indexed_graph) g : new WGraph_DS(g);
+        return Parallel.run(threads, () -> new Builder(ig, k, seed).run());
+    }
+
+    /**
+     * returns an estimate of the length of the shortest path between src to dest: at least
+     * the distance and at most stretch() times the distance.
+     * The method runs in O(k*log(bunch size)) time.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return the estimate, -1 if there is no path or no such node.
+     */
+    public double shortestPathDist(int src, int dest) {
+        int u = index.slotOf(src), v = index.slotOf(dest);
+        if (u == -1 || v == -1) return -1;
+        int w = u;
+        double wu = 0, wv;
+        for (int i = 0; (wv = inBunch(v, w)) < 0; ) {
+            if (++i == k) return -1;
+            int t = u;
+            u = v;
+            v = t;
+            w = pivot[i][u];
+            if (w == NONE) return -1;
+            wu = pivotDist[i][u];
+        }
+        return wu + wv;
+    }
+
+    /**
+     * @return the stretch guarantee, 2k-1.
+     */
+    public int stretch() {
+        return 2 * k - 1;
+    }
+
+    /**
+     * @return the number of nodes.
+     */
+    public int size() {
+        return offset.length - 1;
+    }
+
+    /**
+     * @return the number of (node, distance) entries of all the bunches.
+     */
+    public long bunchEntries() {
+        return bunch.length;
+    }
+
+    /**
+     * @return the memory of the pivots and the bunches, in bytes.
+     */
+    public long memoryBytes() {
+        return 12L * bunch.length + 4L * offset.length + 12L * (k - 1) * size();
+    }
+
+    /**
+     * Compares the oracle to WGraph_Algo.shortestPathDist on random pairs of nodes of the graph
+     * it was built from.
+     * @param g the graph
+     * @param pairs the number of pairs
+     * @param seed the seed of the pairs
+     * @return a one line summary: the stretch of the estimates and the time of both queries.
+     */
+    public String report(weighted_graph g, int pairs, long seed) {
+        int[] keys = new int[g.nodeSize()];
+        int n = 0;
+        for (node_info v : g.getV()) keys[n++] = v.getKey();
+        Random rnd = new Random(seed);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        long oracle = 0, exact = 0;
+        double sum = 0, max = 1;
+        int connected = 0, wrong = 0;
+        for (int i = 0; i < pairs && n > 0; i++) {
+            int s = keys[rnd.nextInt(n)], t = keys[rnd.nextInt(n)];
+            long start = System.nanoTime();
+            double d = shortestPathDist(s, t);
+            oracle += System.nanoTime() - start;
+            start = System.nanoTime();
+            double e = ga.shortestPathDist(s, t);
+            exact += System.nanoTime() - start;
+            if ((d == -1) != (e == -1) || d < e - 1e-9 || d > stretch() * e + 1e-9) wrong++;
+            if (e <= 0) continue;
+            connected++;
+            sum += d / e;
+            max = Math.max(max, d / e);
+        }
+        return String.format("%d pairs, stretch bound %d: mean stretch %.3f, max %.3f, %d outside the bound; " +
+                        "query %.2f us (WGraph_Algo %.2f ms); %d bunch entries, %.1f MB",
+                pairs, stretch(), connected == 0 ? 1 : sum / connected, max, wrong,
+                oracle / 1e3 / Math.max(pairs, 1), exact / 1e6 / Math.max(pairs, 1), bunchEntries(), memoryBytes() / 1e6);
+    }
+
+    /******************************  private methods  ******************************/
+
+    //The distance of w from v if w is in the bunch of v, otherwise -1
+    private double inBunch(int v, int w) {
+        int at = Arrays.binarySearch(bunch, offset[v], offset[v + 1], w);
+        return at < 0 ? -1 : bunchDist[at];
+    }
+
+    /*****************************  private classes  ******************************/
+
+    private static class Builder {
+        private final indexed_graph g;
+        private final int k, n;
+        private final KeyIndex index = new KeyIndex();
+        private final int[] slot; //the graph slot of every id
+        private final int[] id; //the id of every graph slot
+        private final int[] level; //the highest i such that the id is in A(i)
+
+        Builder(indexed_graph g, int k, long seed) {
+            this.g = g;
+            this.k = k;
+            n = g.nodeSize();
+            slot = new int[n];
+            level = new int[n];
+            id = new int[g.slotCount()];
+            for (int s = 0, next = 0; s < g.slotCount(); s++) {
+                if (!g.isLive(s)) continue;
+                index.add(g.keyAt(s));
+                id[s] = next;
+                slot[next++] = s;
+            }
+            Random rnd = new Random(seed);
+            double p = Math.pow(Math.max(n, 1), -1.0 / k);
+            for (int i = 0; i < n; i++)
+                while (level[i] < k - 1 && rnd.nextDouble() < p) level[i]++;
+        }
+
+        ApproximateOracle run() {
+            int[][] pivot = new int[k][];
+            double[][] pivotDist = new double[k + 1][];
+            pivotDist[k] = new double[n];
+            Arrays.fill(pivotDist[k], INFINITY);
+            //the levels' multi-source searches (level 0 is every node itself)
+            IntStream.range(1, k).parallel().forEach(i -> {
+                Dijkstra dj = new Dijkstra(g);
+                for (int v = 0; v < n; v++) if (level[v] >= i) dj.seed(slot[v], 0, v);
+                dj.runAll();
+                pivot[i] = new int[n];
+                pivotDist[i] = new double[n];
+                for (int v = 0; v < n; v++) {
+                    pivot[i][v] = dj.origin(slot[v]);
+                    pivotDist[i][v] = dj.dist(slot[v]);
+                }
+            });
+            //the clusters, by their center; the cluster of w adds w to the bunches of its nodes
+            ThreadLocal<SearchState> searches = ThreadLocal.withInitial(() -> new SearchState(g.slotCount()));
+            long[][] clusters = IntStream.range(0, n).parallel()
+                    .mapToObj(w -> cluster(searches.get(), slot[w], pivotDist[level[w] + 1]))
+                    .toArray(long[][]::new);
+            //transposed into the bunches: going over the centers in order keeps every bunch sorted
+            long total = 0;
+            int[] offset = new int[n + 1];
+            for (long[] c : clusters) {
+                total += c.length / 2;
+                for (int i = 0; i < c.length; i += 2) offset[(int) c[i] + 1]++;
+            }
+            if (total > Integer.MAX_VALUE) throw new IllegalStateException("too many bunch entries: " + total);
+            for (int v = 0; v < n; v++) offset[v + 1] += offset[v];
+            int[] bunch = new int[(int) total];
+            double[] bunchDist = new double[bunch.length];
+            int[] next = Arrays.copyOf(offset, n);
+            for (int w = 0; w < n; w++) {
+                long[] c = clusters[w];
+                clusters[w] = null;
+                for (int i = 0; i < c.length; i += 2) {
+                    int at = next[(int) c[i]]++;
+                    bunch[at] = w;
+                    bunchDist[at] = Double.longBitsToDouble(c[i + 1]);
+                }
+            }
+            return new ApproximateOracle(k, index, pivot, Arrays.copyOf(pivotDist, k), offset, bunch, bunchDist);
+        }
+
+        //A Dijkstra search that only settles the slots closer than their bound, returns the
+        //(id, distance bits) pairs of the cluster
+        private long[] cluster(SearchState q, int center, double[] bound) {
+            q.reset();
+            q.push(center, 0);
+            long[] out = new long[16];
+            int size = 0;
+            while (!q.isEmpty()) {
+                int u = q.pop();
+                double du = q.dist(u);
+                if (size + 2 > out.length) out = Arrays.copyOf(out, out.length * 2);
+                out[size++] = id[u];
+                out[size++] = Double.doubleToRawLongBits(du);
+                for (int i = 0, d = g.degree(u); i < d; i++) {
+                    int v = g.neighborAt(u, i);
+                    double dv = du + g.weightAt(u, i);
+                    if (dv < bound[id[v]]) q.relax(v, dv);
+                }
+            }
+            return Arrays.copyOf(out, size);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ex1.src;
+
+/**
+ * This class represents the betweenness centrality of the nodes and edges of a graph.
+ * The nodes are given by key with their scores, the edges by the keys of their endpoints
+ * with their scores, all in parallel primitive arrays.
+ * The score of a node (edge) is the sum, over all pairs of other nodes s,t, of the fraction
+ * of the shortest s-t paths that pass through it. Sampled scores are estimates of that sum.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class BetweennessScores {
+
+    private final int[] keys;
+    private final double[] nodeScores;
+    private final int[] from, to;
+    private final double[] edgeScores;
+    private final boolean exact;
+
+    BetweennessScores(int[] keys, double[] nodeScores, int[] from, int[] to, double[] edgeScores, boolean exact) {
+        this.keys = keys;
+        this.nodeScores = nodeScores;
+        this.from = from;
+        this.to = to;
+        this.edgeScores = edgeScores;
+        this.exact = exact;
+    }
+
+    /**
+     * @return true iff every node was used as a source, false for a sampled estimate.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return the keys of the nodes (the internal array, not a copy).
+     */
+    public int[] nodeKeys() {
+        return keys;
+    }
+
+    /**
+     * @return the score of every node (the internal array, not a copy).
+     */
+    public double[] nodeScores() {
+        return nodeScores;
+    }
+
+    /**
+     * @return the keys of the first endpoint of every edge (the internal array, not a copy).
+     */
+    public int[] edgeFrom() {
+        return from;
+    }
+
+    /**
+     * @return the keys of the second endpoint of every edge (the internal array, not a copy).
+     */
+    public int[] edgeTo() {
+        return to;
+    }
+
+    /**
+     * @return the score of every edge (the internal array, not a copy).
+     */
+    public double[] edgeScores() {
+        return edgeScores;
+    }
+}
@@ -0,0 +1,81 @@
+package ex1.src;
+
+/**
+ * This class represents the single points of failure of a graph:
+ * 1. the bridges - the edges whose removal disconnects their connected component.
+ * 2. the articulation points - the nodes whose removal disconnects their connected component.
+ * 3. the biconnected components - every edge gets the id (0..count-1) of the maximal
+ *    2-connected block it belongs to. Two edges share a block iff some simple cycle passes
+ *    through both, a bridge is a block by itself.
+ * Nodes and edges are given by keys, all in parallel primitive arrays.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class BiconnectedComponents {
+
+    private final int[] articulationPoints;
+    private final int[] bridgeFrom, bridgeTo;
+    private final int[] edgeFrom, edgeTo, edgeComponent;
+    private final int componentCount;
+
+    BiconnectedComponents(int[] articulationPoints, int[] bridgeFrom, int[] bridgeTo,
+                          int[] edgeFrom, int[] edgeTo, int[] edgeComponent, int componentCount) {
+        this.articulationPoints = articulationPoints;
+        this.bridgeFrom = bridgeFrom;
+        this.bridgeTo = bridgeTo;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeComponent = edgeComponent;
+        this.componentCount = componentCount;
+    }
+
+    /**
+     * @return the keys of the articulation points (the internal array, not a copy).
+     */
+    public int[] articulationPoints() {
+        return articulationPoints;
+    }
+
+    /**
+     * @return the keys of the first endpoint of every bridge (the internal array, not a copy).
+     */
+    public int[] bridgeFrom() {
+        return bridgeFrom;
+    }
+
+    /**
+     * @return the keys of the second endpoint of every bridge (the internal array, not a copy).
+     */
+    public int[] bridgeTo() {
+        return bridgeTo;
+    }
+
+    /**
+     * @return the keys of the first endpoint of every edge (the internal array, not a copy).
+     */
+    public int[] edgeFrom() {
+        return edgeFrom;
+    }
+
+    /**
+     * @return the keys of the second endpoint of every edge (the internal array, not a copy).
+     */
+    public int[] edgeTo() {
+        return edgeTo;
+    }
+
+    /**
+     * @return the biconnected component id of every edge (the internal array, not a copy).
+     */
+    public int[] edgeComponent() {
+        return edgeComponent;
+    }
+
+    /**
+     * @return the number of biconnected components (isolated nodes belong to none).
+     */
+    public int componentCount() {
+        return componentCount;
+    }
+}
@@ -0,0 +1,191 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Weighted betweenness centrality of nodes and edges by Brandes' algorithm.
+ * For every source s:
+ * 1) a Dijkstra search (see Dijkstra) settles the nodes in non-decreasing distance order.
+ * 2) a forward pass over the settled order counts the shortest paths sigma[w] from s,
+ *    summing sigma[v] over the predecessors v of w (dist[v] + w(v,w) == dist[w]).
+ * 3) a backward pass accumulates the dependencies: every predecessor v of w gets
+ *    sigma[v]/sigma[w] * (1 + delta[w]), which is also the share of the edge v-w.
+ * The sources are processed in parallel, every worker thread owns its search state and its
+ * own score accumulators, and the accumulators are merged once at the end.
+ * In sampled mode only k random pivots are used as sources and the scores are scaled by n/k.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class Brandes {
+
+    private final indexed_graph g;
+    private final int n;
+    //arcs: the i'th neighbor of slot s is the arc arcStart[s]+i, twin[a] is the same edge seen from the other side
+    private final int[] arcStart;
+    private final int[] twin;
+
+    Brandes(indexed_graph g) {
+        this.g = g;
+        this.n = g.slotCount();
+        arcStart = new int[n + 1];
+        for (int s = 0; s < n; s++)
+            arcStart[s + 1] = arcStart[s] + (g.isLive(s) ? g.degree(s) : 0);
+        twin = new int[arcStart[n]];
+        //bucket the arcs a->b with a < b by b, then match them with the arcs b->a
+        int[] bucketStart = new int[n + 1];
+        for (int a = 0; a < n; a++) {
+            if (!g.isLive(a)) continue;
+            for (int i = 0, d = g.degree(a); i < d; i++)
+                if (a < g.neighborAt(a, i)) bucketStart[g.neighborAt(a, i) + 1]++;
+        }
+        for (int s = 0; s < n; s++) bucketStart[s + 1] += bucketStart[s];
+        int[] fill = Arrays.copyOf(bucketStart, n);
+        int[] bucketFrom = new int[bucketStart[n]], bucketArc = new int[bucketStart[n]];
+        for (int a = 0; a < n; a++) {
+            if (!g.isLive(a)) continue;
+            for (int i = 0, d = g.degree(a); i < d; i++) {
+                int b = g.neighborAt(a, i);
+                if (a < b) {
+                    bucketFrom[fill[b]] = a;
+                    bucketArc[fill[b]++] = arcStart[a] + i;
+                }
+            }
+        }
+        int[] scratch = new int[n];
+        for (int b = 0; b < n; b++) {
+            if (!g.isLive(b)) continue;
+            for (int k = bucketStart[b]; k < bucketStart[b + 1]; k++) scratch[bucketFrom[k]] = bucketArc[k];
+            for (int i = 0, d = g.degree(b); i < d; i++) {
+                int a = g.neighborAt(b, i);
+                if (a < b) {
+                    twin[arcStart[b] + i] = scratch[a];
+                    twin[scratch[a]] = arcStart[b] + i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the scores from the given source slots, in parallel.
+     * @param sources the source slots
+     * @param scale the factor every score is multiplied by
+     * @param exact whether all the nodes are sources
+     */
+    BetweennessScores run(int[] sources, double scale, boolean exact) {
+        Queue<Worker> workers = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Worker> local = ThreadLocal.withInitial(() -> {
+            Worker w = new Worker();
+            workers.add(w);
+            return w;
+        });
+        IntStream.range(0, sources.length).parallel().forEach(i -> local.get().accumulate(sources[i]));
+        double[] node = new double[n];
+        double[] arc = new double[twin.length];
+        for (Worker w : workers) {
+            for (int s = 0; s < n; s++) node[s] += w.node[s];
+            for (int a = 0; a < arc.length; a++) arc[a] += w.arc[a];
+        }
+        //every unordered pair was counted from both of its ends
+        scale /= 2;
+        int[] keys = new int[g.nodeSize()];
+        double[] nodeScores = new double[keys.length];
+        int k = 0;
+        for (int s = 0; s < n; s++) {
+            if (!g.isLive(s)) continue;
+            keys[k] = g.keyAt(s);
+            nodeScores[k++] = node[s] * scale;
+        }
+        int m = twin.length / 2;
+        int[] from = new int[m], to = new int[m];
+        double[] edgeScores = new double[m];
+        k = 0;
+        for (int s = 0; s < n; s++) {
+            if (!g.isLive(s)) continue;
+            for (int i = 0, d = g.degree(s); i < d; i++) {
+                int t = g.neighborAt(s, i);
+                if (s < t) {
+                    int a = arcStart[s] + i;
+                    from[k] = g.keyAt(s);
+                    to[k] = g.keyAt(t);
+                    edgeScores[k++] = (arc[a] + arc[twin[a]]) * scale;
+                }
+            }
+        }
+        return new BetweennessScores(keys, nodeScores, from, to, edgeScores, exact);
+    }
+
+    /**
+     * @return k distinct random live slots (all of them if k >= the number of nodes).
+     */
+    int[] pivots(int k, long seed) {
+        int[] live = IntStream.range(0, n).filter(g::isLive).toArray();
+        if (k >= live.length) return live;
+        Random rnd = new Random(seed);
+        for (int i = 0; i < k; i++) { //partial Fisher-Yates shuffle
+            int j = i + rnd.nextInt(live.length - i);
+            int t = live[i];
+            live[i] = live[j];
+            live[j] = t;
+        }
+        return Arrays.copyOf(live, k);
+    }
+
+    //The search state and the score accumulators of a single thread
+    private class Worker {
+        final Dijkstra search = new Dijkstra(g);
+        final double[] sigma = new double[n], delta = new double[n];
+        final int[] order = new int[n];
+        final double[] node = new double[n];
+        final double[] arc = new double[twin.length];
+
+        Worker() {
+            Arrays.fill(order, -1);
+        }
+
+        void accumulate(int src) {
+            Dijkstra d = search;
+            d.reset();
+            d.seed(src, 0, 0);
+            d.runAll();
+            int count = d.settledCount();
+            for (int i = 0; i < count; i++) order[d.settledAt(i)] = i;
+            //forward: count the shortest paths
+            sigma[src] = 1;
+            for (int i = 1; i < count; i++) {
+                int w = d.settledAt(i);
+                double dw = d.dist(w), paths = 0;
+                for (int j = 0, deg = g.degree(w); j < deg; j++) {
+                    int v = g.neighborAt(w, j);
+                    if (order[v] != -1 && order[v] < i && d.dist(v) + g.weightAt(w, j) == dw)
+                        paths += sigma[v];
+                }
+                sigma[w] = paths;
+            }
+            //backward: accumulate the dependencies
+            for (int i = count - 1; i > 0; i--) {
+                int w = d.settledAt(i);
+                double dw = d.dist(w), share = (1 + delta[w]) / sigma[w];
+                for (int j = 0, deg = g.degree(w); j < deg; j++) {
+                    int v = g.neighborAt(w, j);
+                    if (order[v] != -1 && order[v] < i && d.dist(v) + g.weightAt(w, j) == dw) {
+                        double c = sigma[v] * share;
+                        delta[v] += c;
+                        arc[arcStart[w] + j] += c;
+                    }
+                }
+                node[w] += delta[w];
+            }
+            for (int i = 0; i < count; i++) {
+                int v = d.settledAt(i);
+                order[v] = -1;
+                sigma[v] = 0;
+                delta[v] = 0;
+            }
+        }
+    }
+}
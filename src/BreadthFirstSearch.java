@@ -0,0 +1,196 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * This class represents a parallel, direction-optimizing breadth first search
+ * over the slots of an indexed graph (Beamer et al.), computing hop distances.
+ * The search advances one level at a time, choosing the cheaper direction per level:
+ * 1. top-down - every frontier node claims its unvisited neighbors (a CAS on the visited bitset).
+ *    Cheap while the frontier is small.
+ * 2. bottom-up - every unvisited node looks for a neighbor in the frontier bitset and stops at
+ *    the first one. Cheap when the frontier is large, since most edges are never read.
+ * The search switches to bottom-up when the frontier's edges exceed 1/ALPHA of the unvisited
+ * nodes' edges, and back to top-down when the frontier shrinks below 1/BETA of the nodes.
+ * Each level is expanded in parallel over chunks of the frontier (or of the bitset words),
+ * small graphs are searched sequentially.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class BreadthFirstSearch {
+
+    private static final int ALPHA = 14, BETA = 24;
+    private static final int SEQUENTIAL_LIMIT = 1 << 14;
+    private static final int CHUNK = 1 << 10;
+
+    private final indexed_graph g;
+    private final int n, words;
+    private final boolean parallel;
+    private int[] level;
+    private AtomicLongArray visited;
+    private int reached;
+
+    BreadthFirstSearch(indexed_graph g) {
+        this.g = g;
+        this.n = g.slotCount();
+        this.words = (n + 63) >>> 6;
+        this.parallel = n > SEQUENTIAL_LIMIT;
+    }
+
+    /**
+     * Computes the hop distance of every node reachable from a source slot.
+     * @param src the source slot
+     * @param stopAt a slot whose level is wanted - the search stops once it was reached (-1 for none)
+     * @return the number of reached nodes (the source included)
+     */
+    int run(int src, int stopAt) {
+        level = new int[n];
+        Arrays.fill(level, -1);
+        visited = new AtomicLongArray(words);
+        //dead slots are marked as visited, so no step ever looks at them
+        long unvisitedEdges = 0;
+        for (int s = 0; s < n; s++) {
+            if (g.isLive(s)) unvisitedEdges += g.degree(s);
+            else visited.set(s >>> 6, visited.get(s >>> 6) | (1L << s));
+        }
+        level[src] = 0;
+        visited.set(src >>> 6, visited.get(src >>> 6) | (1L << src));
+        reached = 1;
+        int[] list = {src};
+        long[] bits = null;
+        int size = 1;
+        long frontierEdges = g.degree(src);
+        unvisitedEdges -= frontierEdges;
+        for (int depth = 1; size > 0 && (stopAt == -1 || level[stopAt] == -1); depth++) {
+            if (bits == null && frontierEdges > unvisitedEdges / ALPHA) {
+                bits = toBits(list, size);
+            } else if (bits != null && size < n / BETA) {
+                list = toList(bits, size);
+                bits = null;
+            }
+            if (bits == null) {
+                list = topDown(list, size, depth);
+                size = list.length;
+                frontierEdges = 0;
+                for (int v : list) frontierEdges += g.degree(v);
+            } else {
+                long[] result = new long[2];
+                bits = bottomUp(bits, depth, result);
+                size = (int) result[0];
+                frontierEdges = result[1];
+            }
+            reached += size;
+            unvisitedEdges -= frontierEdges;
+        }
+        return reached;
+    }
+
+    /**
+     * @return the hop distance of a slot from the source, -1 if it was not reached.
+     */
+    int level(int slot) {
+        return level[slot];
+    }
+
+    //Expands a frontier list: the frontier nodes claim their unvisited neighbors
+    private int[] topDown(int[] frontier, int size, int depth) {
+        int chunks = (size + CHUNK - 1) / CHUNK;
+        IntStream range = IntStream.range(0, chunks);
+        if (parallel) range = range.parallel();
+        int[][] parts = range.mapToObj(c -> {
+            int[] next = new int[16];
+            int k = 0;
+            for (int i = c * CHUNK; i < Math.min(size, (c + 1) * CHUNK); i++) {
+                int v = frontier[i];
+                for (int j = 0, d = g.degree(v); j < d; j++) {
+                    int u = g.neighborAt(v, j);
+                    if (level[u] == -1 && claim(u)) {
+                        level[u] = depth;
+                        if (k == next.length) next = Arrays.copyOf(next, k * 2);
+                        next[k++] = u;
+                    }
+                }
+            }
+            return Arrays.copyOf(next, k);
+        }).toArray(int[][]::new);
+        int total = 0;
+        for (int[] p : parts) total += p.length;
+        int[] next = new int[total];
+        int k = 0;
+        for (int[] p : parts) {
+            System.arraycopy(p, 0, next, k, p.length);
+            k += p.length;
+        }
+        return next;
+    }
+
+    //Expands a frontier bitset: every unvisited node looks for a parent in the frontier.
+    //Every chunk owns whole words of the bitsets, so no two threads write the same word.
+    private long[] bottomUp(long[] frontier, int depth, long[] result) {
+        long[] next = new long[words];
+        int wordsPerChunk = CHUNK >>> 6;
+        int chunks = (words + wordsPerChunk - 1) / wordsPerChunk;
+        IntStream range = IntStream.range(0, chunks);
+        if (parallel) range = range.parallel();
+        long[][] counts = range.mapToObj(c -> {
+            long found = 0, edges = 0;
+            for (int w = c * wordsPerChunk; w < Math.min(words, (c + 1) * wordsPerChunk); w++) {
+                long unvisited = ~visited.get(w);
+                long word = 0;
+                while (unvisited != 0) {
+                    int v = (w << 6) + Long.numberOfTrailingZeros(unvisited);
+                    unvisited &= unvisited - 1;
+                    if (v >= n) break;
+                    for (int j = 0, d = g.degree(v); j < d; j++) {
+                        int u = g.neighborAt(v, j);
+                        if ((frontier[u >>> 6] & (1L << u)) != 0) {
+                            level[v] = depth;
+                            word |= 1L << v;
+                            found++;
+                            edges += d;
+                            break;
+                        }
+                    }
+                }
+                next[w] = word;
+                if (word != 0) visited.set(w, visited.get(w) | word);
+            }
+            return new long[]{found, edges};
+        }).toArray(long[][]::new);
+        for (long[] c : counts) {
+            result[0] += c[0];
+            result[1] += c[1];
+        }
+        return next;
+    }
+
+    //Sets the visited bit of a slot, returns true iff this call was the one to set it
+    private boolean claim(int u) {
+        int w = u >>> 6;
+        long bit = 1L << u;
+        while (true) {
+            long cur = visited.get(w);
+            if ((cur & bit) != 0) return false;
+            if (visited.compareAndSet(w, cur, cur | bit)) return true;
+        }
+    }
+
+    private long[] toBits(int[] list, int size) {
+        long[] bits = new long[words];
+        for (int i = 0; i < size; i++) bits[list[i] >>> 6] |= 1L << list[i];
+        return bits;
+    }
+
+    private int[] toList(long[] bits, int size) {
+        int[] list = new int[size];
+        int k = 0;
+        for (int w = 0; w < words; w++) {
+            for (long b = bits[w]; b != 0; b &= b - 1)
+                list[k++] = (w << 6) + Long.numberOfTrailingZeros(b);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,229 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Distance based centrality measures over the slots of an indexed graph:
+ * 1. closeness and harmonic centrality of all the nodes - one Dijkstra search per node,
+ *    the searches run in parallel (every thread with its own search state).
+ * 2. top-k closeness - the nodes are searched by decreasing degree, and a search is cut as
+ *    soon as an upper bound on its closeness drops below the current k'th best (Bergamini et al.).
+ * 3. eccentricities, diameter and radius - bounding eccentricities (Takes & Kosters):
+ *    every search from v bounds the eccentricity of every reached w between
+ *    max(d(v,w), ecc(v)-d(v,w)) and ecc(v)+d(v,w). The next source alternates between the
+ *    node with the largest upper bound and the node with the smallest lower bound (so the
+ *    first rounds are a double sweep), and nodes whose bounds met - or that can no longer
+ *    change the diameter (radius) - are dropped. Usually only a few searches are needed.
+ * Distances are measured inside each connected component.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class Centrality {
+
+    static final int ALL = 0, DIAMETER = 1, RADIUS = 2;
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private Centrality() {
+    }
+
+    /**
+     * Closeness of every node (Wasserman-Faust, so that disconnected graphs are comparable):
+     * ((r-1)/(n-1)) * ((r-1)/sum), where r is the number of nodes the node reaches (itself
+     * included) and sum is the sum of their distances. Isolated nodes get 0.
+     */
+    static NodeScores closeness(indexed_graph g) {
+        int n = g.nodeSize();
+        return perSource(g, d -> {
+            double sum = 0;
+            for (int i = 0; i < d.settledCount(); i++) sum += d.dist(d.settledAt(i));
+            int r = d.settledCount();
+            return r <= 1 || sum == 0 ? 0 : ((r - 1.0) / (n - 1)) * ((r - 1) / sum);
+        });
+    }
+
+    /**
+     * Harmonic centrality of every node: the sum of 1/d(v,u) over all the other nodes u
+     * (unreachable nodes contribute 0).
+     */
+    static NodeScores harmonic(indexed_graph g) {
+        return perSource(g, d -> {
+            double sum = 0;
+            for (int i = 1; i < d.settledCount(); i++) sum += 1 / d.dist(d.settledAt(i));
+            return sum;
+        });
+    }
+
+    /**
+     * The k nodes of highest closeness (as defined in closeness), highest first.
+     */
+    static NodeScores topCloseness(indexed_graph g, int k) {
+        int n = g.nodeSize();
+        int slots = g.slotCount();
+        int[] component = componentSizes(g);
+        //the nodes by decreasing degree (then by slot), packed as (MAX - degree, slot)
+        long[] order = new long[n];
+        int live = 0;
+        for (int s = 0; s < slots; s++)
+            if (g.isLive(s)) order[live++] = ((long) (Integer.MAX_VALUE - g.degree(s)) << 32) | s;
+        Arrays.sort(order, 0, live);
+        //the k best so far, the worst of them on top
+        PriorityQueue<double[]> best = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        Dijkstra d = new Dijkstra(g);
+        for (int i = 0; i < live; i++) {
+            int v = (int) order[i];
+            if (k <= 0) break;
+            double threshold = best.size() < k ? -1 : best.peek()[0];
+            int c = component[v];
+            double score = 0;
+            if (c > 1) {
+                d.reset();
+                d.seed(v, 0, 0);
+                double sum = 0;
+                int r = 0;
+                boolean pruned = false;
+                while (!d.isEmpty()) {
+                    //every node that was not settled yet is at least as far as the next one
+                    double bound = (c - 1.0) * (c - 1) / ((n - 1.0) * (sum + (c - r) * d.peekDist()));
+                    if (bound < threshold) {
+                        pruned = true;
+                        break;
+                    }
+                    sum += d.dist(d.next());
+                    r++;
+                }
+                if (pruned) continue;
+                score = sum == 0 ? 0 : ((c - 1.0) / (n - 1)) * ((c - 1) / sum);
+            }
+            if (best.size() < k) best.add(new double[]{score, v});
+            else if (score > threshold) {
+                best.poll();
+                best.add(new double[]{score, v});
+            }
+        }
+        int size = best.size();
+        int[] keys = new int[size];
+        double[] scores = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            double[] e = best.poll();
+            keys[i] = g.keyAt((int) e[1]);
+            scores[i] = e[0];
+        }
+        return new NodeScores(keys, scores);
+    }
+
+    /**
+     * Bounding eccentricities.
+     * @param mode ALL - the eccentricity of every node, DIAMETER / RADIUS - only as many
+     * searches as needed for the diameter (radius)
+     * @param extremes filled with {diameter, radius} of the nodes that were resolved
+     * @return the eccentricity of every slot (exact in ALL mode, bounds otherwise)
+     */
+    static double[] eccentricities(indexed_graph g, int mode, double[] extremes) {
+        int n = g.slotCount();
+        double[] lower = new double[n], upper = new double[n];
+        Arrays.fill(upper, INFINITY);
+        boolean[] candidate = new boolean[n];
+        int count = 0;
+        for (int s = 0; s < n; s++) {
+            if (g.isLive(s)) {
+                candidate[s] = true;
+                count++;
+            }
+        }
+        double diameterLow = 0, radiusHigh = count == 0 ? 0 : INFINITY;
+        Dijkstra d = new Dijkstra(g);
+        boolean pickHigh = true;
+        while (count > 0) {
+            int v = -1;
+            for (int s = 0; s < n; s++) {
+                if (!candidate[s]) continue;
+                if (v == -1
+                        || (pickHigh && (upper[s] > upper[v] || (upper[s] == upper[v] && g.degree(s) > g.degree(v))))
+                        || (!pickHigh && (lower[s] < lower[v] || (lower[s] == lower[v] && g.degree(s) > g.degree(v)))))
+                    v = s;
+            }
+            pickHigh = !pickHigh;
+            d.reset();
+            d.seed(v, 0, 0);
+            d.runAll();
+            double ecc = d.dist(d.settledAt(d.settledCount() - 1));
+            for (int i = 0; i < d.settledCount(); i++) {
+                int w = d.settledAt(i);
+                double dw = d.dist(w);
+                lower[w] = Math.max(lower[w], Math.max(dw, ecc - dw));
+                upper[w] = Math.min(upper[w], ecc + dw);
+            }
+            lower[v] = upper[v] = ecc;
+            diameterLow = Math.max(diameterLow, ecc);
+            radiusHigh = Math.min(radiusHigh, ecc);
+            count = 0;
+            for (int s = 0; s < n; s++) {
+                if (!candidate[s]) continue;
+                if (lower[s] >= upper[s]) {
+                    candidate[s] = false;
+                    diameterLow = Math.max(diameterLow, lower[s]);
+                    radiusHigh = Math.min(radiusHigh, lower[s]);
+                } else if ((mode == DIAMETER && upper[s] <= diameterLow) || (mode == RADIUS && lower[s] >= radiusHigh)) {
+                    candidate[s] = false;
+                } else {
+                    count++;
+                }
+            }
+        }
+        extremes[0] = diameterLow;
+        extremes[1] = radiusHigh;
+        return lower;
+    }
+
+    //A per node score computed from a full search, in parallel over the sources
+    private interface SearchScore {
+        double score(Dijkstra d);
+    }
+
+    private static NodeScores perSource(indexed_graph g, SearchScore f) {
+        int[] slots = IntStream.range(0, g.slotCount()).filter(g::isLive).toArray();
+        double[] scores = new double[slots.length];
+        ThreadLocal<Dijkstra> local = ThreadLocal.withInitial(() -> new Dijkstra(g));
+        IntStream.range(0, slots.length).parallel().forEach(i -> {
+            Dijkstra d = local.get();
+            d.reset();
+            d.seed(slots[i], 0, 0);
+            d.runAll();
+            scores[i] = f.score(d);
+        });
+        int[] keys = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) keys[i] = g.keyAt(slots[i]);
+        return new NodeScores(keys, scores);
+    }
+
+    //The size of the connected component of every slot
+    private static int[] componentSizes(indexed_graph g) {
+        int n = g.slotCount();
+        int[] label = new int[n], queue = new int[n];
+        Arrays.fill(label, -1);
+        int[] size = new int[n];
+        for (int s = 0; s < n; s++) {
+            if (!g.isLive(s) || label[s] != -1) continue;
+            int head = 0, tail = 0;
+            queue[tail++] = s;
+            label[s] = s;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int i = 0, d = g.degree(v); i < d; i++) {
+                    int u = g.neighborAt(v, i);
+                    if (label[u] == -1) {
+                        label[u] = s;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+            size[s] = tail;
+        }
+        int[] result = new int[n];
+        for (int s = 0; s < n; s++) if (label[s] != -1) result[s] = size[label[s]];
+        return result;
+    }
+}
@@ -0,0 +1,182 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a reusable Dijkstra search over the slots of an indexed graph.
+ * All the per-node state (distance, parent, origin) lives in flat arrays that are
+ * validated lazily by the round stamp of a SearchState, so starting a new search costs
+ * O(1) and a search that stops early touches only the nodes it reached.
+ * The search is driven step by step: seed one or more sources, then call next()
+ * to settle the closest queued node, until the caller is satisfied or the heap is empty.
+ * Nodes and edges can be blocked for the current search only (an overlay that is
+ * forgotten on reset), so temporary removals never touch the shared graph.
+ * A Dijkstra object is not thread safe - concurrent searches should use separate objects.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class Dijkstra {
+
+    static final double INFINITY = SearchState.INFINITY;
+    static final int NONE = -1;
+
+    private final indexed_graph g;
+    private final SearchState state = new SearchState(0);
+    //valid for the slots the current search reached (see SearchState.dist)
+    private int[] parent = new int[0];
+    private int[] origin = new int[0];
+    //the overlay: blocked slots, and blocked edges listed as (from, to) slot pairs
+    private int[] blocked = new int[0];
+    private int[] hasBlockedEdge = new int[0];
+    private int[] blockedEdges = new int[8];
+    private int blockedEdgeCount;
+    private int[] settled = new int[16];
+    private int settledCount;
+
+    Dijkstra(indexed_graph g) {
+        this.g = g;
+        reset();
+    }
+
+    indexed_graph graph() {
+        return g;
+    }
+
+    /**
+     * Starts a new search: forgets all the distances in O(1) time.
+     */
+    void reset() {
+        ensureCapacity(g.slotCount());
+        settledCount = 0;
+        blockedEdgeCount = 0;
+        if (state.reset()) { //the stamp wrapped around
+            Arrays.fill(blocked, 0);
+            Arrays.fill(hasBlockedEdge, 0);
+        }
+    }
+
+    /**
+     * Queues a source slot with a given initial distance and an origin label
+     * (e.g. the index of the source in a multi-source search).
+     */
+    void seed(int slot, double d, int label) {
+        if (state.relax(slot, d)) {
+            parent[slot] = NONE;
+            origin[slot] = label;
+        }
+    }
+
+    /**
+     * Hides a node from the current search.
+     */
+    void blockNode(int slot) {
+        blocked[slot] = state.round();
+    }
+
+    /**
+     * Hides the edge between two slots (in both directions) from the current search.
+     */
+    void blockEdge(int s1, int s2) {
+        if (blockedEdgeCount + 4 > blockedEdges.length)
+            blockedEdges = Arrays.copyOf(blockedEdges, blockedEdges.length * 2);
+        blockedEdges[blockedEdgeCount++] = s1;
+        blockedEdges[blockedEdgeCount++] = s2;
+        blockedEdges[blockedEdgeCount++] = s2;
+        blockedEdges[blockedEdgeCount++] = s1;
+        hasBlockedEdge[s1] = state.round();
+        hasBlockedEdge[s2] = state.round();
+    }
+
+    boolean isEmpty() {
+        return state.isEmpty();
+    }
+
+    /**
+     * @return the distance of the node that next() will settle, infinity if none.
+     */
+    double peekDist() {
+        return state.peekDist();
+    }
+
+    /**
+     * Settles the closest queued node and relaxes its edges.
+     * The method runs in O(k log(n)) time, k - being the degree of the settled node.
+     * @return the settled slot (the heap must not be empty).
+     */
+    int next() {
+        int v = state.pop();
+        if (settledCount == settled.length) settled = Arrays.copyOf(settled, settledCount * 2);
+        settled[settledCount++] = v;
+        double dv = state.dist(v);
+        int round = state.round();
+        boolean checkEdges = hasBlockedEdge[v] == round;
+        for (int i = 0, d = g.degree(v); i < d; i++) {
+            int u = g.neighborAt(v, i);
+            if (blocked[u] == round || (checkEdges && isBlocked(v, u))) continue;
+            if (state.relax(u, dv + g.weightAt(v, i))) {
+                parent[u] = v;
+                origin[u] = origin[v];
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Settles every node that is reachable from the seeded sources.
+     */
+    void runAll() {
+        while (!state.isEmpty()) next();
+    }
+
+    /**
+     * @return the tentative (or final, once settled) distance of a slot, infinity if not reached.
+     */
+    double dist(int slot) {
+        return state.dist(slot);
+    }
+
+    /**
+     * @return the slot preceding the given slot on its shortest path, NONE for sources and unreached slots.
+     */
+    int parent(int slot) {
+        return state.dist(slot) < INFINITY ? parent[slot] : NONE;
+    }
+
+    /**
+     * @return the label of the source whose search reached the given slot, NONE if not reached.
+     */
+    int origin(int slot) {
+        return state.dist(slot) < INFINITY ? origin[slot] : NONE;
+    }
+
+    /**
+     * @return the number of nodes settled since the last reset.
+     */
+    int settledCount() {
+        return settledCount;
+    }
+
+    /**
+     * @return the i'th settled slot, the settled slots are in non-decreasing distance order.
+     */
+    int settledAt(int i) {
+        return settled[i];
+    }
+
+    private boolean isBlocked(int from, int to) {
+        for (int i = 0; i < blockedEdgeCount; i += 2)
+            if (blockedEdges[i] == from && blockedEdges[i + 1] == to) return true;
+        return false;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= parent.length) return;
+        int len = Math.max(n, parent.length + (parent.length >> 1));
+        state.ensureCapacity(len);
+        parent = Arrays.copyOf(parent, len);
+        origin = Arrays.copyOf(origin, len);
+        blocked = Arrays.copyOf(blocked, len);
+        hasBlockedEdge = Arrays.copyOf(hasBlockedEdge, len);
+    }
+}
@@ -0,0 +1,61 @@
+package ex1.src;
+
+import java.util.stream.IntStream;
+
+/**
+ * This class represents the edges of an indexed graph as flat primitive arrays:
+ * edge i connects the slots u[i] and v[i] (u[i] < v[i]) with the weight w[i].
+ * Every undirected edge appears exactly once.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class EdgeList {
+
+    final int[] u, v;
+    final double[] w;
+    final int size;
+
+    EdgeList(int[] u, int[] v, double[] w) {
+        this.u = u;
+        this.v = v;
+        this.w = w;
+        this.size = u.length;
+    }
+
+    /**
+     * Extracts the edges of a graph, in parallel over the slots.
+     * The method runs in O(n+e) time.
+     * @param g the graph (must not change meanwhile)
+     * @return the graph's edges ordered by their smaller slot.
+     */
+    static EdgeList of(indexed_graph g) {
+        int n = g.slotCount();
+        int[] offset = new int[n + 1];
+        IntStream.range(0, n).parallel().forEach(s -> {
+            if (!g.isLive(s)) return;
+            int c = 0;
+            for (int i = 0, d = g.degree(s); i < d; i++)
+                if (s < g.neighborAt(s, i)) c++;
+            offset[s + 1] = c;
+        });
+        for (int s = 0; s < n; s++) offset[s + 1] += offset[s];
+        int m = offset[n];
+        int[] u = new int[m], v = new int[m];
+        double[] w = new double[m];
+        IntStream.range(0, n).parallel().forEach(s -> {
+            if (!g.isLive(s)) return;
+            int k = offset[s];
+            for (int i = 0, d = g.degree(s); i < d; i++) {
+                int t = g.neighborAt(s, i);
+                if (s < t) {
+                    u[k] = s;
+                    v[k] = t;
+                    w[k] = g.weightAt(s, i);
+                    k++;
+                }
+            }
+        });
+        return new EdgeList(u, v, w);
+    }
+}
@@ -0,0 +1,71 @@
+package ex1.src;
+
+/**
+ * This class represents a network Voronoi partition: every reached node (by key)
+ * is labeled with its nearest facility and the distance to it.
+ * The data is kept in three parallel primitive arrays, ordered by non-decreasing distance.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class FacilityLabels {
+
+    private final int[] keys;
+    private final int[] facility;
+    private final double[] dist;
+
+    FacilityLabels(int[] keys, int[] facility, double[] dist) {
+        this.keys = keys;
+        this.facility = facility;
+        this.dist = dist;
+    }
+
+    /**
+     * @return the number of labeled nodes.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the key of the i'th node.
+     */
+    public int key(int i) {
+        return keys[i];
+    }
+
+    /**
+     * @return the key of the facility nearest to the i'th node.
+     */
+    public int facility(int i) {
+        return facility[i];
+    }
+
+    /**
+     * @return the distance between the i'th node and its nearest facility.
+     */
+    public double dist(int i) {
+        return dist[i];
+    }
+
+    /**
+     * @return the keys of the nodes (the internal array, not a copy).
+     */
+    public int[] keys() {
+        return keys;
+    }
+
+    /**
+     * @return the nearest facility of every node (the internal array, not a copy).
+     */
+    public int[] facilities() {
+        return facility;
+    }
+
+    /**
+     * @return the distance of every node to its facility (the internal array, not a copy).
+     */
+    public double[] distances() {
+        return dist;
+    }
+}
@@ -0,0 +1,74 @@
+package ex1.src;
+
+/**
+ * This class represents one change of an observable graph (see observable_graph):
+ * its type, the keys of the node or the edge that changed, the edge's weight
+ * (the new one for CONNECT and UPDATE_WEIGHT, the removed one for REMOVE_EDGE)
+ * and the ModeCount of the graph right after the change.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class GraphEvent {
+
+    public enum Type {ADD_NODE, CONNECT, UPDATE_WEIGHT, REMOVE_EDGE, REMOVE_NODE}
+
+    private final Type type;
+    private final int key1, key2;
+    private final double weight;
+    private final int mc;
+
+    GraphEvent(Type type, int key1, int key2, double weight, int mc) {
+        this.type = type;
+        this.key1 = key1;
+        this.key2 = key2;
+        this.weight = weight;
+        this.mc = mc;
+    }
+
+    /**
+     * @return the type of the change.
+     */
+    public Type type() {
+        return type;
+    }
+
+    /**
+     * @return the key of the node, or of the edge's first node.
+     */
+    public int key1() {
+        return key1;
+    }
+
+    /**
+     * @return the key of the edge's second node, -1 for node events.
+     */
+    public int key2() {
+        return key2;
+    }
+
+    /**
+     * @return the weight of the edge, 0 for node events.
+     */
+    public double weight() {
+        return weight;
+    }
+
+    /**
+     * @return the ModeCount of the graph after the change.
+     */
+    public int mc() {
+        return mc;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case ADD_NODE:
+            case REMOVE_NODE:
+                return type + "(" + key1 + ") mc=" + mc;
+            default:
+                return type + "(" + key1 + ", " + key2 + ", " + weight + ") mc=" + mc;
+        }
+    }
+}
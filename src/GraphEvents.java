@@ -0,0 +1,92 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class represents the listeners of an observable graph and the events of its open batch.
+ * An event is created only when there are listeners. Outside a batch it is delivered at once,
+ * inside a batch the events are collected and delivered together when the batch ends, or every
+ * FLUSH events, so a bulk load calls the listeners a few times instead of once per change.
+ * Like the graphs that use it, the class is not thread safe.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class GraphEvents {
+
+    private static final int FLUSH = 4096;
+
+    private final List<graph_listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<GraphEvent> pending = new ArrayList<>();
+    private int depth;
+
+    void add(graph_listener l) {
+        if (l == null) throw new NullPointerException("listener");
+        listeners.add(l);
+    }
+
+    void remove(graph_listener l) {
+        listeners.remove(l);
+    }
+
+    /**
+     * @return true iff some listener will receive the events - callers may skip the event otherwise.
+     */
+    boolean isActive() {
+        return !listeners.isEmpty();
+    }
+
+    void begin() {
+        depth++;
+    }
+
+    void end() {
+        if (depth == 0) throw new IllegalStateException("no open batch");
+        if (--depth == 0) flush();
+    }
+
+    void fire(GraphEvent.Type type, int key1, int key2, double weight, int mc) {
+        if (listeners.isEmpty()) return;
+        pending.add(new GraphEvent(type, key1, key2, weight, mc));
+        if (depth == 0 || pending.size() >= FLUSH) flush();
+    }
+
+    /**
+     * Reports events created by another graph - the graph a wrapper (WGraph_Journal) changes.
+     */
+    void fire(List<GraphEvent> events) {
+        if (listeners.isEmpty()) return;
+        pending.addAll(events);
+        if (depth == 0 || pending.size() >= FLUSH) flush();
+    }
+
+    /**
+     * Reports the changed edges of a batch of weight changes (updateWeights) together,
+     * all with the ModeCount after the batch.
+     * @param changed whether the weight of the i'th edge of the batch changed
+     */
+    void fireWeights(int[] key1, int[] key2, double[] w, boolean[] changed, int mc) {
+        begin();
+        try {
+            for (int i = 0; i < changed.length; i++)
+                if (changed[i]) fire(GraphEvent.Type.UPDATE_WEIGHT, key1[i], key2[i], w[i], mc);
+        } finally {
+            end();
+        }
+    }
+
+    /******************************  private methods  ******************************/
+
+    private void flush() {
+        if (pending.isEmpty()) return;
+        List<GraphEvent> events = Collections.unmodifiableList(pending);
+        try {
+            for (graph_listener l : listeners) l.graphChanged(events);
+        } finally {
+            pending.clear();
+        }
+    }
+}
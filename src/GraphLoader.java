@@ -0,0 +1,533 @@
+package ex1.src;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * This class represents a parallel graph loader, for graphs too large to be loaded
+ * through WGraph_Algo.load on a single thread. Two input formats are read:
+ * 1. A text edge list - a line "a b w" is an edge of the nodes a and b with the weight w
+ *    (1 if omitted), a line "a" is a node. Empty lines and lines starting with '#' are skipped.
+ * 2. A binary edge list (see writeBinary) - the node keys, then 16 bytes per edge.
+ * The file is split into one chunk per thread (text chunks start after a line break).
+ * Every thread parses its chunk into its own edge buffer, and the buffers are merged by a
+ * bulk build: the distinct keys are sorted (a node's slot is the rank of its key), the arcs
+ * are placed into adjacency arrays by a parallel counting sort over the slots, and every
+ * adjacency list is sorted and cleaned of repeated edges (the smallest weight is kept) and
+ * of self loops. The result is a WGraph_DS whose slots are in key order - a read-only
+ * WGraph_Compressed is built from it with new WGraph_Compressed(g).
+ * The time of the two phases of the last load is kept, for scaling reports.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class GraphLoader {
+
+    private static final int MAGIC = 0x57474531; //"WGE1"
+    private static final int BLOCK = 1 << 20;
+    private static final double[] POW10 = new double[16];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10;
+    }
+
+    private final int threads;
+    private long parseNanos, buildNanos;
+    private int lastNodes, lastEdges;
+
+    /**
+     * Creates a loader that uses all the available processors.
+     */
+    public GraphLoader() {
+        this(Parallel.defaultThreads());
+    }
+
+    /**
+     * Creates a loader with a given number of threads.
+     * @param threads the number of parsing and building threads (at least 1)
+     */
+    public GraphLoader(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * Loads a text edge list.
+     * The method runs in O((n+e)/threads + n*log(n)/threads) time.
+     * @param fileName the file to read
+     * @return the loaded graph.
+     * @throws IOException if the file cannot be read or a line is malformed
+     */
+    public WGraph_DS readEdgeList(String fileName) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = ch.size();
+            return load(c -> parseText(ch, size * c / threads, size * (c + 1) / threads, size));
+        }
+    }
+
+    /**
+     * Loads a binary edge list written by writeBinary.
+     * The method runs in O((n+e)/threads + n*log(n)/threads) time.
+     * @param fileName the file to read
+     * @return the loaded graph.
+     * @throws IOException if the file cannot be read or is not a binary edge list
+     */
+    public WGraph_DS readBinary(String fileName) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(12);
+            readFully(ch, header, 0);
+            if (header.getInt(0) != MAGIC) throw new IOException("not a binary edge list: " + fileName);
+            long nodes = header.getLong(4);
+            ByteBuffer count = ByteBuffer.allocate(8);
+            readFully(ch, count, 12 + 4 * nodes);
+            long edges = count.getLong(0);
+            long edgesAt = 20 + 4 * nodes;
+            if (nodes < 0 || edges < 0 || edgesAt + 16 * edges != ch.size())
+                throw new IOException("truncated binary edge list: " + fileName);
+            return load(c -> parseBinary(ch, 12 + 4 * (nodes * c / threads), nodes * (c + 1) / threads - nodes * c / threads,
+                    edgesAt + 16 * (edges * c / threads), edges * (c + 1) / threads - edges * c / threads));
+        }
+    }
+
+    /**
+     * Writes a graph as a binary edge list: the int MAGIC, the long number of nodes and
+     * their int keys, the long number of edges and every edge once as (int, int, double).
+     * @param g the graph
+     * @param fileName the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeBinary(weighted_graph g, String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), BLOCK))) {
+            out.writeInt(MAGIC);
+            out.writeLong(g.nodeSize());
+            for (node_info n : g.getV()) out.writeInt(n.getKey());
+            out.writeLong(g.edgeSize());
+            for (node_info n : g.getV()) {
+                for (node_info ni : g.getV(n.getKey())) {
+                    if (n.getKey() < ni.getKey()) {
+                        out.writeInt(n.getKey());
+                        out.writeInt(ni.getKey());
+                        out.writeDouble(g.getEdge(n.getKey(), ni.getKey()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a graph as a text edge list: every edge once, and a line for every node without edges.
+     * The weights are written exactly (Double.toString).
+     * @param g the graph
+     * @param fileName the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeEdgeList(weighted_graph g, String fileName) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.US_ASCII), BLOCK)) {
+            for (node_info n : g.getV()) {
+                boolean alone = true;
+                for (node_info ni : g.getV(n.getKey())) {
+                    alone = false;
+                    if (n.getKey() < ni.getKey())
+                        out.write(n.getKey() + " " + ni.getKey() + " " + g.getEdge(n.getKey(), ni.getKey()) + "\n");
+                }
+                if (alone) out.write(n.getKey() + "\n");
+            }
+        }
+    }
+
+    /**
+     * @return the time (in milliseconds) the last load spent reading and parsing the chunks.
+     */
+    public double parseMillis() {
+        return parseNanos / 1e6;
+    }
+
+    /**
+     * @return the time (in milliseconds) the last load spent building the graph.
+     */
+    public double buildMillis() {
+        return buildNanos / 1e6;
+    }
+
+    /**
+     * @return a one line summary of the last load: its size, threads and phase times.
+     */
+    public String report() {
+        double total = (parseNanos + buildNanos) / 1e6;
+        return String.format("%d nodes, %d edges, %d threads: parse %.0f ms, build %.0f ms, total %.0f ms (%.1f M edges/s)",
+                lastNodes, lastEdges, threads, parseMillis(), buildMillis(), total, lastEdges / total / 1000);
+    }
+
+    /******************************  private methods  ******************************/
+
+    private interface ChunkParser {
+        Edges parse(int chunk) throws IOException;
+    }
+
+    //Parses the chunks on the pool, then builds the graph on it
+    private WGraph_DS load(ChunkParser parser) throws IOException {
+        long start = System.nanoTime();
+        Object[] parsed = Parallel.run(threads, () -> IntStream.range(0, threads).parallel().mapToObj(c -> {
+            try {
+                return parser.parse(c);
+            } catch (IOException e) {
+                return e;
+            }
+        }).toArray());
+        Edges[] parts = new Edges[threads];
+        for (int c = 0; c < threads; c++) {
+            if (parsed[c] instanceof IOException) throw (IOException) parsed[c];
+            parts[c] = (Edges) parsed[c];
+        }
+        long mid = System.nanoTime();
+        WGraph_DS g = Parallel.run(threads, () -> build(parts));
+        parseNanos = mid - start;
+        buildNanos = System.nanoTime() - mid;
+        lastNodes = g.nodeSize();
+        lastEdges = g.edgeSize();
+        return g;
+    }
+
+    //The bulk build, on the calling pool
+    private static WGraph_DS build(Edges[] parts) {
+        //1. the distinct keys in increasing order - marked in bitmaps when the keys are dense,
+        //otherwise each part's are sorted, then all of them
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE, endpoints = 0;
+        for (Edges p : parts) {
+            min = Math.min(min, p.min);
+            max = Math.max(max, p.max);
+            endpoints += p.nodeCount + 2L * p.size;
+        }
+        int[] all;
+        int n;
+        if (endpoints == 0) {
+            all = new int[0];
+            n = 0;
+        } else if ((max - min) * parts.length < 32 * endpoints && max - min < Integer.MAX_VALUE - 64) {
+            //the bitmaps together take at most the memory of the endpoints
+            long base = min;
+            int words = (int) ((max - min) / 64) + 1;
+            long[][] marks = Arrays.stream(parts).parallel().map(p -> p.mark(base, words)).toArray(long[][]::new);
+            long[] bits = marks[0];
+            for (int i = 1; i < marks.length; i++)
+                for (int j = 0; j < bits.length; j++) bits[j] |= marks[i][j];
+            n = 0;
+            for (long word : bits) n += Long.bitCount(word);
+            all = new int[n];
+            for (int j = 0, k = 0; j < bits.length; j++)
+                for (long word = bits[j]; word != 0; word &= word - 1)
+                    all[k++] = (int) (base + 64L * j + Long.numberOfTrailingZeros(word));
+        } else {
+            int[][] distinct = Arrays.stream(parts).parallel().map(Edges::distinctKeys).toArray(int[][]::new);
+            int total = 0;
+            for (int[] d : distinct) total += d.length;
+            all = new int[total];
+            for (int i = 0, at = 0; i < distinct.length; at += distinct[i].length, i++)
+                System.arraycopy(distinct[i], 0, all, at, distinct[i].length);
+            Arrays.parallelSort(all);
+            n = unique(all, all.length);
+        }
+        KeyIndex index = new KeyIndex(n);
+        for (int i = 0; i < n; i++) index.add(all[i]);
+        //2. keys to slots, and the degrees (self loops are dropped)
+        AtomicIntegerArray count = new AtomicIntegerArray(n);
+        Arrays.stream(parts).parallel().forEach(p -> {
+            for (int i = 0; i < p.size; i++) {
+                int a = index.slotOf(p.a[i]), b = index.slotOf(p.b[i]);
+                p.a[i] = a;
+                p.b[i] = b;
+                if (a != b) {
+                    count.incrementAndGet(a);
+                    count.incrementAndGet(b);
+                }
+            }
+        });
+        int[] offset = new int[n + 1];
+        long arcs = 0;
+        for (int s = 0; s < n; s++) {
+            offset[s] = (int) arcs;
+            arcs += count.get(s);
+            if (arcs > Integer.MAX_VALUE - 8) throw new IllegalStateException("too many edges: " + arcs / 2);
+        }
+        offset[n] = (int) arcs;
+        //3. the counting sort: every arc goes to the next free position of its source
+        AtomicIntegerArray cursor = count;
+        for (int s = 0; s < n; s++) cursor.set(s, offset[s]);
+        int[] nbr = new int[(int) arcs];
+        double[] w = new double[(int) arcs];
+        Arrays.stream(parts).parallel().forEach(p -> {
+            for (int i = 0; i < p.size; i++) {
+                int a = p.a[i], b = p.b[i];
+                if (a == b) continue;
+                int at = cursor.getAndIncrement(a);
+                nbr[at] = b;
+                w[at] = p.w[i];
+                at = cursor.getAndIncrement(b);
+                nbr[at] = a;
+                w[at] = p.w[i];
+            }
+        });
+        Arrays.fill(parts, null);
+        //4. every list sorted by neighbor, repeated edges merged
+        int[] degree = new int[n];
+        ThreadLocal<long[]> scratch = ThreadLocal.withInitial(() -> new long[16]);
+        IntStream.range(0, n).parallel().forEach(s -> degree[s] = sortList(nbr, w, offset[s], offset[s + 1] - offset[s], scratch));
+        return new WGraph_DS(index, offset, degree, nbr, w);
+    }
+
+    //Sorts a list by neighbor and keeps the smallest weight of every neighbor, returns its new length
+    private static int sortList(int[] nbr, double[] w, int from, int d, ThreadLocal<long[]> scratch) {
+        if (d < 2) return d;
+        long[] order = scratch.get();
+        if (order.length < d) {
+            order = new long[Math.max(d, order.length * 2)];
+            scratch.set(order);
+        }
+        for (int i = 0; i < d; i++) order[i] = ((long) nbr[from + i] << 32) | i;
+        Arrays.sort(order, 0, d);
+        double[] weights = Arrays.copyOfRange(w, from, from + d);
+        int k = 0;
+        for (int i = 0; i < d; i++) {
+            int u = (int) (order[i] >>> 32);
+            double x = weights[(int) order[i]];
+            if (k > 0 && nbr[from + k - 1] == u) {
+                w[from + k - 1] = Math.min(w[from + k - 1], x);
+            } else {
+                nbr[from + k] = u;
+                w[from + k] = x;
+                k++;
+            }
+        }
+        return k;
+    }
+
+    //Removes the repeats of a sorted array prefix in place, returns the new length
+    private static int unique(int[] a, int length) {
+        int k = 0;
+        for (int i = 0; i < length; i++)
+            if (k == 0 || a[k - 1] != a[i]) a[k++] = a[i];
+        return k;
+    }
+
+    //Parses the lines that start in [start, end)
+    private static Edges parseText(FileChannel ch, long start, long end, long size) throws IOException {
+        Edges e = new Edges();
+        Input in = new Input(ch, start == 0 ? 0 : start - 1, size);
+        if (start > 0) { //the line that crosses the chunk's start belongs to the previous chunk
+            int c;
+            while ((c = in.read()) != -1 && c != '\n') ;
+        }
+        byte[] token = new byte[64];
+        long[] value = new long[3];
+        double[] weight = new double[1];
+        while (in.position() < end) {
+            long lineAt = in.position();
+            int tokens = 0, c = in.read();
+            weight[0] = 1;
+            while (c != -1 && c != '\n') {
+                if (c == ' ' || c == '\t' || c == '\r' || c == ',') {
+                    c = in.read();
+                    continue;
+                }
+                if (c == '#' && tokens == 0) {
+                    while (c != -1 && c != '\n') c = in.read();
+                    break;
+                }
+                int len = 0;
+                while (c != -1 && c != '\n' && c != ' ' && c != '\t' && c != '\r' && c != ',') {
+                    if (len == token.length) token = Arrays.copyOf(token, len * 2);
+                    token[len++] = (byte) c;
+                    c = in.read();
+                }
+                if (tokens == 3) throw malformed(lineAt);
+                if (tokens < 2) value[tokens] = parseInt(token, len, lineAt);
+                else weight[0] = parseDouble(token, len, lineAt);
+                tokens++;
+            }
+            if (tokens == 1) e.addNode((int) value[0]);
+            else if (tokens > 1) e.add((int) value[0], (int) value[1], weight[0]);
+            if (c == -1) break;
+        }
+        return e;
+    }
+
+    //Parses a range of the node keys and a range of the edges
+    private static Edges parseBinary(FileChannel ch, long nodesAt, long nodes, long edgesAt, long edges) throws IOException {
+        Edges e = new Edges();
+        ByteBuffer buf = ByteBuffer.allocate(BLOCK);
+        for (long i = 0; i < nodes; ) {
+            int k = (int) Math.min(nodes - i, BLOCK / 4);
+            buf.clear().limit(4 * k);
+            readFully(ch, buf, nodesAt + 4 * i);
+            for (int j = 0; j < k; j++) e.addNode(buf.getInt(4 * j));
+            i += k;
+        }
+        for (long i = 0; i < edges; ) {
+            int k = (int) Math.min(edges - i, BLOCK / 16);
+            buf.clear().limit(16 * k);
+            readFully(ch, buf, edgesAt + 16 * i);
+            for (int j = 0; j < k; j++) e.add(buf.getInt(16 * j), buf.getInt(16 * j + 4), buf.getDouble(16 * j + 8));
+            i += k;
+        }
+        return e;
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int r = ch.read(buf, position);
+            if (r < 0) throw new EOFException();
+            position += r;
+        }
+        buf.flip();
+    }
+
+    private static long parseInt(byte[] t, int len, long lineAt) throws IOException {
+        int i = 0;
+        boolean negative = false;
+        if (len > 0 && (t[0] == '-' || t[0] == '+')) {
+            negative = t[0] == '-';
+            i++;
+        }
+        if (i == len || len - i > 10) throw malformed(lineAt);
+        long v = 0;
+        for (; i < len; i++) {
+            int d = t[i] - '0';
+            if (d < 0 || d > 9) throw malformed(lineAt);
+            v = v * 10 + d;
+        }
+        if (negative) v = -v;
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) throw malformed(lineAt);
+        return v;
+    }
+
+    //Plain decimals of up to 15 digits are exact doubles divided by an exact power of ten
+    //(one correctly rounded division), anything else goes through Double.parseDouble
+    private static double parseDouble(byte[] t, int len, long lineAt) throws IOException {
+        int i = 0, digits = 0, fraction = -1;
+        boolean negative = false;
+        if (len > 0 && (t[0] == '-' || t[0] == '+')) {
+            negative = t[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        boolean simple = i < len;
+        for (; i < len && simple; i++) {
+            int d = t[i] - '0';
+            if (d >= 0 && d <= 9) {
+                mantissa = mantissa * 10 + d;
+                if (++digits > 15) simple = false;
+                if (fraction >= 0) fraction++;
+            } else if (t[i] == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                simple = false;
+            }
+        }
+        if (simple && digits > 0) {
+            double v = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+            return negative ? -v : v;
+        }
+        try {
+            return Double.parseDouble(new String(t, 0, len, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw malformed(lineAt);
+        }
+    }
+
+    private static IOException malformed(long lineAt) {
+        return new IOException("malformed edge list line at byte " + lineAt);
+    }
+
+    /*****************************  private classes  ******************************/
+
+    //A buffered sequential reader of a file channel, starting at a given position
+    private static class Input {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocate(BLOCK);
+        private final long size;
+        private long bufAt;
+
+        Input(FileChannel ch, long position, long size) {
+            this.ch = ch;
+            this.size = size;
+            bufAt = position;
+            buf.limit(0);
+        }
+
+        long position() {
+            return bufAt + buf.position();
+        }
+
+        int read() throws IOException {
+            if (!buf.hasRemaining()) {
+                bufAt += buf.limit();
+                if (bufAt >= size) return -1;
+                buf.clear().limit((int) Math.min(BLOCK, size - bufAt));
+                readFully(ch, buf, bufAt);
+            }
+            return buf.get();
+        }
+    }
+
+    //A chunk's parsed edges and nodes, in growable primitive arrays
+    private static class Edges {
+        int[] a = new int[1024], b = new int[1024], nodes = new int[16];
+        double[] w = new double[1024];
+        int size, nodeCount;
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+
+        void add(int x, int y, double weight) {
+            if (size == a.length) {
+                a = Arrays.copyOf(a, size * 2);
+                b = Arrays.copyOf(b, size * 2);
+                w = Arrays.copyOf(w, size * 2);
+            }
+            a[size] = x;
+            b[size] = y;
+            w[size++] = weight;
+            min = Math.min(min, Math.min(x, y));
+            max = Math.max(max, Math.max(x, y));
+        }
+
+        void addNode(int key) {
+            if (nodeCount == nodes.length) nodes = Arrays.copyOf(nodes, nodeCount * 2);
+            nodes[nodeCount++] = key;
+            min = Math.min(min, key);
+            max = Math.max(max, key);
+        }
+
+        //A bitmap of the keys, bit k-base is set for every key k
+        long[] mark(long base, int words) {
+            long[] bits = new long[words];
+            for (int i = 0; i < nodeCount; i++) set(bits, nodes[i] - base);
+            for (int i = 0; i < size; i++) {
+                set(bits, a[i] - base);
+                set(bits, b[i] - base);
+            }
+            return bits;
+        }
+
+        private static void set(long[] bits, long k) {
+            bits[(int) (k >>> 6)] |= 1L << k;
+        }
+
+        int[] distinctKeys() {
+            int[] keys = Arrays.copyOf(nodes, nodeCount + 2 * size);
+            System.arraycopy(a, 0, keys, nodeCount, size);
+            System.arraycopy(b, 0, keys, nodeCount + size, size);
+            Arrays.sort(keys);
+            return Arrays.copyOf(keys, unique(keys, keys.length));
+        }
+    }
+}
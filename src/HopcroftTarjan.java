@@ -0,0 +1,99 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * Bridges, articulation points and biconnected components by the Hopcroft-Tarjan
+ * depth first search, in O(n+e) time.
+ * The search is iterative - an explicit stack of slots and a cursor into the neighbors of
+ * every node on it (indexed_graph.neighbors) replace the recursion - so arbitrarily deep
+ * graphs (e.g. a path of millions of nodes) cannot overflow the thread's stack. The rest of
+ * the state is kept in primitive arrays.
+ * For every tree edge p-v, once v is finished:
+ * 1. low[v] >= disc[p] - p separates v's subtree, so the edges pushed since p-v form a
+ *    biconnected component (and p is an articulation point, unless it is a root).
+ * 2. low[v] > disc[p] - not even p-v itself is on a cycle, so it is a bridge.
+ * A root is an articulation point iff it has more than one tree child.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class HopcroftTarjan {
+
+    private HopcroftTarjan() {
+    }
+
+    static BiconnectedComponents run(indexed_graph g) {
+        int n = g.slotCount();
+        int m = g.edgeSize();
+        int[] disc = new int[n], low = new int[n], parent = new int[n];
+        indexed_graph.Neighbors[] cursor = new indexed_graph.Neighbors[n];
+        int[] stack = new int[n];
+        boolean[] articulation = new boolean[n];
+        //the edges of the current (not yet closed) components, as slot pairs
+        int[] edgeStackFrom = new int[m], edgeStackTo = new int[m];
+        int[] edgeFrom = new int[m], edgeTo = new int[m], edgeComponent = new int[m];
+        int[] bridgeFrom = new int[16], bridgeTo = new int[16];
+        int time = 0, edges = 0, sp = 0, esp = 0, bridges = 0, components = 0;
+        for (int root = 0; root < n; root++) {
+            if (!g.isLive(root) || disc[root] != 0) continue;
+            disc[root] = low[root] = ++time;
+            parent[root] = -1;
+            cursor[root] = g.neighbors(root);
+            stack[sp++] = root;
+            int rootChildren = 0;
+            while (sp > 0) {
+                int v = stack[sp - 1];
+                if (cursor[v].hasNext()) {
+                    int w = cursor[v].next();
+                    if (disc[w] == 0) { //tree edge
+                        parent[w] = v;
+                        disc[w] = low[w] = ++time;
+                        edgeStackFrom[esp] = v;
+                        edgeStackTo[esp++] = w;
+                        cursor[w] = g.neighbors(w);
+                        stack[sp++] = w;
+                        if (v == root) rootChildren++;
+                    } else if (w != parent[v] && disc[w] < disc[v]) { //back edge
+                        low[v] = Math.min(low[v], disc[w]);
+                        edgeStackFrom[esp] = v;
+                        edgeStackTo[esp++] = w;
+                    }
+                    continue;
+                }
+                sp--;
+                cursor[v] = null;
+                int p = parent[v];
+                if (p == -1) continue;
+                low[p] = Math.min(low[p], low[v]);
+                if (low[v] >= disc[p]) {
+                    if (p != root) articulation[p] = true;
+                    int from, to;
+                    do {
+                        from = edgeStackFrom[--esp];
+                        to = edgeStackTo[esp];
+                        edgeFrom[edges] = g.keyAt(from);
+                        edgeTo[edges] = g.keyAt(to);
+                        edgeComponent[edges++] = components;
+                    } while (from != p || to != v);
+                    components++;
+                    if (low[v] > disc[p]) {
+                        if (bridges == bridgeFrom.length) {
+                            bridgeFrom = Arrays.copyOf(bridgeFrom, bridges * 2);
+                            bridgeTo = Arrays.copyOf(bridgeTo, bridges * 2);
+                        }
+                        bridgeFrom[bridges] = g.keyAt(p);
+                        bridgeTo[bridges++] = g.keyAt(v);
+                    }
+                }
+            }
+            if (rootChildren > 1) articulation[root] = true;
+        }
+        int count = 0;
+        for (int s = 0; s < n; s++) if (articulation[s]) count++;
+        int[] points = new int[count];
+        for (int s = 0, k = 0; s < n; s++) if (articulation[s]) points[k++] = g.keyAt(s);
+        return new BiconnectedComponents(points, Arrays.copyOf(bridgeFrom, bridges), Arrays.copyOf(bridgeTo, bridges),
+                edgeFrom, edgeTo, edgeComponent, components);
+    }
+}
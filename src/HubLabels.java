@@ -0,0 +1,343 @@
+package ex1.src;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * This class represents an exact distance oracle of a (read-only) graph by hub labeling:
+ * every node u gets a label - a list of hubs h with their distances d(u, h), sorted by hub -
+ * such that every two nodes share a hub on one of their shortest paths. The distance of two
+ * nodes is then the minimum of d(s, h) + d(h, t) over the hubs of both labels, found by one
+ * merge of the two sorted labels, in microseconds.
+ * Build (pruned landmark labeling): the nodes are ranked by their estimated betweenness (the
+ * subtrees they hang in a few sampled shortest path trees, then the degree), and a Dijkstra
+ * search runs from every node in rank order. A search does not continue through a node whose
+ * distance is already answered by the labels built so far, and adds itself as a hub to the
+ * label of every node it settles (its own included). In parallel, the searches of threads consecutive
+ * hubs run together, each one pruned by the labels of the hubs before them (so the labels
+ * may hold a few redundant hubs, never a wrong distance).
+ * The labels are flat primitive arrays: the sorted keys, the offset of every label, and the
+ * hub ranks and distances of all the labels. save(fileName) writes them as they are, and
+ * map(fileName) memory-maps such a file, so a large oracle is opened without being read.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class HubLabels {
+
+    private static final int MAGIC = 0x48554231; //"HUB1"
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final int SAMPLES = 16;
+
+    private final IntBuffer keys;
+    private final LongBuffer offset;
+    private final IntBuffer hubs;
+    private final DoubleBuffer dists;
+    private final int n;
+
+    private HubLabels(IntBuffer keys, LongBuffer offset, IntBuffer hubs, DoubleBuffer dists) {
+        this.keys = keys;
+        this.offset = offset;
+        this.hubs = hubs;
+        this.dists = dists;
+        this.n = keys.limit();
+    }
+
+    /**
+     * Builds the labels of a graph on all the processors.
+     * @param g the graph (must not change meanwhile)
+     * @return the oracle.
+     */
+    public static HubLabels build(weighted_graph g) {
+        return build(g, Parallel.defaultThreads());
+    }
+
+    /**
+     * Builds the labels of a graph.
+     * @param g the graph (must not change meanwhile)
+     * @param threads the number of searches that run together
+     * @return the oracle.
+     */
+    public static HubLabels build(weighted_graph g, int threads) {
+        indexed_graph ig = g instanceof indexed_graph ? (indexed_graph) g : new WGraph_DS(g);
+        return Parallel.run(threads, () -> new Builder(ig).run(threads));
+    }
+
+    /**
+     * Memory-maps a file written by save.
+     * @param fileName the file
+     * @return the oracle, backed by the file.
+     * @throws IOException if the file cannot be read or is not a label file
+     */
+    public static HubLabels map(String fileName) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, 16);
+            if (header.getInt(0) != MAGIC) throw new IOException("not a hub label file: " + fileName);
+            int n = header.getInt(4);
+            long total = header.getLong(8);
+            long at = 16;
+            IntBuffer keys = section(ch, at, 4L * n).asIntBuffer();
+            at += 4L * n;
+            LongBuffer offset = section(ch, at, 8L * (n + 1)).asLongBuffer();
+            at += 8L * (n + 1);
+            IntBuffer hubs = section(ch, at, 4 * total).asIntBuffer();
+            at += 4 * total;
+            DoubleBuffer dists = section(ch, at, 8 * total).asDoubleBuffer();
+            if (at + 8 * total != ch.size()) throw new IOException("truncated hub label file: " + fileName);
+            return new HubLabels(keys, offset, hubs, dists);
+        }
+    }
+
+    /**
+     * Writes the labels to a file that map can open.
+     * @param fileName the file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(n);
+            out.writeLong(entries());
+            for (int i = 0; i < n; i++) out.writeInt(keys.get(i));
+            for (int i = 0; i <= n; i++) out.writeLong(offset.get(i));
+            for (long i = 0; i < entries(); i++) out.writeInt(hubs.get((int) i));
+            for (long i = 0; i < entries(); i++) out.writeDouble(dists.get((int) i));
+        }
+    }
+
+    /**
+     * returns the length of the shortest path between src to dest.
+     * The method runs in O(|L(src)|+|L(dest)|+log(n)) time.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return the distance, -1 if there is no path or no such node.
+     */
+    public double shortestPathDist(int src, int dest) {
+        int s = indexOf(src), t = indexOf(dest);
+        if (s < 0 || t < 0) return -1;
+        if (s == t) return 0;
+        int i = (int) offset.get(s), iEnd = (int) offset.get(s + 1);
+        int j = (int) offset.get(t), jEnd = (int) offset.get(t + 1);
+        double best = INFINITY;
+        while (i < iEnd && j < jEnd) {
+            int a = hubs.get(i), b = hubs.get(j);
+            if (a < b) {
+                i++;
+            } else if (a > b) {
+                j++;
+            } else {
+                best = Math.min(best, dists.get(i++) + dists.get(j++));
+            }
+        }
+        return best == INFINITY ? -1 : best;
+    }
+
+    /**
+     * @return the number of nodes.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * @return the number of (hub, distance) entries of all the labels.
+     */
+    public long entries() {
+        return offset.get(n);
+    }
+
+    /**
+     * @return the average number of hubs per label.
+     */
+    public double averageLabelSize() {
+        return n == 0 ? 0 : (double) entries() / n;
+    }
+
+    /******************************  private methods  ******************************/
+
+    private int indexOf(int key) {
+        int lo = 0, hi = n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1, k = keys.get(mid);
+            if (k < key) lo = mid + 1;
+            else if (k > key) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private static ByteBuffer section(FileChannel ch, long at, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) throw new IOException("a label section is too large to map: " + length);
+        return ch.map(FileChannel.MapMode.READ_ONLY, at, length);
+    }
+
+    /*****************************  private classes  ******************************/
+
+    //The pruned landmark labeling of a graph, hub batch after hub batch
+    private static class Builder {
+        private final indexed_graph g;
+        private final int n;
+        private final int[] rank, bySlot; //the rank of every slot, the slot of every rank
+        //the labels so far, by slot: hub ranks and distances
+        private final int[][] labelHubs;
+        private final double[][] labelDists;
+        private final int[] labelSize;
+        private final ThreadLocal<Search> searches;
+
+        Builder(indexed_graph g) {
+            this.g = g;
+            n = g.slotCount();
+            double[] score = treeSizes(g);
+            Integer[] order = new Integer[g.nodeSize()];
+            int k = 0;
+            for (int s = 0; s < n; s++) if (g.isLive(s)) order[k++] = s;
+            Arrays.sort(order, (a, b) -> score[a] != score[b] ? Double.compare(score[b], score[a])
+                    : g.degree(a) != g.degree(b) ? g.degree(b) - g.degree(a) : a - b);
+            rank = new int[n];
+            bySlot = new int[k];
+            for (int r = 0; r < k; r++) {
+                bySlot[r] = order[r];
+                rank[bySlot[r]] = r;
+            }
+            labelHubs = new int[n][];
+            labelDists = new double[n][];
+            labelSize = new int[n];
+            for (int s = 0; s < n; s++) {
+                labelHubs[s] = new int[4];
+                labelDists[s] = new double[4];
+            }
+            searches = ThreadLocal.withInitial(() -> new Search(n));
+        }
+
+        //The hub order: the nodes that hang the largest subtrees in a few sampled shortest path
+        //trees (an estimate of their betweenness) first - on sparse, road-like graphs the degree
+        //alone does not tell the hubs apart
+        private static double[] treeSizes(indexed_graph g) {
+            int n = g.slotCount();
+            int[] live = new int[g.nodeSize()];
+            int k = 0;
+            for (int s = 0; s < n; s++) if (g.isLive(s)) live[k++] = s;
+            Random rnd = new Random(k);
+            int[] pivots = new int[Math.min(k, SAMPLES)];
+            for (int i = 0; i < pivots.length; i++) pivots[i] = live[rnd.nextInt(k)];
+            ThreadLocal<Dijkstra> dj = ThreadLocal.withInitial(() -> new Dijkstra(g));
+            return Arrays.stream(pivots).parallel().mapToObj(p -> {
+                Dijkstra d = dj.get();
+                d.reset();
+                d.seed(p, 0, 0);
+                d.runAll();
+                double[] size = new double[n];
+                for (int i = d.settledCount() - 1; i >= 0; i--) {
+                    int v = d.settledAt(i);
+                    size[v]++;
+                    if (d.parent(v) != Dijkstra.NONE) size[d.parent(v)] += size[v];
+                }
+                return size;
+            }).reduce(new double[n], (a, b) -> {
+                double[] sum = new double[n];
+                for (int i = 0; i < n; i++) sum[i] = a[i] + b[i];
+                return sum;
+            });
+        }
+
+        HubLabels run(int threads) {
+            int hubsCount = bySlot.length;
+            for (int first = 0; first < hubsCount; first += threads) {
+                int from = first, to = Math.min(hubsCount, first + threads);
+                //the searches of a batch only read the labels, their new entries are added after it
+                long[][] found = IntStream.range(from, to).parallel().mapToObj(this::prunedSearch).toArray(long[][]::new);
+                for (int r = from; r < to; r++) {
+                    long[] f = found[r - from];
+                    for (int i = 0; i < f.length; i += 2) add((int) f[i], r, Double.longBitsToDouble(f[i + 1]));
+                }
+            }
+            return freeze();
+        }
+
+        //A Dijkstra search from the hub of a given rank that stops at the nodes the labels already
+        //answer, returns the (slot, distance bits) pairs it found
+        private long[] prunedSearch(int r) {
+            Search q = searches.get();
+            SearchState state = q.state;
+            int h = bySlot[r];
+            //the hub's own label, spread by hub rank, for O(1) lookups
+            for (int i = 0; i < labelSize[h]; i++) q.hubDist[labelHubs[h][i]] = labelDists[h][i];
+            state.reset();
+            state.push(h, 0);
+            long[] out = new long[16];
+            int k = 0;
+            while (!state.isEmpty()) {
+                int u = state.pop();
+                double du = state.dist(u);
+                if (rank[u] < r || covered(q, u, du)) continue;
+                if (k + 2 > out.length) out = Arrays.copyOf(out, out.length * 2);
+                out[k++] = u;
+                out[k++] = Double.doubleToRawLongBits(du);
+                for (int i = 0, d = g.degree(u); i < d; i++) state.relax(g.neighborAt(u, i), du + g.weightAt(u, i));
+            }
+            for (int i = 0; i < labelSize[h]; i++) q.hubDist[labelHubs[h][i]] = INFINITY;
+            return Arrays.copyOf(out, k);
+        }
+
+        //Whether the labels built so far already give a distance of at most d between the hub and u
+        private boolean covered(Search q, int u, double d) {
+            int[] hs = labelHubs[u];
+            double[] ds = labelDists[u];
+            for (int i = 0, size = labelSize[u]; i < size; i++)
+                if (q.hubDist[hs[i]] + ds[i] <= d) return true;
+            return false;
+        }
+
+        private void add(int u, int hub, double d) {
+            int size = labelSize[u];
+            if (size == labelHubs[u].length) {
+                labelHubs[u] = Arrays.copyOf(labelHubs[u], size * 2);
+                labelDists[u] = Arrays.copyOf(labelDists[u], size * 2);
+            }
+            labelHubs[u][size] = hub;
+            labelDists[u][size] = d;
+            labelSize[u]++;
+        }
+
+        //The flat arrays, the nodes in key order
+        private HubLabels freeze() {
+            int count = bySlot.length;
+            long[] byKey = new long[count];
+            for (int i = 0; i < count; i++) byKey[i] = ((long) g.keyAt(bySlot[i]) << 32) | bySlot[i];
+            Arrays.sort(byKey);
+            int[] keys = new int[count];
+            long[] offset = new long[count + 1];
+            for (int i = 0; i < count; i++) {
+                keys[i] = (int) (byKey[i] >> 32);
+                offset[i + 1] = offset[i] + labelSize[(int) byKey[i]];
+            }
+            if (offset[count] > Integer.MAX_VALUE) throw new IllegalStateException("too many label entries: " + offset[count]);
+            int[] hubs = new int[(int) offset[count]];
+            double[] dists = new double[hubs.length];
+            for (int i = 0; i < count; i++) {
+                int s = (int) byKey[i];
+                System.arraycopy(labelHubs[s], 0, hubs, (int) offset[i], labelSize[s]);
+                System.arraycopy(labelDists[s], 0, dists, (int) offset[i], labelSize[s]);
+            }
+            return new HubLabels(IntBuffer.wrap(keys), LongBuffer.wrap(offset), IntBuffer.wrap(hubs), DoubleBuffer.wrap(dists));
+        }
+    }
+
+    //The state of one search, and the current hub's label by hub rank
+    private static class Search {
+        final SearchState state;
+        final double[] hubDist;
+
+        Search(int n) {
+            state = new SearchState(n);
+            hubDist = new double[n];
+            Arrays.fill(hubDist, INFINITY);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * This class represents a mapping between arbitrary int keys and compact slots 0..slotCount()-1.
+ * The forward direction (key -> slot) is a primitive open-addressing hash table with linear probing,
+ * the reverse direction (slot -> key) is a plain int array.
+ * Slots released by remove(int) are recycled by the next add(int), so slotCount() never grows
+ * beyond the largest number of keys that were alive at the same time.
+ * Algorithms can therefore keep their per-node state in flat arrays of size slotCount()
+ * even when the keys themselves are sparse 32-bit values.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class KeyIndex implements Serializable {
+
+    private static final int EMPTY = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] table;   // hash position -> slot (or EMPTY)
+    private int[] keys;    // slot -> key
+    private boolean[] live;
+    private int[] free;    // stack of released slots
+    private int freeSize, size, slotCount;
+
+    public KeyIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty index that can hold the given amount of keys without resizing.
+     * @param expected the expected number of keys
+     */
+    public KeyIndex(int expected) {
+        int cap = MIN_CAPACITY;
+        while (cap < expected * 2) cap <<= 1;
+        table = new int[cap];
+        Arrays.fill(table, EMPTY);
+        keys = new int[Math.max(expected, MIN_CAPACITY)];
+        live = new boolean[keys.length];
+        free = new int[MIN_CAPACITY];
+    }
+
+    /**
+     * Creates a deep copy of a given other index, the slots of the copy are identical to the other's.
+     * @param other index to copy from
+     */
+    public KeyIndex(KeyIndex other) {
+        table = other.table.clone();
+        keys = other.keys.clone();
+        live = other.live.clone();
+        free = other.free.clone();
+        freeSize = other.freeSize;
+        size = other.size;
+        slotCount = other.slotCount;
+    }
+
+    /**
+     * Returns the slot of a given key.
+     * The method runs in O(1) expected time.
+     * @param key the key to look for
+     * @return the slot of the key, -1 if the key is not in the index.
+     */
+    public int slotOf(int key) {
+        int mask = table.length - 1;
+        for (int h = hash(key) & mask; ; h = (h + 1) & mask) {
+            int s = table[h];
+            if (s == EMPTY) return -1;
+            if (keys[s] == key) return s;
+        }
+    }
+
+    /**
+     * @param slot a slot of this index
+     * @return the key stored in the given slot (meaningful only if the slot is live).
+     */
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * @param slot a slot number
+     * @return true iff the slot currently holds a key.
+     */
+    public boolean isLive(int slot) {
+        return slot >= 0 && slot < slotCount && live[slot];
+    }
+
+    /**
+     * @return true iff the given key is in the index.
+     */
+    public boolean contains(int key) {
+        return slotOf(key) != -1;
+    }
+
+    /**
+     * Adds a key to the index, reusing a released slot when one is available.
+     * If the key is already in the index its current slot is returned.
+     * The method runs in O(1) amortized time.
+     * @param key the key to add
+     * @return the slot of the key
+     */
+    public int add(int key) {
+        int mask = table.length - 1;
+        int h = hash(key) & mask;
+        for (; table[h] != EMPTY; h = (h + 1) & mask) {
+            if (keys[table[h]] == key) return table[h];
+        }
+        int s;
+        if (freeSize > 0) {
+            s = free[--freeSize];
+        } else {
+            if (slotCount == keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                live = Arrays.copyOf(live, keys.length);
+            }
+            s = slotCount++;
+        }
+        keys[s] = key;
+        live[s] = true;
+        table[h] = s;
+        size++;
+        if (size * 2 > table.length) rehash(table.length * 2);
+        return s;
+    }
+
+    /**
+     * Removes a key from the index and releases its slot for reuse.
+     * Uses backward-shift deletion, so the table never holds tombstones.
+     * The method runs in O(1) expected time.
+     * @param key the key to remove
+     * @return the released slot, -1 if the key was not in the index.
+     */
+    public int remove(int key) {
+        int mask = table.length - 1;
+        int h = hash(key) & mask;
+        while (true) {
+            int s = table[h];
+            if (s == EMPTY) return -1;
+            if (keys[s] == key) break;
+            h = (h + 1) & mask;
+        }
+        int slot = table[h];
+        //shift back the following entries of the probe sequence:
+        int gap = h;
+        for (int j = (gap + 1) & mask; table[j] != EMPTY; j = (j + 1) & mask) {
+            int home = hash(keys[table[j]]) & mask;
+            //move table[j] into the gap if its home is not in the cyclic range (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                table[gap] = table[j];
+                gap = j;
+            }
+        }
+        table[gap] = EMPTY;
+        live[slot] = false;
+        if (freeSize == free.length) free = Arrays.copyOf(free, free.length * 2);
+        free[freeSize++] = slot;
+        size--;
+        return slot;
+    }
+
+    /**
+     * @return the number of keys in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return an upper bound (exclusive) on the slots in use - the size needed for slot indexed arrays.
+     */
+    public int slotCount() {
+        return slotCount;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+        for (int s = 0; s < slotCount; s++) {
+            if (!live[s]) continue;
+            int h = hash(keys[s]) & mask;
+            while (table[h] != EMPTY) h = (h + 1) & mask;
+            table[h] = s;
+        }
+    }
+
+    //Spreads the bits of the key so sequential and hash-like keys both probe well
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,142 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class represents an indexed binary min-heap of slots ordered by a double priority.
+ * Every slot appears at most once, so decreasing the priority of a slot that is already
+ * queued moves it up instead of adding a duplicate entry (as a PriorityQueue of nodes would).
+ * All the state is kept in primitive arrays indexed by slot.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class MinHeap {
+
+    private int[] heap;    // heap position -> slot
+    private int[] pos;     // slot -> heap position, -1 if not queued
+    private double[] key;  // slot -> priority
+    private int size;
+
+    /**
+     * @param slots the number of slots the heap can hold, it grows on demand.
+     */
+    MinHeap(int slots) {
+        slots = Math.max(slots, 1);
+        heap = new int[slots];
+        pos = new int[slots];
+        key = new double[slots];
+        Arrays.fill(pos, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int slot) {
+        return slot < pos.length && pos[slot] != -1;
+    }
+
+    /**
+     * Inserts a slot, or decreases its priority if it is already queued with a higher one.
+     * The method runs in O(log n) time.
+     * @return true iff the heap was changed.
+     */
+    boolean push(int slot, double priority) {
+        ensureCapacity(slot + 1);
+        int i = pos[slot];
+        if (i == -1) {
+            i = size++;
+            heap[i] = slot;
+            pos[slot] = i;
+        } else if (priority >= key[slot]) {
+            return false;
+        }
+        key[slot] = priority;
+        siftUp(i);
+        return true;
+    }
+
+    /**
+     * @return the priority of the minimal slot (the heap must not be empty).
+     */
+    double peekKey() {
+        return key[heap[0]];
+    }
+
+    /**
+     * Removes the minimal slot.
+     * The method runs in O(log n) time.
+     * @return the removed slot (the heap must not be empty).
+     */
+    int pop() {
+        int top = heap[0];
+        pos[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Empties the heap in O(size) time.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++)
+            pos[heap[i]] = -1;
+        size = 0;
+    }
+
+    void ensureCapacity(int slots) {
+        if (slots > pos.length) {
+            int len = Math.max(slots, pos.length * 2);
+            int old = pos.length;
+            heap = Arrays.copyOf(heap, len);
+            pos = Arrays.copyOf(pos, len);
+            key = Arrays.copyOf(key, len);
+            Arrays.fill(pos, old, len, -1);
+        }
+    }
+
+    private void siftUp(int i) {
+        int s = heap[i];
+        double k = key[s];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            int ps = heap[p];
+            if (key[ps] <= k) break;
+            heap[i] = ps;
+            pos[ps] = i;
+            i = p;
+        }
+        heap[i] = s;
+        pos[s] = i;
+    }
+
+    private void siftDown(int i) {
+        int s = heap[i];
+        double k = key[s];
+        int half = size >>> 1;
+        while (i < half) {
+            int c = 2 * i + 1;
+            int cs = heap[c];
+            if (c + 1 < size && key[heap[c + 1]] < key[cs]) {
+                c++;
+                cs = heap[c];
+            }
+            if (k <= key[cs]) break;
+            heap[i] = cs;
+            pos[cs] = i;
+            i = c;
+        }
+        heap[i] = s;
+        pos[s] = i;
+    }
+}
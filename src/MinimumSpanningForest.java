@@ -0,0 +1,170 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * The two minimum spanning forest engines behind WGraph_Algo.minimumSpanningForest:
+ * 1. Kruskal - the edges are ranked by weight with two parallel primitive sorts,
+ *    then added greedily through a union-find.
+ * 2. Boruvka - in every round, each component picks its cheapest outgoing edge
+ *    (in parallel, with a lock free compare-and-set per component), all the picked
+ *    edges are merged, and the edges that became internal are dropped.
+ *    There are at most log(n) rounds.
+ * Both engines break weight ties by the edge's position, so they compute the same forest.
+ * Parallel work runs on the caller's fork-join pool (see Parallel.run).
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class MinimumSpanningForest {
+
+    private MinimumSpanningForest() {
+    }
+
+    /**
+     * Kruskal's algorithm with a parallel primitive edge sort.
+     * The method runs in O(e log(e)) time.
+     */
+    static SpanningForest kruskal(indexed_graph g) {
+        EdgeList e = EdgeList.of(g);
+        int m = e.size;
+        //non negative doubles are ordered like their bit patterns
+        long[] bits = new long[m];
+        IntStream.range(0, m).parallel().forEach(i -> bits[i] = Double.doubleToLongBits(e.w[i] + 0.0));
+        long[] sorted = bits.clone();
+        Arrays.parallelSort(sorted);
+        //(rank of the weight, edge position) packed into one long, so a primitive sort orders the edges
+        long[] order = new long[m];
+        IntStream.range(0, m).parallel().forEach(i ->
+                order[i] = ((long) Arrays.binarySearch(sorted, bits[i]) << 32) | i);
+        Arrays.parallelSort(order);
+
+        UnionFind uf = new UnionFind(g.slotCount());
+        Builder forest = new Builder(g);
+        for (int k = 0; k < m && forest.size < forest.capacity; k++) {
+            int i = (int) order[k];
+            if (uf.union(e.u[i], e.v[i]))
+                forest.add(e, i);
+        }
+        return forest.build();
+    }
+
+    /**
+     * Boruvka's algorithm with parallel rounds.
+     * The method runs in O(e log(n)) work.
+     */
+    static SpanningForest boruvka(indexed_graph g) {
+        EdgeList e = EdgeList.of(g);
+        int n = g.slotCount();
+        int[] comp = IntStream.range(0, n).toArray();
+        int[] live = IntStream.range(0, e.size).toArray();
+        AtomicIntegerArray best = new AtomicIntegerArray(n);
+        UnionFind uf = new UnionFind(n);
+        Builder forest = new Builder(g);
+        while (live.length > 0) {
+            IntStream.range(0, n).parallel().forEach(c -> best.set(c, -1));
+            final int[] edges = live;
+            IntStream.range(0, edges.length).parallel().forEach(k -> {
+                int i = edges[k];
+                int cu = comp[e.u[i]], cv = comp[e.v[i]];
+                if (cu != cv) {
+                    offer(best, cu, i, e.w);
+                    offer(best, cv, i, e.w);
+                }
+            });
+            boolean merged = false;
+            for (int c = 0; c < n; c++) {
+                int i = best.get(c);
+                if (i != -1 && uf.union(e.u[i], e.v[i])) {
+                    forest.add(e, i);
+                    merged = true;
+                }
+            }
+            if (!merged) break;
+            //the union-find is not changed below, so the roots can be read concurrently
+            IntStream.range(0, n).parallel().forEach(s -> comp[s] = uf.root(s));
+            live = Arrays.stream(edges).parallel().filter(i -> comp[e.u[i]] != comp[e.v[i]]).toArray();
+        }
+        return forest.build();
+    }
+
+    //Lowers best[c] to the edge i if i is cheaper (weight, then position)
+    private static void offer(AtomicIntegerArray best, int c, int i, double[] w) {
+        while (true) {
+            int cur = best.get(c);
+            if (cur != -1 && (w[cur] < w[i] || (w[cur] == w[i] && cur < i))) return;
+            if (best.compareAndSet(c, cur, i)) return;
+        }
+    }
+
+    /*****************************  private classes  ******************************/
+
+    //Disjoint sets of slots, union by size and path halving
+    private static class UnionFind {
+        private final int[] parent, size;
+
+        UnionFind(int n) {
+            parent = IntStream.range(0, n).toArray();
+            size = new int[n];
+            Arrays.fill(size, 1);
+        }
+
+        int find(int x) {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        //Like find, without changing the structure (safe for concurrent readers)
+        int root(int x) {
+            while (parent[x] != x) x = parent[x];
+            return x;
+        }
+
+        boolean union(int a, int b) {
+            a = find(a);
+            b = find(b);
+            if (a == b) return false;
+            if (size[a] < size[b]) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            parent[b] = a;
+            size[a] += size[b];
+            return true;
+        }
+    }
+
+    //Collects the forest's edges and translates their slots back to keys
+    private static class Builder {
+        private final indexed_graph g;
+        private final int capacity;
+        private final int[] from, to;
+        private final double[] weight;
+        private int size;
+
+        Builder(indexed_graph g) {
+            this.g = g;
+            capacity = Math.max(0, g.nodeSize() - 1);
+            from = new int[capacity];
+            to = new int[capacity];
+            weight = new double[capacity];
+        }
+
+        void add(EdgeList e, int i) {
+            from[size] = g.keyAt(e.u[i]);
+            to[size] = g.keyAt(e.v[i]);
+            weight[size] = e.w[i];
+            size++;
+        }
+
+        SpanningForest build() {
+            return new SpanningForest(Arrays.copyOf(from, size), Arrays.copyOf(to, size), Arrays.copyOf(weight, size));
+        }
+    }
+}
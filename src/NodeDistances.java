@@ -0,0 +1,65 @@
+package ex1.src;
+
+/**
+ * This class represents the result of a distance query: a list of nodes (by key)
+ * and their distances, kept in two parallel primitive arrays.
+ * The nodes are ordered by non-decreasing distance.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class NodeDistances {
+
+    private final int[] keys;
+    private final double[] dist;
+
+    NodeDistances(int[] keys, double[] dist) {
+        this.keys = keys;
+        this.dist = dist;
+    }
+
+    /**
+     * @return the number of nodes in this result.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the key of the i'th node.
+     */
+    public int key(int i) {
+        return keys[i];
+    }
+
+    /**
+     * @return the distance of the i'th node.
+     */
+    public double dist(int i) {
+        return dist[i];
+    }
+
+    /**
+     * @return the keys of the nodes (the internal array, not a copy).
+     */
+    public int[] keys() {
+        return keys;
+    }
+
+    /**
+     * @return the distances of the nodes (the internal array, not a copy).
+     */
+    public double[] distances() {
+        return dist;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("[");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) s.append(", ");
+            s.append('#').append(keys[i]).append("(d=").append(dist[i]).append(')');
+        }
+        return s.append(']').toString();
+    }
+}
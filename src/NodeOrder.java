@@ -0,0 +1,218 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a numbering of the nodes of a graph that is being frozen or exported
+ * (see WGraph_Compressed and the WGraph_DS copy constructor), chosen so that neighbors get
+ * close slots - their per-node state then shares cache lines and pages, and the neighbor
+ * gaps of a compressed graph become small. The keys never change, only the slots do.
+ * 1. KEYS - increasing key order (no reordering).
+ * 2. BFS - breadth first order, component by component.
+ * 3. REVERSE_CUTHILL_MCKEE - breadth first from a pseudo-peripheral node, visiting the
+ *    neighbors by increasing degree, reversed. Keeps the bandwidth (the largest slot gap of
+ *    an edge) small on meshes and road networks.
+ * 4. hilbert(keys, x, y) - the order of the nodes' coordinates along a Hilbert curve, for
+ *    graphs embedded in the plane. Nodes without coordinates come last, in BFS order.
+ * All the orders run in O(n*log(n)+e) time.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class NodeOrder {
+
+    /** increasing key order. */
+    public static final NodeOrder KEYS = new NodeOrder(0, null, null, null);
+    /** breadth first order. */
+    public static final NodeOrder BFS = new NodeOrder(1, null, null, null);
+    /** reverse Cuthill-McKee order. */
+    public static final NodeOrder REVERSE_CUTHILL_MCKEE = new NodeOrder(2, null, null, null);
+
+    private static final int HILBERT = 3;
+    private static final int HILBERT_BITS = 16;
+
+    private final int kind;
+    private final int[] keys;
+    private final double[] x, y;
+
+    private NodeOrder(int kind, int[] keys, double[] x, double[] y) {
+        this.kind = kind;
+        this.keys = keys;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * The Hilbert curve order of the nodes' coordinates.
+     * @param keys the keys of the nodes that have coordinates
+     * @param x their x coordinates
+     * @param y their y coordinates
+     * @return the order.
+     */
+    public static NodeOrder hilbert(int[] keys, double[] x, double[] y) {
+        if (keys.length != x.length || keys.length != y.length)
+            throw new IllegalArgumentException("coordinate arrays must have the same length");
+        return new NodeOrder(HILBERT, keys, x, y);
+    }
+
+    /**
+     * @return the live slots of g in their new order - the i'th one gets the new slot i.
+     */
+    int[] order(indexed_graph g) {
+        switch (kind) {
+            case 0: {
+                long[] packed = new long[g.nodeSize()];
+                int k = 0;
+                for (int s = 0; s < g.slotCount(); s++)
+                    if (g.isLive(s)) packed[k++] = ((long) g.keyAt(s) << 32) | s;
+                Arrays.sort(packed);
+                int[] order = new int[k];
+                for (int i = 0; i < k; i++) order[i] = (int) packed[i];
+                return order;
+            }
+            case 1:
+                return breadthFirst(g, false);
+            case 2: {
+                int[] order = breadthFirst(g, true);
+                for (int i = 0, j = order.length - 1; i < j; i++, j--) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                }
+                return order;
+            }
+            default:
+                return hilbert(g);
+        }
+    }
+
+    /******************************  private methods  ******************************/
+
+    //Breadth first order of all the components. In Cuthill-McKee mode every component starts
+    //at a pseudo-peripheral node and the neighbors are visited by increasing degree.
+    private static int[] breadthFirst(indexed_graph g, boolean cuthillMcKee) {
+        int n = g.slotCount();
+        int[] order = new int[g.nodeSize()];
+        boolean[] visited = new boolean[n];
+        int[] scratch = new int[n];
+        long[] byDegree = new long[16];
+        int size = 0;
+        for (int s = 0; s < n; s++) {
+            if (!g.isLive(s) || visited[s]) continue;
+            int start = cuthillMcKee ? peripheral(g, s, scratch) : s;
+            int head = size;
+            order[size++] = start;
+            visited[start] = true;
+            while (head < size) {
+                int v = order[head++];
+                int d = g.degree(v);
+                if (!cuthillMcKee) {
+                    for (int i = 0; i < d; i++) {
+                        int u = g.neighborAt(v, i);
+                        if (!visited[u]) {
+                            visited[u] = true;
+                            order[size++] = u;
+                        }
+                    }
+                    continue;
+                }
+                if (byDegree.length < d) byDegree = new long[d];
+                int k = 0;
+                for (int i = 0; i < d; i++) {
+                    int u = g.neighborAt(v, i);
+                    if (!visited[u]) {
+                        visited[u] = true;
+                        byDegree[k++] = ((long) g.degree(u) << 32) | u;
+                    }
+                }
+                Arrays.sort(byDegree, 0, k);
+                for (int i = 0; i < k; i++) order[size++] = (int) byDegree[i];
+            }
+        }
+        return order;
+    }
+
+    //A pseudo-peripheral node of s's component: repeated breadth first sweeps, each from a
+    //node of smallest degree in the last level of the previous one, while the depth grows
+    private static int peripheral(indexed_graph g, int s, int[] level) {
+        int depth = -1;
+        int[] queue = new int[16];
+        for (int sweep = 0; sweep < 8; sweep++) {
+            //level[] is restored after every sweep, only the reached slots are touched
+            int size = 0;
+            queue[size++] = s;
+            level[s] = 1;
+            for (int head = 0; head < size; head++) {
+                int v = queue[head];
+                for (int i = 0, d = g.degree(v); i < d; i++) {
+                    int u = g.neighborAt(v, i);
+                    if (level[u] == 0) {
+                        level[u] = level[v] + 1;
+                        if (size == queue.length) queue = Arrays.copyOf(queue, size * 2);
+                        queue[size++] = u;
+                    }
+                }
+            }
+            int last = level[queue[size - 1]];
+            int next = queue[size - 1];
+            for (int i = size - 1; i >= 0 && level[queue[i]] == last; i--)
+                if (g.degree(queue[i]) < g.degree(next)) next = queue[i];
+            for (int i = 0; i < size; i++) level[queue[i]] = 0;
+            if (last <= depth) break;
+            depth = last;
+            s = next;
+        }
+        return s;
+    }
+
+    private int[] hilbert(indexed_graph g) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < keys.length; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        int side = (1 << HILBERT_BITS) - 1;
+        double sx = maxX > minX ? side / (maxX - minX) : 0, sy = maxY > minY ? side / (maxY - minY) : 0;
+        boolean[] placed = new boolean[g.slotCount()];
+        long[] packed = new long[keys.length];
+        int k = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int s = g.slotOf(keys[i]);
+            if (s == -1 || placed[s]) continue;
+            placed[s] = true;
+            long d = hilbertIndex((int) ((x[i] - minX) * sx), (int) ((y[i] - minY) * sy));
+            packed[k++] = (d << 31) | s;
+        }
+        Arrays.sort(packed, 0, k);
+        int[] order = new int[g.nodeSize()];
+        for (int i = 0; i < k; i++) order[i] = (int) (packed[i] & Integer.MAX_VALUE);
+        if (k < order.length) {
+            for (int s : breadthFirst(g, false))
+                if (!placed[s]) order[k++] = s;
+        }
+        return order;
+    }
+
+    //The position of the cell (x, y) along the Hilbert curve over a 2^HILBERT_BITS square
+    private static long hilbertIndex(int x, int y) {
+        long d = 0;
+        for (int s = 1 << (HILBERT_BITS - 1); s > 0; s >>= 1) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) { //rotate the quadrant
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+}
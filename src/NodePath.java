@@ -0,0 +1,78 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a path in a graph as the ordered keys of its nodes
+ * (src, n1, n2, ..., dest) together with the path's total weight.
+ * Two paths are equal if they visit the same nodes in the same order.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class NodePath implements Comparable<NodePath> {
+
+    private final int[] keys;
+    private final double cost;
+
+    NodePath(int[] keys, double cost) {
+        this.keys = keys;
+        this.cost = cost;
+    }
+
+    /**
+     * @return the number of nodes in the path.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the key of the i'th node of the path.
+     */
+    public int key(int i) {
+        return keys[i];
+    }
+
+    /**
+     * @return the keys of the path's nodes in order (the internal array, not a copy).
+     */
+    public int[] keys() {
+        return keys;
+    }
+
+    /**
+     * @return the sum of the weights of the path's edges.
+     */
+    public double cost() {
+        return cost;
+    }
+
+    @Override
+    public int compareTo(NodePath o) {
+        int c = Double.compare(cost, o.cost);
+        return c != 0 ? c : Integer.compare(keys.length, o.keys.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(keys, ((NodePath) o).keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(keys);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("[");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) s.append(", ");
+            s.append('#').append(keys[i]);
+        }
+        return s.append("] (cost=").append(cost).append(')').toString();
+    }
+}
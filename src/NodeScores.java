@@ -0,0 +1,54 @@
+package ex1.src;
+
+/**
+ * This class represents a score (e.g. a centrality measure) for every node of a graph,
+ * kept as two parallel primitive arrays of keys and scores.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class NodeScores {
+
+    private final int[] keys;
+    private final double[] scores;
+
+    NodeScores(int[] keys, double[] scores) {
+        this.keys = keys;
+        this.scores = scores;
+    }
+
+    /**
+     * @return the number of scored nodes.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the key of the i'th node.
+     */
+    public int key(int i) {
+        return keys[i];
+    }
+
+    /**
+     * @return the score of the i'th node.
+     */
+    public double score(int i) {
+        return scores[i];
+    }
+
+    /**
+     * @return the keys of the nodes (the internal array, not a copy).
+     */
+    public int[] keys() {
+        return keys;
+    }
+
+    /**
+     * @return the scores of the nodes (the internal array, not a copy).
+     */
+    public double[] scores() {
+        return scores;
+    }
+}
@@ -0,0 +1,141 @@
+package ex1.src;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A growable block of off-heap memory, addressed by long byte offsets.
+ * The memory is a list of direct ByteBuffers (pages) of PAGE bytes each, so it is not
+ * limited to 2GB and growing it never copies the data - except for the first page, which
+ * starts small and doubles (by copying) until it reaches PAGE bytes, so small graphs stay small.
+ * Values are accessed with the absolute (position free) methods of ByteBuffer, in the native
+ * byte order. Every value must be aligned to its size, so it never crosses a page.
+ * Concurrent reads are safe, writes must be externally synchronized.
+ * The memory is released explicitly by free() - through the buffers' cleaner when the JVM
+ * exposes it, otherwise when the buffers are garbage collected.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class OffHeapMemory {
+
+    private static final int PAGE_SHIFT = 20;
+    private static final int PAGE = 1 << PAGE_SHIFT;
+    private static final int MASK = PAGE - 1;
+    private static final int FIRST_PAGE = 1 << 10;
+    private static final Cleaner CLEANER = Cleaner.find();
+
+    private ByteBuffer[] pages = new ByteBuffer[4];
+    private int count;
+    private long capacity;
+
+    /**
+     * Makes sure the bytes [0, bytes) are allocated. New memory is zeroed.
+     */
+    void ensure(long bytes) {
+        if (bytes <= capacity) return;
+        if (count == 0) {
+            pages[count++] = allocate(FIRST_PAGE);
+            capacity = FIRST_PAGE;
+        }
+        while (count == 1 && capacity < PAGE && capacity < bytes) {
+            ByteBuffer bigger = allocate((int) capacity * 2);
+            ByteBuffer old = pages[0];
+            bigger.put(0, old, 0, old.capacity());
+            pages[0] = bigger;
+            capacity *= 2;
+            CLEANER.clean(old);
+        }
+        while (capacity < bytes) {
+            if (count == pages.length) pages = Arrays.copyOf(pages, count * 2);
+            pages[count++] = allocate(PAGE);
+            capacity += PAGE;
+        }
+    }
+
+    /**
+     * @return the number of allocated bytes.
+     */
+    long capacity() {
+        return capacity;
+    }
+
+    int getInt(long offset) {
+        return pages[(int) (offset >>> PAGE_SHIFT)].getInt((int) offset & MASK);
+    }
+
+    void putInt(long offset, int value) {
+        pages[(int) (offset >>> PAGE_SHIFT)].putInt((int) offset & MASK, value);
+    }
+
+    long getLong(long offset) {
+        return pages[(int) (offset >>> PAGE_SHIFT)].getLong((int) offset & MASK);
+    }
+
+    void putLong(long offset, long value) {
+        pages[(int) (offset >>> PAGE_SHIFT)].putLong((int) offset & MASK, value);
+    }
+
+    double getDouble(long offset) {
+        return pages[(int) (offset >>> PAGE_SHIFT)].getDouble((int) offset & MASK);
+    }
+
+    void putDouble(long offset, double value) {
+        pages[(int) (offset >>> PAGE_SHIFT)].putDouble((int) offset & MASK, value);
+    }
+
+    /**
+     * Sets the bytes [from, to) to zero (both offsets aligned to 8).
+     */
+    void clear(long from, long to) {
+        for (long o = from; o < to; o += 8) putLong(o, 0);
+    }
+
+    /**
+     * Releases all the memory, the object must not be used afterwards.
+     */
+    void free() {
+        for (int i = 0; i < count; i++) CLEANER.clean(pages[i]);
+        pages = new ByteBuffer[0];
+        count = 0;
+        capacity = 0;
+    }
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    //Frees a direct buffer immediately through sun.misc.Unsafe.invokeCleaner, when available
+    private static final class Cleaner {
+        private final Object unsafe;
+        private final Method invokeCleaner;
+
+        private Cleaner(Object unsafe, Method invokeCleaner) {
+            this.unsafe = unsafe;
+            this.invokeCleaner = invokeCleaner;
+        }
+
+        static Cleaner find() {
+            try {
+                Class<?> c = Class.forName("sun.misc.Unsafe");
+                Field f = c.getDeclaredField("theUnsafe");
+                f.setAccessible(true);
+                return new Cleaner(f.get(null), c.getMethod("invokeCleaner", ByteBuffer.class));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return new Cleaner(null, null);
+            }
+        }
+
+        void clean(ByteBuffer b) {
+            if (invokeCleaner == null) return; //left to the garbage collector
+            try {
+                invokeCleaner.invoke(unsafe, b);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                //left to the garbage collector
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ex1.src;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Runs parallel algorithms (parallel streams, parallel sorts) on a dedicated
+ * fork-join pool, so the caller controls the number of worker threads.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class Parallel {
+
+    private Parallel() {
+    }
+
+    /**
+     * @return the default number of worker threads - the number of available processors.
+     */
+    static int defaultThreads() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Runs a task on a new pool with the given number of threads, and waits for its result.
+     * @param threads the pool's parallelism (at least 1)
+     * @param task the task, parallel streams inside it run on the same pool
+     * @return the task's result
+     */
+    static <T> T run(int threads, Supplier<T> task) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(task::get).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
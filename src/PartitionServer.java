@@ -0,0 +1,132 @@
+package ex1.src;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+
+/**
+ * This class represents the process that serves one partition of a partitioned graph
+ * (see WGraph_Distributed). It loads its partition file, listens on a loopback port, prints
+ * "PORT p" to its standard output and answers the coordinator's requests until it quits.
+ * A partition holds the nodes it owns, the edges between them, and the cut edges to the
+ * boundary nodes of the other partitions ("ghost" nodes, which know their owner).
+ * The coordinator's shortest path query runs in rounds: every round the partition seeds the
+ * distances the coordinator sent, continues one Dijkstra search over its local graph (the
+ * search state persists between the rounds of a query) up to the coordinator's bound, and
+ * replies with the ghosts whose distance improved - the coordinator forwards them to their owners.
+ * Usage: java ex1.src.PartitionServer partitionFile [port]
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class PartitionServer {
+
+    static final byte START = 1, SEED = 2, QUIT = 3;
+
+    private final Partition p;
+    private final Dijkstra dj;
+    private double[] sent;
+    private int target;
+
+    private PartitionServer(Partition p) {
+        this.p = p;
+        dj = new Dijkstra(p.local);
+        sent = new double[p.local.slotCount()];
+    }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        Partition p;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(args[0])))) {
+            p = (Partition) in.readObject();
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            System.out.println("PORT " + server.getLocalPort());
+            System.out.flush();
+            try (Socket s = server.accept()) {
+                s.setTcpNoDelay(true);
+                new PartitionServer(p).serve(new DataInputStream(new BufferedInputStream(s.getInputStream())),
+                        new DataOutputStream(new BufferedOutputStream(s.getOutputStream())));
+            }
+        }
+    }
+
+    /******************************  private methods  ******************************/
+
+    //START src dest -> owns src, owns dest, then a round's reply
+    //SEED bound count (key dist)* -> a round's reply
+    //a round's reply: dest's distance (infinity if not owned or not reached), count (owner key dist)*
+    private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            byte op = in.readByte();
+            if (op == QUIT) return;
+            double bound;
+            if (op == START) {
+                int src = p.local.slotOf(in.readInt());
+                target = p.local.slotOf(in.readInt());
+                boolean ownsSrc = src != -1 && p.owner[src] == p.id, ownsDest = target != -1 && p.owner[target] == p.id;
+                if (!ownsDest) target = -1;
+                dj.reset();
+                Arrays.fill(sent, Dijkstra.INFINITY);
+                out.writeBoolean(ownsSrc);
+                out.writeBoolean(ownsDest);
+                if (ownsSrc) dj.seed(src, 0, 0);
+                bound = Dijkstra.INFINITY;
+            } else if (op == SEED) {
+                bound = in.readDouble();
+                for (int i = in.readInt(); i > 0; i--) {
+                    int s = p.local.slotOf(in.readInt());
+                    dj.seed(s, in.readDouble(), 0);
+                }
+            } else {
+                throw new IOException("unknown request " + op);
+            }
+            round(bound, out);
+            out.flush();
+        }
+    }
+
+    private void round(double bound, DataOutputStream out) throws IOException {
+        int from = dj.settledCount();
+        while (!dj.isEmpty() && dj.peekDist() < bound) dj.next();
+        out.writeDouble(target == -1 ? Dijkstra.INFINITY : dj.dist(target));
+        //the improved ghosts, each once
+        int count = 0;
+        int[] improved = new int[16];
+        for (int i = from; i < dj.settledCount(); i++) {
+            int s = dj.settledAt(i);
+            if (p.owner[s] != p.id && dj.dist(s) < sent[s]) {
+                sent[s] = dj.dist(s);
+                if (count == improved.length) improved = Arrays.copyOf(improved, count * 2);
+                improved[count++] = s;
+            }
+        }
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            int s = improved[i];
+            out.writeInt(p.owner[s]);
+            out.writeInt(p.local.keyAt(s));
+            out.writeDouble(dj.dist(s));
+        }
+    }
+
+    /*****************************  package classes  ******************************/
+
+    /**
+     * A partition as written to its file: the local graph (the owned nodes and their ghosts)
+     * and the owner of every local slot.
+     */
+    static final class Partition implements Serializable {
+        final int id;
+        final WGraph_DS local;
+        final int[] owner;
+
+        Partition(int id, WGraph_DS local, int[] owner) {
+            this.id = id;
+            this.local = local;
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package ex1.src;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class represents an embedded query server: it answers shortest path and connectivity
+ * queries about a graph over a loopback socket, with a line protocol (one request per line,
+ * one response line per request, in request order - requests may be pipelined):
+ * 1. "DIST src dest" -> "OK d" (d is -1 if dest is unreachable or a node is missing).
+ * 2. "PATH src dest" -> "OK k1 k2 ... kn" (the keys from src to dest), "NONE" if there is no path.
+ * 3. "CONNECTED" -> "OK true" / "OK false".
+ * 4. "PING" -> "OK".
+ * A malformed request is answered by "ERR message", a request rejected by the back-pressure by "BUSY".
+ * Threads: every connection gets its own thread (a virtual thread when the JVM has them,
+ * otherwise a daemon platform thread), and the searches run on a fixed pool of search threads,
+ * each with its own reusable Dijkstra state.
+ * Coalescing: queries wait in a queue of batches, one batch per source. A query whose source
+ * already has a waiting batch joins it, so concurrent queries of a popular source share one
+ * single-source search, which stops as soon as all the batch's targets are settled.
+ * Back-pressure: at most maxPending queries may wait or run at the same time, the others are
+ * answered "BUSY" at once (the client decides whether to retry).
+ * The graph must not change while the server runs.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class QueryServer implements Closeable {
+
+    private final indexed_graph g;
+    private final ServerSocket server;
+    private final int maxPending;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong queries = new AtomicLong(), searches = new AtomicLong(), rejected = new AtomicLong();
+    //the batches waiting for a search thread, by source slot (guarded by itself)
+    private final Map<Integer, Batch> waiting = new HashMap<>();
+    private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> searchers = new ArrayList<>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+    private Boolean connected;
+
+    /**
+     * Starts a server on an ephemeral loopback port, with a search thread per processor
+     * and at most 1024 pending queries.
+     * @param g the graph to query
+     * @throws IOException if the socket cannot be opened
+     */
+    public QueryServer(weighted_graph g) throws IOException {
+        this(g, 0, Parallel.defaultThreads(), 1024);
+    }
+
+    /**
+     * Starts a server on a loopback port.
+     * @param g the graph to query
+     * @param port the port, 0 for an ephemeral one (see port())
+     * @param searchThreads the number of search threads
+     * @param maxPending the number of queries that may wait or run before new ones are rejected
+     * @throws IOException if the socket cannot be opened
+     */
+    public QueryServer(weighted_graph g, int port, int searchThreads, int maxPending) throws IOException {
+        if (searchThreads < 1 || maxPending < 1)
+            throw new IllegalArgumentException("searchThreads and maxPending must be positive");
+        this.g = g instanceof indexed_graph ? (indexed_graph) g : new WGraph_DS(g);
+        this.maxPending = maxPending;
+        server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        for (int i = 0; i < searchThreads; i++) {
+            Thread t = new Thread(this::searchLoop, "query-search-" + i);
+            t.setDaemon(true);
+            searchers.add(t);
+            t.start();
+        }
+        acceptor = new Thread(this::acceptLoop, "query-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return the port the server listens on.
+     */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @return the number of queries answered or rejected so far.
+     */
+    public long queries() {
+        return queries.get();
+    }
+
+    /**
+     * @return the number of single-source searches run so far (at most queries()).
+     */
+    public long searches() {
+        return searches.get();
+    }
+
+    /**
+     * @return the number of queries rejected by the back-pressure so far.
+     */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Stops accepting, closes the open connections and stops the search threads.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Socket s : connections) s.close();
+        for (Thread t : searchers) t.interrupt();
+        synchronized (waiting) {
+            for (Batch b : waiting.values())
+                for (Query q : b.queries) q.complete("ERR the server was closed");
+            waiting.clear();
+        }
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /******************************  private methods  ******************************/
+
+    //Accepts the connections. While accept() keeps failing (e.g. out of file descriptors)
+    //it backs off up to a second between the tries, and reports only the first failure
+    private void acceptLoop() {
+        long backoff = 0;
+        while (!closed) {
+            try {
+                Socket s = server.accept();
+                backoff = 0;
+                connections.add(s);
+                s.setTcpNoDelay(true);
+                startThread(() -> serve(s), "query-connection-" + s.getPort());
+            } catch (IOException e) {
+                if (closed) return;
+                if (backoff == 0) e.printStackTrace();
+                backoff = Math.min(Math.max(2 * backoff, 10), 1000);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    //One thread per connection: reads every request that is already available, submits them,
+    //then writes their responses in order
+    private void serve(Socket s) {
+        try (Socket socket = s;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            List<Query> batch = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                batch.add(submit(line));
+                if (in.ready()) continue;
+                for (Query q : batch) out.write(q.response() + "\n");
+                out.flush();
+                batch.clear();
+            }
+        } catch (SocketException e) {
+            //the client or close() ended the connection
+        } catch (IOException e) {
+            if (!closed) e.printStackTrace();
+        } finally {
+            connections.remove(s);
+        }
+    }
+
+    //Parses a request and queues it, or answers it at once
+    private Query submit(String line) {
+        queries.incrementAndGet();
+        String[] t = line.trim().split("\\s+");
+        String command = t[0].toUpperCase(Locale.ROOT);
+        switch (command) {
+            case "PING":
+                return Query.done("OK");
+            case "CONNECTED":
+                return Query.done("OK " + isConnected());
+            case "DIST":
+            case "PATH":
+                break;
+            default:
+                return Query.done("ERR unknown request: " + line);
+        }
+        if (t.length != 3) return Query.done("ERR usage: " + command + " src dest");
+        int src, dest;
+        try {
+            src = Integer.parseInt(t[1]);
+            dest = Integer.parseInt(t[2]);
+        } catch (NumberFormatException e) {
+            return Query.done("ERR not a key: " + line);
+        }
+        boolean path = command.equals("PATH");
+        int s = g.slotOf(src), d = g.slotOf(dest);
+        if (s == -1 || d == -1) return Query.done(path ? "NONE" : "OK -1");
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            rejected.incrementAndGet();
+            return Query.done("BUSY");
+        }
+        Query q = new Query(d, path);
+        synchronized (waiting) {
+            //close() drains the waiting batches under this lock, a later batch would never be taken
+            if (closed) {
+                pending.decrementAndGet();
+                return Query.done("ERR the server was closed");
+            }
+            Batch b = waiting.get(s);
+            if (b == null) {
+                b = new Batch(s);
+                waiting.put(s, b);
+                queue.add(b);
+            }
+            b.queries.add(q);
+        }
+        return q;
+    }
+
+    private synchronized boolean isConnected() {
+        if (connected == null) {
+            WGraph_Algo ga = new WGraph_Algo();
+            ga.init(g);
+            connected = ga.isConnected();
+        }
+        return connected;
+    }
+
+    //A search thread: takes the next batch, closes it and runs one search for all its targets
+    private void searchLoop() {
+        Dijkstra dj = new Dijkstra(g);
+        while (!closed) {
+            Batch b;
+            try {
+                b = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            synchronized (waiting) {
+                waiting.remove(b.source);
+            }
+            searches.incrementAndGet();
+            try {
+                answer(dj, b);
+            } catch (RuntimeException e) {
+                for (Query q : b.queries) q.complete("ERR " + e);
+            }
+            pending.addAndGet(-b.queries.size());
+        }
+    }
+
+    private void answer(Dijkstra dj, Batch b) {
+        dj.reset();
+        dj.seed(b.source, 0, 0);
+        Set<Integer> targets = new HashSet<>();
+        for (Query q : b.queries) targets.add(q.target);
+        int left = targets.size();
+        while (left > 0 && !dj.isEmpty()) {
+            if (targets.contains(dj.next())) left--;
+        }
+        for (Query q : b.queries) {
+            double d = dj.dist(q.target);
+            if (!q.path) {
+                q.complete("OK " + (d == Dijkstra.INFINITY ? -1 : d));
+            } else if (d == Dijkstra.INFINITY) {
+                q.complete("NONE");
+            } else {
+                List<Integer> keys = new ArrayList<>();
+                for (int v = q.target; v != Dijkstra.NONE; v = dj.parent(v)) keys.add(g.keyAt(v));
+                StringBuilder sb = new StringBuilder("OK");
+                for (int i = keys.size() - 1; i >= 0; i--) sb.append(' ').append(keys.get(i));
+                q.complete(sb.toString());
+            }
+        }
+    }
+
+    //Starts a named virtual thread if the JVM has them (Thread.ofVirtual().name(name).start(task),
+    //by reflection), otherwise a named daemon thread
+    private static void startThread(Runnable task, String name) {
+        if (VIRTUAL != null) {
+            try {
+                Object builder = VIRTUAL[1].invoke(VIRTUAL[0].invoke(null), name);
+                VIRTUAL[2].invoke(builder, task);
+                return;
+            } catch (ReflectiveOperationException e) {
+                //fall through to a platform thread (e.g. a JVM with virtual threads in preview)
+            }
+        }
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    //Thread.ofVirtual(), Thread.Builder.name(String) and Thread.Builder.start(Runnable), null if missing
+    private static final Method[] VIRTUAL = virtualBuilder();
+
+    private static Method[] virtualBuilder() {
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            return new Method[]{Thread.class.getMethod("ofVirtual"), builder.getMethod("name", String.class),
+                    builder.getMethod("start", Runnable.class)};
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /*****************************  private classes  ******************************/
+
+    //The queries of one source that wait for the same search
+    private static class Batch {
+        final int source;
+        final List<Query> queries = new ArrayList<>();
+
+        Batch(int source) {
+            this.source = source;
+        }
+    }
+
+    //A query and its response line, once known
+    private static class Query {
+        final int target;
+        final boolean path;
+        private final CompletableFuture<String> response = new CompletableFuture<>();
+
+        Query(int target, boolean path) {
+            this.target = target;
+            this.path = path;
+        }
+
+        static Query done(String response) {
+            Query q = new Query(-1, false);
+            q.complete(response);
+            return q;
+        }
+
+        void complete(String line) {
+            response.complete(line);
+        }
+
+        String response() {
+            return response.join();
+        }
+    }
+}
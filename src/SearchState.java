@@ -0,0 +1,109 @@
+package ex1.src;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the state of a Dijkstra search over slots, for searches that relax
+ * their own edges (pruned searches, searches over shortcut cliques): the tentative distances,
+ * validated lazily by a round stamp, and the heap of the queued slots. Starting a new search
+ * costs O(1), and a search that stops early touches only the slots it reached.
+ * Dijkstra keeps its distances here too.
+ * A SearchState object is not thread safe - concurrent searches should use separate objects.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+final class SearchState {
+
+    static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private double[] dist;
+    private int[] stamp;
+    private final MinHeap heap;
+    private int round;
+
+    /**
+     * @param slots the number of slots, see ensureCapacity.
+     */
+    SearchState(int slots) {
+        dist = new double[slots];
+        stamp = new int[slots];
+        heap = new MinHeap(16); //grows with the slots it queues
+        round = 1;
+    }
+
+    /**
+     * Starts a new search: forgets all the distances in O(1) time.
+     * @return true iff the round stamp wrapped around - arrays the caller stamps with round()
+     * must be cleared.
+     */
+    boolean reset() {
+        heap.clear();
+        if (++round != 0) return false;
+        Arrays.fill(stamp, 0);
+        round = 1;
+        return true;
+    }
+
+    /**
+     * @return the stamp of the current search, for per-slot state the caller keeps beside this one.
+     */
+    int round() {
+        return round;
+    }
+
+    /**
+     * Grows the state to hold at least n slots (for a graph that grew), keeping the current search.
+     */
+    void ensureCapacity(int n) {
+        if (n <= stamp.length) return;
+        int len = Math.max(n, stamp.length + (stamp.length >> 1));
+        dist = Arrays.copyOf(dist, len);
+        stamp = Arrays.copyOf(stamp, len);
+        heap.ensureCapacity(len);
+    }
+
+    boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    /**
+     * @return the distance of the slot pop() will return, infinity if none.
+     */
+    double peekDist() {
+        return heap.isEmpty() ? INFINITY : heap.peekKey();
+    }
+
+    /**
+     * @return the queued slot of the smallest distance, removed from the queue (the queue must not be empty).
+     */
+    int pop() {
+        return heap.pop();
+    }
+
+    /**
+     * @return the tentative (or final, once popped) distance of a slot, infinity if not reached.
+     */
+    double dist(int slot) {
+        return stamp[slot] == round ? dist[slot] : INFINITY;
+    }
+
+    /**
+     * Sets the distance of a slot and queues it (or moves it up the queue).
+     */
+    void push(int slot, double d) {
+        stamp[slot] = round;
+        dist[slot] = d;
+        heap.push(slot, d);
+    }
+
+    /**
+     * Pushes a slot if the given distance is smaller than its current one.
+     * @return true iff the slot was pushed.
+     */
+    boolean relax(int slot, double d) {
+        if (d >= dist(slot)) return false;
+        push(slot, d);
+        return true;
+    }
+}
@@ -0,0 +1,70 @@
+package ex1.src;
+
+/**
+ * This class represents a minimum spanning forest of a weighted graph:
+ * its edges (as three parallel primitive arrays of keys and weights) and its total weight.
+ * A forest of a graph with n nodes and c connected components has n-c edges.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public final class SpanningForest {
+
+    /**
+     * The available algorithms for computing a minimum spanning forest.
+     */
+    public enum Engine {
+        /** sorts all the edges (in parallel) and adds them greedily through a union-find. */
+        KRUSKAL,
+        /** merges every component with its cheapest outgoing edge, in parallel rounds. */
+        BORUVKA
+    }
+
+    private final int[] from, to;
+    private final double[] weight;
+    private final double totalWeight;
+
+    SpanningForest(int[] from, int[] to, double[] weight) {
+        this.from = from;
+        this.to = to;
+        this.weight = weight;
+        double sum = 0;
+        for (double w : weight) sum += w;
+        this.totalWeight = sum;
+    }
+
+    /**
+     * @return the number of edges in the forest.
+     */
+    public int size() {
+        return from.length;
+    }
+
+    /**
+     * @return the sum of the weights of the forest's edges.
+     */
+    public double totalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return the keys of the first endpoint of every edge (the internal array, not a copy).
+     */
+    public int[] from() {
+        return from;
+    }
+
+    /**
+     * @return the keys of the second endpoint of every edge (the internal array, not a copy).
+     */
+    public int[] to() {
+        return to;
+    }
+
+    /**
+     * @return the weight of every edge (the internal array, not a copy).
+     */
+    public double[] weights() {
+        return weight;
+    }
+}
@@ -2,6 +2,8 @@ package ex1.src;
 
 import java.io.*;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * This class represents the "regular" Graph Theory algorithms including:
@@ -11,6 +13,16 @@ import java.util.*;
  * 3. isConnected();
  * 5. int shortestPathDist(int src, int dest);
  * 6. List<Node> shortestPath(int src, int dest);
+ * 7. NodeDistances withinDistance(int src, double radius);
+ * 8. NodeDistances nearestTargets(int src, int[] targets, int k);
+ * 9. FacilityLabels nearestFacility(int[] facilities);
+ * 10. double[] distanceTable(int[] sources, int[] targets);
+ * 11. List<NodePath> kShortestPaths(int src, int dest, int k);
+ * 12. SpanningForest minimumSpanningForest();
+ * 13. int hopDistance(int src, int dest), NodeDistances hopDistances(int src);
+ * 14. BetweennessScores betweenness();
+ * 15. NodeScores closeness(), harmonicCentrality(), topCloseness(int k), eccentricity(); double diameter(), radius();
+ * 16. BiconnectedComponents biconnectedComponents();
  * @see weighted_graph_algorithms
  *
  * @author Eyal Levi
@@ -19,9 +31,13 @@ import java.util.*;
 public class WGraph_Algo implements weighted_graph_algorithms {
 
     private weighted_graph g;
-    private static final int VISITED = 1;
-    private static final int NOT_VISITED = 0;
     private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    //slot based view of the graph (the graph itself, or a snapshot of it) and a reusable search over it
+    private indexed_graph indexed;
+    private weighted_graph indexedOf;
+    private int indexedMC;
+    private Dijkstra search;
     /**
      * Construct a graph-algorithms object and set its init graph with an empty new graph.
      */
@@ -61,39 +77,80 @@ public class WGraph_Algo implements weighted_graph_algorithms {
      * connectivity of all nodes.
      * The algorithm use BFS method for graph traversal.
      * The algorithm works as followed:
-     * 1) Mark all nodes as not visited by setting their tags to 0
-     * 2) Pick some node - call it v
-     * 3) Mark v as visited by set its tag to 1
-     * 4) add v to a queue
-     * 5) while the queue not empty commit:
-     *      - set v as the outcome of the queue pop
-     *      - for all neighbor n of v:
-     *          -- if not visited - add it to the queue and mark it as visited
-     * 6) traverse the graph and return false if their is a node who still marked as not visited.
+     * 1) Pick some node - call it v
+     * 2) Run a direction-optimizing BFS from v (see BreadthFirstSearch):
+     *      - while the frontier is small, the frontier nodes claim their unvisited neighbors
+     *      - once the frontier is large, every unvisited node looks for a neighbor in the frontier
+     *      - every level is expanded in parallel, the visited nodes are kept in a bitset
+     * 3) The graph is connected iff the BFS reached all the nodes.
+     * The node tags are not used.
      *
      * @return TRUE if the graph is connected.
      */
     @Override
     public boolean isConnected() {
         if (g.nodeSize() == 0 || g.nodeSize() == 1) return true;
-        setAllTags(NOT_VISITED);
-        Queue<node_info> q = new LinkedList<>();
-        node_info v = g.getV().iterator().next(); //pick some node
-        v.setTag(VISITED);
-        q.add(v);
-        while (!q.isEmpty()) {
-            v = q.remove();
-            for (node_info n : g.getV(v.getKey())) {
-                if (n.getTag() == NOT_VISITED) {
-                    q.add(n);
-                    n.setTag(VISITED);
-                }
-            }
+        indexed_graph ig = indexed();
+        int src = ig.slotOf(g.getV().iterator().next().getKey()); //pick some node
+        return new BreadthFirstSearch(ig).run(src, -1) == ig.nodeSize();
+    }
+
+    /**
+     * Finds the single points of failure of the graph: the bridges, the articulation points
+     * and the biconnected component of every edge (see BiconnectedComponents), with an
+     * iterative Hopcroft-Tarjan depth first search - deep graphs do not overflow the stack.
+     * The node tags are not used.
+     * The method runs in O(n+e) time.
+     * @return the bridges, articulation points and component ids, in primitive arrays.
+     */
+    public BiconnectedComponents biconnectedComponents() {
+        return HopcroftTarjan.run(indexed());
+    }
+
+    /**
+     * Returns the number of edges on the path with the fewest edges between src and dest
+     * (the weights are ignored).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return the hop distance, -1 if there is no such path.
+     */
+    public int hopDistance(int src, int dest) {
+        indexed_graph ig = indexed();
+        int s = ig.slotOf(src), t = ig.slotOf(dest);
+        if (s == -1 || t == -1) return -1;
+        BreadthFirstSearch bfs = new BreadthFirstSearch(ig);
+        bfs.run(s, t);
+        return bfs.level(t);
+    }
+
+    /**
+     * Returns the hop distance (number of edges, ignoring the weights) of every node
+     * reachable from a given source, computed by a parallel direction-optimizing BFS.
+     * @param src - the source node
+     * @return the reachable nodes and their hop distances, ordered by distance
+     * (empty if there is no such source).
+     */
+    public NodeDistances hopDistances(int src) {
+        indexed_graph ig = indexed();
+        int s = ig.slotOf(src);
+        if (s == -1) return new NodeDistances(new int[0], new double[0]);
+        BreadthFirstSearch bfs = new BreadthFirstSearch(ig);
+        int reached = bfs.run(s, -1);
+        //counting sort of the reached slots by level
+        int[] count = new int[reached + 1];
+        for (int v = 0; v < ig.slotCount(); v++)
+            if (bfs.level(v) != -1) count[bfs.level(v) + 1]++;
+        for (int i = 1; i < count.length; i++) count[i] += count[i - 1];
+        int[] keys = new int[reached];
+        double[] dist = new double[reached];
+        for (int v = 0; v < ig.slotCount(); v++) {
+            int l = bfs.level(v);
+            if (l == -1) continue;
+            int i = count[l]++;
+            keys[i] = ig.keyAt(v);
+            dist[i] = l;
         }
-        for (node_info n : g.getV())
-            if (n.getTag() == NOT_VISITED)
-                return false;
-        return true;
+        return new NodeDistances(keys, dist);
     }
 
     //Sets al nodes' tags value to a given integer number t
@@ -198,6 +255,375 @@ public class WGraph_Algo implements weighted_graph_algorithms {
         return path;
     }
 
+    /**
+     * Returns all the nodes whose distance from a given source is at most a given radius
+     * (e.g. everything reachable within 15 minutes).
+     * The search is Dijkstra's algorithm that stops as soon as the closest queued node is
+     * farther than the radius, and its state is reset lazily, so the cost is proportional
+     * to the size of the ball (and its boundary edges) rather than to the whole graph.
+     * @param src - the source node
+     * @param radius - the maximal distance
+     * @return the nodes of the ball and their distances, ordered by distance
+     * (empty if there is no such source).
+     */
+    public NodeDistances withinDistance(int src, double radius) {
+        indexed_graph ig = indexed();
+        Dijkstra d = search();
+        d.reset();
+        int s = ig.slotOf(src);
+        if (s != -1 && radius >= 0) d.seed(s, 0, 0);
+        while (!d.isEmpty() && d.peekDist() <= radius) d.next();
+        return settled(d);
+    }
+
+    /**
+     * Multi-source version of withinDistance(int, double): returns the ball of every source,
+     * so the service areas may overlap - a node appears in the result of every source
+     * that covers it.
+     * @param src - the source nodes
+     * @param radius - the maximal distance of the i'th source
+     * @return the i'th entry holds the ball of src[i].
+     */
+    public NodeDistances[] withinDistance(int[] src, double[] radius) {
+        if (src.length != radius.length)
+            throw new IllegalArgumentException("src and radius must have the same length");
+        NodeDistances[] balls = new NodeDistances[src.length];
+        for (int i = 0; i < src.length; i++)
+            balls[i] = withinDistance(src[i], radius[i]);
+        return balls;
+    }
+
+    /**
+     * Multi-source version of withinDistance(int, double) with a common radius.
+     * @see #withinDistance(int[], double[])
+     */
+    public NodeDistances[] withinDistance(int[] src, double radius) {
+        double[] r = new double[src.length];
+        Arrays.fill(r, radius);
+        return withinDistance(src, r);
+    }
+
+    /**
+     * Returns the k targets that are nearest to a given source by network distance
+     * (e.g. the 3 nearest available vehicles to an incident).
+     * Runs a single Dijkstra search from the source that stops as soon as k targets
+     * were settled, instead of one search per candidate target.
+     * @param src - the source node
+     * @param targets - the keys of the candidate targets (duplicates and missing keys are ignored)
+     * @param k - the number of targets to find
+     * @return up to k reachable targets and their distances, nearest first.
+     */
+    public NodeDistances nearestTargets(int src, int[] targets, int k) {
+        indexed_graph ig = indexed();
+        KeyIndex wanted = new KeyIndex(targets.length);
+        for (int t : targets)
+            wanted.add(t);
+        Dijkstra d = search();
+        d.reset();
+        int s = ig.slotOf(src);
+        if (s != -1) d.seed(s, 0, 0);
+        int[] keys = new int[Math.max(0, Math.min(k, wanted.size()))];
+        double[] dist = new double[keys.length];
+        int found = 0;
+        while (found < keys.length && !d.isEmpty()) {
+            int v = d.next();
+            if (wanted.contains(ig.keyAt(v))) {
+                keys[found] = ig.keyAt(v);
+                dist[found] = d.dist(v);
+                found++;
+            }
+        }
+        return new NodeDistances(Arrays.copyOf(keys, found), Arrays.copyOf(dist, found));
+    }
+
+    /**
+     * Labels every node with its nearest facility (a network Voronoi diagram).
+     * All the facilities are queued with distance 0 and a single Dijkstra pass carries
+     * each facility's label along the shortest path tree.
+     * Ties are broken arbitrarily, nodes that no facility can reach are not labeled.
+     * @param facilities - the keys of the facilities
+     * @return every reached node with its nearest facility and the distance to it.
+     */
+    public FacilityLabels nearestFacility(int[] facilities) {
+        indexed_graph ig = indexed();
+        Dijkstra d = search();
+        d.reset();
+        for (int i = 0; i < facilities.length; i++) {
+            int s = ig.slotOf(facilities[i]);
+            if (s != -1) d.seed(s, 0, i);
+        }
+        d.runAll();
+        int n = d.settledCount();
+        int[] keys = new int[n], facility = new int[n];
+        double[] dist = new double[n];
+        for (int i = 0; i < n; i++) {
+            int v = d.settledAt(i);
+            keys[i] = ig.keyAt(v);
+            facility[i] = facilities[d.origin(v)];
+            dist[i] = d.dist(v);
+        }
+        return new FacilityLabels(keys, facility, dist);
+    }
+
+    /**
+     * Computes the full many-to-many table of shortest path distances between
+     * a list of sources and a list of targets.
+     * Each row is a one-to-many Dijkstra search that stops as soon as all the targets
+     * were settled, and the rows are computed in parallel (each worker with its own search state).
+     * Since the graph is undirected, the searches start from the shorter of the two lists.
+     * The graph must not be changed while the table is computed.
+     * @param sources - the keys of the N row nodes
+     * @param targets - the keys of the M column nodes
+     * @return a flat N*M row-major matrix: entry [i*M+j] is the distance sources[i]->targets[j],
+     * -1 if there is no such path or node (as in shortestPathDist).
+     */
+    public double[] distanceTable(int[] sources, int[] targets) {
+        indexed_graph ig = indexed();
+        int n = sources.length, m = targets.length;
+        double[] table = new double[n * m];
+        boolean transposed = n > m;
+        int[] from = transposed ? targets : sources;
+        int[] to = transposed ? sources : targets;
+        //slot -> first column of that slot, then a chain for repeated columns
+        int[] firstColumn = new int[ig.slotCount()];
+        int[] nextColumn = new int[to.length];
+        Arrays.fill(firstColumn, -1);
+        int distinct = 0;
+        for (int j = to.length - 1; j >= 0; j--) {
+            int s = ig.slotOf(to[j]);
+            nextColumn[j] = -1;
+            if (s == -1) continue;
+            if (firstColumn[s] == -1) distinct++;
+            nextColumn[j] = firstColumn[s];
+            firstColumn[s] = j;
+        }
+        final int targetCount = distinct;
+        int chunk = Math.max(1, from.length / (4 * Runtime.getRuntime().availableProcessors()));
+        int chunks = (from.length + chunk - 1) / chunk;
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            Dijkstra d = new Dijkstra(ig);
+            double[] row = new double[to.length];
+            for (int i = c * chunk; i < Math.min(from.length, (c + 1) * chunk); i++) {
+                Arrays.fill(row, -1);
+                d.reset();
+                int s = ig.slotOf(from[i]);
+                if (s != -1) d.seed(s, 0, 0);
+                int left = targetCount;
+                while (left > 0 && !d.isEmpty()) {
+                    int v = d.next();
+                    if (firstColumn[v] == -1) continue;
+                    left--;
+                    for (int j = firstColumn[v]; j != -1; j = nextColumn[j])
+                        row[j] = d.dist(v);
+                }
+                for (int j = 0; j < to.length; j++) {
+                    if (transposed) table[j * m + i] = row[j];
+                    else table[i * m + j] = row[j];
+                }
+            }
+        });
+        return table;
+    }
+
+    /**
+     * Returns the k shortest loopless paths between src and dest, ranked by cost
+     * (Yen's algorithm).
+     * The first path is the shortest path, every next path is the cheapest "spur" deviation
+     * from the paths found so far: for each node of the last path, the edges used by
+     * the found paths that share the same root, and the nodes of the root itself, are
+     * removed and the shortest path from that node to dest is searched.
+     * The spur searches of one round run in parallel, and the removals are kept on each
+     * search's own overlay, so the shared graph is never changed and concurrent
+     * queries are safe (as long as nobody else changes the graph meanwhile).
+     * @param src - start node
+     * @param dest - end (target) node
+     * @param k - the maximal number of paths
+     * @return up to k distinct loopless paths, cheapest first (empty if there is no path).
+     */
+    public List<NodePath> kShortestPaths(int src, int dest, int k) {
+        indexed_graph ig = indexed();
+        List<NodePath> paths = new ArrayList<>();
+        int s = ig.slotOf(src), t = ig.slotOf(dest);
+        if (s == -1 || t == -1 || k <= 0) return paths;
+        ThreadLocal<Dijkstra> searches = ThreadLocal.withInitial(() -> new Dijkstra(ig));
+        List<int[]> found = new ArrayList<>();
+        Dijkstra d = searches.get();
+        d.reset();
+        d.seed(s, 0, 0);
+        NodePath first = spurPath(d, new int[]{s}, 0, 0, t);
+        if (first == null) return paths;
+        PriorityQueue<NodePath> candidates = new PriorityQueue<>();
+        Set<NodePath> seen = new HashSet<>();
+        seen.add(first);
+        NodePath next = first;
+        while (next != null) {
+            paths.add(next);
+            int[] last = slots(ig, next);
+            found.add(last);
+            if (paths.size() == k) break;
+            double[] rootCost = new double[last.length];
+            for (int i = 1; i < last.length; i++)
+                rootCost[i] = rootCost[i - 1] + ig.getEdge(next.key(i - 1), next.key(i));
+            List<NodePath> spurs = IntStream.range(0, last.length - 1).parallel().mapToObj(i -> {
+                Dijkstra sd = searches.get();
+                sd.reset();
+                for (int[] p : found)
+                    if (p.length > i + 1 && Arrays.equals(p, 0, i + 1, last, 0, i + 1))
+                        sd.blockEdge(p[i], p[i + 1]);
+                for (int j = 0; j < i; j++)
+                    sd.blockNode(last[j]);
+                sd.seed(last[i], 0, 0);
+                return spurPath(sd, last, i, rootCost[i], t);
+            }).filter(Objects::nonNull).collect(Collectors.toList());
+            for (NodePath p : spurs)
+                if (seen.add(p)) candidates.add(p);
+            next = candidates.poll();
+        }
+        return paths;
+    }
+
+    /**
+     * Computes a minimum spanning forest of the graph, with Kruskal's algorithm for
+     * graphs up to a million edges and with parallel Boruvka for larger ones,
+     * using all the available processors.
+     * @return the forest's edges and its total weight.
+     */
+    @Override
+    public SpanningForest minimumSpanningForest() {
+        SpanningForest.Engine engine = g.edgeSize() > 1000000 ? SpanningForest.Engine.BORUVKA : SpanningForest.Engine.KRUSKAL;
+        return minimumSpanningForest(engine, Parallel.defaultThreads());
+    }
+
+    /**
+     * Computes a minimum spanning forest of the graph with a given engine and number of threads.
+     * The graph must not be changed meanwhile.
+     * @param engine - KRUSKAL (parallel edge sort + union-find) or BORUVKA (parallel rounds)
+     * @param threads - the number of worker threads
+     * @return the forest's edges and its total weight.
+     */
+    public SpanningForest minimumSpanningForest(SpanningForest.Engine engine, int threads) {
+        indexed_graph ig = indexed();
+        return Parallel.run(threads, () -> engine == SpanningForest.Engine.KRUSKAL
+                ? MinimumSpanningForest.kruskal(ig)
+                : MinimumSpanningForest.boruvka(ig));
+    }
+
+    /**
+     * Computes the exact weighted betweenness centrality of every node and edge
+     * (Brandes' algorithm, with all the nodes as sources, on all the available processors).
+     * The method runs in O(n*e*log(n)) time.
+     * @return the node and edge scores.
+     */
+    public BetweennessScores betweenness() {
+        return betweenness(Integer.MAX_VALUE, 0, Parallel.defaultThreads());
+    }
+
+    /**
+     * Computes the weighted betweenness centrality of every node and edge from a random
+     * sample of pivot sources, scaled by n/pivots - an unbiased estimate for graphs that are
+     * too large for the exact computation. If pivots >= n the result is exact.
+     * The sources are processed in parallel, every thread with its own accumulators.
+     * The graph must not be changed meanwhile.
+     * @param pivots - the number of sampled sources
+     * @param seed - the seed of the pivots' sampling
+     * @param threads - the number of worker threads
+     * @return the node and edge scores.
+     */
+    public BetweennessScores betweenness(int pivots, long seed, int threads) {
+        indexed_graph ig = indexed();
+        return Parallel.run(threads, () -> {
+            Brandes b = new Brandes(ig);
+            int[] sources = b.pivots(pivots, seed);
+            boolean exact = sources.length == ig.nodeSize();
+            double scale = exact || sources.length == 0 ? 1 : (double) ig.nodeSize() / sources.length;
+            return b.run(sources, scale, exact);
+        });
+    }
+
+    /**
+     * Computes the closeness centrality of every node, in the Wasserman-Faust form that
+     * stays comparable across connected components: ((r-1)/(n-1)) * ((r-1)/sum), where r is
+     * the number of nodes reachable from the node (itself included) and sum is the sum of
+     * their distances. Isolated nodes score 0.
+     * One Dijkstra search per node, the searches run in parallel.
+     * The method runs in O(n*e*log(n)) time.
+     * @return the score of every node.
+     */
+    @Override
+    public NodeScores closeness() {
+        indexed_graph ig = indexed();
+        return Parallel.run(Parallel.defaultThreads(), () -> Centrality.closeness(ig));
+    }
+
+    /**
+     * Computes the harmonic centrality of every node - the sum of 1/dist to every other
+     * node, where unreachable nodes contribute 0.
+     * One Dijkstra search per node, the searches run in parallel.
+     * The method runs in O(n*e*log(n)) time.
+     * @return the score of every node.
+     */
+    @Override
+    public NodeScores harmonicCentrality() {
+        indexed_graph ig = indexed();
+        return Parallel.run(Parallel.defaultThreads(), () -> Centrality.harmonic(ig));
+    }
+
+    /**
+     * Finds the k nodes of highest closeness (see closeness()), without computing
+     * the closeness of every node: a search is stopped as soon as an upper bound on its
+     * node's closeness drops below the k'th best score found so far.
+     * @param k - the number of nodes wanted
+     * @return the k best nodes with their scores, highest first (ties in any order).
+     */
+    @Override
+    public NodeScores topCloseness(int k) {
+        return Centrality.topCloseness(indexed(), k);
+    }
+
+    /**
+     * Computes the eccentricity of every node - its distance to the farthest node of its
+     * connected component - by bounding eccentricities, which usually needs far fewer
+     * searches than one per node.
+     * @return the eccentricity of every node.
+     */
+    @Override
+    public NodeScores eccentricity() {
+        indexed_graph ig = indexed();
+        double[] ecc = Centrality.eccentricities(ig, Centrality.ALL, new double[2]);
+        int[] keys = new int[ig.nodeSize()];
+        double[] scores = new double[keys.length];
+        for (int s = 0, k = 0; s < ig.slotCount(); s++) {
+            if (!ig.isLive(s)) continue;
+            keys[k] = ig.keyAt(s);
+            scores[k++] = ecc[s];
+        }
+        return new NodeScores(keys, scores);
+    }
+
+    /**
+     * Computes the diameter - the largest eccentricity, the longest shortest path inside a
+     * connected component. Only the searches that may still change it are run.
+     * @return the diameter, 0 for an empty graph.
+     */
+    @Override
+    public double diameter() {
+        double[] extremes = new double[2];
+        Centrality.eccentricities(indexed(), Centrality.DIAMETER, extremes);
+        return extremes[0];
+    }
+
+    /**
+     * Computes the radius - the smallest eccentricity (isolated nodes have eccentricity 0).
+     * Only the searches that may still change it are run.
+     * @return the radius, 0 for an empty graph.
+     */
+    @Override
+    public double radius() {
+        double[] extremes = new double[2];
+        Centrality.eccentricities(indexed(), Centrality.RADIUS, extremes);
+        return extremes[1];
+    }
+
     /**
      * Saves this weighted (undirected) graph to the given
      * file name
@@ -244,4 +670,60 @@ public class WGraph_Algo implements weighted_graph_algorithms {
         return false;
     }
 
+    /******************************  private methods  ******************************/
+
+    //Returns the graph as an indexed_graph - the graph itself if it is one,
+    //otherwise a WGraph_DS snapshot that is rebuilt whenever the graph changes
+    private indexed_graph indexed() {
+        if (g instanceof indexed_graph) return (indexed_graph) g;
+        if (indexed == null || indexedOf != g || indexedMC != g.getMC()) {
+            indexed = new WGraph_DS(g);
+            indexedOf = g;
+            indexedMC = g.getMC();
+        }
+        return indexed;
+    }
+
+    //Returns the reusable search over the current indexed graph
+    private Dijkstra search() {
+        indexed_graph ig = indexed();
+        if (search == null || search.graph() != ig)
+            search = new Dijkstra(ig);
+        return search;
+    }
+
+    //Runs a seeded search until dest is settled, and joins root[0..spur) with the path found
+    private static NodePath spurPath(Dijkstra d, int[] root, int spur, double rootCost, int dest) {
+        while (!d.isEmpty()) {
+            if (d.next() == dest) break;
+        }
+        if (d.dist(dest) == INFINITY) return null;
+        int len = spur;
+        for (int v = dest; v != -1; v = d.parent(v)) len++;
+        int[] keys = new int[len];
+        indexed_graph ig = d.graph();
+        for (int i = 0; i < spur; i++) keys[i] = ig.keyAt(root[i]);
+        for (int v = dest, i = len - 1; v != -1; v = d.parent(v), i--) keys[i] = ig.keyAt(v);
+        return new NodePath(keys, rootCost + d.dist(dest));
+    }
+
+    private static int[] slots(indexed_graph ig, NodePath p) {
+        int[] slots = new int[p.size()];
+        for (int i = 0; i < slots.length; i++) slots[i] = ig.slotOf(p.key(i));
+        return slots;
+    }
+
+    //Collects the nodes settled by a search, in settling order
+    private static NodeDistances settled(Dijkstra d) {
+        indexed_graph ig = d.graph();
+        int n = d.settledCount();
+        int[] keys = new int[n];
+        double[] dist = new double[n];
+        for (int i = 0; i < n; i++) {
+            int s = d.settledAt(i);
+            keys[i] = ig.keyAt(s);
+            dist[i] = d.dist(s);
+        }
+        return new NodeDistances(keys, dist);
+    }
 }
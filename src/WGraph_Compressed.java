@@ -0,0 +1,649 @@
+package ex1.src;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * This class represents a compressed, read-only snapshot of an undirected weighted graph,
+ * for archiving and for serving graphs that are too large even for flat arrays.
+ * The nodes get the slots 0..n-1 - in increasing key order, or in a locality preserving
+ * NodeOrder (e.g. reverse Cuthill-McKee) that puts neighbors close together, which also
+ * makes the neighbor gaps below smaller. Every node is stored as one block of bytes:
+ * 1. its degree and the length in bytes of its neighbors, as varints (7 bits per byte,
+ *    the high bit marks that more bytes follow).
+ * 2. its neighbors' slots in increasing order, delta encoded - the first slot and then the
+ *    gaps between consecutive slots, every one as a varint. On graphs whose neighbors have
+ *    close slots most gaps take a single byte.
+ * 3. the weights, in the same order, in fixed width - DOUBLE (exact, 8 bytes), FLOAT
+ *    (4 bytes) or INT16 (2 bytes, linearly quantized between the smallest and the largest
+ *    weight). The largest error the chosen precision introduced is kept, see maxWeightError().
+ * The blocks are packed into byte pages, a block never crosses a page, so the graph is not
+ * limited to 2GB of data.
+ * The structure cannot be changed - the mutating methods throw UnsupportedOperationException.
+ * The node tags (used by some algorithms) and infos can still be set.
+ * The neighbors are read by a sequential decoder: neighborAt(slot, i) continues the
+ * per-thread decoding of the previous call when i is the next position, so a traversal that
+ * scans the neighbors in order (as all of WGraph_Algo's engines do) decodes each varint
+ * once. Random positions are decoded from the start of the block. Traversals that
+ * interleave several nodes (the depth first search of biconnectedComponents) read them
+ * through neighbors(slot), an independent decoder per node.
+ * The class implements indexed_graph, so WGraph_Algo runs on it unchanged.
+ * @see weighted_graph
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class WGraph_Compressed implements indexed_graph, Serializable {
+
+    /**
+     * The storage of the edge weights.
+     */
+    public enum WeightPrecision {
+        /** 8 bytes per weight, exact. */
+        DOUBLE,
+        /** 4 bytes per weight, a relative error of at most 2^-24. */
+        FLOAT,
+        /** 2 bytes per weight, an absolute error of at most (max-min)/131070. */
+        INT16
+    }
+
+    private static final int MIN_PAGE_SHIFT = 24;
+
+    private final int[] keys; //the key of every slot
+    private final int[] sortedKeys, sortedSlots; //the key lookup, null when the slots are in key order
+    private final long[] offsets; //the position of every slot's block
+    private final byte[][] pages;
+    private final int pageShift;
+    private final WeightPrecision precision;
+    private final double minWeight, step, maxError;
+    private final int edgeSize;
+    private final long dataBytes;
+    private final double[] tags;
+    private final Map<Integer, String> infos = new HashMap<>();
+    private transient ThreadLocal<Decoder> cursors;
+
+    /**
+     * Compresses a given graph, keeping the weights exactly.
+     * The method runs in O(n+e*log(d)) time.
+     * @param g the graph to compress
+     */
+    public WGraph_Compressed(weighted_graph g) {
+        this(g, WeightPrecision.DOUBLE);
+    }
+
+    /**
+     * Compresses a given graph with a given weight precision.
+     * The method runs in O(n+e*log(d)) time.
+     * @param g the graph to compress
+     * @param precision the storage of the weights
+     */
+    public WGraph_Compressed(weighted_graph g, WeightPrecision precision) {
+        this(g, precision, NodeOrder.KEYS);
+    }
+
+    /**
+     * Compresses a given graph with a given weight precision, numbering the nodes
+     * in a given order. The keys are not changed.
+     * The method runs in O(n*log(n)+e*log(d)) time.
+     * @param g the graph to compress
+     * @param precision the storage of the weights
+     * @param nodeOrder the order of the slots
+     */
+    public WGraph_Compressed(weighted_graph g, WeightPrecision precision, NodeOrder nodeOrder) {
+        indexed_graph ig = g instanceof indexed_graph ? (indexed_graph) g : new WGraph_DS(g);
+        this.precision = precision;
+        int n = ig.nodeSize();
+        int[] slotOf = new int[ig.slotCount()];
+        int[] newOrder = nodeOrder.order(ig);
+        keys = new int[n];
+        for (int i = 0; i < n; i++) keys[i] = ig.keyAt(newOrder[i]);
+        if (nodeOrder == NodeOrder.KEYS) {
+            sortedKeys = sortedSlots = null;
+        } else {
+            long[] packed = new long[n];
+            for (int i = 0; i < n; i++) packed[i] = ((long) keys[i] << 32) | i;
+            Arrays.sort(packed);
+            sortedKeys = new int[n];
+            sortedSlots = new int[n];
+            for (int i = 0; i < n; i++) {
+                sortedKeys[i] = (int) (packed[i] >> 32);
+                sortedSlots[i] = (int) packed[i];
+            }
+        }
+        double min = Double.POSITIVE_INFINITY, max = 0;
+        int maxDegree = 0;
+        for (int i = 0; i < n; i++) {
+            int s = newOrder[i];
+            slotOf[s] = i;
+            maxDegree = Math.max(maxDegree, ig.degree(s));
+            for (int j = 0; j < ig.degree(s); j++) {
+                min = Math.min(min, ig.weightAt(s, j));
+                max = Math.max(max, ig.weightAt(s, j));
+            }
+        }
+        minWeight = min == Double.POSITIVE_INFINITY ? 0 : min;
+        step = precision == WeightPrecision.INT16 && max > minWeight ? (max - minWeight) / 65535 : 0;
+        //a block never crosses a page, so a page must hold the largest block
+        long largest = 10 + (long) maxDegree * (5 + width());
+        pageShift = Math.max(MIN_PAGE_SHIFT, 64 - Long.numberOfLeadingZeros(largest - 1));
+
+        offsets = new long[n];
+        List<byte[]> out = new ArrayList<>();
+        byte[] page = new byte[1 << 10];
+        int pos = 0;
+        byte[] block = new byte[(int) largest];
+        long[] order = new long[maxDegree];
+        double error = 0;
+        for (int i = 0; i < n; i++) {
+            int s = newOrder[i];
+            int d = ig.degree(s);
+            //sort the neighbors by their new slots, carrying their positions along
+            for (int j = 0; j < d; j++) order[j] = ((long) slotOf[ig.neighborAt(s, j)] << 32) | j;
+            Arrays.sort(order, 0, d);
+            //the neighbors are encoded past the longest possible header, then moved back
+            int len = 10, prev = 0;
+            for (int j = 0; j < d; j++) {
+                int t = (int) (order[j] >>> 32);
+                len = putVarint(block, len, t - prev);
+                prev = t;
+            }
+            int header = putVarint(block, putVarint(block, 0, d), len - 10);
+            System.arraycopy(block, 10, block, header, len - 10);
+            len = header + len - 10;
+            for (int j = 0; j < d; j++) {
+                double w = ig.weightAt(s, (int) order[j]);
+                len = putWeight(block, len, w);
+                error = Math.max(error, Math.abs(w - readWeight(block, len - width())));
+            }
+            if (pos + len > page.length) {
+                if (page.length < (1 << pageShift) && out.isEmpty() && pos + len <= (1 << pageShift)) {
+                    //the first page grows until it is full sized
+                    page = Arrays.copyOf(page, Math.min(1 << pageShift, Math.max(page.length * 2, pos + len)));
+                } else {
+                    out.add(Arrays.copyOf(page, pos));
+                    page = new byte[1 << pageShift];
+                    pos = 0;
+                }
+            }
+            System.arraycopy(block, 0, page, pos, len);
+            offsets[i] = ((long) out.size() << pageShift) | pos;
+            pos += len;
+        }
+        out.add(Arrays.copyOf(page, pos));
+        pages = out.toArray(new byte[0][]);
+        long bytes = 0;
+        for (byte[] p : pages) bytes += p.length;
+        dataBytes = bytes;
+        maxError = error;
+        edgeSize = ig.edgeSize();
+        tags = new double[n];
+        for (int i = 0; i < n; i++) {
+            node_info node = ig.getNode(keys[i]);
+            tags[i] = node.getTag();
+            if (!"".equals(node.getInfo())) infos.put(keys[i], node.getInfo());
+        }
+    }
+
+    /**
+     * @return the storage of the weights.
+     */
+    public WeightPrecision precision() {
+        return precision;
+    }
+
+    /**
+     * @return the largest absolute difference between a stored weight and the original one
+     * (0 for DOUBLE precision).
+     */
+    public double maxWeightError() {
+        return maxError;
+    }
+
+    /**
+     * @return the number of bytes this graph keeps per edge - the adjacency blocks, the
+     * block offsets and the keys (tags and infos are not counted).
+     */
+    public double bytesPerEdge() {
+        long total = dataBytes + 8L * offsets.length + 4L * keys.length;
+        if (sortedKeys != null) total += 8L * keys.length;
+        return edgeSize == 0 ? 0 : (double) total / edgeSize;
+    }
+
+    /**
+     * return the node_data by the node_id - a flyweight over the node's slot.
+     * The method runs in O(log(n)) time.
+     * @param key The Key that the desired node associated with.
+     * @return the node_data by the node_id, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int s = slotOf(key);
+        return s == -1 ? null : new Node(s);
+    }
+
+    /**
+     * Checks if two given nodes are connected.
+     * The method runs in O(log(n)+d) time, d being the smaller degree.
+     * @param key1 the first node's key
+     * @param key2 the second node's key
+     * @return true if the two nodes are connected.
+     */
+    @Override
+    public boolean hasEdge(int key1, int key2) {
+        return getEdge(key1, key2) != -1;
+    }
+
+    /**
+     * return the weight if the edge (node1, node1), -1 if there is no such edge.
+     * The neighbors of the node with the smaller degree are decoded until the other
+     * node's slot is passed.
+     * The method runs in O(log(n)+d) time, d being the smaller degree.
+     * @param node1 node1
+     * @param node2 node2
+     * @return the weight of the edge between node1 - node2
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        int s1 = slotOf(node1);
+        int s2 = slotOf(node2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return -1;
+        if (degree(s1) > degree(s2)) {
+            int t = s1;
+            s1 = s2;
+            s2 = t;
+        }
+        Decoder d = new Decoder();
+        d.start(s1);
+        while (d.hasNext()) {
+            int t = d.next();
+            if (t == s2) return d.weight();
+            if (t > s2) break;
+        }
+        return -1;
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("a compressed graph is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("a compressed graph is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public void updateWeight(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("a compressed graph is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public void updateWeights(int[] node1, int[] node2, double[] w) {
+        throw new UnsupportedOperationException("a compressed graph is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("a compressed graph is read-only");
+    }
+
+    /**
+     * Not supported - the graph is read-only.
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("a compressed graph is read-only");
+    }
+
+    /**
+     * Returns a view of all the nodes in the graph, in slot order.
+     * The method runs in O(1) time.
+     * @return Collection<node_data>
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                return new Iterator<node_info>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    public node_info next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return new Node(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+
+    /**
+     * Returns a view of all the nodes connected to node associated with key,
+     * in slot order, decoded while iterating.
+     * The method runs in O(log(n)) time.
+     * @return Collection<node_data>, an empty collection if there is no such node.
+     */
+    @Override
+    public Collection<node_info> getV(int key) {
+        int s = slotOf(key);
+        if (s == -1) return Collections.emptyList();
+        return new AbstractCollection<node_info>() {
+            @Override
+            public Iterator<node_info> iterator() {
+                Decoder d = new Decoder();
+                d.start(s);
+                return new Iterator<node_info>() {
+                    @Override
+                    public boolean hasNext() {
+                        return d.hasNext();
+                    }
+
+                    @Override
+                    public node_info next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return new Node(d.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return degree(s);
+            }
+        };
+    }
+
+    /**
+     * @return the number of slots - the slots are 0..n-1.
+     */
+    @Override
+    public int slotCount() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the slot of the node associated with a given key (a binary search of the keys).
+     * The method runs in O(log(n)) time.
+     * @param key The node's key
+     * @return the slot of the node, -1 if none.
+     */
+    @Override
+    public int slotOf(int key) {
+        if (sortedKeys == null) {
+            int s = Arrays.binarySearch(keys, key);
+            return s < 0 ? -1 : s;
+        }
+        int i = Arrays.binarySearch(sortedKeys, key);
+        return i < 0 ? -1 : sortedSlots[i];
+    }
+
+    @Override
+    public int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    @Override
+    public boolean isLive(int slot) {
+        return slot >= 0 && slot < keys.length;
+    }
+
+    /**
+     * @param slot a slot of this graph
+     * @return the number of neighbors of the node in the given slot (decoded from its block).
+     */
+    @Override
+    public int degree(int slot) {
+        long o = offsets[slot];
+        byte[] page = pages[(int) (o >>> pageShift)];
+        int pos = (int) (o & ((1L << pageShift) - 1));
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = page[pos++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    /**
+     * Returns the i'th neighbor of a node, continuing this thread's previous decoding when
+     * i is the next position of the same node - so scanning all the neighbors in order
+     * takes O(d) time. Other positions are decoded from the start of the block.
+     * @param slot a slot of this graph
+     * @param i a position in the range [0, degree(slot))
+     * @return the slot of the i'th neighbor (in increasing slot order).
+     */
+    @Override
+    public int neighborAt(int slot, int i) {
+        return cursor(slot, i).value;
+    }
+
+    /**
+     * @param slot a slot of this graph
+     * @param i a position in the range [0, degree(slot))
+     * @return the weight of the edge to the i'th neighbor of the node in the given slot.
+     */
+    @Override
+    public double weightAt(int slot, int i) {
+        return cursor(slot, i).weight();
+    }
+
+    /**
+     * Returns an independent decoder of a node's neighbors, which keeps its position while
+     * other nodes are read - for traversals that interleave the scans of several nodes.
+     * @param slot a slot of this graph
+     * @return a cursor over the neighbors of the node in the given slot, in increasing slot order.
+     */
+    @Override
+    public Neighbors neighbors(int slot) {
+        Decoder d = new Decoder();
+        d.start(slot);
+        return d;
+    }
+
+    @Override
+    public int nodeSize() {
+        return keys.length;
+    }
+
+    @Override
+    public int edgeSize() {
+        return edgeSize;
+    }
+
+    /**
+     * @return 0 - the graph never changes.
+     */
+    @Override
+    public int getMC() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Vertices: " + nodeSize() + " Edges: " + edgeSize() + " (compressed, "
+                + precision + " weights, " + String.format("%.2f", bytesPerEdge()) + " bytes/edge)";
+    }
+
+    /******************************  private methods  ******************************/
+
+    private int width() {
+        return precision == WeightPrecision.DOUBLE ? 8 : precision == WeightPrecision.FLOAT ? 4 : 2;
+    }
+
+    private static int putVarint(byte[] b, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            b[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        b[pos++] = (byte) value;
+        return pos;
+    }
+
+    private int putWeight(byte[] b, int pos, double w) {
+        long bits;
+        int width = width();
+        if (precision == WeightPrecision.DOUBLE) bits = Double.doubleToRawLongBits(w);
+        else if (precision == WeightPrecision.FLOAT) bits = Float.floatToRawIntBits((float) w);
+        else bits = step == 0 ? 0 : Math.round((w - minWeight) / step);
+        for (int k = 0; k < width; k++) b[pos++] = (byte) (bits >>> (8 * k));
+        return pos;
+    }
+
+    private double readWeight(byte[] b, int pos) {
+        switch (precision) {
+            case DOUBLE: {
+                long bits = 0;
+                for (int k = 0; k < 8; k++) bits |= (b[pos + k] & 0xFFL) << (8 * k);
+                return Double.longBitsToDouble(bits);
+            }
+            case FLOAT: {
+                int bits = 0;
+                for (int k = 0; k < 4; k++) bits |= (b[pos + k] & 0xFF) << (8 * k);
+                return Float.intBitsToFloat(bits);
+            }
+            default:
+                return minWeight + ((b[pos] & 0xFF) | (b[pos + 1] & 0xFF) << 8) * step;
+        }
+    }
+
+    //Returns this thread's decoder, positioned at the i'th neighbor of slot
+    private Decoder cursor(int slot, int i) {
+        ThreadLocal<Decoder> local = cursors;
+        if (local == null) cursors = local = ThreadLocal.withInitial(Decoder::new);
+        Decoder d = local.get();
+        if (d.slot != slot || d.index > i) d.start(slot);
+        while (d.index < i) d.next();
+        return d;
+    }
+
+    /*****************************  private classes  ******************************/
+
+    //A sequential decoder over the block of one node
+    private class Decoder implements Neighbors {
+        int slot = -1, index, degree, pos, value;
+        byte[] page;
+        int weights; //the position of the first weight in the page
+
+        void start(int s) {
+            slot = s;
+            long o = offsets[s];
+            page = pages[(int) (o >>> pageShift)];
+            pos = (int) (o & ((1L << pageShift) - 1));
+            degree = varint();
+            int length = varint();
+            weights = pos + length;
+            index = -1;
+            value = 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index + 1 < degree;
+        }
+
+        @Override
+        public int next() {
+            value += varint();
+            index++;
+            return value;
+        }
+
+        @Override
+        public double weight() {
+            return readWeight(page, weights + index * width());
+        }
+
+        private int varint() {
+            int v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = page[pos++];
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+        }
+    }
+
+    //A flyweight over a slot - the tags and infos are kept beside the compressed structure
+    private class Node implements node_info, Comparable<node_info> {
+
+        private final int slot;
+
+        Node(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public int getKey() {
+            return keys[slot];
+        }
+
+        @Override
+        public String getInfo() {
+            return infos.getOrDefault(keys[slot], "");
+        }
+
+        @Override
+        public void setInfo(String s) {
+            infos.put(keys[slot], s);
+        }
+
+        @Override
+        public double getTag() {
+            return tags[slot];
+        }
+
+        @Override
+        public void setTag(double t) {
+            tags[slot] = t;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + keys[slot];
+        }
+
+        @Override
+        public int compareTo(node_info o) {
+            return o.getTag() < getTag() ? 1 : -1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Node)) return false;
+            return getKey() == ((Node) o).getKey();
+        }
+
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(getKey());
+        }
+    }
+}
@@ -1,26 +1,32 @@
 package ex1.src;
 
 import java.io.Serializable;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Objects;
+import java.util.*;
+import java.util.stream.IntStream;
 
 /**
- * This class represents an undirected unweighted graph.
+ * This class represents an undirected weighted graph.
  * The implementation based on adjacency list representation -
- * created with HashMap data structure for accessing vertices quickly.
+ * every node gets a compact slot from a KeyIndex, and the nodes and their
+ * adjacency lists are stored in slot indexed arrays.
+ * Each adjacency list is keyed by the primitive slots of the neighbors,
+ * so changing a node's info or tag never affects the edges.
  * The class implements the interface graph -
  * for more documentation visit this interface.
+ * Its changes can be observed by listeners (see observable_graph) - without listeners
+ * a change costs one null check more.
  * @see weighted_graph
  *
  * @author Eyal Levi
  * https://github.com/LeviEyal
  */
-public class WGraph_DS implements weighted_graph, Serializable {
+public class WGraph_DS implements indexed_graph, observable_graph, Serializable {
 
-    private HashMap<Integer, node_info> v = new HashMap<>();
-    private HashMap<Integer, HashMap<node_info, Double>> e = new HashMap<>();
+    private KeyIndex index = new KeyIndex();
+    private NodeData[] nodes = new NodeData[16];
+    private NeighborMap[] adj = new NeighborMap[16];
     private int nodeSize, edgeSize, mc;
+    private transient GraphEvents events; //created by the first listener or batch
 
     public WGraph_DS() {
         nodeSize = 0;
@@ -31,20 +37,35 @@ public class WGraph_DS implements weighted_graph, Serializable {
     /**
      * Creates a new graph that is a deep copy of a given other graph.
      * The constructor copy each node of the other graph to the new graph
-     * and than seek for any possible edge in the other graph and
+     * and than walks over the neighbors of each node in the other graph and
      * connect the parallel nodes in the new graph.
-     * The method runs in O(n^2) time.
+     * If the other graph is a WGraph_DS its slots are preserved.
+     * The method runs in O(n+e) time.
      * @param other graph to copy from
      */
     public WGraph_DS(weighted_graph other) {
-        for (node_info n : other.getV()) {
-            v.put(n.getKey(), new NodeData(n));
-            e.put(n.getKey(), new HashMap<>());
-        }
-        for (int i : v.keySet()) {
-            for (int j : v.keySet()) {
-                if (other.hasEdge(i,j))
-                    connect(i, j, other.getEdge(i, j));
+        if (other instanceof WGraph_DS) {
+            WGraph_DS o = (WGraph_DS) other;
+            index = new KeyIndex(o.index);
+            nodes = new NodeData[o.nodes.length];
+            adj = new NeighborMap[o.adj.length];
+            for (int s = 0; s < o.index.slotCount(); s++) {
+                if (o.nodes[s] != null) {
+                    nodes[s] = new NodeData(o.nodes[s]);
+                    adj[s] = new NeighborMap(o.adj[s]);
+                }
+            }
+        } else {
+            for (node_info n : other.getV()) {
+                int s = index.add(n.getKey());
+                ensureCapacity(s);
+                nodes[s] = new NodeData(n);
+                adj[s] = new NeighborMap();
+            }
+            for (node_info n : other.getV()) {
+                for (node_info ni : other.getV(n.getKey())) {
+                    connect(n.getKey(), ni.getKey(), other.getEdge(n.getKey(), ni.getKey()));
+                }
             }
         }
         nodeSize = other.nodeSize();
@@ -52,6 +73,72 @@ public class WGraph_DS implements weighted_graph, Serializable {
         edgeSize = other.edgeSize();
     }
 
+    /**
+     * Creates a new graph that is a deep copy of a given other graph, with the slots
+     * numbered in a given order (e.g. NodeOrder.REVERSE_CUTHILL_MCKEE, so neighbors get
+     * close slots and the slot indexed state of algorithms is read with fewer cache misses).
+     * Every adjacency list is kept in increasing slot order. The keys are not changed.
+     * The method runs in O(n*log(n)+e*log(d)) time.
+     * @param other graph to copy from
+     * @param order the order of the new slots
+     */
+    public WGraph_DS(weighted_graph other, NodeOrder order) {
+        indexed_graph o = other instanceof indexed_graph ? (indexed_graph) other : new WGraph_DS(other);
+        int[] slots = order.order(o);
+        int n = slots.length;
+        index = new KeyIndex(n);
+        nodes = new NodeData[Math.max(16, n)];
+        adj = new NeighborMap[nodes.length];
+        for (int s : slots) {
+            int t = index.add(o.keyAt(s));
+            nodes[t] = new NodeData(o.getNode(o.keyAt(s)));
+            adj[t] = new NeighborMap();
+        }
+        //arcs are appended by increasing source slot, and the larger neighbors of every
+        //slot are appended sorted, so every adjacency list ends up sorted
+        long[] sorted = new long[16];
+        for (int t = 0; t < n; t++) {
+            int s = slots[t], d = o.degree(s), k = 0;
+            if (sorted.length < d) sorted = new long[d];
+            for (int i = 0; i < d; i++) {
+                int u = index.slotOf(o.keyAt(o.neighborAt(s, i)));
+                if (u > t) sorted[k++] = ((long) u << 32) | i;
+            }
+            Arrays.sort(sorted, 0, k);
+            for (int j = 0; j < k; j++) {
+                int u = (int) (sorted[j] >>> 32);
+                double w = o.weightAt(s, (int) sorted[j]);
+                adj[t].add(u, w);
+                adj[u].add(t, w);
+            }
+        }
+        nodeSize = n;
+        edgeSize = o.edgeSize();
+        mc = other.getMC();
+    }
+
+    /**
+     * Bulk builds a graph from adjacency arrays (see GraphLoader): the slot s has the key
+     * index.keyAt(s) and the neighbors nbr[offset[s]..offset[s]+degree[s]) with the
+     * weights w[...] at the same positions. Every edge must appear in both of its lists,
+     * without duplicates. The lists are copied in parallel, on the calling pool.
+     * The method runs in O(n+e) time.
+     */
+    WGraph_DS(KeyIndex index, int[] offset, int[] degree, int[] nbr, double[] w) {
+        int n = index.slotCount();
+        this.index = index;
+        nodes = new NodeData[Math.max(16, n)];
+        adj = new NeighborMap[nodes.length];
+        long arcs = IntStream.range(0, n).parallel().mapToLong(s -> {
+            nodes[s] = new NodeData(index.keyAt(s));
+            adj[s] = new NeighborMap(nbr, w, offset[s], degree[s]);
+            return degree[s];
+        }).sum();
+        nodeSize = n;
+        edgeSize = (int) (arcs / 2);
+        mc = 0;
+    }
+
     /**
      * return the node_data by the node_id.
      * The method runs in O(1) time.
@@ -60,7 +147,8 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public node_info getNode(int key) {
-        return v.get(key);
+        int s = index.slotOf(key);
+        return s == -1 ? null : nodes[s];
     }
 
     /**
@@ -72,11 +160,7 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public boolean hasEdge(int key1, int key2) {
-        node_info n1 = getNode(key1);
-        node_info n2 = getNode(key2);
-        if(n1==null || n2==null || key1==key2)
-            return false;
-        return e.get(key1).containsKey(n2);
+        return edgePosition(key1, key2) != -1;
     }
 
     /**
@@ -90,10 +174,12 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public double getEdge(int node1, int node2) {
-        if (hasEdge(node1, node2)) {
-            return e.get(node1).get(getNode(node2));
-        }
-        return -1;
+        int s1 = index.slotOf(node1);
+        int s2 = index.slotOf(node2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return -1;
+        int i = adj[s1].indexOf(s2);
+        return i == -1 ? -1 : adj[s1].weight(i);
     }
 
     /**
@@ -105,11 +191,14 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public void addNode(int key) {
-        if (!v.containsKey(key)) {
-            v.put(key, new NodeData(key));
-            e.put(key, new HashMap<>());
+        if (index.slotOf(key) == -1) {
+            int s = index.add(key);
+            ensureCapacity(s);
+            nodes[s] = new NodeData(key);
+            adj[s] = new NeighborMap();
             nodeSize++;
             mc++;
+            fire(GraphEvent.Type.ADD_NODE, key, -1, 0);
         }
     }
 
@@ -123,57 +212,122 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public void connect(int key1, int key2, double w) {
-        node_info n1 = getNode(key1);
-        node_info n2 = getNode(key2);
-        if(n1==null || n2==null || key1==key2)
+        int s1 = index.slotOf(key1);
+        int s2 = index.slotOf(key2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
             return;
-        if (!hasEdge(key1, key2)) {
-            e.get(key1).put(n2, w);
-            e.get(key2).put(n1, w);
+        if (adj[s1].indexOf(s2) == -1) {
+            adj[s1].add(s2, w);
+            adj[s2].add(s1, w);
             edgeSize++;
             mc++;
+            fire(GraphEvent.Type.CONNECT, key1, key2, w);
+        }
+    }
+
+    /**
+     * Changes the weight of an existing edge, in place.
+     * If there is no such edge, the method does nothing.
+     * The method runs in O(1) time.
+     * @param key1 The first node's key
+     * @param key2 The second node's key
+     * @param w the new weight
+     */
+    @Override
+    public void updateWeight(int key1, int key2, double w) {
+        if (setWeight(key1, key2, w)) {
+            mc++;
+            fire(GraphEvent.Type.UPDATE_WEIGHT, key1, key2, w);
+        }
+    }
+
+    /**
+     * Changes the weights of many existing edges as a single modification:
+     * the ModeCount is incremented once if any weight changed.
+     * Missing edges are skipped.
+     * The method runs in O(k) time, where k stands for the length of the batch.
+     * @param key1 the first nodes' keys
+     * @param key2 the second nodes' keys
+     * @param w the new weights
+     */
+    @Override
+    public void updateWeights(int[] key1, int[] key2, double[] w) {
+        if (key1.length != key2.length || key1.length != w.length)
+            throw new IllegalArgumentException("batch arrays must have the same length");
+        boolean[] report = events != null && events.isActive() ? new boolean[key1.length] : null;
+        boolean changed = false;
+        for (int i = 0; i < key1.length; i++) {
+            if (setWeight(key1[i], key2[i], w[i])) {
+                changed = true;
+                if (report != null) report[i] = true;
+            }
+        }
+        if (changed) {
+            mc++;
+            if (report != null) events.fireWeights(key1, key2, w, report, mc);
         }
     }
 
     /**
      * This method return a pointer (shallow copy) for the
      * collection representing all the nodes in the graph.
+     * The collection is a live view - it reflects later changes of the graph.
      * The method runs in O(1) time.
      * @return Collection<node_data>
      */
     @Override
     public Collection<node_info> getV() {
-        return v.values();
+        return new NodesView();
     }
 
     /**
      * Returns a collection representing all the nodes connected to node associated with key.
+     * The collection is a live view of the node's adjacency.
      * The method runs in O(1) time.
-     * @return Collection<node_data>
+     * @return Collection<node_data>, an empty collection if there is no such node.
      */
     @Override
     public Collection<node_info> getV(int key) {
-        return e.get(key).keySet();
+        int s = index.slotOf(key);
+        if (s == -1) return Collections.emptyList();
+        return new NeighborsView(adj[s]);
     }
 
     /**
      * Remove a node associated with a given key,
      * and remove all of the edges that involves this node.
-     * The method runs in O(n) time, where n stands for the amount of this graph's vertices.
+     * The method runs in O(k) time, where k stands for the degree of the node.
      * @param key A key of the node to be removed
      * @return The deleted node if succeeded. otherwise return null.
      */
     @Override
     public node_info removeNode(int key) {
-        if (v.containsKey(key)) {
-            Collection<node_info> t = getV(key);
-            while (!t.isEmpty())
-                removeEdge(t.iterator().next().getKey(), key);
+        int s = index.slotOf(key);
+        if (s == -1)
+            return null;
+        if (events != null) events.begin();
+        try {
+            NeighborMap ns = adj[s];
+            for (int i = ns.size() - 1; i >= 0; i--) {
+                int t = ns.neighbor(i);
+                double w = ns.weight(i);
+                adj[t].remove(s);
+                ns.remove(t);
+                edgeSize--;
+                mc++;
+                fire(GraphEvent.Type.REMOVE_EDGE, key, nodes[t].getKey(), w);
+            }
+            node_info n = nodes[s];
+            nodes[s] = null;
+            adj[s] = null;
+            index.remove(key);
             mc++;
             nodeSize--;
-            return v.remove(key);
+            fire(GraphEvent.Type.REMOVE_NODE, key, -1, 0);
+            return n;
+        } finally {
+            if (events != null) events.end();
         }
-        return null;
     }
 
     /**
@@ -184,14 +338,88 @@ public class WGraph_DS implements weighted_graph, Serializable {
      */
     @Override
     public void removeEdge(int key1, int key2) {
-        if (hasEdge(key1, key2)) {
-            e.get(key1).remove(getNode(key2));
-            e.get(key2).remove(getNode(key1));
+        int s1 = index.slotOf(key1);
+        int s2 = index.slotOf(key2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return;
+        int i = adj[s1].indexOf(s2);
+        if (i != -1) {
+            double w = adj[s1].weight(i);
+            adj[s1].remove(s2);
+            adj[s2].remove(s1);
             mc++;
             edgeSize--;
+            fire(GraphEvent.Type.REMOVE_EDGE, key1, key2, w);
         }
     }
 
+    /**
+     * @return an upper bound (exclusive) on the slots of this graph's nodes.
+     * The method runs in O(1) time.
+     */
+    @Override
+    public int slotCount() {
+        return index.slotCount();
+    }
+
+    /**
+     * Returns the compact slot of the node associated with a given key.
+     * The method runs in O(1) time.
+     * @param key The node's key
+     * @return the slot of the node, -1 if none.
+     */
+    @Override
+    public int slotOf(int key) {
+        return index.slotOf(key);
+    }
+
+    /**
+     * @param slot a live slot of this graph
+     * @return the key of the node stored in the given slot.
+     */
+    @Override
+    public int keyAt(int slot) {
+        return index.keyAt(slot);
+    }
+
+    /**
+     * @param slot a slot number
+     * @return true iff some node of this graph is stored in the given slot.
+     */
+    @Override
+    public boolean isLive(int slot) {
+        return index.isLive(slot);
+    }
+
+    /**
+     * @param slot a live slot of this graph
+     * @return the number of neighbors of the node in the given slot.
+     */
+    @Override
+    public int degree(int slot) {
+        return adj[slot].size();
+    }
+
+    /**
+     * @param slot a live slot of this graph
+     * @param i a position in the range [0, degree(slot))
+     * @return the slot of the i'th neighbor of the node in the given slot.
+     */
+    @Override
+    public int neighborAt(int slot, int i) {
+        return adj[slot].neighbor(i);
+    }
+
+    /**
+     * @param slot a live slot of this graph
+     * @param i a position in the range [0, degree(slot))
+     * @return the weight of the edge to the i'th neighbor of the node in the given slot.
+     */
+    @Override
+    public double weightAt(int slot, int i) {
+        return adj[slot].weight(i);
+    }
+
     /**
      * @return The number of nodes of this graph.
      * The method runs in O(1) time.
@@ -220,40 +448,197 @@ public class WGraph_DS implements weighted_graph, Serializable {
         return mc;
     }
 
+    /**
+     * Subscribes a listener to the changes of this graph.
+     * The listeners are not copied or serialized with the graph.
+     * @param l the listener
+     */
+    @Override
+    public void addListener(graph_listener l) {
+        events().add(l);
+    }
+
+    @Override
+    public void removeListener(graph_listener l) {
+        if (events != null) events.remove(l);
+    }
+
+    @Override
+    public void beginBatch() {
+        events().begin();
+    }
+
+    @Override
+    public void endBatch() {
+        if (events == null) throw new IllegalStateException("no open batch");
+        events.end();
+    }
+
     /**
      * Returns a string representation of this graph as an adjacency list.
      * @return A string representation of this graph
      */
     @Override
     public String toString() {
-        String s = "Vertices: " + nodeSize() + " Edges: " + edgeSize() + " MC: " + getMC() + "\n";
-        for (int key : v.keySet()) {
-            s += key + ": ";
-            for (node_info n : getV(key)) {
-                s += n + "(w=" + e.get(key).get(n) + "), ";
+        StringBuilder s = new StringBuilder("Vertices: " + nodeSize() + " Edges: " + edgeSize() + " MC: " + getMC() + "\n");
+        for (int i = 0; i < index.slotCount(); i++) {
+            if (nodes[i] == null) continue;
+            s.append(nodes[i].getKey()).append(": ");
+            NeighborMap ns = adj[i];
+            for (int j = 0; j < ns.size(); j++) {
+                s.append(nodes[ns.neighbor(j)]).append("(w=").append(ns.weight(j)).append("), ");
             }
-            s += "\n";
+            s.append("\n");
         }
-        return s;
+        return s.toString();
     }
 
+    /**
+     * Two graphs are equal if they have the same nodes (keys and info)
+     * and the same edges with the same weights. Slots are not compared.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         WGraph_DS other = (WGraph_DS) o;
-        if (nodeSize != other.nodeSize && edgeSize == other.edgeSize)
+        if (nodeSize != other.nodeSize || edgeSize != other.edgeSize)
             return false;
-        for (int i : v.keySet()) {
-            if (!e.get(i).equals(other.e.get(i)))
+        for (int i = 0; i < index.slotCount(); i++) {
+            if (nodes[i] == null) continue;
+            int j = other.index.slotOf(nodes[i].getKey());
+            if (j == -1 || !nodes[i].equals(other.nodes[j]))
                 return false;
+            NeighborMap ns = adj[i];
+            for (int k = 0; k < ns.size(); k++) {
+                if (other.getEdge(nodes[i].getKey(), nodes[ns.neighbor(k)].getKey()) != ns.weight(k))
+                    return false;
+            }
         }
         return true;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(v, e, nodeSize, edgeSize);
+        int h = 0;
+        for (int i = 0; i < index.slotCount(); i++) {
+            if (nodes[i] == null) continue;
+            h += nodes[i].hashCode();
+            NeighborMap ns = adj[i];
+            for (int k = 0; k < ns.size(); k++)
+                h += nodes[i].getKey() ^ nodes[ns.neighbor(k)].getKey() ^ Double.hashCode(ns.weight(k));
+        }
+        return Objects.hash(h, nodeSize, edgeSize);
+    }
+
+    //Returns the position of key2 in the adjacency of key1, -1 if there is no such edge
+    private int edgePosition(int key1, int key2) {
+        int s1 = index.slotOf(key1);
+        int s2 = index.slotOf(key2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return -1;
+        return adj[s1].indexOf(s2);
+    }
+
+    private GraphEvents events() {
+        if (events == null) events = new GraphEvents();
+        return events;
+    }
+
+    //Reports a change, with the current ModeCount, to the listeners (if any)
+    private void fire(GraphEvent.Type type, int key1, int key2, double w) {
+        if (events != null) events.fire(type, key1, key2, w, mc);
+    }
+
+    //Sets the weight of an existing edge on both sides, returns true iff the weight changed
+    private boolean setWeight(int key1, int key2, double w) {
+        int s1 = index.slotOf(key1);
+        int s2 = index.slotOf(key2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return false;
+        int i = adj[s1].indexOf(s2);
+        if (i == -1 || adj[s1].weight(i) == w)
+            return false;
+        adj[s1].setWeight(i, w);
+        adj[s2].setWeight(adj[s2].indexOf(s1), w);
+        return true;
+    }
+
+    //Grows the slot indexed arrays so they can hold the given slot
+    private void ensureCapacity(int slot) {
+        if (slot >= nodes.length) {
+            int len = Math.max(slot + 1, nodes.length * 2);
+            nodes = Arrays.copyOf(nodes, len);
+            adj = Arrays.copyOf(adj, len);
+        }
+    }
+
+    /*****************************  inner views  ******************************/
+
+    //A live view of all the nodes of this graph, in slot order
+    private class NodesView extends AbstractCollection<node_info> {
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int next = advance(0);
+
+                private int advance(int s) {
+                    int count = index.slotCount();
+                    while (s < count && nodes[s] == null) s++;
+                    return s;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < index.slotCount();
+                }
+
+                @Override
+                public node_info next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    node_info n = nodes[next];
+                    next = advance(next + 1);
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return nodeSize;
+        }
+    }
+
+    //A live view of the neighbors of a single node
+    private class NeighborsView extends AbstractCollection<node_info> {
+        private final NeighborMap ns;
+
+        NeighborsView(NeighborMap ns) {
+            this.ns = ns;
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < ns.size();
+                }
+
+                @Override
+                public node_info next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return nodes[ns.neighbor(i++)];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ns.size();
+        }
     }
 
     /*****************************  private classes  ******************************/
@@ -346,9 +731,150 @@ public class WGraph_DS implements weighted_graph, Serializable {
                     Objects.equals(info, nodeData.info);
         }
 
+        //Only the key, so the hash of a node stays stable when its info changes
         @Override
         public int hashCode() {
-            return Objects.hash(key, info);
+            return Integer.hashCode(key);
+        }
+    }
+
+    /**
+     * The adjacency of a single node: parallel arrays of neighbor slots and weights.
+     * Small lists are searched linearly, once a list grows beyond LINEAR_LIMIT an
+     * open-addressing table (neighbor slot -> position) is kept next to the arrays.
+     * Removal moves the last entry into the freed position, so the arrays stay dense.
+     */
+    private static class NeighborMap implements Serializable {
+
+        private static final int LINEAR_LIMIT = 8;
+        private static final int EMPTY = -1;
+
+        private int[] nbr;
+        private double[] w;
+        private int size;
+        private int[] table; // null while the list is small
+
+        NeighborMap() {
+            nbr = new int[2];
+            w = new double[2];
+        }
+
+        NeighborMap(NeighborMap other) {
+            nbr = Arrays.copyOf(other.nbr, Math.max(other.size, 2));
+            w = Arrays.copyOf(other.w, nbr.length);
+            size = other.size;
+            table = other.table == null ? null : other.table.clone();
+        }
+
+        NeighborMap(int[] nbr, double[] w, int from, int size) {
+            this.nbr = Arrays.copyOfRange(nbr, from, from + Math.max(size, 2));
+            this.w = Arrays.copyOfRange(w, from, from + this.nbr.length);
+            this.size = size;
+            if (size > LINEAR_LIMIT) rebuild();
+        }
+
+        int size() {
+            return size;
+        }
+
+        int neighbor(int i) {
+            return nbr[i];
+        }
+
+        double weight(int i) {
+            return w[i];
+        }
+
+        void setWeight(int i, double weight) {
+            w[i] = weight;
+        }
+
+        //Returns the position of the given neighbor slot, -1 if absent
+        int indexOf(int slot) {
+            if (table == null) {
+                for (int i = 0; i < size; i++)
+                    if (nbr[i] == slot) return i;
+                return -1;
+            }
+            int mask = table.length - 1;
+            for (int h = hash(slot) & mask; table[h] != EMPTY; h = (h + 1) & mask) {
+                if (nbr[table[h]] == slot) return table[h];
+            }
+            return -1;
+        }
+
+        //Appends a neighbor that is known to be absent
+        void add(int slot, double weight) {
+            if (size == nbr.length) {
+                nbr = Arrays.copyOf(nbr, size * 2);
+                w = Arrays.copyOf(w, size * 2);
+            }
+            nbr[size] = slot;
+            w[size] = weight;
+            size++;
+            if (table != null) {
+                if (size * 2 > table.length) rebuild();
+                else insert(size - 1);
+            } else if (size > LINEAR_LIMIT) {
+                rebuild();
+            }
+        }
+
+        //Removes a neighbor, returns false if it was absent
+        boolean remove(int slot) {
+            int i = indexOf(slot);
+            if (i == -1) return false;
+            int last = size - 1;
+            if (table != null) {
+                erase(slot);
+                if (i != last) table[find(nbr[last])] = i;
+            }
+            nbr[i] = nbr[last];
+            w[i] = w[last];
+            size--;
+            return true;
+        }
+
+        private void rebuild() {
+            int cap = 16;
+            while (cap < size * 4) cap <<= 1;
+            table = new int[cap];
+            Arrays.fill(table, EMPTY);
+            for (int i = 0; i < size; i++) insert(i);
+        }
+
+        private void insert(int pos) {
+            int mask = table.length - 1;
+            int h = hash(nbr[pos]) & mask;
+            while (table[h] != EMPTY) h = (h + 1) & mask;
+            table[h] = pos;
+        }
+
+        //Returns the table cell that refers to the given neighbor slot
+        private int find(int slot) {
+            int mask = table.length - 1;
+            int h = hash(slot) & mask;
+            while (nbr[table[h]] != slot) h = (h + 1) & mask;
+            return h;
+        }
+
+        //Backward-shift deletion of the cell that refers to the given neighbor slot
+        private void erase(int slot) {
+            int mask = table.length - 1;
+            int gap = find(slot);
+            for (int j = (gap + 1) & mask; table[j] != EMPTY; j = (j + 1) & mask) {
+                int home = hash(nbr[table[j]]) & mask;
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    table[gap] = table[j];
+                    gap = j;
+                }
+            }
+            table[gap] = EMPTY;
+        }
+
+        private static int hash(int slot) {
+            int h = slot * 0x9E3779B9;
+            return h ^ (h >>> 16);
         }
     }
 
@@ -0,0 +1,316 @@
+package ex1.src;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * This class represents the coordinator of a graph that is split into K partitions, each one
+ * served by its own process (a PartitionServer, see there), so that no single JVM holds the
+ * whole graph.
+ * 1. partition(g, k, dir) - splits a graph by edge-cut: the nodes are numbered in reverse
+ *    Cuthill-McKee order (neighbors get close numbers) and cut into k ranges of equal size.
+ *    Every partition file holds the partition's nodes and edges plus the cut edges and their
+ *    boundary nodes.
+ * 2. launch(dir, k) - starts a JVM per partition on this machine and connects to them over loopback
+ *    (the JVMs that do not start in time are killed).
+ * 3. shortestPathDist(src, dest) - the query runs in rounds. The partition that owns src
+ *    searches its local graph and reports the boundary nodes of the other partitions it reached.
+ *    The coordinator sends every such distance to the partition that owns the node, which
+ *    continues its own search from there, and so on until no distance improves. The searches
+ *    are pruned by the best distance to dest known so far, so only the partitions on the way
+ *    are involved. The partitions of a round work in parallel.
+ * The coordinator is thread safe - queries are served one after the other.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class WGraph_Distributed implements Closeable {
+
+    private final List<Process> processes = new ArrayList<>();
+    private final Socket[] sockets;
+    private final DataInputStream[] in;
+    private final DataOutputStream[] out;
+    private int rounds;
+
+    private WGraph_Distributed(int k) {
+        sockets = new Socket[k];
+        in = new DataInputStream[k];
+        out = new DataOutputStream[k];
+    }
+
+    /**
+     * Splits a graph into partition files, partition-0.bin ... partition-(k-1).bin.
+     * The method runs in O(n*log(n)+e) time.
+     * @param g the graph
+     * @param k the number of partitions (at least 1)
+     * @param dir the directory of the partition files
+     * @return the number of cut edges.
+     * @throws IOException if a file cannot be written
+     */
+    public static int partition(weighted_graph g, int k, String dir) throws IOException {
+        if (k < 1) throw new IllegalArgumentException("k must be positive: " + k);
+        indexed_graph ig = g instanceof indexed_graph ? (indexed_graph) g : new WGraph_DS(g);
+        int[] order = NodeOrder.REVERSE_CUTHILL_MCKEE.order(ig);
+        int n = order.length;
+        int[] part = new int[ig.slotCount()];
+        for (int p = 0; p < k; p++)
+            for (int i = first(n, k, p); i < first(n, k, p + 1); i++) part[order[i]] = p;
+        int cut = 0;
+        for (int p = 0; p < k; p++) {
+            WGraph_DS local = new WGraph_DS();
+            int[] owner = new int[16];
+            //the owned nodes first, then the ghosts as they are met
+            for (int i = first(n, k, p); i < first(n, k, p + 1); i++) {
+                local.addNode(ig.keyAt(order[i]));
+                owner = put(owner, local.slotOf(ig.keyAt(order[i])), p);
+            }
+            for (int i = first(n, k, p); i < first(n, k, p + 1); i++) {
+                int s = order[i];
+                for (int j = 0, d = ig.degree(s); j < d; j++) {
+                    int u = ig.neighborAt(s, j);
+                    if (part[u] != p) {
+                        if (local.getNode(ig.keyAt(u)) == null) {
+                            local.addNode(ig.keyAt(u));
+                            owner = put(owner, local.slotOf(ig.keyAt(u)), part[u]);
+                        }
+                        if (part[u] > p) cut++;
+                    }
+                    local.connect(ig.keyAt(s), ig.keyAt(u), ig.weightAt(s, j));
+                }
+            }
+            try (ObjectOutputStream o = new ObjectOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(Paths.get(dir, "partition-" + p + ".bin").toFile())))) {
+                o.writeObject(new PartitionServer.Partition(p, local, Arrays.copyOf(owner, local.slotCount())));
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * Starts a partition server JVM for each partition file of a directory (with the class path
+     * of this JVM) and connects to them, waiting at most 5 minutes for the servers to load.
+     * @param dir the directory of the partition files
+     * @param k the number of partitions
+     * @return the coordinator.
+     * @throws IOException if a process cannot be started or connected
+     */
+    public static WGraph_Distributed launch(String dir, int k) throws IOException {
+        return launch(dir, k, TimeUnit.MINUTES.toMillis(5));
+    }
+
+    /**
+     * Starts a partition server JVM for each partition file of a directory (with the class path
+     * of this JVM) and connects to them. The servers that did not report their port by the
+     * deadline (e.g. a JVM that hangs while loading a large partition) are killed, with the others.
+     * @param dir the directory of the partition files
+     * @param k the number of partitions
+     * @param startTimeout the longest time (in milliseconds) all the servers together may take to start
+     * @return the coordinator.
+     * @throws IOException if a process cannot be started or connected in time
+     */
+    public static WGraph_Distributed launch(String dir, int k, long startTimeout) throws IOException {
+        WGraph_Distributed d = new WGraph_Distributed(k);
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(startTimeout);
+        try {
+            List<CompletableFuture<String>> ports = new ArrayList<>();
+            for (int p = 0; p < k; p++) {
+                ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        PartitionServer.class.getName(), Paths.get(dir, "partition-" + p + ".bin").toString());
+                pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+                Process pr = pb.start();
+                d.processes.add(pr);
+                ports.add(firstLine(pr, "partition-" + p + "-start"));
+            }
+            for (int p = 0; p < k; p++) {
+                String line;
+                try {
+                    line = ports.get(p).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    throw new IOException("partition " + p + " did not start within " + startTimeout + " ms");
+                } catch (ExecutionException e) {
+                    throw new IOException("partition " + p + " did not start", e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while partition " + p + " started");
+                }
+                if (line == null || !line.startsWith("PORT "))
+                    throw new IOException("partition " + p + " did not start");
+                d.connect(p, Integer.parseInt(line.substring(5)));
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Process pr : d.processes) pr.destroyForcibly();
+            d.close();
+            throw e;
+        }
+        return d;
+    }
+
+    /**
+     * Connects to partition servers that already run on this machine, partition p on ports[p].
+     * @param ports the partition servers' ports
+     * @return the coordinator.
+     * @throws IOException if a server cannot be connected
+     */
+    public static WGraph_Distributed connect(int[] ports) throws IOException {
+        WGraph_Distributed d = new WGraph_Distributed(ports.length);
+        try {
+            for (int p = 0; p < ports.length; p++) d.connect(p, ports[p]);
+        } catch (IOException e) {
+            d.close();
+            throw e;
+        }
+        return d;
+    }
+
+    /**
+     * returns the length of the shortest path between src to dest.
+     * @param src - start node
+     * @param dest - end (target) node
+     * @return the distance, -1 if there is no path or no such node.
+     * @throws UncheckedIOException if a partition server cannot be reached
+     */
+    public synchronized double shortestPathDist(int src, int dest) {
+        try {
+            int k = sockets.length;
+            for (int p = 0; p < k; p++) {
+                out[p].writeByte(PartitionServer.START);
+                out[p].writeInt(src);
+                out[p].writeInt(dest);
+                out[p].flush();
+            }
+            boolean hasSrc = false, hasDest = false;
+            boolean[] asked = new boolean[k];
+            Arrays.fill(asked, true);
+            for (int p = 0; p < k; p++) {
+                hasSrc |= in[p].readBoolean();
+                hasDest |= in[p].readBoolean();
+            }
+            double best = Dijkstra.INFINITY;
+            rounds = 0;
+            while (true) {
+                rounds++;
+                //collect the round's replies: the best improvement of every ghost, by its owner
+                List<Map<Integer, Double>> updates = new ArrayList<>();
+                for (int p = 0; p < k; p++) updates.add(new HashMap<>());
+                for (int p = 0; p < k; p++) {
+                    if (!asked[p]) continue;
+                    best = Math.min(best, in[p].readDouble());
+                    for (int i = in[p].readInt(); i > 0; i--) {
+                        int owner = in[p].readInt(), key = in[p].readInt();
+                        double d = in[p].readDouble();
+                        updates.get(owner).merge(key, d, Math::min);
+                    }
+                }
+                boolean any = false;
+                for (int p = 0; p < k; p++) {
+                    Map<Integer, Double> u = updates.get(p);
+                    u.values().removeIf(d -> d >= Dijkstra.INFINITY);
+                    asked[p] = false;
+                    if (u.isEmpty()) continue;
+                    final double bound = best;
+                    u.values().removeIf(d -> d >= bound);
+                    if (u.isEmpty()) continue;
+                    asked[p] = any = true;
+                    out[p].writeByte(PartitionServer.SEED);
+                    out[p].writeDouble(best);
+                    out[p].writeInt(u.size());
+                    for (Map.Entry<Integer, Double> e : u.entrySet()) {
+                        out[p].writeInt(e.getKey());
+                        out[p].writeDouble(e.getValue());
+                    }
+                    out[p].flush();
+                }
+                if (!any) break;
+            }
+            if (!hasSrc || !hasDest) return -1;
+            if (src == dest) return 0;
+            return best == Dijkstra.INFINITY ? -1 : best;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the number of rounds of the last query.
+     */
+    public synchronized int lastRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return the number of partitions.
+     */
+    public int partitions() {
+        return sockets.length;
+    }
+
+    /**
+     * Stops the partition servers (those started by launch are also waited for).
+     */
+    @Override
+    public synchronized void close() {
+        for (int p = 0; p < sockets.length; p++) {
+            if (sockets[p] == null) continue;
+            try {
+                out[p].writeByte(PartitionServer.QUIT);
+                out[p].flush();
+                sockets[p].close();
+            } catch (IOException e) {
+                //the server is already gone
+            }
+            sockets[p] = null;
+        }
+        for (Process pr : processes) {
+            try {
+                if (!pr.waitFor(5, TimeUnit.SECONDS)) pr.destroyForcibly();
+            } catch (InterruptedException e) {
+                pr.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /******************************  private methods  ******************************/
+
+    //Reads the first line a process writes, on a daemon thread - a killed process ends the read
+    private static CompletableFuture<String> firstLine(Process pr, String name) {
+        CompletableFuture<String> line = new CompletableFuture<>();
+        Thread t = new Thread(() -> {
+            try {
+                line.complete(new BufferedReader(new InputStreamReader(pr.getInputStream(), StandardCharsets.US_ASCII)).readLine());
+            } catch (IOException e) {
+                line.completeExceptionally(e);
+            }
+        }, name);
+        t.setDaemon(true);
+        t.start();
+        return line;
+    }
+
+    private void connect(int p, int port) throws IOException {
+        sockets[p] = new Socket(InetAddress.getLoopbackAddress(), port);
+        sockets[p].setTcpNoDelay(true);
+        in[p] = new DataInputStream(new BufferedInputStream(sockets[p].getInputStream()));
+        out[p] = new DataOutputStream(new BufferedOutputStream(sockets[p].getOutputStream()));
+    }
+
+    //The first position of the p'th of k equal ranges of n positions
+    private static int first(int n, int k, int p) {
+        return (int) ((long) n * p / k);
+    }
+
+    private static int[] put(int[] a, int i, int value) {
+        if (i >= a.length) a = Arrays.copyOf(a, Math.max(i + 1, a.length * 2));
+        a[i] = value;
+        return a;
+    }
+}
@@ -0,0 +1,345 @@
+package ex1.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class maintains a single-source shortest path tree of an indexed graph under
+ * edge insertions, deletions and weight changes.
+ * The tree is computed once with Dijkstra's algorithm (on slots, with an indexed heap),
+ * and every later change made through this class is repaired locally in the spirit of
+ * Ramalingam & Reps:
+ * 1) every tree edge that got longer (or was removed) invalidates the subtree below it.
+ * 2) each invalidated node is seeded with its best distance through a valid neighbor.
+ * 3) edges that got shorter (or were added) are relaxed from both endpoints.
+ * 4) Dijkstra continues from the seeded nodes until the heap is empty.
+ * Only the nodes whose distance or parent may change are touched.
+ *
+ * Changes made to the graph directly (not through this class) are detected by the graph's
+ * ModeCount, in which case the whole tree is recomputed on the next call.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class WGraph_DynamicSSSP {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final int NONE = -1;
+
+    private final indexed_graph g;
+    private final int src;
+    private double[] dist = new double[0];
+    private int[] parent = new int[0];
+    //the children of every node in the tree, as intrusive doubly linked lists:
+    private int[] firstChild = new int[0], next = new int[0], prev = new int[0];
+    //the nodes invalidated by the current repair, marked with the current epoch:
+    private int[] affected = new int[16];
+    private int affectedCount;
+    private int[] mark = new int[0];
+    private int epoch;
+    private final MinHeap q = new MinHeap(16);
+    private int mc;
+
+    /**
+     * Builds the shortest path tree of a given graph from a given source node.
+     * @param g the graph, later changes should be made through this object
+     * @param src the key of the source node
+     */
+    public WGraph_DynamicSSSP(indexed_graph g, int src) {
+        this.g = g;
+        this.src = src;
+        recompute();
+    }
+
+    /**
+     * @return the underlying graph.
+     */
+    public indexed_graph getGraph() {
+        return g;
+    }
+
+    /**
+     * @return the key of the source node.
+     */
+    public int getSource() {
+        return src;
+    }
+
+    /**
+     * Returns the length of the shortest path from the source to a given node.
+     * The method runs in O(1) time (unless the graph was changed directly).
+     * @param key the destination node's key
+     * @return the distance, -1 if there is no such node or no path.
+     */
+    public double dist(int key) {
+        sync();
+        int s = g.slotOf(key);
+        if (s == NONE || dist[s] == INFINITY) return -1;
+        return dist[s];
+    }
+
+    /**
+     * Returns the shortest path from the source to a given node as an ordered list of nodes:
+     * src--> n1-->n2-->...dest
+     * The method runs in O(k) time, k - being the number of nodes in the path.
+     * @param key the destination node's key
+     * @return the path, null if there is no such node or no path.
+     */
+    public List<node_info> path(int key) {
+        sync();
+        int s = g.slotOf(key);
+        if (s == NONE || dist[s] == INFINITY) return null;
+        List<node_info> path = new ArrayList<>();
+        for (; s != NONE; s = parent[s])
+            path.add(g.getNode(g.keyAt(s)));
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Connects two nodes in the graph and repairs the tree.
+     * @see weighted_graph#connect(int, int, double)
+     */
+    public void connect(int key1, int key2, double w) {
+        sync();
+        g.connect(key1, key2, w);
+        repair(new int[]{key1}, new int[]{key2});
+    }
+
+    /**
+     * Removes an edge from the graph and repairs the tree.
+     * @see weighted_graph#removeEdge(int, int)
+     */
+    public void removeEdge(int key1, int key2) {
+        sync();
+        g.removeEdge(key1, key2);
+        repair(new int[]{key1}, new int[]{key2});
+    }
+
+    /**
+     * Changes the weight of an edge in the graph and repairs the tree.
+     * @see weighted_graph#updateWeight(int, int, double)
+     */
+    public void updateWeight(int key1, int key2, double w) {
+        sync();
+        g.updateWeight(key1, key2, w);
+        repair(new int[]{key1}, new int[]{key2});
+    }
+
+    /**
+     * Changes the weights of many edges as one batch and repairs the tree once.
+     * @see weighted_graph#updateWeights(int[], int[], double[])
+     */
+    public void updateWeights(int[] key1, int[] key2, double[] w) {
+        sync();
+        g.updateWeights(key1, key2, w);
+        repair(key1, key2);
+    }
+
+    /**
+     * Adds a node to the graph, the new node is unreachable until it is connected.
+     * @see weighted_graph#addNode(int)
+     */
+    public void addNode(int key) {
+        sync();
+        if (g.getNode(key) != null) return;
+        g.addNode(key);
+        int s = g.slotOf(key);
+        ensureCapacity(g.slotCount());
+        reset(s);
+        if (key == src) {
+            dist[s] = 0;
+        }
+        mc = g.getMC();
+    }
+
+    /**
+     * Removes a node (and its edges) from the graph and repairs the tree.
+     * @see weighted_graph#removeNode(int)
+     */
+    public node_info removeNode(int key) {
+        sync();
+        int s = g.slotOf(key);
+        if (s == NONE) return null;
+        //every path through the removed node is gone - invalidate its subtree (itself included)
+        affectedCount = 0;
+        epoch++;
+        invalidate(s);
+        node_info removed = g.removeNode(key);
+        seed();
+        run();
+        reset(s);
+        mc = g.getMC();
+        return removed;
+    }
+
+    /**
+     * Recomputes the whole tree from scratch with Dijkstra's algorithm.
+     * The method runs in O((n+e)log(n)) time.
+     */
+    public void recompute() {
+        ensureCapacity(g.slotCount());
+        for (int s = 0; s < g.slotCount(); s++) reset(s);
+        q.clear();
+        int s = g.slotOf(src);
+        if (s != NONE) {
+            dist[s] = 0;
+            q.push(s, 0);
+            run();
+        }
+        mc = g.getMC();
+    }
+
+    /******************************  private methods  ******************************/
+
+    //Recomputes the tree if the graph was changed behind our back
+    private void sync() {
+        if (mc != g.getMC()) recompute();
+    }
+
+    //Repairs the tree after the edges key1[i]-key2[i] were changed in the graph
+    private void repair(int[] key1, int[] key2) {
+        ensureCapacity(g.slotCount());
+        int n = Math.min(key1.length, key2.length);
+        int[] a = new int[n], b = new int[n];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            int s1 = g.slotOf(key1[i]), s2 = g.slotOf(key2[i]);
+            if (s1 == NONE || s2 == NONE || s1 == s2) continue;
+            a[k] = s1;
+            b[k] = s2;
+            k++;
+        }
+        //1) invalidate the subtrees hanging on tree edges that got longer or disappeared
+        affectedCount = 0;
+        epoch++;
+        for (int i = 0; i < k; i++) {
+            double w = weight(a[i], b[i]);
+            if (parent[b[i]] == a[i] && dist[a[i]] + w > dist[b[i]])
+                invalidate(b[i]);
+            else if (parent[a[i]] == b[i] && dist[b[i]] + w > dist[a[i]])
+                invalidate(a[i]);
+        }
+        seed();
+        //3) relax the edges that got shorter or were added
+        for (int i = 0; i < k; i++) {
+            double w = weight(a[i], b[i]);
+            if (w == INFINITY) continue;
+            relax(a[i], b[i], w);
+            relax(b[i], a[i], w);
+        }
+        //4) continue Dijkstra from everything that was queued
+        run();
+        mc = g.getMC();
+    }
+
+    //Marks the subtree rooted at the given slot as affected and detaches it from the tree
+    private void invalidate(int root) {
+        if (mark[root] == epoch) return;
+        unlink(root);
+        int start = affectedCount;
+        addAffected(root);
+        //breadth first walk over the child lists, the affected array doubles as the queue
+        for (int i = start; i < affectedCount; i++) {
+            for (int c = firstChild[affected[i]]; c != NONE; c = next[c]) {
+                if (mark[c] != epoch) addAffected(c);
+            }
+        }
+        for (int i = start; i < affectedCount; i++)
+            reset(affected[i]);
+    }
+
+    private void addAffected(int s) {
+        if (affectedCount == affected.length) affected = Arrays.copyOf(affected, affectedCount * 2);
+        affected[affectedCount++] = s;
+        mark[s] = epoch;
+    }
+
+    //2) seeds every affected node with its best distance through a neighbor outside the affected set
+    private void seed() {
+        for (int i = 0; i < affectedCount; i++) {
+            int x = affected[i];
+            if (!g.isLive(x)) continue;
+            double best = INFINITY;
+            int bp = NONE;
+            for (int j = 0, d = g.degree(x); j < d; j++) {
+                int y = g.neighborAt(x, j);
+                if (mark[y] == epoch) continue;
+                double t = dist[y] + g.weightAt(x, j);
+                if (t < best) {
+                    best = t;
+                    bp = y;
+                }
+            }
+            if (bp != NONE) {
+                dist[x] = best;
+                setParent(x, bp);
+                q.push(x, best);
+            }
+        }
+    }
+
+    //Dijkstra's main loop, over whatever is currently queued
+    private void run() {
+        while (!q.isEmpty()) {
+            int v = q.pop();
+            for (int j = 0, d = g.degree(v); j < d; j++)
+                relax(v, g.neighborAt(v, j), g.weightAt(v, j));
+        }
+    }
+
+    private void relax(int u, int v, double w) {
+        double t = dist[u] + w;
+        if (t < dist[v]) {
+            dist[v] = t;
+            setParent(v, u);
+            q.push(v, t);
+        }
+    }
+
+    private double weight(int s1, int s2) {
+        double w = g.getEdge(g.keyAt(s1), g.keyAt(s2));
+        return w == -1 ? INFINITY : w;
+    }
+
+    private void setParent(int v, int p) {
+        if (parent[v] == p) return;
+        unlink(v);
+        parent[v] = p;
+        prev[v] = NONE;
+        next[v] = firstChild[p];
+        if (firstChild[p] != NONE) prev[firstChild[p]] = v;
+        firstChild[p] = v;
+    }
+
+    //Removes a node from its parent's child list
+    private void unlink(int v) {
+        int p = parent[v];
+        if (p == NONE) return;
+        if (prev[v] != NONE) next[prev[v]] = next[v];
+        else firstChild[p] = next[v];
+        if (next[v] != NONE) prev[next[v]] = prev[v];
+        parent[v] = prev[v] = next[v] = NONE;
+    }
+
+    private void reset(int s) {
+        dist[s] = INFINITY;
+        parent[s] = firstChild[s] = next[s] = prev[s] = NONE;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= dist.length) return;
+        int old = dist.length;
+        int len = Math.max(n, old * 2);
+        dist = Arrays.copyOf(dist, len);
+        parent = Arrays.copyOf(parent, len);
+        firstChild = Arrays.copyOf(firstChild, len);
+        next = Arrays.copyOf(next, len);
+        prev = Arrays.copyOf(prev, len);
+        mark = Arrays.copyOf(mark, len);
+        for (int s = old; s < len; s++) reset(s);
+        q.ensureCapacity(len);
+    }
+}
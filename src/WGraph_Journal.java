@@ -0,0 +1,744 @@
+package ex1.src;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class represents a durable weighted graph - a WGraph_DS whose every change is
+ * recorded in an append-only write-ahead log, so that saving does not rewrite the graph and
+ * nothing acknowledged is lost on a crash.
+ * The directory holds:
+ * 1. snapshot-N.bin - the whole graph (serialized like WGraph_Algo.save) at some moment.
+ * 2. log-N.wal - the changes made after snapshot N, one record per change:
+ *    [payload length][type][payload][CRC32 of type and payload].
+ * Group commit: a change is applied to the graph and its record is appended to an in-memory
+ * buffer, under the graph's lock. A single flusher thread writes the buffered records and
+ * forces them to the disk once per group (at most every commitInterval milliseconds), so many
+ * changes share one fsync. In synchronous mode every change waits for its group's fsync
+ * before it returns, otherwise commit() waits for everything appended so far.
+ * Compaction: once a log grows beyond the snapshot threshold the flusher starts log N+1,
+ * writes snapshot N+1 (a copy taken at the switch, written to a temporary file and renamed
+ * when complete) and deletes the older files. The directory itself is forced after a log is
+ * created and after the snapshot is renamed, so a crash cannot lose a new log whose records
+ * were acknowledged, or a snapshot whose older files were deleted.
+ * Recovery (the constructor): the latest complete snapshot is loaded and the logs from its
+ * number on are replayed in increasing number order. A torn record at the end of the last log
+ * (a crash in the middle of a write) fails its CRC, and the log is truncated before it. A log
+ * before the last that ends corrupt stops the replay - the later logs are not applied over
+ * the missing records, and a new snapshot of the recovered graph replaces them.
+ * A directory is open by one journal at a time - the journal holds a file lock on
+ * journal.lock until it is closed.
+ * A change that is not logged is not applied: a closed journal rejects changes with
+ * IllegalStateException, and once the log cannot be written (or a record cannot be
+ * appended) every change throws UncheckedIOException.
+ * Node infos and tags are not changes of the graph - they are kept only by the snapshots.
+ * Listeners (see observable_graph) are kept by the journal, not by the graph: the events of
+ * a change are delivered after its record is appended - in synchronous mode after it is on
+ * the disk - so a throwing listener cannot leave a change that is not logged. In asynchronous
+ * mode they are delivered before the change is durable. Recovery is not reported.
+ * @see weighted_graph
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class WGraph_Journal implements indexed_graph, observable_graph, Closeable {
+
+    //a directory cannot be opened as a channel on Windows, where a file's entry is durable with it
+    private static final boolean SYNC_DIRECTORY = !System.getProperty("os.name").startsWith("Windows");
+    private static final byte ADD_NODE = 1, CONNECT = 2, REMOVE_EDGE = 3, REMOVE_NODE = 4,
+            UPDATE_WEIGHT = 5, UPDATE_WEIGHTS = 6;
+
+    private final Path dir;
+    private final boolean synchronous;
+    private final long commitInterval, snapshotBytes;
+    private WGraph_DS g;
+    private int replayed;
+
+    //guarded by this: the records not written yet, and the log they go to
+    private final Buffer pending = new Buffer();
+    private final DataOutputStream out = new DataOutputStream(pending);
+    private int recordStart;
+    private long appended; //the number of records appended so far
+    //the log is written while holding writeLock, compactions hold snapshotLock
+    private final Object writeLock = new Object(), snapshotLock = new Object();
+    private FileChannel log;
+    private int logNumber;
+    private long logSize;
+    private boolean closed;
+    //guarded by this: the flusher's progress
+    private long durable; //the number of records forced to the disk
+    private IOException failure;
+    private final Thread flusher;
+    //held while the journal is open, so no other journal writes the same directory
+    private final FileChannel lockFile;
+    private FileLock lock;
+    //guarded by this: the journal's listeners, and the events of the logged changes not delivered yet
+    private final GraphEvents events = new GraphEvents();
+    private final List<GraphEvent> applied = new ArrayList<>(); //the events of the change being logged
+    private final graph_listener relay = applied::addAll;
+    private final ArrayDeque<Change> undelivered = new ArrayDeque<>();
+
+    /**
+     * Opens (or creates) a journaled graph in a given directory, in asynchronous mode:
+     * changes are forced to the disk within 5 milliseconds, or by commit().
+     * @param dir the directory of the snapshots and the logs
+     * @throws IOException if the directory cannot be read or written
+     */
+    public WGraph_Journal(Path dir) throws IOException {
+        this(dir, false, 5, 64L << 20);
+    }
+
+    /**
+     * Opens (or creates) a journaled graph in a given directory, recovering its last state.
+     * @param dir the directory of the snapshots and the logs
+     * @param synchronous whether every change waits until it is on the disk
+     * @param commitInterval the longest time (in milliseconds) a change waits for its group's fsync
+     * @param snapshotBytes the log size after which a new snapshot is taken
+     * @throws IOException if the directory cannot be read or written
+     */
+    public WGraph_Journal(Path dir, boolean synchronous, long commitInterval, long snapshotBytes) throws IOException {
+        this.dir = dir;
+        this.synchronous = synchronous;
+        this.commitInterval = commitInterval;
+        this.snapshotBytes = snapshotBytes;
+        Files.createDirectories(dir);
+        lockFile = FileChannel.open(dir.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockFile.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            lockFile.close();
+            throw new IOException("the journal is already open: " + dir);
+        }
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            if (log != null) log.close();
+            lockFile.close();
+            throw e;
+        }
+        flusher = new Thread(this::flushLoop, "graph-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * @return the number of log records replayed when this graph was opened.
+     */
+    public int replayedRecords() {
+        return replayed;
+    }
+
+    /**
+     * Waits until every change made so far is forced to the disk.
+     * @throws UncheckedIOException if the log could not be written
+     */
+    public void commit() {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        awaitDurable(target);
+    }
+
+    /**
+     * Writes a compacting snapshot now (after committing the pending changes),
+     * instead of waiting for the log to grow.
+     * @throws UncheckedIOException if the snapshot could not be written
+     */
+    public void snapshot() {
+        try {
+            compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Commits the pending changes and closes the log. Later changes throw IllegalStateException.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            log.close();
+            lock.release();
+            lockFile.close();
+            if (failure != null) throw failure;
+        }
+    }
+
+    /*****************************  the logged changes  ******************************/
+
+    @Override
+    public void addNode(int key) {
+        long lsn;
+        synchronized (this) {
+            checkOpen();
+            if (g.getNode(key) != null) return;
+            g.addNode(key);
+            lsn = append(ADD_NODE, key, 0, 0);
+            logged(lsn);
+        }
+        afterChange(lsn);
+    }
+
+    @Override
+    public void connect(int node1, int node2, double w) {
+        long lsn;
+        synchronized (this) {
+            checkOpen();
+            int mc = g.getMC();
+            g.connect(node1, node2, w);
+            if (mc == g.getMC()) return;
+            lsn = append(CONNECT, node1, node2, w);
+            logged(lsn);
+        }
+        afterChange(lsn);
+    }
+
+    @Override
+    public void updateWeight(int node1, int node2, double w) {
+        long lsn;
+        synchronized (this) {
+            checkOpen();
+            int mc = g.getMC();
+            g.updateWeight(node1, node2, w);
+            if (mc == g.getMC()) return;
+            lsn = append(UPDATE_WEIGHT, node1, node2, w);
+            logged(lsn);
+        }
+        afterChange(lsn);
+    }
+
+    @Override
+    public void updateWeights(int[] node1, int[] node2, double[] w) {
+        long lsn;
+        synchronized (this) {
+            checkOpen();
+            int mc = g.getMC();
+            g.updateWeights(node1, node2, w);
+            if (mc == g.getMC()) return;
+            try {
+                begin(UPDATE_WEIGHTS);
+                out.writeInt(w.length);
+                for (int i = 0; i < w.length; i++) {
+                    out.writeInt(node1[i]);
+                    out.writeInt(node2[i]);
+                    out.writeDouble(w[i]);
+                }
+                lsn = end();
+            } catch (IOException e) {
+                throw failed(e);
+            }
+            logged(lsn);
+        }
+        afterChange(lsn);
+    }
+
+    @Override
+    public node_info removeNode(int key) {
+        long lsn;
+        node_info n;
+        synchronized (this) {
+            checkOpen();
+            n = g.removeNode(key);
+            if (n == null) return null;
+            lsn = append(REMOVE_NODE, key, 0, 0);
+            logged(lsn);
+        }
+        afterChange(lsn);
+        return n;
+    }
+
+    @Override
+    public void removeEdge(int node1, int node2) {
+        long lsn;
+        synchronized (this) {
+            checkOpen();
+            int mc = g.getMC();
+            g.removeEdge(node1, node2);
+            if (mc == g.getMC()) return;
+            lsn = append(REMOVE_EDGE, node1, node2, 0);
+            logged(lsn);
+        }
+        afterChange(lsn);
+    }
+
+    @Override
+    public synchronized void addListener(graph_listener l) {
+        boolean first = !events.isActive();
+        events.add(l);
+        if (first) g.addListener(relay);
+    }
+
+    @Override
+    public synchronized void removeListener(graph_listener l) {
+        events.remove(l);
+        if (!events.isActive()) g.removeListener(relay);
+    }
+
+    @Override
+    public synchronized void beginBatch() {
+        events.begin();
+    }
+
+    @Override
+    public synchronized void endBatch() {
+        events.end();
+    }
+
+    /*****************************  reads (the current graph)  ******************************/
+
+    @Override
+    public node_info getNode(int key) {
+        return g.getNode(key);
+    }
+
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return g.hasEdge(node1, node2);
+    }
+
+    @Override
+    public double getEdge(int node1, int node2) {
+        return g.getEdge(node1, node2);
+    }
+
+    @Override
+    public Collection<node_info> getV() {
+        return g.getV();
+    }
+
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        return g.getV(node_id);
+    }
+
+    @Override
+    public int nodeSize() {
+        return g.nodeSize();
+    }
+
+    @Override
+    public int edgeSize() {
+        return g.edgeSize();
+    }
+
+    @Override
+    public int getMC() {
+        return g.getMC();
+    }
+
+    @Override
+    public int slotCount() {
+        return g.slotCount();
+    }
+
+    @Override
+    public int slotOf(int key) {
+        return g.slotOf(key);
+    }
+
+    @Override
+    public int keyAt(int slot) {
+        return g.keyAt(slot);
+    }
+
+    @Override
+    public boolean isLive(int slot) {
+        return g.isLive(slot);
+    }
+
+    @Override
+    public int degree(int slot) {
+        return g.degree(slot);
+    }
+
+    @Override
+    public int neighborAt(int slot, int i) {
+        return g.neighborAt(slot, i);
+    }
+
+    @Override
+    public double weightAt(int slot, int i) {
+        return g.weightAt(slot, i);
+    }
+
+    @Override
+    public String toString() {
+        return g.toString();
+    }
+
+    /******************************  private methods  ******************************/
+
+    //Rejects a change before it is applied, the caller holds the lock
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("the journal was closed");
+        if (failure != null) throw new UncheckedIOException("the journal failed", failure);
+    }
+
+    //Appends a record of a single change, the caller holds the lock
+    private long append(byte type, int a, int b, double w) {
+        try {
+            begin(type);
+            out.writeInt(a);
+            if (type != ADD_NODE && type != REMOVE_NODE) out.writeInt(b);
+            if (type == CONNECT || type == UPDATE_WEIGHT) out.writeDouble(w);
+            return end();
+        } catch (IOException e) {
+            throw failed(e);
+        }
+    }
+
+    //The graph holds a change its log does not - no further change is accepted
+    private UncheckedIOException failed(IOException e) {
+        pending.truncate(recordStart);
+        failure = e;
+        notifyAll();
+        return new UncheckedIOException(e);
+    }
+
+    private void begin(byte type) throws IOException {
+        recordStart = pending.size();
+        out.writeInt(0); //the length, patched by end()
+        out.writeByte(type);
+    }
+
+    //Patches the record's length, appends its CRC and wakes the flusher up if needed
+    private long end() throws IOException {
+        byte[] buf = pending.array();
+        int payload = pending.size() - recordStart - 4;
+        ByteBuffer.wrap(buf, recordStart, 4).putInt(payload);
+        CRC32 crc = new CRC32();
+        crc.update(buf, recordStart + 4, payload);
+        out.writeInt((int) crc.getValue());
+        appended++;
+        if (synchronous) notifyAll();
+        return appended;
+    }
+
+    //Queues the events of the change just logged, in asynchronous mode they are delivered now
+    private void logged(long lsn) {
+        if (applied.isEmpty()) return;
+        undelivered.add(new Change(lsn, new ArrayList<>(applied)));
+        applied.clear();
+        if (!synchronous) deliver(lsn);
+    }
+
+    private void afterChange(long lsn) {
+        if (!synchronous) return;
+        awaitDurable(lsn);
+        synchronized (this) {
+            deliver(durable);
+        }
+    }
+
+    //Delivers the events of the changes up to a given record, in the order they were logged
+    private void deliver(long upTo) {
+        while (!undelivered.isEmpty() && undelivered.peek().lsn <= upTo)
+            events.fire(undelivered.poll().events);
+    }
+
+    private synchronized void awaitDurable(long lsn) {
+        notifyAll();
+        while (durable < lsn && failure == null) {
+            if (closed && !flusher.isAlive()) break;
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (failure != null) throw new UncheckedIOException(failure);
+    }
+
+    //The flusher: one write and one fsync per group of records
+    private void flushLoop() {
+        try {
+            while (true) {
+                boolean last;
+                synchronized (this) {
+                    //in asynchronous mode the records of commitInterval milliseconds form a group,
+                    //commit() and close() wake the flusher up earlier
+                    if (!synchronous && !closed) wait(commitInterval);
+                    while (pending.size() == 0 && !closed) wait(commitInterval);
+                    last = closed;
+                }
+                flush();
+                if (last) return;
+                if (logSize() > snapshotBytes) compact();
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            //the flusher is a daemon, nothing to clean
+        }
+    }
+
+    //Writes and forces the pending records to the current log
+    private void flush() throws IOException {
+        synchronized (writeLock) {
+            byte[] batch;
+            long upTo;
+            synchronized (this) {
+                batch = pending.toByteArray();
+                pending.reset();
+                upTo = appended;
+            }
+            written(batch, upTo);
+        }
+    }
+
+    //Writes and forces drained records to the current log, the caller holds writeLock
+    private void written(byte[] batch, long upTo) throws IOException {
+        if (batch.length > 0) write(log, batch);
+        synchronized (this) {
+            logSize += batch.length;
+            durable = Math.max(durable, upTo);
+            notifyAll();
+        }
+    }
+
+    private synchronized long logSize() {
+        return logSize;
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer b = ByteBuffer.wrap(bytes);
+        while (b.hasRemaining()) channel.write(b);
+        channel.force(false);
+    }
+
+    //Switches to a new log, writes the snapshot the new log continues, and drops the old files
+    private void compact() throws IOException {
+        synchronized (snapshotLock) {
+            WGraph_DS copy;
+            int number;
+            synchronized (writeLock) {
+                byte[] batch;
+                long upTo;
+                //the records are drained and the graph copied at once: every record is in the
+                //copy and the old log, or only in the new log - never replayed over the copy
+                synchronized (this) {
+                    if (closed) return;
+                    batch = pending.toByteArray();
+                    pending.reset();
+                    upTo = appended;
+                    copy = new WGraph_DS(g);
+                    number = logNumber + 1;
+                }
+                written(batch, upTo);
+                synchronized (this) {
+                    log.close();
+                    openLog(number);
+                }
+                syncDirectory(); //before the first record is written to the new log
+            }
+            writeSnapshot(copy, number);
+        }
+    }
+
+    //Writes snapshot number (to a temporary file, renamed when complete), then drops the older files
+    private void writeSnapshot(WGraph_DS copy, int number) throws IOException {
+        Path tmp = dir.resolve("snapshot-" + number + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             ObjectOutputStream o = new ObjectOutputStream(new BufferedOutputStream(file))) {
+            o.writeObject(copy);
+            o.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(tmp, snapshotFile(number), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(); //the snapshot is durable before the files it replaces are deleted
+        for (int n : numbers("snapshot-", ".bin")) if (n < number) Files.deleteIfExists(snapshotFile(n));
+        for (int n : numbers("log-", ".wal")) if (n < number) Files.deleteIfExists(logFile(n));
+    }
+
+    private void openLog(int number) throws IOException {
+        logNumber = number;
+        log = FileChannel.open(logFile(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        logSize = log.size();
+    }
+
+    //Loads the latest complete snapshot and replays the logs that follow it
+    private void recover() throws IOException {
+        int snapshot = -1;
+        for (int n : numbers("snapshot-", ".bin")) snapshot = Math.max(snapshot, n);
+        if (snapshot == -1) {
+            g = new WGraph_DS();
+        } else {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile(snapshot))))) {
+                g = (WGraph_DS) in.readObject();
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("not a graph snapshot: " + snapshotFile(snapshot), e);
+            }
+        }
+        //the logs in order: a log ends corrupt only by a crash while it was the last one, so
+        //a corrupt log before the last is damage - the changes after it are not replayed
+        List<Integer> logs = new ArrayList<>();
+        for (int n : numbers("log-", ".wal")) if (n >= snapshot) logs.add(n);
+        for (int i = 0; i < logs.size(); i++) {
+            boolean last = i == logs.size() - 1;
+            if (replay(logFile(logs.get(i)), last) || last) continue;
+            //a snapshot after all the logs, so the skipped ones are never replayed over the gap
+            int number = logs.get(logs.size() - 1) + 1;
+            openLog(number);
+            syncDirectory();
+            writeSnapshot(new WGraph_DS(g), number);
+            return;
+        }
+        openLog(logs.isEmpty() ? Math.max(snapshot, 0) : logs.get(logs.size() - 1));
+        syncDirectory();
+    }
+
+    //Forces the directory's entries - the created, renamed and deleted files - to the disk
+    private void syncDirectory() throws IOException {
+        if (!SYNC_DIRECTORY) return;
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        }
+    }
+
+    //Applies the valid records of a log, returns false if the log ends with a corrupt or torn
+    //record - which is cut off if the log is the last one
+    private boolean replay(Path file, boolean last) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > (1 << 30)) break;
+                byte[] record = new byte[length];
+                int crc;
+                try {
+                    in.readFully(record);
+                    crc = in.readInt();
+                } catch (EOFException e) {
+                    break; //a torn record
+                }
+                CRC32 check = new CRC32();
+                check.update(record);
+                if ((int) check.getValue() != crc) break;
+                apply(new DataInputStream(new ByteArrayInputStream(record)));
+                replayed++;
+                valid += 4 + length + 4;
+            }
+        }
+        if (valid == Files.size(file)) return true;
+        if (last) {
+            try (FileChannel c = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                c.truncate(valid);
+            }
+        }
+        return false;
+    }
+
+    private void apply(DataInputStream in) throws IOException {
+        switch (in.readByte()) {
+            case ADD_NODE:
+                g.addNode(in.readInt());
+                break;
+            case CONNECT:
+                g.connect(in.readInt(), in.readInt(), in.readDouble());
+                break;
+            case REMOVE_EDGE:
+                g.removeEdge(in.readInt(), in.readInt());
+                break;
+            case REMOVE_NODE:
+                g.removeNode(in.readInt());
+                break;
+            case UPDATE_WEIGHT:
+                g.updateWeight(in.readInt(), in.readInt(), in.readDouble());
+                break;
+            case UPDATE_WEIGHTS: {
+                int k = in.readInt();
+                int[] a = new int[k], b = new int[k];
+                double[] w = new double[k];
+                for (int i = 0; i < k; i++) {
+                    a[i] = in.readInt();
+                    b[i] = in.readInt();
+                    w[i] = in.readDouble();
+                }
+                g.updateWeights(a, b, w);
+                break;
+            }
+            default:
+                throw new IOException("unknown log record");
+        }
+    }
+
+    private List<Integer> numbers(String prefix, String suffix) throws IOException {
+        List<Integer> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*" + suffix)) {
+            for (Path p : files) {
+                String name = p.getFileName().toString();
+                try {
+                    result.add(Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    //not one of ours
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private Path snapshotFile(int n) {
+        return dir.resolve("snapshot-" + n + ".bin");
+    }
+
+    private Path logFile(int n) {
+        return dir.resolve("log-" + n + ".wal");
+    }
+
+    //The events of a logged change, and the number of its record
+    private static class Change {
+        final long lsn;
+        final List<GraphEvent> events;
+
+        Change(long lsn, List<GraphEvent> events) {
+            this.lsn = lsn;
+            this.events = events;
+        }
+    }
+
+    //A ByteArrayOutputStream whose buffer can be patched in place
+    private static class Buffer extends ByteArrayOutputStream {
+        byte[] array() {
+            return buf;
+        }
+
+        void truncate(int size) {
+            count = size;
+        }
+    }
+}
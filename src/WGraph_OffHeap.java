@@ -0,0 +1,960 @@
+package ex1.src;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * This class represents an undirected weighted graph that is stored off the Java heap,
+ * for graphs too large to keep as objects without long garbage collection pauses.
+ * All the structures live in direct memory (see OffHeapMemory):
+ * 1. a node record of 32 bytes per slot - key, degree, adjacency capacity, flags,
+ *    adjacency offset and tag.
+ * 2. an open-addressing key table (key -> slot).
+ * 3. the adjacency blocks - parallel neighbor slot (int) and weight (double) arrays, one
+ *    power of two sized block per node, grown by doubling. Freed blocks are kept in per
+ *    size free lists and reused.
+ * 4. an open-addressing arc table ((slot, neighbor slot) -> position) for the nodes whose
+ *    degree grew beyond LINEAR_LIMIT - smaller adjacencies are searched linearly.
+ * Only the node infos, which are strings, stay on the heap (and only the ones that were set).
+ * node_info objects are created lazily as flyweights over a slot - they read and write the
+ * off-heap record, and are valid as long as their node is in the graph.
+ * The memory is released by close(), the graph must not be used afterwards.
+ * The class implements indexed_graph, so WGraph_Algo runs on it unchanged, and
+ * observable_graph, so derived indexes can follow its changes.
+ * @see weighted_graph
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class WGraph_OffHeap implements indexed_graph, observable_graph, AutoCloseable, Serializable {
+
+    private static final int LINEAR_LIMIT = 8;
+    //node record layout
+    private static final int RECORD = 32;
+    private static final int KEY = 0, DEGREE = 4, CAPACITY = 8, FLAGS = 12, START = 16, TAG = 24;
+    private static final int LIVE = 1, HASHED = 2;
+    //arc table entry: (slot << 32 | neighbor) + 1 (0 marks an empty entry), then the position
+    private static final int ARC = 16;
+
+    private transient OffHeapMemory records, keys, nbrs, weights, arcs;
+    private transient Map<Integer, String> infos;
+    private transient int slotTop, freeSlot, keyMask;
+    private transient long adjTop, arcMask, arcCount;
+    private transient long[] freeBlocks;
+    private transient boolean closed;
+    private transient GraphEvents events; //created by the first listener or batch
+    private int nodeSize, edgeSize, mc;
+
+    public WGraph_OffHeap() {
+        init();
+    }
+
+    /**
+     * Creates a new off-heap graph that is a deep copy of a given other graph
+     * (keys, infos, tags and edges).
+     * The method runs in O(n+e) time.
+     * @param other graph to copy from
+     */
+    public WGraph_OffHeap(weighted_graph other) {
+        init();
+        for (node_info n : other.getV()) {
+            addNode(n.getKey());
+            node_info c = getNode(n.getKey());
+            if (!"".equals(n.getInfo())) c.setInfo(n.getInfo());
+            c.setTag(n.getTag());
+        }
+        for (node_info n : other.getV()) {
+            for (node_info ni : other.getV(n.getKey())) {
+                if (n.getKey() < ni.getKey())
+                    connect(n.getKey(), ni.getKey(), other.getEdge(n.getKey(), ni.getKey()));
+            }
+        }
+        mc = other.getMC();
+    }
+
+    /**
+     * return the node_data by the node_id - a flyweight over the node's off-heap record.
+     * The method runs in O(1) time.
+     * @param key The Key that the desired node associated with.
+     * @return the node_data by the node_id, null if none.
+     */
+    @Override
+    public node_info getNode(int key) {
+        int s = slotOf(key);
+        return s == -1 ? null : new Node(s, key);
+    }
+
+    /**
+     * Checks if two given nodes are connected.
+     * The method runs in O(1) time.
+     * @param key1 the first node's key
+     * @param key2 the second node's key
+     * @return true if the two nodes are connected.
+     */
+    @Override
+    public boolean hasEdge(int key1, int key2) {
+        return getEdge(key1, key2) != -1;
+    }
+
+    /**
+     * return the weight if the edge (node1, node1). In case
+     * there is no such edge - should return -1
+     * The method runs in O(1) time.
+     * @param node1 node1
+     * @param node2 node2
+     * @return the weight of the edge between node1 - node2
+     */
+    @Override
+    public double getEdge(int node1, int node2) {
+        int s1 = slotOf(node1);
+        int s2 = slotOf(node2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return -1;
+        int i = position(s1, s2);
+        return i == -1 ? -1 : weightAt(s1, i);
+    }
+
+    /**
+     * Adds a given node to the graph.
+     * If the node is already in the graph then
+     * the method does nothing.
+     * The method runs in O(1) amortized time.
+     * @param key The node to be added to the graph
+     */
+    @Override
+    public void addNode(int key) {
+        if (slotOf(key) != -1) return;
+        int s;
+        if (freeSlot != -1) {
+            s = freeSlot;
+            freeSlot = records.getInt(record(s) + DEGREE);
+        } else {
+            s = slotTop++;
+            records.ensure((long) slotTop * RECORD);
+        }
+        long r = record(s);
+        records.putInt(r + KEY, key);
+        records.putInt(r + DEGREE, 0);
+        records.putInt(r + CAPACITY, 0);
+        records.putInt(r + FLAGS, LIVE);
+        records.putLong(r + START, -1);
+        records.putDouble(r + TAG, 0);
+        insertKey(key, s);
+        nodeSize++;
+        mc++;
+        fire(GraphEvent.Type.ADD_NODE, key, -1, 0);
+    }
+
+    /**
+     * Connects two given nodes by their key.
+     * If they already connected, the method does nothing.
+     * The method runs in O(1) amortized time.
+     * @param key1 The first node's key
+     * @param key2 The second node's key
+     * @param w weight
+     */
+    @Override
+    public void connect(int key1, int key2, double w) {
+        int s1 = slotOf(key1);
+        int s2 = slotOf(key2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return;
+        if (position(s1, s2) == -1) {
+            appendArc(s1, s2, w);
+            appendArc(s2, s1, w);
+            edgeSize++;
+            mc++;
+            fire(GraphEvent.Type.CONNECT, key1, key2, w);
+        }
+    }
+
+    /**
+     * Changes the weight of an existing edge, in place.
+     * If there is no such edge, the method does nothing.
+     * The method runs in O(1) time.
+     * @param key1 The first node's key
+     * @param key2 The second node's key
+     * @param w the new weight
+     */
+    @Override
+    public void updateWeight(int key1, int key2, double w) {
+        if (setWeight(key1, key2, w)) {
+            mc++;
+            fire(GraphEvent.Type.UPDATE_WEIGHT, key1, key2, w);
+        }
+    }
+
+    /**
+     * Changes the weights of many existing edges as a single modification:
+     * the ModeCount is incremented once if any weight changed.
+     * Missing edges are skipped.
+     * The method runs in O(k) time, where k stands for the length of the batch.
+     * @param key1 the first nodes' keys
+     * @param key2 the second nodes' keys
+     * @param w the new weights
+     */
+    @Override
+    public void updateWeights(int[] key1, int[] key2, double[] w) {
+        if (key1.length != key2.length || key1.length != w.length)
+            throw new IllegalArgumentException("batch arrays must have the same length");
+        boolean[] report = events != null && events.isActive() ? new boolean[key1.length] : null;
+        boolean changed = false;
+        for (int i = 0; i < key1.length; i++) {
+            if (setWeight(key1[i], key2[i], w[i])) {
+                changed = true;
+                if (report != null) report[i] = true;
+            }
+        }
+        if (changed) {
+            mc++;
+            if (report != null) events.fireWeights(key1, key2, w, report, mc);
+        }
+    }
+
+    /**
+     * Returns a live view of all the nodes in the graph, in slot order.
+     * The node_info objects are created while iterating.
+     * The method runs in O(1) time.
+     * @return Collection<node_data>
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new NodesView();
+    }
+
+    /**
+     * Returns a live view of all the nodes connected to node associated with key.
+     * The method runs in O(1) time.
+     * @return Collection<node_data>, an empty collection if there is no such node.
+     */
+    @Override
+    public Collection<node_info> getV(int key) {
+        int s = slotOf(key);
+        if (s == -1) return Collections.emptyList();
+        return new NeighborsView(s);
+    }
+
+    /**
+     * Remove a node associated with a given key,
+     * and remove all of the edges that involves this node.
+     * The method runs in O(k) time, where k stands for the degree of the node.
+     * @param key A key of the node to be removed
+     * @return a detached copy of the deleted node if succeeded. otherwise return null.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        int s = slotOf(key);
+        if (s == -1)
+            return null;
+        if (events != null) events.begin();
+        try {
+            for (int i = degree(s) - 1; i >= 0; i--) {
+                int t = neighborAt(s, i);
+                double w = weightAt(s, i);
+                removeArc(t, position(t, s));
+                removeArc(s, i);
+                edgeSize--;
+                mc++;
+                fire(GraphEvent.Type.REMOVE_EDGE, key, keyAt(t), w);
+            }
+            long r = record(s);
+            node_info removed = new Removed(key, infos.remove(key), records.getDouble(r + TAG));
+            if (records.getInt(r + CAPACITY) > 0)
+                freeBlock(records.getLong(r + START), records.getInt(r + CAPACITY));
+            removeKey(key);
+            records.putInt(r + FLAGS, 0);
+            records.putInt(r + DEGREE, freeSlot);
+            freeSlot = s;
+            nodeSize--;
+            mc++;
+            fire(GraphEvent.Type.REMOVE_NODE, key, -1, 0);
+            return removed;
+        } finally {
+            if (events != null) events.end();
+        }
+    }
+
+    /**
+     * Disconnect two node associated with two given keys.
+     * If they already disconnected, the method does nothing.
+     * The method runs in O(1) time.
+     * @param key1 The key to the first node
+     * @param key2 The key to the second node
+     */
+    @Override
+    public void removeEdge(int key1, int key2) {
+        int s1 = slotOf(key1);
+        int s2 = slotOf(key2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return;
+        int i = position(s1, s2);
+        if (i != -1) {
+            double w = weightAt(s1, i);
+            removeArc(s1, i);
+            removeArc(s2, position(s2, s1));
+            mc++;
+            edgeSize--;
+            fire(GraphEvent.Type.REMOVE_EDGE, key1, key2, w);
+        }
+    }
+
+    /**
+     * @return an upper bound (exclusive) on the slots of this graph's nodes.
+     */
+    @Override
+    public int slotCount() {
+        return slotTop;
+    }
+
+    /**
+     * Returns the slot of the node associated with a given key.
+     * The method runs in O(1) time.
+     * @param key The node's key
+     * @return the slot of the node, -1 if none.
+     */
+    @Override
+    public int slotOf(int key) {
+        if (closed) throw new IllegalStateException("the graph was closed");
+        for (int h = hash(key) & keyMask; ; h = (h + 1) & keyMask) {
+            int s = keys.getInt((long) h * 4) - 1;
+            if (s == -1 || keyAt(s) == key) return s;
+        }
+    }
+
+    /**
+     * @param slot a live slot of this graph
+     * @return the key of the node stored in the given slot.
+     */
+    @Override
+    public int keyAt(int slot) {
+        return records.getInt(record(slot) + KEY);
+    }
+
+    /**
+     * @param slot a slot number
+     * @return true iff some node of this graph is stored in the given slot.
+     */
+    @Override
+    public boolean isLive(int slot) {
+        return slot >= 0 && slot < slotTop && (records.getInt(record(slot) + FLAGS) & LIVE) != 0;
+    }
+
+    /**
+     * @param slot a live slot of this graph
+     * @return the number of neighbors of the node in the given slot.
+     */
+    @Override
+    public int degree(int slot) {
+        return records.getInt(record(slot) + DEGREE);
+    }
+
+    /**
+     * @param slot a live slot of this graph
+     * @param i a position in the range [0, degree(slot))
+     * @return the slot of the i'th neighbor of the node in the given slot.
+     */
+    @Override
+    public int neighborAt(int slot, int i) {
+        return nbrs.getInt((records.getLong(record(slot) + START) + i) * 4);
+    }
+
+    /**
+     * @param slot a live slot of this graph
+     * @param i a position in the range [0, degree(slot))
+     * @return the weight of the edge to the i'th neighbor of the node in the given slot.
+     */
+    @Override
+    public double weightAt(int slot, int i) {
+        return weights.getDouble((records.getLong(record(slot) + START) + i) * 8);
+    }
+
+    /**
+     * @return The number of nodes of this graph.
+     */
+    @Override
+    public int nodeSize() {
+        return nodeSize;
+    }
+
+    /**
+     * @return The number of edges of this graph.
+     */
+    @Override
+    public int edgeSize() {
+        return edgeSize;
+    }
+
+    /**
+     * return the Mode Count - for testing changes in the graph.
+     * Any change in the inner state of the graph should cause an increment in the ModeCount
+     * @return The counts
+     */
+    @Override
+    public int getMC() {
+        return mc;
+    }
+
+    /**
+     * Subscribes a listener to the changes of this graph.
+     * The listeners are not copied or serialized with the graph.
+     * @param l the listener
+     */
+    @Override
+    public void addListener(graph_listener l) {
+        events().add(l);
+    }
+
+    @Override
+    public void removeListener(graph_listener l) {
+        if (events != null) events.remove(l);
+    }
+
+    @Override
+    public void beginBatch() {
+        events().begin();
+    }
+
+    @Override
+    public void endBatch() {
+        if (events == null) throw new IllegalStateException("no open batch");
+        events.end();
+    }
+
+    /**
+     * @return the number of off-heap bytes currently allocated by this graph.
+     */
+    public long offHeapBytes() {
+        if (closed) return 0;
+        return records.capacity() + keys.capacity() + nbrs.capacity() + weights.capacity() + arcs.capacity();
+    }
+
+    /**
+     * Releases the off-heap memory of this graph. Afterwards the graph (and its node_info
+     * flyweights) must not be used - key lookups throw an IllegalStateException.
+     * Closing twice does nothing.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        records.free();
+        keys.free();
+        nbrs.free();
+        weights.free();
+        arcs.free();
+        infos = null;
+    }
+
+    /**
+     * Returns a string representation of this graph as an adjacency list.
+     * @return A string representation of this graph
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("Vertices: " + nodeSize() + " Edges: " + edgeSize() + " MC: " + getMC() + "\n");
+        for (int i = 0; i < slotTop; i++) {
+            if (!isLive(i)) continue;
+            s.append(keyAt(i)).append(": ");
+            for (int j = 0; j < degree(i); j++) {
+                s.append("#").append(keyAt(neighborAt(i, j))).append("(w=").append(weightAt(i, j)).append("), ");
+            }
+            s.append("\n");
+        }
+        return s.toString();
+    }
+
+    /**
+     * Two graphs are equal if they have the same nodes (keys and info)
+     * and the same edges with the same weights. Slots are not compared.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WGraph_OffHeap other = (WGraph_OffHeap) o;
+        if (nodeSize != other.nodeSize || edgeSize != other.edgeSize)
+            return false;
+        for (int i = 0; i < slotTop; i++) {
+            if (!isLive(i)) continue;
+            int key = keyAt(i);
+            if (other.slotOf(key) == -1 || !Objects.equals(infos.getOrDefault(key, ""), other.infos.getOrDefault(key, "")))
+                return false;
+            for (int k = 0; k < degree(i); k++) {
+                if (other.getEdge(key, keyAt(neighborAt(i, k))) != weightAt(i, k))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < slotTop; i++) {
+            if (!isLive(i)) continue;
+            h += Integer.hashCode(keyAt(i));
+            for (int k = 0; k < degree(i); k++)
+                h += keyAt(i) ^ keyAt(neighborAt(i, k)) ^ Double.hashCode(weightAt(i, k));
+        }
+        return Objects.hash(h, nodeSize, edgeSize);
+    }
+
+    /******************************  private methods  ******************************/
+
+    private void init() {
+        records = new OffHeapMemory();
+        keys = new OffHeapMemory();
+        nbrs = new OffHeapMemory();
+        weights = new OffHeapMemory();
+        arcs = new OffHeapMemory();
+        infos = new HashMap<>();
+        freeSlot = -1;
+        freeBlocks = new long[32];
+        Arrays.fill(freeBlocks, -1);
+        keyMask = 15;
+        keys.ensure(16 * 4);
+    }
+
+    private static long record(int slot) {
+        return (long) slot * RECORD;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(long arc) {
+        long h = arc * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    //Returns the position of s2 in the adjacency of s1, -1 if there is no such edge
+    private int position(int s1, int s2) {
+        if ((records.getInt(record(s1) + FLAGS) & HASHED) != 0) return arcGet(s1, s2);
+        long start = records.getLong(record(s1) + START);
+        for (int i = 0, d = degree(s1); i < d; i++)
+            if (nbrs.getInt((start + i) * 4) == s2) return i;
+        return -1;
+    }
+
+    private GraphEvents events() {
+        if (events == null) events = new GraphEvents();
+        return events;
+    }
+
+    //Reports a change, with the current ModeCount, to the listeners (if any)
+    private void fire(GraphEvent.Type type, int key1, int key2, double w) {
+        if (events != null) events.fire(type, key1, key2, w, mc);
+    }
+
+    //Sets the weight of an existing edge on both sides, returns true iff the weight changed
+    private boolean setWeight(int key1, int key2, double w) {
+        int s1 = slotOf(key1);
+        int s2 = slotOf(key2);
+        if (s1 == -1 || s2 == -1 || s1 == s2)
+            return false;
+        int i = position(s1, s2);
+        if (i == -1 || weightAt(s1, i) == w)
+            return false;
+        weights.putDouble((records.getLong(record(s1) + START) + i) * 8, w);
+        weights.putDouble((records.getLong(record(s2) + START) + position(s2, s1)) * 8, w);
+        return true;
+    }
+
+    //Appends the arc s->t, growing s's adjacency block if it is full
+    private void appendArc(int s, int t, double w) {
+        long r = record(s);
+        int d = records.getInt(r + DEGREE), cap = records.getInt(r + CAPACITY);
+        long start = records.getLong(r + START);
+        if (d == cap) {
+            int bigger = Math.max(2, cap * 2);
+            long block = allocateBlock(bigger);
+            for (int i = 0; i < d; i++) {
+                nbrs.putInt((block + i) * 4, nbrs.getInt((start + i) * 4));
+                weights.putDouble((block + i) * 8, weights.getDouble((start + i) * 8));
+            }
+            if (cap > 0) freeBlock(start, cap);
+            start = block;
+            records.putLong(r + START, start);
+            records.putInt(r + CAPACITY, bigger);
+        }
+        nbrs.putInt((start + d) * 4, t);
+        weights.putDouble((start + d) * 8, w);
+        records.putInt(r + DEGREE, d + 1);
+        int flags = records.getInt(r + FLAGS);
+        if ((flags & HASHED) != 0) {
+            arcPut(s, t, d);
+        } else if (d + 1 > LINEAR_LIMIT) {
+            records.putInt(r + FLAGS, flags | HASHED);
+            for (int i = 0; i <= d; i++) arcPut(s, nbrs.getInt((start + i) * 4), i);
+        }
+    }
+
+    //Removes the i'th arc of s, the last arc is moved into its position
+    private void removeArc(int s, int i) {
+        long r = record(s);
+        int last = records.getInt(r + DEGREE) - 1;
+        long start = records.getLong(r + START);
+        boolean hashed = (records.getInt(r + FLAGS) & HASHED) != 0;
+        if (hashed) arcRemove(s, nbrs.getInt((start + i) * 4));
+        if (i != last) {
+            int moved = nbrs.getInt((start + last) * 4);
+            nbrs.putInt((start + i) * 4, moved);
+            weights.putDouble((start + i) * 8, weights.getDouble((start + last) * 8));
+            if (hashed) arcPut(s, moved, i);
+        }
+        records.putInt(r + DEGREE, last);
+    }
+
+    //Adjacency blocks: power of two sizes, freed blocks are chained through their first weight
+    private long allocateBlock(int size) {
+        int c = Integer.numberOfTrailingZeros(size);
+        long block = freeBlocks[c];
+        if (block != -1) {
+            freeBlocks[c] = weights.getLong(block * 8);
+            return block;
+        }
+        block = adjTop;
+        adjTop += size;
+        nbrs.ensure(adjTop * 4);
+        weights.ensure(adjTop * 8);
+        return block;
+    }
+
+    private void freeBlock(long block, int size) {
+        int c = Integer.numberOfTrailingZeros(size);
+        weights.putLong(block * 8, freeBlocks[c]);
+        freeBlocks[c] = block;
+    }
+
+    /*****************************  key table  ******************************/
+
+    private void insertKey(int key, int slot) {
+        if ((long) nodeSize * 2 >= keyMask) rehashKeys((keyMask + 1) * 2);
+        int h = hash(key) & keyMask;
+        while (keys.getInt((long) h * 4) != 0) h = (h + 1) & keyMask;
+        keys.putInt((long) h * 4, slot + 1);
+    }
+
+    //Linear probing removal with backward shift, so no tombstones are left
+    private void removeKey(int key) {
+        int h = hash(key) & keyMask;
+        while (keyAt(keys.getInt((long) h * 4) - 1) != key) h = (h + 1) & keyMask;
+        int hole = h;
+        for (int j = (h + 1) & keyMask; ; j = (j + 1) & keyMask) {
+            int e = keys.getInt((long) j * 4);
+            if (e == 0) break;
+            int home = hash(keyAt(e - 1)) & keyMask;
+            //move e back unless its home lies cyclically in (hole, j]
+            if (((j - home) & keyMask) >= ((j - hole) & keyMask)) {
+                keys.putInt((long) hole * 4, e);
+                hole = j;
+            }
+        }
+        keys.putInt((long) hole * 4, 0);
+    }
+
+    private void rehashKeys(int size) {
+        OffHeapMemory old = keys;
+        int oldSize = keyMask + 1;
+        keys = new OffHeapMemory();
+        keys.ensure((long) size * 4);
+        keyMask = size - 1;
+        for (int h = 0; h < oldSize; h++) {
+            int e = old.getInt((long) h * 4);
+            if (e == 0) continue;
+            int j = hash(keyAt(e - 1)) & keyMask;
+            while (keys.getInt((long) j * 4) != 0) j = (j + 1) & keyMask;
+            keys.putInt((long) j * 4, e);
+        }
+        old.free();
+    }
+
+    /*****************************  arc table  ******************************/
+
+    private static long arcKey(int s, int t) {
+        return (((long) s << 32) | t) + 1;
+    }
+
+    private int arcGet(int s, int t) {
+        long k = arcKey(s, t);
+        for (long h = hash(k) & arcMask; ; h = (h + 1) & arcMask) {
+            long e = arcs.getLong(h * ARC);
+            if (e == 0) return -1;
+            if (e == k) return arcs.getInt(h * ARC + 8);
+        }
+    }
+
+    //Inserts or overwrites the position of the arc s->t
+    private void arcPut(int s, int t, int position) {
+        if ((arcCount + 1) * 2 > arcMask + 1) rehashArcs(Math.max(64, (arcMask + 1) * 2));
+        long k = arcKey(s, t);
+        long h = hash(k) & arcMask;
+        while (true) {
+            long e = arcs.getLong(h * ARC);
+            if (e == 0) {
+                arcs.putLong(h * ARC, k);
+                arcCount++;
+                break;
+            }
+            if (e == k) break;
+            h = (h + 1) & arcMask;
+        }
+        arcs.putInt(h * ARC + 8, position);
+    }
+
+    private void arcRemove(int s, int t) {
+        long k = arcKey(s, t);
+        long h = hash(k) & arcMask;
+        while (arcs.getLong(h * ARC) != k) h = (h + 1) & arcMask;
+        long hole = h;
+        for (long j = (h + 1) & arcMask; ; j = (j + 1) & arcMask) {
+            long e = arcs.getLong(j * ARC);
+            if (e == 0) break;
+            long home = hash(e) & arcMask;
+            if (((j - home) & arcMask) >= ((j - hole) & arcMask)) {
+                arcs.putLong(hole * ARC, e);
+                arcs.putInt(hole * ARC + 8, arcs.getInt(j * ARC + 8));
+                hole = j;
+            }
+        }
+        arcs.putLong(hole * ARC, 0);
+        arcCount--;
+    }
+
+    private void rehashArcs(long size) {
+        OffHeapMemory old = arcs;
+        long oldSize = arcCount == 0 && arcMask == 0 ? 0 : arcMask + 1;
+        arcs = new OffHeapMemory();
+        arcs.ensure(size * ARC);
+        arcMask = size - 1;
+        for (long h = 0; h < oldSize; h++) {
+            long e = old.getLong(h * ARC);
+            if (e == 0) continue;
+            long j = hash(e) & arcMask;
+            while (arcs.getLong(j * ARC) != 0) j = (j + 1) & arcMask;
+            arcs.putLong(j * ARC, e);
+            arcs.putInt(j * ARC + 8, old.getInt(h * ARC + 8));
+        }
+        old.free();
+    }
+
+    /*****************************  serialization  ******************************/
+
+    //The off-heap structures are written as plain nodes and edges, and rebuilt on reading
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int s = 0; s < slotTop; s++) {
+            if (!isLive(s)) continue;
+            out.writeInt(keyAt(s));
+            out.writeObject(infos.getOrDefault(keyAt(s), ""));
+            out.writeDouble(records.getDouble(record(s) + TAG));
+        }
+        for (int s = 0; s < slotTop; s++) {
+            if (!isLive(s)) continue;
+            for (int i = 0; i < degree(s); i++) {
+                int t = neighborAt(s, i);
+                if (s < t) {
+                    out.writeInt(keyAt(s));
+                    out.writeInt(keyAt(t));
+                    out.writeDouble(weightAt(s, i));
+                }
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        int n = nodeSize, m = edgeSize, modes = mc;
+        nodeSize = edgeSize = 0;
+        init();
+        for (int i = 0; i < n; i++) {
+            int key = in.readInt();
+            String info = (String) in.readObject();
+            double tag = in.readDouble();
+            addNode(key);
+            if (!"".equals(info)) infos.put(key, info);
+            records.putDouble(record(slotOf(key)) + TAG, tag);
+        }
+        for (int i = 0; i < m; i++)
+            connect(in.readInt(), in.readInt(), in.readDouble());
+        mc = modes;
+    }
+
+    /*****************************  inner views  ******************************/
+
+    //A live view of all the nodes of this graph, in slot order
+    private class NodesView extends AbstractCollection<node_info> {
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int next = advance(0);
+
+                private int advance(int s) {
+                    while (s < slotTop && !isLive(s)) s++;
+                    return s;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < slotTop;
+                }
+
+                @Override
+                public node_info next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    node_info n = new Node(next, keyAt(next));
+                    next = advance(next + 1);
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return nodeSize;
+        }
+    }
+
+    //A live view of the neighbors of a single node
+    private class NeighborsView extends AbstractCollection<node_info> {
+        private final int slot;
+
+        NeighborsView(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < degree(slot);
+                }
+
+                @Override
+                public node_info next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    int t = neighborAt(slot, i++);
+                    return new Node(t, keyAt(t));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return degree(slot);
+        }
+    }
+
+    /*****************************  private classes  ******************************/
+
+    //A flyweight over the off-heap record of a node - holds nothing but the slot and the key
+    private class Node implements node_info, Comparable<node_info> {
+
+        private final int slot, key;
+
+        Node(int slot, int key) {
+            this.slot = slot;
+            this.key = key;
+        }
+
+        @Override
+        public int getKey() {
+            return key;
+        }
+
+        @Override
+        public String getInfo() {
+            return infos.getOrDefault(key, "");
+        }
+
+        @Override
+        public void setInfo(String s) {
+            infos.put(key, s);
+        }
+
+        @Override
+        public double getTag() {
+            return records.getDouble(record(slot) + TAG);
+        }
+
+        @Override
+        public void setTag(double t) {
+            records.putDouble(record(slot) + TAG, t);
+        }
+
+        @Override
+        public String toString() {
+            return "#" + key;
+        }
+
+        @Override
+        public int compareTo(node_info o) {
+            return o.getTag() < getTag() ? 1 : -1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Node)) return false;
+            Node n = (Node) o;
+            return key == n.key && Objects.equals(getInfo(), n.getInfo());
+        }
+
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(key);
+        }
+    }
+
+    //What removeNode returns - a plain copy, since the node's record is gone
+    private static class Removed implements node_info {
+
+        private final int key;
+        private String info;
+        private double tag;
+
+        Removed(int key, String info, double tag) {
+            this.key = key;
+            this.info = info == null ? "" : info;
+            this.tag = tag;
+        }
+
+        @Override
+        public int getKey() {
+            return key;
+        }
+
+        @Override
+        public String getInfo() {
+            return info;
+        }
+
+        @Override
+        public void setInfo(String s) {
+            info = s;
+        }
+
+        @Override
+        public double getTag() {
+            return tag;
+        }
+
+        @Override
+        public void setTag(double t) {
+            tag = t;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + key;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package ex1.src;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * This class represents a customizable multilevel overlay of an indexed graph
+ * (Customizable Route Planning), for exact shortest path queries on graphs whose weights
+ * change often:
+ * 1) Topology preprocessing (once, and again only if nodes are added or removed): the nodes
+ *    are ordered by recursive bisection - a range of the order is ordered breadth first from a
+ *    pseudo-peripheral node (inside the range) and split in two at a multiple of the largest
+ *    cell size below its length. A level-l cell is an aligned range of cellSizes[l-1] nodes of
+ *    this order, so the cells are compact regions, and every cell is the union of whole cells
+ *    of the level below. A node is a boundary node of its level-l cell if it has an edge that
+ *    leaves the cell.
+ * 2) Customization (after weight or edge changes): every cell gets a clique - the distances
+ *    between its boundary nodes inside the cell. Level 1 cliques are computed on the original
+ *    edges, and a level-l clique on the level l-1 cliques of its subcells and the edges between
+ *    them, so the cells of a level are customized in parallel, bottom up. Changes made
+ *    through this class mark only the cells that contain them (and their ancestors) for the
+ *    next customization, changes made to the graph directly mark all of them.
+ * 3) Queries: Dijkstra's algorithm that uses the original edges near the source and the
+ *    destination, and, at a node whose level-l cell contains neither of them (l maximal),
+ *    the clique of that cell and the edges that leave it. The distances are exactly those of
+ *    WGraph_Algo.shortestPathDist (up to the order of the floating point additions).
+ * Queries may run concurrently (each thread has its own search state), changes may not.
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class WGraph_Overlay {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+    private static final int NONE = -1;
+
+    private final indexed_graph g;
+    private final int[] sizes;
+    private final int levels, threads;
+    private int[] keys; //the key of every slot at the preprocessing, -1 if dead
+    private int nodeCount;
+    private int[] order;
+    //per level (index 0 is unused): the cell of every slot, the boundary nodes of every cell,
+    //the position of every slot in its cell's boundary (-1 if none), and the cliques
+    private int[][] cell, bIndex;
+    private int[][][] boundary;
+    private double[][][] clique;
+    private boolean[][] dirty, staleBoundary;
+    private boolean anyDirty;
+    private int customized; //the number of cells the last customization recomputed
+    private int mc;
+    private ThreadLocal<SearchState> searches;
+
+    /**
+     * Builds the overlay with cells of 64, 1024 and 16384 nodes, customized on all the processors.
+     * @param g the graph, later weight changes can be made through this object
+     */
+    public WGraph_Overlay(indexed_graph g) {
+        this(g, new int[]{64, 1024, 16384}, Parallel.defaultThreads());
+    }
+
+    /**
+     * Builds the overlay with given cell sizes.
+     * @param g the graph, later weight changes can be made through this object
+     * @param cellSizes the number of nodes of a cell at every level, increasing, each one a
+     *                  multiple of the previous one
+     * @param threads the number of customization threads
+     */
+    public WGraph_Overlay(indexed_graph g, int[] cellSizes, int threads) {
+        if (cellSizes.length == 0 || cellSizes[0] < 1)
+            throw new IllegalArgumentException("cell sizes must be positive");
+        for (int l = 1; l < cellSizes.length; l++)
+            if (cellSizes[l] <= cellSizes[l - 1] || cellSizes[l] % cellSizes[l - 1] != 0)
+                throw new IllegalArgumentException("every cell size must be a larger multiple of the previous one");
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        this.g = g;
+        this.sizes = cellSizes.clone();
+        this.levels = cellSizes.length;
+        this.threads = threads;
+        preprocess();
+        customize();
+    }
+
+    /**
+     * @return the underlying graph.
+     */
+    public indexed_graph getGraph() {
+        return g;
+    }
+
+    /**
+     * Returns the length of the shortest path between two nodes.
+     * The overlay is customized first if the graph changed since the last customization.
+     * @param src the source node's key
+     * @param dest the destination node's key
+     * @return the distance, -1 if there is no such node or no path.
+     */
+    public double shortestPathDist(int src, int dest) {
+        synchronized (this) {
+            sync();
+            if (anyDirty) customize();
+        }
+        int s = g.slotOf(src), t = g.slotOf(dest);
+        if (s == NONE || t == NONE) return -1;
+        if (s == t) return 0;
+        SearchState q = searches.get();
+        q.reset();
+        q.push(s, 0);
+        while (!q.isEmpty()) {
+            int v = q.pop();
+            double dv = q.dist(v);
+            if (v == t) return dv;
+            int l = levels;
+            while (l > 0 && (cell[l][v] == cell[l][s] || cell[l][v] == cell[l][t])) l--;
+            if (l > 0) {
+                //the clique of v's cell, then the edges that leave the cell
+                int c = cell[l][v], i = bIndex[l][v];
+                int[] b = boundary[l][c];
+                double[] row = clique[l][c];
+                for (int j = 0, k = i * b.length; j < b.length; j++, k++)
+                    if (row[k] < INFINITY) q.relax(b[j], dv + row[k]);
+            }
+            for (int i = 0, d = g.degree(v); i < d; i++) {
+                int u = g.neighborAt(v, i);
+                if (l == 0 || cell[l][u] != cell[l][v]) q.relax(u, dv + g.weightAt(v, i));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recomputes the cliques of the cells that changed since the last customization,
+     * level by level, the cells of a level in parallel.
+     * The method runs in O(sum over the changed cells of b*(m+k)log(k)) time, b - being the
+     * number of boundary nodes of a cell, and k, m - the nodes and edges of its local graph.
+     */
+    public synchronized void customize() {
+        sync();
+        customized = 0;
+        Parallel.run(threads, () -> {
+            for (int l = 1; l <= levels; l++) {
+                int level = l;
+                for (boolean d : dirty[l]) if (d) customized++;
+                IntStream.range(0, dirty[l].length).parallel().forEach(c -> {
+                    if (staleBoundary[level][c]) findBoundary(level, c);
+                });
+                IntStream.range(0, dirty[l].length).parallel().forEach(c -> {
+                    if (dirty[level][c]) customizeCell(level, c);
+                });
+            }
+            return null;
+        });
+        anyDirty = false;
+    }
+
+    /**
+     * Connects two nodes in the graph, the affected cells are customized by the next query.
+     * @see weighted_graph#connect(int, int, double)
+     */
+    public synchronized void connect(int key1, int key2, double w) {
+        sync();
+        g.connect(key1, key2, w);
+        changed(key1, key2, true);
+    }
+
+    /**
+     * Removes an edge from the graph, the affected cells are customized by the next query.
+     * @see weighted_graph#removeEdge(int, int)
+     */
+    public synchronized void removeEdge(int key1, int key2) {
+        sync();
+        g.removeEdge(key1, key2);
+        changed(key1, key2, true);
+    }
+
+    /**
+     * Changes the weight of an edge in the graph, the affected cells are customized by the next query.
+     * @see weighted_graph#updateWeight(int, int, double)
+     */
+    public synchronized void updateWeight(int key1, int key2, double w) {
+        sync();
+        g.updateWeight(key1, key2, w);
+        changed(key1, key2, false);
+    }
+
+    /**
+     * Changes the weights of many edges, the affected cells are customized by the next query.
+     * @see weighted_graph#updateWeights(int[], int[], double[])
+     */
+    public synchronized void updateWeights(int[] key1, int[] key2, double[] w) {
+        sync();
+        g.updateWeights(key1, key2, w);
+        for (int i = 0; i < w.length; i++) changed(key1[i], key2[i], false);
+    }
+
+    /**
+     * @return the number of cells of every level (index 0 is the number of nodes).
+     */
+    public int[] cellCounts() {
+        int[] counts = new int[levels + 1];
+        counts[0] = nodeCount;
+        for (int l = 1; l <= levels; l++) counts[l] = boundary[l].length;
+        return counts;
+    }
+
+    /**
+     * @return the number of cells (of all the levels) the last customization recomputed -
+     * at most the sum of cellCounts() over the levels.
+     */
+    public synchronized int customizedCells() {
+        return customized;
+    }
+
+    /**
+     * @return the number of boundary nodes of every level (index 0 is the number of nodes).
+     */
+    public int[] boundaryCounts() {
+        int[] counts = new int[levels + 1];
+        counts[0] = nodeCount;
+        for (int l = 1; l <= levels; l++)
+            for (int[] b : boundary[l]) counts[l] += b.length;
+        return counts;
+    }
+
+    /******************************  private methods  ******************************/
+
+    //Detects changes made to the graph directly: a new topology if the nodes changed, otherwise a full customization
+    private void sync() {
+        if (mc == g.getMC()) return;
+        boolean sameNodes = g.slotCount() == keys.length && g.nodeSize() == nodeCount;
+        for (int s = 0; sameNodes && s < keys.length; s++)
+            sameNodes = g.isLive(s) ? g.keyAt(s) == keys[s] : keys[s] == -1 && !g.isLive(s);
+        if (!sameNodes) {
+            preprocess();
+        } else {
+            for (int l = 1; l <= levels; l++) {
+                Arrays.fill(dirty[l], true);
+                Arrays.fill(staleBoundary[l], true);
+            }
+            anyDirty = true;
+        }
+        mc = g.getMC();
+    }
+
+    //Marks the cells that contain a changed edge (and their ancestors) for the next customization
+    private void changed(int key1, int key2, boolean topology) {
+        int a = g.slotOf(key1), b = g.slotOf(key2);
+        mc = g.getMC();
+        if (a == NONE || b == NONE || a == b) return;
+        for (int l = 1; l <= levels; l++) {
+            for (int s : new int[]{a, b}) {
+                int c = cell[l][s];
+                dirty[l][c] = true;
+                if (topology && cell[l][a] != cell[l][b]) staleBoundary[l][c] = true;
+            }
+        }
+        anyDirty = true;
+    }
+
+    //Builds the cells, and marks everything for customization
+    private void preprocess() {
+        int n = g.slotCount();
+        keys = new int[n];
+        for (int s = 0; s < n; s++) keys[s] = g.isLive(s) ? g.keyAt(s) : -1;
+        nodeCount = g.nodeSize();
+        order = bisectionOrder();
+        cell = new int[levels + 1][];
+        bIndex = new int[levels + 1][];
+        boundary = new int[levels + 1][][];
+        clique = new double[levels + 1][][];
+        dirty = new boolean[levels + 1][];
+        staleBoundary = new boolean[levels + 1][];
+        for (int l = 1; l <= levels; l++) {
+            int size = sizes[l - 1], cells = (order.length + size - 1) / size;
+            cell[l] = new int[n];
+            Arrays.fill(cell[l], NONE);
+            for (int i = 0; i < order.length; i++) cell[l][order[i]] = i / size;
+            bIndex[l] = new int[n];
+            Arrays.fill(bIndex[l], NONE);
+            boundary[l] = new int[cells][0];
+            clique[l] = new double[cells][0];
+            dirty[l] = new boolean[cells];
+            staleBoundary[l] = new boolean[cells];
+            Arrays.fill(dirty[l], true);
+            Arrays.fill(staleBoundary[l], true);
+        }
+        anyDirty = true;
+        mc = g.getMC();
+        searches = ThreadLocal.withInitial(() -> new SearchState(n));
+    }
+
+    //The live slots ordered by recursive breadth first bisection
+    private int[] bisectionOrder() {
+        int n = g.slotCount();
+        int[] o = new int[nodeCount];
+        int k = 0;
+        for (int s = 0; s < n; s++) if (g.isLive(s)) o[k++] = s;
+        int[] range = new int[n], level = new int[n], queue = new int[nodeCount];
+        int[] stack = {0, o.length};
+        int top = 2, id = 0;
+        while (top > 0) {
+            int hi = stack[--top], lo = stack[--top];
+            if (hi - lo <= sizes[0]) continue;
+            id++;
+            for (int i = lo; i < hi; i++) range[o[i]] = id;
+            //breadth first, component by component, each from a pseudo-peripheral node
+            int size = lo;
+            for (int i = lo; i < hi; i++) {
+                int v = o[i];
+                if (range[v] != id) continue;
+                v = peripheral(v, id, range, level, queue, size);
+                queue[size] = v;
+                range[v] = -id;
+                int end = size + 1;
+                for (int head = size; head < end; head++) {
+                    int x = queue[head];
+                    for (int j = 0, d = g.degree(x); j < d; j++) {
+                        int u = g.neighborAt(x, j);
+                        if (range[u] == id) {
+                            range[u] = -id;
+                            queue[end++] = u;
+                        }
+                    }
+                }
+                size = end;
+            }
+            System.arraycopy(queue, lo, o, lo, hi - lo);
+            //split at a multiple of the largest cell size below the length
+            int unit = sizes[0];
+            for (int c : sizes) if (c < hi - lo) unit = c;
+            int mid = lo + (int) Math.round((hi - lo) / 2.0 / unit) * unit;
+            mid = Math.max(lo + unit, Math.min(mid, hi - 1));
+            if (stack.length < top + 4) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = lo;
+            stack[top++] = mid;
+            stack[top++] = mid;
+            stack[top++] = hi;
+        }
+        return o;
+    }
+
+    //A pseudo-peripheral node of v's component inside a range: a few breadth first sweeps, each
+    //from the last node of the previous one, while the depth grows. queue[from..] is scratch.
+    private int peripheral(int v, int id, int[] range, int[] level, int[] queue, int from) {
+        int depth = -1;
+        for (int sweep = 0; sweep < 4; sweep++) {
+            int end = from;
+            queue[end++] = v;
+            level[v] = 1;
+            for (int head = from; head < end; head++) {
+                int x = queue[head];
+                for (int j = 0, d = g.degree(x); j < d; j++) {
+                    int u = g.neighborAt(x, j);
+                    if (range[u] == id && level[u] == 0) {
+                        level[u] = level[x] + 1;
+                        queue[end++] = u;
+                    }
+                }
+            }
+            int last = queue[end - 1], reached = level[last];
+            for (int i = from; i < end; i++) level[queue[i]] = 0;
+            if (reached <= depth) break;
+            depth = reached;
+            v = last;
+        }
+        return v;
+    }
+
+    //The nodes of a cell that have an edge leaving it
+    private void findBoundary(int l, int c) {
+        for (int v : boundary[l][c]) bIndex[l][v] = NONE;
+        int from = c * sizes[l - 1], to = Math.min(order.length, from + sizes[l - 1]);
+        int[] b = new int[16];
+        int k = 0;
+        for (int i = from; i < to; i++) {
+            int v = order[i];
+            for (int j = 0, d = g.degree(v); j < d; j++) {
+                if (cell[l][g.neighborAt(v, j)] != c) {
+                    if (k == b.length) b = Arrays.copyOf(b, k * 2);
+                    bIndex[l][v] = k;
+                    b[k++] = v;
+                    break;
+                }
+            }
+        }
+        boundary[l][c] = Arrays.copyOf(b, k);
+        staleBoundary[l][c] = false;
+    }
+
+    //The distances between the boundary nodes of a cell, inside the cell: a search from every
+    //boundary node over the cell's local graph - the original edges at level 1, otherwise the
+    //cliques of the subcells and the edges between them
+    private void customizeCell(int l, int c) {
+        int[] b = boundary[l][c];
+        double[] row = new double[b.length * b.length];
+        SearchState q = searches.get();
+        for (int i = 0; i < b.length; i++) {
+            q.reset();
+            q.push(b[i], 0);
+            int left = b.length;
+            while (!q.isEmpty() && left > 0) {
+                int v = q.pop();
+                double dv = q.dist(v);
+                if (bIndex[l][v] != NONE) left--;
+                if (l > 1) {
+                    int sub = cell[l - 1][v], at = bIndex[l - 1][v];
+                    int[] sb = boundary[l - 1][sub];
+                    double[] sc = clique[l - 1][sub];
+                    for (int j = 0, k = at * sb.length; j < sb.length; j++, k++)
+                        if (sc[k] < INFINITY) q.relax(sb[j], dv + sc[k]);
+                }
+                for (int j = 0, d = g.degree(v); j < d; j++) {
+                    int u = g.neighborAt(v, j);
+                    if (cell[l][u] == c && (l == 1 || cell[l - 1][u] != cell[l - 1][v]))
+                        q.relax(u, dv + g.weightAt(v, j));
+                }
+            }
+            for (int j = 0; j < b.length; j++) row[i * b.length + j] = q.dist(b[j]);
+        }
+        clique[l][c] = row;
+        dirty[l][c] = false;
+        if (l < levels) dirty[l + 1][cell[l + 1][order[c * sizes[l - 1]]]] = true;
+    }
+}
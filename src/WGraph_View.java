@@ -0,0 +1,441 @@
+package ex1.src;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * This class represents a read-only subgraph of an indexed graph that is not copied:
+ * the nodes of the view are the graph's nodes that pass a node filter (a predicate on the
+ * key and/or a bitset of slots), and its edges are the graph's edges between them that pass
+ * an edge filter (e.g. maxWeight(cap)). The view shares the graph's slots and node_info
+ * objects, so setting a tag or an info of a view's node sets it in the graph.
+ * The view is live - it follows the changes of the graph. Everything is computed lazily:
+ * 1. the filters of a node are tested when the node is asked for.
+ * 2. the kept positions of a node's adjacency are found when its neighbors are first read,
+ *    and cached (nothing is cached for a node that keeps all its edges).
+ * 3. nodeSize() and edgeSize() are counted when first asked for, and cached.
+ * The caches are dropped whenever the graph's ModeCount changes. Concurrent reads of an
+ * unchanging graph are safe, so the parallel algorithms of WGraph_Algo run on a view as
+ * they are. The edge filter must not depend on the order of the edge's nodes.
+ * The mutating methods throw UnsupportedOperationException - change the graph instead.
+ * @see weighted_graph
+ *
+ * @author Eyal Levi
+ * https://github.com/LeviEyal
+ */
+public class WGraph_View implements indexed_graph {
+
+    /**
+     * A filter of the edges of a view.
+     */
+    public interface EdgeFilter {
+        /**
+         * @param key1 the smaller key of the edge's nodes
+         * @param key2 the larger key
+         * @param w the weight of the edge
+         * @return true iff the edge is in the view.
+         */
+        boolean test(int key1, int key2, double w);
+
+        /**
+         * @return a filter of the edges whose weight is at most max.
+         */
+        static EdgeFilter maxWeight(double max) {
+            return (key1, key2, w) -> w <= max;
+        }
+    }
+
+    private static final int[] ALL = new int[0]; //the cached positions of a node that keeps all its edges
+
+    private final indexed_graph g;
+    private final IntPredicate nodes;
+    private final BitSet slots;
+    private final EdgeFilter edges;
+    private volatile Cache cache;
+
+    /**
+     * Creates a view of the nodes that pass a filter, and all the edges between them.
+     * @param g the graph
+     * @param nodes the filter of the keys (null for all the nodes)
+     */
+    public WGraph_View(indexed_graph g, IntPredicate nodes) {
+        this(g, nodes, null, null);
+    }
+
+    /**
+     * Creates a view of all the nodes and the edges that pass a filter.
+     * @param g the graph
+     * @param edges the filter of the edges (null for all the edges)
+     */
+    public WGraph_View(indexed_graph g, EdgeFilter edges) {
+        this(g, null, null, edges);
+    }
+
+    /**
+     * Creates a view of the nodes whose slots are set in a bitset, and the edges that pass a filter.
+     * The bitset is not copied - later changes of it change the view (call refresh() after them).
+     * @param g the graph
+     * @param slots the slots of the view's nodes
+     * @param edges the filter of the edges (null for all the edges)
+     */
+    public WGraph_View(indexed_graph g, BitSet slots, EdgeFilter edges) {
+        this(g, null, Objects.requireNonNull(slots, "slots"), edges);
+    }
+
+    /**
+     * Creates a view of the nodes that pass a filter, and the edges between them that pass a filter.
+     * @param g the graph
+     * @param nodes the filter of the keys (null for all the nodes)
+     * @param edges the filter of the edges (null for all the edges)
+     */
+    public WGraph_View(indexed_graph g, IntPredicate nodes, EdgeFilter edges) {
+        this(g, nodes, null, edges);
+    }
+
+    private WGraph_View(indexed_graph g, IntPredicate nodes, BitSet slots, EdgeFilter edges) {
+        this.g = Objects.requireNonNull(g, "graph");
+        this.nodes = nodes;
+        this.slots = slots;
+        this.edges = edges;
+    }
+
+    /**
+     * @return the graph this view filters.
+     */
+    public indexed_graph graph() {
+        return g;
+    }
+
+    /**
+     * Drops the caches, for filters whose answers changed without a change of the graph.
+     */
+    public void refresh() {
+        cache = null;
+    }
+
+    @Override
+    public node_info getNode(int key) {
+        int s = g.slotOf(key);
+        return s != -1 && inView(s) ? g.getNode(key) : null;
+    }
+
+    @Override
+    public boolean hasEdge(int node1, int node2) {
+        return getEdge(node1, node2) != -1;
+    }
+
+    @Override
+    public double getEdge(int node1, int node2) {
+        int s1 = slotOf(node1), s2 = slotOf(node2);
+        if (s1 == -1 || s2 == -1) return -1;
+        double w = g.getEdge(node1, node2);
+        return w == -1 || !keeps(node1, node2, w) ? -1 : w;
+    }
+
+    /**
+     * Returns a live view of the nodes of this view.
+     * The method runs in O(1) time, its size in O(slotCount()) time once per change of the graph.
+     * @return Collection<node_data>
+     */
+    @Override
+    public Collection<node_info> getV() {
+        return new NodesView();
+    }
+
+    /**
+     * Returns a live view of the view's neighbors of a given node.
+     * @return Collection<node_data>, an empty collection if the node is not in the view.
+     */
+    @Override
+    public Collection<node_info> getV(int node_id) {
+        int s = slotOf(node_id);
+        if (s == -1) return Collections.emptyList();
+        return new NeighborsView(s);
+    }
+
+    /**
+     * Not supported - a view is read-only.
+     */
+    @Override
+    public void addNode(int key) {
+        throw new UnsupportedOperationException("a view is read-only");
+    }
+
+    /**
+     * Not supported - a view is read-only.
+     */
+    @Override
+    public void connect(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("a view is read-only");
+    }
+
+    /**
+     * Not supported - a view is read-only.
+     */
+    @Override
+    public void updateWeight(int node1, int node2, double w) {
+        throw new UnsupportedOperationException("a view is read-only");
+    }
+
+    /**
+     * Not supported - a view is read-only.
+     */
+    @Override
+    public void updateWeights(int[] node1, int[] node2, double[] w) {
+        throw new UnsupportedOperationException("a view is read-only");
+    }
+
+    /**
+     * Not supported - a view is read-only.
+     */
+    @Override
+    public node_info removeNode(int key) {
+        throw new UnsupportedOperationException("a view is read-only");
+    }
+
+    /**
+     * Not supported - a view is read-only.
+     */
+    @Override
+    public void removeEdge(int node1, int node2) {
+        throw new UnsupportedOperationException("a view is read-only");
+    }
+
+    /**
+     * @return the number of nodes of this view, counted once per change of the graph.
+     */
+    @Override
+    public int nodeSize() {
+        Cache c = cache();
+        int n = c.nodeSize;
+        if (n == -1) {
+            n = 0;
+            for (int s = 0, count = g.slotCount(); s < count; s++)
+                if (inView(s)) n++;
+            c.nodeSize = n;
+        }
+        return n;
+    }
+
+    /**
+     * @return the number of edges of this view, counted once per change of the graph.
+     */
+    @Override
+    public int edgeSize() {
+        Cache c = cache();
+        int e = c.edgeSize;
+        if (e == -1) {
+            long arcs = 0;
+            for (int s = 0, count = g.slotCount(); s < count; s++) arcs += degree(s);
+            c.edgeSize = e = (int) (arcs / 2);
+        }
+        return e;
+    }
+
+    /**
+     * @return the ModeCount of the graph.
+     */
+    @Override
+    public int getMC() {
+        return g.getMC();
+    }
+
+    @Override
+    public int slotCount() {
+        return g.slotCount();
+    }
+
+    @Override
+    public int slotOf(int key) {
+        int s = g.slotOf(key);
+        return s != -1 && inView(s) ? s : -1;
+    }
+
+    @Override
+    public int keyAt(int slot) {
+        return g.keyAt(slot);
+    }
+
+    @Override
+    public boolean isLive(int slot) {
+        return inView(slot);
+    }
+
+    @Override
+    public int degree(int slot) {
+        int[] p = kept(slot);
+        return p == ALL ? g.degree(slot) : p.length;
+    }
+
+    @Override
+    public int neighborAt(int slot, int i) {
+        int[] p = kept(slot);
+        return g.neighborAt(slot, p == ALL ? i : p[i]);
+    }
+
+    @Override
+    public double weightAt(int slot, int i) {
+        int[] p = kept(slot);
+        return g.weightAt(slot, p == ALL ? i : p[i]);
+    }
+
+    /**
+     * @return a cursor over the graph's neighbors of the node that skips the ones not kept,
+     * so a traversal of a view of a WGraph_Compressed keeps its independent decoders.
+     */
+    @Override
+    public Neighbors neighbors(int slot) {
+        int[] p = kept(slot);
+        if (p == ALL) return g.neighbors(slot);
+        if (p.length == 0) return indexed_graph.super.neighbors(slot);
+        Neighbors all = g.neighbors(slot);
+        return new Neighbors() {
+            private int k, j = -1, value; //the next kept position, the position of the graph's cursor
+
+            @Override
+            public boolean hasNext() {
+                return k < p.length;
+            }
+
+            @Override
+            public int next() {
+                while (j < p[k]) {
+                    value = all.next();
+                    j++;
+                }
+                k++;
+                return value;
+            }
+
+            @Override
+            public double weight() {
+                return all.weight();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "View of " + nodeSize() + " nodes and " + edgeSize() + " edges of a graph of "
+                + g.nodeSize() + " nodes and " + g.edgeSize() + " edges";
+    }
+
+    /******************************  private methods  ******************************/
+
+    private boolean inView(int s) {
+        return s >= 0 && s < g.slotCount() && g.isLive(s)
+                && (slots == null || slots.get(s)) && (nodes == null || nodes.test(g.keyAt(s)));
+    }
+
+    private boolean keeps(int key1, int key2, double w) {
+        return edges == null || (key1 < key2 ? edges.test(key1, key2, w) : edges.test(key2, key1, w));
+    }
+
+    //The caches of the graph's current ModeCount
+    private Cache cache() {
+        Cache c = cache;
+        int mc = g.getMC();
+        if (c == null || c.mc != mc || c.kept.length() < g.slotCount()) cache = c = new Cache(mc, g.slotCount());
+        return c;
+    }
+
+    //The positions of the kept edges in a node's adjacency, ALL if all of them are kept
+    private int[] kept(int s) {
+        Cache c = cache();
+        int[] p = c.kept.get(s);
+        if (p != null) return p;
+        if (!inView(s)) {
+            p = new int[0];
+        } else {
+            int d = g.degree(s), k = 0, key = g.keyAt(s);
+            p = new int[d];
+            for (int i = 0; i < d; i++) {
+                int u = g.neighborAt(s, i);
+                if (inView(u) && keeps(key, g.keyAt(u), g.weightAt(s, i))) p[k++] = i;
+            }
+            p = k == d ? ALL : Arrays.copyOf(p, k);
+        }
+        c.kept.set(s, p);
+        return p;
+    }
+
+    /*****************************  private classes  ******************************/
+
+    private static class Cache {
+        final int mc;
+        final AtomicReferenceArray<int[]> kept;
+        volatile int nodeSize = -1, edgeSize = -1;
+
+        Cache(int mc, int slots) {
+            this.mc = mc;
+            kept = new AtomicReferenceArray<>(slots);
+        }
+    }
+
+    //A live view of the view's nodes
+    private class NodesView extends AbstractCollection<node_info> {
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int next = advance(0);
+
+                private int advance(int s) {
+                    int count = g.slotCount();
+                    while (s < count && !inView(s)) s++;
+                    return s;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < g.slotCount();
+                }
+
+                @Override
+                public node_info next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    node_info n = g.getNode(g.keyAt(next));
+                    next = advance(next + 1);
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return nodeSize();
+        }
+    }
+
+    //A live view of the view's neighbors of a single node
+    private class NeighborsView extends AbstractCollection<node_info> {
+        private final int slot;
+
+        NeighborsView(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public Iterator<node_info> iterator() {
+            return new Iterator<node_info>() {
+                private int i;
+
+                @Override
+                public boolean hasNext() {
+                    return i < degree(slot);
+                }
+
+                @Override
+                public node_info next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return g.getNode(g.keyAt(neighborAt(slot, i++)));
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return degree(slot);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ex1.src;
+import java.util.List;
+
+/**
+ * This interface represents a subscriber to the changes of an observable graph
+ * (see observable_graph) - e.g. a derived index that is updated incrementally
+ * instead of being rebuilt whenever the graph's ModeCount changes.
+ */
+public interface graph_listener {
+    /**
+     * called after one or more changes of the graph, with their events in the order of the changes.
+     * Outside a batch every change is delivered at once, inside a batch (see observable_graph.beginBatch)
+     * the events are delivered together when the batch ends.
+     * Note: the list must not be kept after the call returns, and the graph must not be changed by the listener.
+     * @param events the events of the changes, by non-decreasing MC
+     */
+    public void graphChanged(List<GraphEvent> events);
+}
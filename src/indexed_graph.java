@@ -0,0 +1,111 @@
+package ex1.src;
+
+/**
+ * This interface represents a weighted graph whose nodes are also numbered by compact slots.
+ * Every live node has a unique slot in the range [0, slotCount()), so algorithms can keep
+ * their per-node state in flat primitive arrays instead of maps keyed by node_info or Integer.
+ * Slots are stable as long as the node is in the graph, a slot of a removed node may be
+ * given to a node that is added later.
+ */
+public interface indexed_graph extends weighted_graph {
+    /**
+     * A cursor over the neighbors of a single node, in the order of neighborAt.
+     */
+    public interface Neighbors {
+        /**
+         * return true iff there are more neighbors.
+         * @return
+         */
+        public boolean hasNext();
+        /**
+         * advance to the next neighbor.
+         * @return the slot of the neighbor.
+         */
+        public int next();
+        /**
+         * return the weight of the edge to the neighbor returned by the last next().
+         * @return
+         */
+        public double weight();
+    }
+    /**
+     * return an upper bound (exclusive) on the slots of this graph -
+     * the length needed for a slot indexed array.
+     * Note: this method should run in O(1) time.
+     * @return
+     */
+    public int slotCount();
+    /**
+     * return the slot of the node with the given key.
+     * Note: this method should run in O(1) time.
+     * @param key
+     * @return the slot of the node, -1 if none.
+     */
+    public int slotOf(int key);
+    /**
+     * return the key of the node stored in the given slot.
+     * Note: the result is meaningful only if isLive(slot) is true.
+     * @param slot
+     * @return
+     */
+    public int keyAt(int slot);
+    /**
+     * return true iff the given slot currently holds a node.
+     * @param slot
+     * @return
+     */
+    public boolean isLive(int slot);
+    /**
+     * return the number of neighbors of the node stored in the given slot.
+     * Note: this method should run in O(1) time.
+     * @param slot
+     * @return
+     */
+    public int degree(int slot);
+    /**
+     * return the slot of the i'th neighbor of the node stored in the given slot,
+     * 0 <= i < degree(slot). The order of the neighbors is unspecified but stable
+     * as long as the node's adjacency is not changed.
+     * @param slot
+     * @param i
+     * @return
+     */
+    public int neighborAt(int slot, int i);
+    /**
+     * return the weight of the edge between the node stored in the given slot
+     * and its i'th neighbor (as returned by neighborAt(slot, i)).
+     * @param slot
+     * @param i
+     * @return
+     */
+    public double weightAt(int slot, int i);
+    /**
+     * return a cursor over the neighbors of the node stored in the given slot.
+     * Traversals that interleave the scans of several nodes (e.g. a depth first search)
+     * should keep a cursor per node rather than a position, since neighborAt of some graphs
+     * is fast only when it continues the previous call (see WGraph_Compressed).
+     * @param slot
+     * @return
+     */
+    public default Neighbors neighbors(int slot) {
+        return new Neighbors() {
+            private final int degree = degree(slot);
+            private int i = -1;
+
+            @Override
+            public boolean hasNext() {
+                return i + 1 < degree;
+            }
+
+            @Override
+            public int next() {
+                return neighborAt(slot, ++i);
+            }
+
+            @Override
+            public double weight() {
+                return weightAt(slot, i);
+            }
+        };
+    }
+}
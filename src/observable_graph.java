@@ -0,0 +1,35 @@
+package ex1.src;
+
+/**
+ * This interface represents a weighted graph that reports its changes to listeners
+ * (see graph_listener): every change that increments the ModeCount is delivered as a
+ * GraphEvent that carries the new ModeCount.
+ * A removed node is reported by a REMOVE_EDGE event per edge it had, then a REMOVE_NODE event.
+ * A batch of weight changes (updateWeights) is reported by an UPDATE_WEIGHT event per changed
+ * edge, all with the same ModeCount.
+ * A graph without listeners does not create any events.
+ */
+public interface observable_graph extends weighted_graph {
+    /**
+     * subscribes a listener to the changes of this graph (a listener that is
+     * already subscribed is subscribed again).
+     * @param l the listener
+     */
+    public void addListener(graph_listener l);
+    /**
+     * unsubscribes a listener.
+     * @param l the listener
+     */
+    public void removeListener(graph_listener l);
+    /**
+     * starts a batch: the events of the changes are kept until the matching endBatch,
+     * then delivered together (a large batch is delivered in several parts).
+     * Batches may be nested - the events are delivered when the outermost batch ends.
+     */
+    public void beginBatch();
+    /**
+     * ends a batch started by beginBatch, and delivers its events if it is the outermost one.
+     * @throws IllegalStateException if there is no open batch
+     */
+    public void endBatch();
+}
@@ -45,6 +45,26 @@ public interface weighted_graph {
      * Note2: if the edge node1-node2 already exists - the method simply updates the weight of the edge.
      */
     public void connect(int node1, int node2, double w);
+    /**
+     * Change the weight of the existing edge node1-node2 to w (w >= 0).
+     * Note: this method should run in O(1) time.
+     * Note2: if there is no such edge -> no action should be performed,
+     * the ModeCount is incremented only if the weight actually changed.
+     * @param node1
+     * @param node2
+     * @param w the new weight
+     */
+    public void updateWeight(int node1, int node2, double w);
+    /**
+     * Change the weights of many existing edges at once: the edge node1[i]-node2[i] gets the weight w[i].
+     * Missing edges are skipped. The whole batch counts as a single change -
+     * the ModeCount is incremented at most once.
+     * Note: this method should run in O(k) time, k - being the length of the batch.
+     * @param node1
+     * @param node2
+     * @param w the new weights
+     */
+    public void updateWeights(int[] node1, int[] node2, double[] w);
     /**
      * This method return a pointer (shallow copy) for a
      * Collection representing all the nodes in the graph.
@@ -10,6 +10,9 @@ import java.util.List;
  * 4. List<node_data> shortestPath(int src, int dest);
  * 5. Save(file);
  * 6. Load(file);
+ * 7. SpanningForest minimumSpanningForest();
+ * 8. centrality: closeness(), harmonicCentrality(), topCloseness(k);
+ * 9. eccentricity(), diameter(), radius();
  *
  * @author boaz.benmoshe
  *
@@ -73,4 +76,52 @@ public interface weighted_graph_algorithms {
      * @return true - iff the graph was successfully loaded.
      */
     public boolean load(String file);
+
+    /**
+     * Computes a minimum spanning forest of the graph - a minimum spanning tree
+     * of every connected component.
+     * @return the forest's edges (in primitive arrays) and its total weight.
+     */
+    public SpanningForest minimumSpanningForest();
+
+    /**
+     * Computes the closeness centrality of every node: ((r-1)/(n-1)) * ((r-1)/sum), where r is
+     * the number of nodes reachable from the node (itself included) and sum is the sum of
+     * their distances. Isolated nodes score 0.
+     * @return the score of every node.
+     */
+    public NodeScores closeness();
+
+    /**
+     * Computes the harmonic centrality of every node - the sum of 1/dist to every other
+     * node, where unreachable nodes contribute 0.
+     * @return the score of every node.
+     */
+    public NodeScores harmonicCentrality();
+
+    /**
+     * Finds the k nodes of highest closeness (see closeness()).
+     * @param k - the number of nodes wanted
+     * @return the k best nodes with their scores, highest first.
+     */
+    public NodeScores topCloseness(int k);
+
+    /**
+     * Computes the eccentricity of every node - its distance to the farthest
+     * node of its connected component.
+     * @return the eccentricity of every node.
+     */
+    public NodeScores eccentricity();
+
+    /**
+     * Computes the diameter - the longest shortest path inside a connected component.
+     * @return the diameter, 0 for an empty graph.
+     */
+    public double diameter();
+
+    /**
+     * Computes the radius - the smallest eccentricity (isolated nodes have eccentricity 0).
+     * @return the radius, 0 for an empty graph.
+     */
+    public double radius();
 }
@@ -0,0 +1,81 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApproximateOracleTest {
+
+    @Test
+    void stretchIsBounded() {
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(1500, 4000, 3);
+        g.addNode(-9);
+        g.addNode(-10);
+        g.connect(-9, -10, 2.5);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        Random rnd = new Random(7);
+        int[] sources = new int[15];
+        NodeDistances[] exact = new NodeDistances[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = rnd.nextInt(1500);
+            exact[i] = ga.withinDistance(sources[i], Double.MAX_VALUE);
+        }
+        for (int k = 1; k <= 4; k++) {
+            ApproximateOracle o = ApproximateOracle.build(g, k, 2, k);
+            assertEquals(2 * k - 1, o.stretch());
+            assertEquals(1502, o.size());
+            for (int i = 0; i < sources.length; i++) {
+                NodeDistances d = exact[i];
+                for (int j = 0; j < d.size(); j++) {
+                    double est = o.shortestPathDist(sources[i], d.key(j));
+                    assertTrue(est >= d.dist(j) - 1e-9 && est <= o.stretch() * d.dist(j) + 1e-9,
+                            "k=" + k + ": " + sources[i] + "->" + d.key(j) + " is " + d.dist(j) + ", estimated " + est);
+                    if (k == 1) assertEquals(d.dist(j), est, 1e-9);
+                }
+                assertEquals(-1, o.shortestPathDist(sources[i], -9));
+            }
+            assertEquals(2.5, o.shortestPathDist(-10, -9));
+            assertEquals(0, o.shortestPathDist(-10, -10));
+            assertEquals(-1, o.shortestPathDist(0, 12345));
+        }
+        assertThrows(IllegalArgumentException.class, () -> ApproximateOracle.build(g, 0));
+    }
+
+    @Test
+    void memoryShrinksWithK() {
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(3000, 9000, 5);
+        long last = Long.MAX_VALUE;
+        for (int k = 1; k <= 4; k++) {
+            ApproximateOracle o = ApproximateOracle.build(g, k);
+            assertTrue(o.bunchEntries() < last);
+            last = o.bunchEntries();
+        }
+        assertEquals(0, ApproximateOracle.build(new WGraph_DS(), 3).size());
+    }
+
+    @Test
+    void report() {
+        int side = 150;
+        WGraph_DS g = new WGraph_DS();
+        Random rnd = new Random(2);
+        for (int i = 0; i < side * side; i++) g.addNode(i);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) g.connect(r * side + c, r * side + c + 1, 1 + rnd.nextInt(10));
+                if (r + 1 < side) g.connect(r * side + c, (r + 1) * side + c, 1 + rnd.nextInt(10));
+            }
+        }
+        for (int k = 2; k <= 3; k++) {
+            long start = System.nanoTime();
+            ApproximateOracle o = ApproximateOracle.build(g, k);
+            double build = (System.nanoTime() - start) / 1e6;
+            String report = o.report(g, 10, 1);
+            System.out.printf("%dx%d grid, k=%d: build %.0f ms; %s%n", side, side, k, build, report);
+            assertTrue(report.contains(" 0 outside the bound"), report);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BetweennessTest {
+
+    @Test
+    void path() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 4; i++) g.addNode(i * 10);
+        g.connect(0,10,1);
+        g.connect(10,20,1);
+        g.connect(20,30,1);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        BetweennessScores b = ga.betweenness();
+        assertTrue(b.isExact());
+        for (int i = 0; i < b.nodeKeys().length; i++) {
+            int key = b.nodeKeys()[i];
+            assertEquals(key == 10 || key == 20 ? 2 : 0, b.nodeScores()[i], 1e-12);
+        }
+        for (int i = 0; i < b.edgeScores().length; i++) {
+            int lo = Math.min(b.edgeFrom()[i], b.edgeTo()[i]);
+            assertEquals(lo == 10 ? 4 : 3, b.edgeScores()[i], 1e-12);
+        }
+    }
+
+    @Test
+    void matchesBruteForce() {
+        int n = 40;
+        weighted_graph g = new WGraph_DS();
+        Random rnd = new Random(4);
+        for (int i = 0; i < n; i++) g.addNode(i);
+        while (g.edgeSize() < 100) g.connect(rnd.nextInt(n), rnd.nextInt(n), 1 + rnd.nextInt(3));
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        BetweennessScores b = ga.betweenness(n, 1, 3);
+        assertTrue(b.isExact());
+
+        //all pairs distances and path counts
+        double[][] d = new double[n][n];
+        double[][] sigma = new double[n][n];
+        for (int s = 0; s < n; s++) {
+            for (int t = 0; t < n; t++) {
+                d[s][t] = ga.shortestPathDist(s, t);
+                if (d[s][t] == -1) d[s][t] = Double.POSITIVE_INFINITY;
+            }
+        }
+        for (int s = 0; s < n; s++) {
+            Integer[] byDist = new Integer[n];
+            for (int i = 0; i < n; i++) byDist[i] = i;
+            final int src = s;
+            java.util.Arrays.sort(byDist, (x, y) -> Double.compare(d[src][x], d[src][y]));
+            sigma[s][s] = 1;
+            for (int v : byDist) {
+                if (v == s || d[s][v] == Double.POSITIVE_INFINITY) continue;
+                for (node_info u : g.getV(v))
+                    if (d[s][u.getKey()] + g.getEdge(v, u.getKey()) == d[s][v]) sigma[s][v] += sigma[s][u.getKey()];
+            }
+        }
+        for (int i = 0; i < b.nodeKeys().length; i++) {
+            int v = b.nodeKeys()[i];
+            double expected = 0;
+            for (int s = 0; s < n; s++)
+                for (int t = s + 1; t < n; t++)
+                    if (s != v && t != v && d[s][t] != Double.POSITIVE_INFINITY && d[s][v] + d[v][t] == d[s][t])
+                        expected += sigma[s][v] * sigma[v][t] / sigma[s][t];
+            assertEquals(expected, b.nodeScores()[i], 1e-9);
+        }
+        for (int i = 0; i < b.edgeScores().length; i++) {
+            int x = b.edgeFrom()[i], y = b.edgeTo()[i];
+            double w = g.getEdge(x, y), expected = 0;
+            for (int s = 0; s < n; s++) {
+                for (int t = s + 1; t < n; t++) {
+                    if (d[s][t] == Double.POSITIVE_INFINITY) continue;
+                    if (d[s][x] + w + d[y][t] == d[s][t]) expected += sigma[s][x] * sigma[y][t] / sigma[s][t];
+                    if (d[s][y] + w + d[x][t] == d[s][t]) expected += sigma[s][y] * sigma[x][t] / sigma[s][t];
+                }
+            }
+            assertEquals(expected, b.edgeScores()[i], 1e-9);
+        }
+    }
+
+    @Test
+    void sampled() {
+        weighted_graph g = WGraph_DSTest.graph_creator(2000, 6000, 3);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        long start = System.nanoTime();
+        BetweennessScores exact = ga.betweenness();
+        long exactMs = (System.nanoTime() - start) / 1000000;
+        start = System.nanoTime();
+        BetweennessScores sampled = ga.betweenness(200, 7, 2);
+        long sampledMs = (System.nanoTime() - start) / 1000000;
+        assertFalse(sampled.isExact());
+        System.out.printf("betweenness |V|=%d: exact %d ms, 200 pivots %d ms%n", g.nodeSize(), exactMs, sampledMs);
+        //the sampled estimate of the total centrality is close to the exact total
+        double e = 0, s = 0;
+        for (int i = 0; i < exact.nodeScores().length; i++) {
+            e += exact.nodeScores()[i];
+            s += sampled.nodeScores()[i];
+        }
+        assertEquals(1, s / e, 0.1);
+    }
+}
@@ -0,0 +1,150 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BiconnectedComponentsTest {
+
+    @Test
+    void twoTrianglesAndATail() {
+        //triangles 0-1-2 and 2-3-4 share node 2, the tail 4-5-6 hangs off node 4
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 8; i++) g.addNode(i);
+        g.connect(0,1,1); g.connect(1,2,1); g.connect(2,0,1);
+        g.connect(2,3,1); g.connect(3,4,1); g.connect(4,2,1);
+        g.connect(4,5,1); g.connect(5,6,1);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        BiconnectedComponents b = ga.biconnectedComponents();
+        assertEquals(4, b.componentCount());
+        int[] points = b.articulationPoints().clone();
+        Arrays.sort(points);
+        assertArrayEquals(new int[]{2, 4, 5}, points);
+        assertEquals(2, b.bridgeFrom().length);
+        Set<Long> bridges = new HashSet<>();
+        for (int i = 0; i < 2; i++) bridges.add(edgeId(b.bridgeFrom()[i], b.bridgeTo()[i]));
+        assertEquals(Set.of(edgeId(4, 5), edgeId(5, 6)), bridges);
+        assertEquals(g.edgeSize(), b.edgeFrom().length);
+    }
+
+    @Test
+    void matchesBruteForce() {
+        for (long seed = 1; seed <= 6; seed++) {
+            int n = 40;
+            weighted_graph g = new WGraph_DS();
+            Random rnd = new Random(seed);
+            for (int i = 0; i < n; i++) g.addNode(i);
+            while (g.edgeSize() < 45) g.connect(rnd.nextInt(n), rnd.nextInt(n), 1);
+            WGraph_Algo ga = new WGraph_Algo();
+            ga.init(g);
+            BiconnectedComponents b = ga.biconnectedComponents();
+
+            int base = components(g, -1, -1, -1);
+            Set<Integer> points = new HashSet<>();
+            for (int k : b.articulationPoints()) points.add(k);
+            for (int v = 0; v < n; v++)
+                assertEquals(components(g, v, -1, -1) > base, points.contains(v));
+            Set<Long> bridges = new HashSet<>();
+            for (int i = 0; i < b.bridgeFrom().length; i++) bridges.add(edgeId(b.bridgeFrom()[i], b.bridgeTo()[i]));
+            //blocks: adjacent edges u-v, v-w share a block iff u and w are connected without v
+            Map<Long, Integer> edge = new HashMap<>();
+            List<long[]> edges = new ArrayList<>();
+            for (node_info a : g.getV())
+                for (node_info c : g.getV(a.getKey()))
+                    if (a.getKey() < c.getKey()) {
+                        edge.put(edgeId(a.getKey(), c.getKey()), edges.size());
+                        edges.add(new long[]{a.getKey(), c.getKey()});
+                        assertEquals(components(g, -1, a.getKey(), c.getKey()) > base,
+                                bridges.contains(edgeId(a.getKey(), c.getKey())));
+                    }
+            int[] uf = new int[edges.size()];
+            for (int i = 0; i < uf.length; i++) uf[i] = i;
+            for (int v = 0; v < n; v++) {
+                List<node_info> ni = new ArrayList<>(g.getV(v));
+                for (int i = 0; i < ni.size(); i++)
+                    for (int j = i + 1; j < ni.size(); j++)
+                        if (connectedWithout(g, ni.get(i).getKey(), ni.get(j).getKey(), v))
+                            union(uf, edge.get(edgeId(v, ni.get(i).getKey())), edge.get(edgeId(v, ni.get(j).getKey())));
+            }
+            Map<Integer, Integer> blockOf = new HashMap<>();
+            assertEquals(edges.size(), b.edgeFrom().length);
+            for (int i = 0; i < b.edgeFrom().length; i++) {
+                int e = edge.get(edgeId(b.edgeFrom()[i], b.edgeTo()[i]));
+                Integer prev = blockOf.putIfAbsent(find(uf, e), b.edgeComponent()[i]);
+                if (prev != null) assertEquals((int) prev, b.edgeComponent()[i]);
+            }
+            assertEquals(blockOf.size(), b.componentCount());
+            assertEquals(blockOf.size(), new HashSet<>(blockOf.values()).size());
+        }
+    }
+
+    @Test
+    void deepPathDoesNotOverflow() {
+        int n = 1000000;
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < n; i++) g.addNode(i);
+        for (int i = 1; i < n; i++) g.connect(i - 1, i, 1);
+        g.connect(n - 1, n - 3, 1); //closes a triangle at the far end
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        long start = System.nanoTime();
+        BiconnectedComponents b = ga.biconnectedComponents();
+        long time = System.nanoTime() - start;
+        assertEquals(n - 3, b.bridgeFrom().length);
+        assertEquals(n - 3, b.articulationPoints().length);
+        assertEquals(n - 2, b.componentCount());
+        System.out.printf("biconnected components of a %d node path: %.1f ms%n", n, time / 1e6);
+    }
+
+    private static long edgeId(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    //the number of connected components, without a node (if not -1) and an edge (if not -1)
+    private static int components(weighted_graph g, int node, int e1, int e2) {
+        Set<Integer> seen = new HashSet<>();
+        int count = 0;
+        for (node_info s : g.getV()) {
+            if (s.getKey() == node || seen.contains(s.getKey())) continue;
+            count++;
+            Deque<Integer> q = new ArrayDeque<>();
+            q.add(s.getKey());
+            seen.add(s.getKey());
+            while (!q.isEmpty()) {
+                int v = q.poll();
+                for (node_info u : g.getV(v)) {
+                    int k = u.getKey();
+                    if (k == node || seen.contains(k) || edgeId(v, k) == edgeId(e1, e2)) continue;
+                    seen.add(k);
+                    q.add(k);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static boolean connectedWithout(weighted_graph g, int a, int b, int without) {
+        Set<Integer> seen = new HashSet<>(List.of(a, without));
+        Deque<Integer> q = new ArrayDeque<>(List.of(a));
+        while (!q.isEmpty()) {
+            int v = q.poll();
+            if (v == b) return true;
+            for (node_info u : g.getV(v))
+                if (seen.add(u.getKey())) q.add(u.getKey());
+        }
+        return false;
+    }
+
+    private static int find(int[] uf, int x) {
+        while (uf[x] != x) x = uf[x] = uf[uf[x]];
+        return x;
+    }
+
+    private static void union(int[] uf, int a, int b) {
+        uf[find(uf, a)] = find(uf, b);
+    }
+}
@@ -0,0 +1,113 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CentralityTest {
+
+    @Test
+    void path() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 5; i++) g.addNode(i);
+        for (int i = 0; i < 4; i++) g.connect(i, i + 1, 2);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        assertEquals(8, ga.diameter());
+        assertEquals(4, ga.radius());
+        NodeScores ecc = ga.eccentricity();
+        for (int i = 0; i < ecc.size(); i++)
+            assertEquals(2 * Math.max(ecc.key(i), 4 - ecc.key(i)), ecc.score(i));
+        NodeScores top = ga.topCloseness(1);
+        assertEquals(1, top.size());
+        assertEquals(2, top.key(0));
+        assertEquals(4.0 / 12, top.score(0), 1e-12);
+    }
+
+    @Test
+    void emptyAndSingle() {
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(new WGraph_DS());
+        assertEquals(0, ga.diameter());
+        assertEquals(0, ga.radius());
+        assertEquals(0, ga.closeness().size());
+        ga.getGraph().addNode(7);
+        assertEquals(0, ga.closeness().score(0));
+        assertEquals(0, ga.harmonicCentrality().score(0));
+        assertEquals(0, ga.eccentricity().score(0));
+        assertEquals(7, ga.topCloseness(3).key(0));
+    }
+
+    @Test
+    void matchesBruteForce() {
+        for (long seed = 1; seed <= 4; seed++) {
+            int n = 60;
+            weighted_graph g = new WGraph_DS();
+            Random rnd = new Random(seed);
+            for (int i = 0; i < n; i++) g.addNode(i);
+            //sparse enough to leave a few components
+            while (g.edgeSize() < 70) g.connect(rnd.nextInt(n), rnd.nextInt(n), 1 + rnd.nextInt(9));
+            WGraph_Algo ga = new WGraph_Algo();
+            ga.init(g);
+
+            double[] closeness = new double[n], harmonic = new double[n], ecc = new double[n];
+            for (int s = 0; s < n; s++) {
+                double sum = 0;
+                int r = 1;
+                for (int t = 0; t < n; t++) {
+                    double d = ga.shortestPathDist(s, t);
+                    if (t == s || d == -1) continue;
+                    sum += d;
+                    r++;
+                    harmonic[s] += 1 / d;
+                    ecc[s] = Math.max(ecc[s], d);
+                }
+                closeness[s] = r == 1 ? 0 : ((r - 1.0) / (n - 1)) * ((r - 1) / sum);
+            }
+            assertScores(closeness, ga.closeness());
+            assertScores(harmonic, ga.harmonicCentrality());
+            assertScores(ecc, ga.eccentricity());
+            assertEquals(Arrays.stream(ecc).max().getAsDouble(), ga.diameter(), 1e-9);
+            assertEquals(Arrays.stream(ecc).min().getAsDouble(), ga.radius(), 1e-9);
+
+            double[] sorted = closeness.clone();
+            Arrays.sort(sorted);
+            NodeScores top = ga.topCloseness(5);
+            assertEquals(5, top.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(sorted[n - 1 - i], top.score(i), 1e-9);
+                assertEquals(closeness[top.key(i)], top.score(i), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void diameterOnLargeGraph() {
+        weighted_graph g = WGraph_DSTest.graph_creator(2000, 6000, 3);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        long start = System.nanoTime();
+        double diameter = ga.diameter();
+        double radius = ga.radius();
+        long bounded = System.nanoTime() - start;
+        NodeScores ecc = ga.eccentricity();
+        double max = 0, min = Double.POSITIVE_INFINITY;
+        for (double e : ecc.scores()) {
+            max = Math.max(max, e);
+            min = Math.min(min, e);
+        }
+        assertEquals(max, diameter, 1e-9);
+        assertEquals(min, radius, 1e-9);
+        System.out.printf("diameter+radius of 2000 nodes: %.1f ms%n", bounded / 1e6);
+    }
+
+    private static void assertScores(double[] expected, NodeScores actual) {
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < actual.size(); i++)
+            assertEquals(expected[actual.key(i)], actual.score(i), 1e-9);
+    }
+}
@@ -0,0 +1,156 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphEventsTest {
+
+    @Test
+    void mirrorFollowsTheGraph() throws Exception {
+        WGraph_DS ds = new WGraph_DS();
+        mirror(ds, ds);
+        try (WGraph_OffHeap oh = new WGraph_OffHeap()) {
+            mirror(oh, oh);
+        }
+        Path dir = Files.createTempDirectory("events");
+        try (WGraph_Journal j = new WGraph_Journal(dir)) {
+            mirror(j, j);
+        }
+    }
+
+    @Test
+    void eventsOfAChange() {
+        WGraph_DS g = new WGraph_DS();
+        List<GraphEvent> seen = new ArrayList<>();
+        List<Integer> calls = new ArrayList<>();
+        graph_listener l = events -> {
+            calls.add(events.size());
+            seen.addAll(events);
+        };
+        g.addListener(l);
+        g.addNode(1);
+        g.addNode(1);
+        g.addNode(2);
+        g.addNode(3);
+        g.connect(1, 2, 4);
+        g.connect(1, 3, 5);
+        g.connect(1, 2, 9);
+        assertEquals("[ADD_NODE(1) mc=1, ADD_NODE(2) mc=2, ADD_NODE(3) mc=3, CONNECT(1, 2, 4.0) mc=4, CONNECT(1, 3, 5.0) mc=5]",
+                seen.toString());
+        seen.clear();
+        g.updateWeights(new int[]{1, 1, 2}, new int[]{2, 3, 3}, new double[]{6, 5, 1});
+        assertEquals("[UPDATE_WEIGHT(1, 2, 6.0) mc=6]", seen.toString());
+        seen.clear();
+        calls.clear();
+        g.removeNode(1);
+        assertEquals(List.of(3), calls);
+        assertEquals(GraphEvent.Type.REMOVE_NODE, seen.get(2).type());
+        assertEquals(g.getMC(), seen.get(2).mc());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(GraphEvent.Type.REMOVE_EDGE, seen.get(i).type());
+            assertEquals(1, seen.get(i).key1());
+            assertEquals(seen.get(i).key2() == 2 ? 6 : 5, seen.get(i).weight());
+        }
+        g.removeListener(l);
+        g.addNode(7);
+        assertEquals(3, seen.size());
+        assertThrows(IllegalStateException.class, g::endBatch);
+        assertThrows(NullPointerException.class, () -> g.addListener(null));
+    }
+
+    @Test
+    void batchesDeliverTogether() {
+        WGraph_DS g = new WGraph_DS();
+        List<Integer> calls = new ArrayList<>();
+        g.addListener(events -> {
+            calls.add(events.size());
+            //the graph is up to date when the events arrive
+            assertEquals(g.getMC(), events.get(events.size() - 1).mc());
+        });
+        g.beginBatch();
+        for (int i = 0; i < 100; i++) g.addNode(i);
+        g.beginBatch();
+        for (int i = 1; i < 100; i++) g.connect(i - 1, i, 1);
+        g.endBatch();
+        assertTrue(calls.isEmpty());
+        g.endBatch();
+        assertEquals(List.of(199), calls);
+        //a bulk load is delivered in parts
+        calls.clear();
+        g.beginBatch();
+        for (int i = 100; i < 10100; i++) g.addNode(i);
+        g.endBatch();
+        assertTrue(calls.size() >= 2 && calls.size() <= 5);
+        assertEquals(10000, calls.stream().mapToInt(Integer::intValue).sum());
+        //so is a large updateWeights, every part after the ModeCount is set
+        int[] a = new int[9999], b = new int[9999];
+        double[] w = new double[9999];
+        for (int i = 0; i < a.length; i++) {
+            g.connect(100 + i, 101 + i, 1);
+            a[i] = 100 + i;
+            b[i] = 101 + i;
+            w[i] = 2;
+        }
+        List<GraphEvent> seen = new ArrayList<>();
+        g.addListener(events -> {
+            for (GraphEvent e : events) assertEquals(g.getMC(), e.mc());
+            seen.addAll(events);
+        });
+        calls.clear();
+        g.updateWeights(a, b, w);
+        assertTrue(calls.size() >= 2);
+        assertEquals(9999, seen.size());
+        //without listeners a batch only counts
+        WGraph_DS quiet = new WGraph_DS();
+        quiet.beginBatch();
+        quiet.addNode(1);
+        quiet.endBatch();
+        assertEquals(1, quiet.getMC());
+    }
+
+    //Follows a graph's events into a WGraph_DS and compares the two after random changes
+    private static void mirror(observable_graph g, weighted_graph view) {
+        WGraph_DS copy = new WGraph_DS();
+        int[] lastMc = {0};
+        g.addListener(events -> {
+            for (GraphEvent e : events) {
+                assertTrue(e.mc() >= lastMc[0]);
+                lastMc[0] = e.mc();
+                switch (e.type()) {
+                    case ADD_NODE: copy.addNode(e.key1()); break;
+                    case CONNECT: copy.connect(e.key1(), e.key2(), e.weight()); break;
+                    case UPDATE_WEIGHT: copy.updateWeight(e.key1(), e.key2(), e.weight()); break;
+                    case REMOVE_EDGE: copy.removeEdge(e.key1(), e.key2()); break;
+                    case REMOVE_NODE: copy.removeNode(e.key1()); break;
+                }
+            }
+        });
+        Random rnd = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            boolean batch = round % 3 == 0;
+            if (batch) g.beginBatch();
+            for (int i = 0; i < 200; i++) {
+                int a = rnd.nextInt(100), b = rnd.nextInt(100);
+                switch (rnd.nextInt(6)) {
+                    case 0: g.addNode(a); break;
+                    case 1: g.removeNode(a); break;
+                    case 2: g.removeEdge(a, b); break;
+                    case 3: g.updateWeight(a, b, rnd.nextInt(10)); break;
+                    case 4: g.updateWeights(new int[]{a, b}, new int[]{b, a + 1}, new double[]{1, 2}); break;
+                    default: g.connect(a, b, 1 + rnd.nextInt(10));
+                }
+            }
+            if (batch) g.endBatch();
+            assertEquals(new WGraph_DS(view), copy);
+            assertEquals(view.getMC(), lastMc[0]);
+        }
+    }
+}
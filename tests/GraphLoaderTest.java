@@ -0,0 +1,104 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphLoaderTest {
+
+    @Test
+    void roundTrip() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(2000, 8000, 4);
+        for (int i = 0; i < 50; i++) g.addNode(-1000 - i); //nodes without edges
+        g.connect(3, 5, 0.1 + 0.2); //a weight that needs all its digits
+        File text = File.createTempFile("graph", ".txt"), binary = File.createTempFile("graph", ".bin");
+        GraphLoader.writeEdgeList(g, text.getPath());
+        GraphLoader.writeBinary(g, binary.getPath());
+        WGraph_DS expected = new WGraph_DS(g);
+        for (int threads : new int[]{1, 2, 3, 8}) {
+            GraphLoader loader = new GraphLoader(threads);
+            assertEquals(expected, loader.readEdgeList(text.getPath()));
+            assertEquals(expected, loader.readBinary(binary.getPath()));
+        }
+        text.delete();
+        binary.delete();
+    }
+
+    @Test
+    void textFormat() throws IOException {
+        String lines = "# a comment\n" +
+                "1 2 3.5\r\n" +
+                "\n" +
+                "  2\t3   \n" + //no weight: 1
+                "3,4,1e-3\n" +
+                "-7\n" +
+                "4 1 2\n" +
+                "1 4 0.25\n" + //repeated edge: the smallest weight
+                "5 5 9\n" + //a self loop: only the node
+                "2 3 4"; //no line break at the end
+        File f = File.createTempFile("graph", ".txt");
+        Files.write(f.toPath(), lines.getBytes(StandardCharsets.US_ASCII));
+        //many threads on a tiny file: the chunks cut the lines anywhere
+        for (int threads = 1; threads <= 12; threads++) {
+            WGraph_DS g = new GraphLoader(threads).readEdgeList(f.getPath());
+            assertEquals(6, g.nodeSize());
+            assertEquals(4, g.edgeSize());
+            assertEquals(3.5, g.getEdge(1, 2));
+            assertEquals(1, g.getEdge(2, 3));
+            assertEquals(0.001, g.getEdge(4, 3));
+            assertEquals(0.25, g.getEdge(4, 1));
+            assertNotNull(g.getNode(-7));
+            assertEquals(0, g.getV(5).size());
+            g.connect(-7, 5, 1); //the loaded graph is a normal graph
+            assertTrue(g.hasEdge(5, -7));
+        }
+        Files.write(f.toPath(), "1 2 3\n4 x\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> new GraphLoader(2).readEdgeList(f.getPath()));
+        Files.write(f.toPath(), "1 2 3 4\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> new GraphLoader(1).readBinary(f.getPath()));
+        assertThrows(IOException.class, () -> new GraphLoader(1).readEdgeList(f.getPath()));
+        assertThrows(IllegalArgumentException.class, () -> new GraphLoader(0));
+        f.delete();
+    }
+
+    @Test
+    void scaling() throws IOException {
+        int n = 30000, e = 200000;
+        Random rnd = new Random(9);
+        File text = File.createTempFile("graph", ".txt"), binary = File.createTempFile("graph", ".bin");
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < n; i++) g.addNode(i);
+        while (g.edgeSize() < e) g.connect(rnd.nextInt(n), rnd.nextInt(n), rnd.nextInt(1000) / 8.0);
+        GraphLoader.writeEdgeList(g, text.getPath());
+        GraphLoader.writeBinary(g, binary.getPath());
+        WGraph_Algo algo = new WGraph_Algo();
+        algo.init(g);
+        long start = System.nanoTime();
+        algo.save(binary.getPath() + ".ser");
+        double saveMs = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        assertTrue(algo.load(binary.getPath() + ".ser"));
+        System.out.printf("WGraph_Algo.load: %.0f ms (save %.0f ms)%n", (System.nanoTime() - start) / 1e6, saveMs);
+        new File(binary.getPath() + ".ser").delete();
+        WGraph_DS expected = new WGraph_DS(g);
+        for (int threads : new int[]{1, 2, 4}) {
+            GraphLoader loader = new GraphLoader(threads);
+            WGraph_DS t = loader.readEdgeList(text.getPath());
+            System.out.println("text:   " + loader.report());
+            WGraph_DS b = loader.readBinary(binary.getPath());
+            System.out.println("binary: " + loader.report());
+            assertEquals(expected, t);
+            assertEquals(expected, b);
+        }
+        System.out.println("available processors: " + Runtime.getRuntime().availableProcessors());
+        text.delete();
+        binary.delete();
+    }
+}
@@ -0,0 +1,127 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HubLabelsTest {
+
+    @Test
+    void exactDistances() {
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(1500, 4000, 2);
+        g.addNode(-7);
+        g.addNode(20000);
+        g.connect(-7, 20000, 0.5);
+        for (int threads : new int[]{1, 4}) {
+            HubLabels h = HubLabels.build(g, threads);
+            assertEquals(1502, h.size());
+            check(g, h, new Random(threads), 30);
+            assertEquals(0.5, h.shortestPathDist(20000, -7));
+            assertEquals(-1, h.shortestPathDist(-7, 0));
+            assertEquals(-1, h.shortestPathDist(0, 123456));
+            assertEquals(0, h.shortestPathDist(5, 5));
+        }
+        //the parallel labels may hold redundant hubs, never fewer
+        assertTrue(HubLabels.build(g, 1).entries() <= HubLabels.build(g, 4).entries());
+    }
+
+    @Test
+    void zeroWeightsAndEmptyGraph() {
+        WGraph_DS g = new WGraph_DS();
+        assertEquals(0, HubLabels.build(g).size());
+        assertEquals(-1, HubLabels.build(g).shortestPathDist(1, 2));
+        for (int i = 0; i < 6; i++) g.addNode(i);
+        g.connect(0, 1, 0);
+        g.connect(1, 2, 0);
+        g.connect(2, 3, 4);
+        g.connect(0, 3, 9);
+        g.connect(4, 5, 1);
+        HubLabels h = HubLabels.build(g, 2);
+        assertEquals(0, h.shortestPathDist(0, 2));
+        assertEquals(4, h.shortestPathDist(0, 3));
+        assertEquals(1, h.shortestPathDist(5, 4));
+        assertEquals(-1, h.shortestPathDist(5, 0));
+    }
+
+    @Test
+    void mappedFile() throws IOException {
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(800, 2500, 6);
+        HubLabels h = HubLabels.build(g);
+        File f = File.createTempFile("labels", ".bin");
+        try {
+            h.save(f.getPath());
+            HubLabels m = HubLabels.map(f.getPath());
+            assertEquals(h.size(), m.size());
+            assertEquals(h.entries(), m.entries());
+            Random rnd = new Random(1);
+            for (int i = 0; i < 500; i++) {
+                int s = rnd.nextInt(800), t = rnd.nextInt(800);
+                assertEquals(h.shortestPathDist(s, t), m.shortestPathDist(s, t));
+            }
+            check(g, m, rnd, 20);
+            Files.write(f.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+            assertThrows(IOException.class, () -> HubLabels.map(f.getPath()));
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    void queriesAreFast() {
+        //a road-like grid: random graphs have no small hub sets
+        int side = 100;
+        WGraph_DS g = new WGraph_DS();
+        Random rnd = new Random(4);
+        for (int i = 0; i < side * side; i++) g.addNode(i);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) g.connect(r * side + c, r * side + c + 1, 1 + rnd.nextInt(10));
+                if (r + 1 < side) g.connect(r * side + c, (r + 1) * side + c, 1 + rnd.nextInt(10));
+            }
+        }
+        long start = System.nanoTime();
+        HubLabels h = HubLabels.build(g);
+        double build = (System.nanoTime() - start) / 1e6;
+        int[] s = new int[100000], t = new int[100000];
+        for (int i = 0; i < s.length; i++) {
+            s[i] = rnd.nextInt(side * side);
+            t[i] = rnd.nextInt(side * side);
+        }
+        start = System.nanoTime();
+        double sum = 0;
+        for (int i = 0; i < s.length; i++) sum += h.shortestPathDist(s[i], t[i]);
+        double query = (System.nanoTime() - start) / 1e3 / s.length;
+        System.out.printf("%dx%d grid: build %.0f ms, %.1f hubs per label, query %.2f us (sum %.0f)%n",
+                side, side, build, h.averageLabelSize(), query, sum);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        NodeDistances d = ga.withinDistance(s[0], Double.MAX_VALUE);
+        for (int i = 0; i < d.size(); i += 97) assertEquals(d.dist(i), h.shortestPathDist(s[0], d.key(i)), 1e-9);
+    }
+
+    private static void check(WGraph_DS g, HubLabels h, Random rnd, int sources) {
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        Object[] nodes = g.getV().toArray();
+        for (int i = 0; i < sources; i++) {
+            int s = ((node_info) nodes[rnd.nextInt(nodes.length)]).getKey();
+            NodeDistances d = ga.withinDistance(s, Double.MAX_VALUE);
+            int reached = 0;
+            for (int j = 0; j < d.size(); j++) {
+                assertEquals(d.dist(j), h.shortestPathDist(s, d.key(j)), 1e-9);
+                reached++;
+            }
+            for (Object o : nodes) {
+                int t = ((node_info) o).getKey();
+                if (h.shortestPathDist(s, t) == -1) reached++;
+            }
+            assertEquals(nodes.length, reached);
+        }
+    }
+}
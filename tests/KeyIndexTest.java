@@ -0,0 +1,82 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyIndexTest {
+
+    @Test
+    void addAndLookup() {
+        KeyIndex index = new KeyIndex();
+        int s0 = index.add(Integer.MIN_VALUE);
+        int s1 = index.add(-7);
+        int s2 = index.add(Integer.MAX_VALUE);
+        assertEquals(s0, index.add(Integer.MIN_VALUE));
+        assertEquals(3, index.size());
+        assertEquals(3, index.slotCount());
+        assertEquals(s1, index.slotOf(-7));
+        assertEquals(Integer.MAX_VALUE, index.keyAt(s2));
+        assertEquals(-1, index.slotOf(0));
+    }
+
+    @Test
+    void slotReuse() {
+        KeyIndex index = new KeyIndex();
+        for (int i = 0; i < 100; i++)
+            index.add(i * 1000003);
+        int s = index.remove(50 * 1000003);
+        assertFalse(index.isLive(s));
+        assertEquals(-1, index.remove(50 * 1000003));
+        assertEquals(s, index.add(42));
+        assertTrue(index.isLive(s));
+        assertEquals(100, index.slotCount());
+    }
+
+    @Test
+    void randomAgainstHashMap() {
+        Random rnd = new Random(3);
+        KeyIndex index = new KeyIndex();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        int peak = 0;
+        for (int i = 0; i < 200000; i++) {
+            int key = rnd.nextInt(5000) * 0x10001; //sparse keys colliding in the low bits
+            if (rnd.nextBoolean()) {
+                int s = index.add(key);
+                Integer old = expected.putIfAbsent(key, s);
+                if (old != null) assertEquals((int) old, s);
+            } else {
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? -1 : (int) old, index.remove(key));
+            }
+            peak = Math.max(peak, expected.size());
+        }
+        assertEquals(expected.size(), index.size());
+        assertTrue(index.slotCount() <= peak);
+        for (int key : expected.keySet()) {
+            int s = index.slotOf(key);
+            assertEquals((int) expected.get(key), s);
+            assertEquals(key, index.keyAt(s));
+        }
+    }
+
+    @Test
+    void graphKeepsIndexCurrent() {
+        WGraph_DS g = new WGraph_DS();
+        g.addNode(0x7f3a9c11);
+        g.addNode(-0x2b00c4e7);
+        g.addNode(17);
+        g.removeNode(-0x2b00c4e7);
+        assertEquals(-1, g.slotOf(-0x2b00c4e7));
+        int s = g.slotOf(17);
+        assertTrue(g.isLive(s));
+        assertEquals(17, g.keyAt(s));
+        g.addNode(99);
+        assertEquals(3, g.slotCount());
+        assertEquals(99, g.keyAt(g.slotOf(99)));
+    }
+}
@@ -0,0 +1,150 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeOrderTest {
+
+    @Test
+    void keysAndEdgesAreKept() {
+        weighted_graph g = WGraph_DSTest.graph_creator(400, 1500, 2);
+        for (int k = 0; k < 400; k += 7) g.removeNode(k);
+        g.getNode(1).setInfo("one");
+        for (NodeOrder order : new NodeOrder[]{NodeOrder.KEYS, NodeOrder.BFS, NodeOrder.REVERSE_CUTHILL_MCKEE}) {
+            WGraph_DS r = new WGraph_DS(g, order);
+            assertEquals(g, r);
+            assertEquals("one", r.getNode(1).getInfo());
+            WGraph_Compressed c = new WGraph_Compressed(g, WGraph_Compressed.WeightPrecision.DOUBLE, order);
+            assertEquals(g, new WGraph_DS(c));
+            for (int s = 0; s < r.slotCount(); s++)
+                for (int i = 1; i < r.degree(s); i++)
+                    assertTrue(r.neighborAt(s, i - 1) < r.neighborAt(s, i));
+        }
+    }
+
+    @Test
+    void reverseCuthillMcKeeNarrowsTheBandwidth() {
+        int side = 60;
+        weighted_graph g = grid(side, 1);
+        int before = bandwidth(new WGraph_DS(g, NodeOrder.KEYS));
+        int bfs = bandwidth(new WGraph_DS(g, NodeOrder.BFS));
+        int rcm = bandwidth(new WGraph_DS(g, NodeOrder.REVERSE_CUTHILL_MCKEE));
+        assertTrue(before > side * side / 2);
+        assertTrue(rcm <= 2 * side, "bandwidth " + rcm);
+        assertTrue(bfs <= 4 * side, "bandwidth " + bfs);
+    }
+
+    @Test
+    void hilbertOrder() {
+        int side = 64;
+        weighted_graph g = grid(side, 3);
+        int[] keys = new int[side * side];
+        double[] x = new double[keys.length], y = new double[keys.length];
+        int k = 0;
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                keys[k] = key(r, c, side, 3);
+                x[k] = c;
+                y[k++] = r;
+            }
+        }
+        //one node without coordinates goes last
+        WGraph_DS h = new WGraph_DS(g, NodeOrder.hilbert(Arrays.copyOf(keys, keys.length - 1),
+                Arrays.copyOf(x, keys.length - 1), Arrays.copyOf(y, keys.length - 1)));
+        assertEquals(g, h);
+        assertEquals(keys[keys.length - 1], h.keyAt(h.slotCount() - 1));
+        //the curve keeps neighboring cells close
+        assertTrue(meanGap(h) * 20 < meanGap(new WGraph_DS(g, NodeOrder.KEYS)));
+        assertThrows(IllegalArgumentException.class, () -> NodeOrder.hilbert(new int[1], new double[2], new double[1]));
+    }
+
+    @Test
+    void queryLatencyBeforeAndAfter() {
+        int side = 400;
+        weighted_graph g = grid(side, 5);
+        WGraph_Compressed plain = new WGraph_Compressed(g);
+        WGraph_Compressed ordered = new WGraph_Compressed(g, WGraph_Compressed.WeightPrecision.DOUBLE, NodeOrder.REVERSE_CUTHILL_MCKEE);
+        WGraph_DS ds = new WGraph_DS(g), dsOrdered = new WGraph_DS(g, NodeOrder.REVERSE_CUTHILL_MCKEE);
+        Random rnd = new Random(1);
+        int[] sources = new int[20];
+        for (int i = 0; i < sources.length; i++) sources[i] = key(rnd.nextInt(side), rnd.nextInt(side), side, 5);
+        double[] t = new double[4];
+        weighted_graph[] graphs = {ds, dsOrdered, plain, ordered};
+        double[] total = new double[4];
+        for (int round = 0; round < 2; round++) { //the first round warms up
+            for (int k = 0; k < graphs.length; k++) {
+                WGraph_Algo ga = new WGraph_Algo();
+                ga.init(graphs[k]);
+                long start = System.nanoTime();
+                double sum = 0;
+                for (int src : sources) {
+                    NodeDistances d = ga.withinDistance(src, 150);
+                    for (int i = 0; i < d.size(); i++) sum += d.dist(i);
+                }
+                t[k] = (System.nanoTime() - start) / 1e6 / sources.length;
+                total[k] = sum;
+            }
+        }
+        for (int k = 1; k < 4; k++) assertEquals(total[0], total[k], 1e-6);
+        double gap = meanGap(plain), orderedGap = meanGap(ordered); //key order, RCM
+        System.out.printf("%dx%d grid, ms per query: WGraph_DS %.2f -> %.2f (RCM), compressed %.2f -> %.2f (RCM); " +
+                        "compressed mean slot gap %.1f -> %.1f, bytes/edge %.2f -> %.2f%n", side, side, t[0], t[1], t[2], t[3],
+                gap, orderedGap, plain.bytesPerEdge(), ordered.bytesPerEdge());
+        //the times are only reported, what makes the compressed searches faster is asserted:
+        //the neighbors' slots are close, so the gaps are short varints and the blocks are close
+        assertTrue(orderedGap * 20 < gap, gap + " -> " + orderedGap);
+        //the reordered graph pays 8 bytes per node for its key lookup, its adjacency is smaller
+        double lookup = 8.0 * ordered.nodeSize() / ordered.edgeSize();
+        assertTrue(ordered.bytesPerEdge() - lookup < plain.bytesPerEdge());
+    }
+
+    //A grid whose keys are a random permutation, so key order says nothing about the structure
+    private static weighted_graph grid(int side, long seed) {
+        weighted_graph g = new WGraph_DS();
+        Random rnd = new Random(seed);
+        for (int r = 0; r < side; r++)
+            for (int c = 0; c < side; c++) g.addNode(key(r, c, side, seed));
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) g.connect(key(r, c, side, seed), key(r, c + 1, side, seed), 1 + rnd.nextInt(5));
+                if (r + 1 < side) g.connect(key(r, c, side, seed), key(r + 1, c, side, seed), 1 + rnd.nextInt(5));
+            }
+        }
+        return g;
+    }
+
+    //A fixed pseudo random bijection of the cells
+    private static int key(int r, int c, int side, long seed) {
+        int n = side * side, i = r * side + c;
+        //rounds of multiply-add and xor-shift are bijections modulo a power of two,
+        //walking the cycle until the value is < n keeps it a bijection of [0, n)
+        int bits = 32 - Integer.numberOfLeadingZeros(n - 1), mask = (1 << bits) - 1;
+        int x = i;
+        do {
+            for (int round = 0; round < 3; round++) {
+                x = (int) ((x * (2 * seed + 0x9E3779B1L) + 12345) & mask);
+                x ^= x >>> (bits / 2 + 1);
+            }
+        } while (x >= n);
+        return x;
+    }
+
+    private static double meanGap(indexed_graph g) {
+        double sum = 0;
+        for (int s = 0; s < g.slotCount(); s++)
+            for (int i = 0; i < g.degree(s); i++) sum += Math.abs(s - g.neighborAt(s, i));
+        return sum / (2 * g.edgeSize());
+    }
+
+    private static int bandwidth(indexed_graph g) {
+        int b = 0;
+        for (int s = 0; s < g.slotCount(); s++)
+            for (int i = 0; i < g.degree(s); i++) b = Math.max(b, Math.abs(s - g.neighborAt(s, i)));
+        return b;
+    }
+}
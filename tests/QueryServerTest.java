@@ -0,0 +1,149 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryServerTest {
+
+    @Test
+    void protocol() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(300, 900, 3);
+        g.addNode(-5); //unreachable
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        try (QueryServer server = new QueryServer(g); Client c = new Client(server.port())) {
+            assertEquals("OK", c.ask("PING"));
+            assertEquals("OK false", c.ask("CONNECTED"));
+            for (int i = 0; i < 50; i++) {
+                int s = i * 7 % 300, t = i * 13 % 300;
+                assertEquals(ga.shortestPathDist(s, t), dist(c.ask("DIST " + s + " " + t)), 1e-9);
+                List<node_info> path = ga.shortestPath(s, t);
+                String[] keys = c.ask("PATH " + s + " " + t).split(" ");
+                assertEquals("OK", keys[0]);
+                assertEquals(path.size(), keys.length - 1);
+                assertEquals(s, Integer.parseInt(keys[1]));
+                assertEquals(t, Integer.parseInt(keys[keys.length - 1]));
+            }
+            assertEquals(-1, dist(c.ask("DIST 1 -5")));
+            assertEquals(-1, dist(c.ask("DIST 1 1000")));
+            assertEquals("NONE", c.ask("PATH 1 -5"));
+            assertEquals("OK 4", c.ask("path 4 4"));
+            assertTrue(c.ask("DIST 1").startsWith("ERR"));
+            assertTrue(c.ask("DIST a b").startsWith("ERR"));
+            assertTrue(c.ask("FLY 1 2").startsWith("ERR"));
+            //pipelined requests are answered in order
+            c.out.write("DIST 0 1\nPING\nDIST 0 2\n");
+            c.out.flush();
+            assertEquals(ga.shortestPathDist(0, 1), dist(c.in.readLine()), 1e-9);
+            assertEquals("OK", c.in.readLine());
+            assertEquals(ga.shortestPathDist(0, 2), dist(c.in.readLine()), 1e-9);
+        }
+    }
+
+    @Test
+    void concurrentQueriesOfASourceAreCoalesced() throws Exception {
+        weighted_graph g = WGraph_DSTest.graph_creator(50000, 200000, 8);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        int clients = 16, each = 20;
+        int[] sources = {1, 2};
+        //the expected distances from both sources
+        double[][] expected = new double[2][50000];
+        for (int k = 0; k < 2; k++) {
+            Arrays.fill(expected[k], -1);
+            NodeDistances all = ga.withinDistance(sources[k], Double.MAX_VALUE);
+            for (int i = 0; i < all.size(); i++) expected[k][all.key(i)] = all.dist(i);
+        }
+        try (QueryServer server = new QueryServer(g, 0, 1, 10000)) {
+            AtomicInteger wrong = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int k = 0; k < clients; k++) {
+                int id = k;
+                Thread t = new Thread(() -> {
+                    try (Client c = new Client(server.port())) {
+                        Random rnd = new Random(id);
+                        for (int i = 0; i < each; i++) {
+                            int which = rnd.nextInt(2), d = rnd.nextInt(50000);
+                            double got = dist(c.ask("DIST " + sources[which] + " " + d));
+                            if (Math.abs(got - expected[which][d]) > 1e-9) wrong.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        wrong.incrementAndGet();
+                    }
+                });
+                threads.add(t);
+                t.start();
+            }
+            for (Thread t : threads) t.join();
+            System.out.printf("%d queries of 2 sources from %d connections: %d searches, %.0f ms%n",
+                    server.queries(), clients, server.searches(), (System.nanoTime() - start) / 1e6);
+            assertEquals(0, wrong.get());
+            assertEquals(clients * each, (int) server.queries());
+            assertTrue(server.searches() < server.queries());
+        }
+    }
+
+    @Test
+    void backPressure() throws Exception {
+        weighted_graph g = WGraph_DSTest.graph_creator(100000, 400000, 2);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        try (QueryServer server = new QueryServer(g, 0, 1, 2); Client c = new Client(server.port())) {
+            //a burst of far apart sources, sent at once
+            StringBuilder burst = new StringBuilder();
+            for (int i = 0; i < 30; i++) burst.append("DIST ").append(i * 3001).append(' ').append(i * 77).append('\n');
+            c.out.write(burst.toString());
+            c.out.flush();
+            int busy = 0;
+            for (int i = 0; i < 30; i++) {
+                String r = c.in.readLine();
+                if (r.equals("BUSY")) busy++;
+                else assertEquals(ga.shortestPathDist(i * 3001, i * 77), dist(r), 1e-9);
+            }
+            assertTrue(busy > 0);
+            assertEquals(busy, (int) server.rejected());
+            assertEquals("OK", c.ask("PING"));
+        }
+    }
+
+    private static double dist(String response) {
+        assertTrue(response.startsWith("OK "), response);
+        return Double.parseDouble(response.substring(3));
+    }
+
+    private static class Client implements Closeable {
+        final Socket socket;
+        final BufferedReader in;
+        final Writer out;
+
+        Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        String ask(String request) throws IOException {
+            out.write(request + "\n");
+            out.flush();
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
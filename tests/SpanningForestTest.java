@@ -0,0 +1,99 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpanningForestTest {
+
+    @Test
+    void smallGraph() {
+        weighted_graph g = new WGraph_DS();
+        for (int i = 0; i < 6; i++) g.addNode(i);
+        g.connect(0,1,4);
+        g.connect(0,2,1);
+        g.connect(1,2,2);
+        g.connect(1,3,5);
+        g.connect(2,3,8);
+        g.connect(4,5,3);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        for (SpanningForest.Engine engine : SpanningForest.Engine.values()) {
+            SpanningForest f = ga.minimumSpanningForest(engine, 2);
+            assertEquals(4, f.size());
+            assertEquals(11, f.totalWeight());
+        }
+        assertEquals(11, ga.minimumSpanningForest().totalWeight());
+    }
+
+    @Test
+    void emptyGraph() {
+        WGraph_Algo ga = new WGraph_Algo();
+        assertEquals(0, ga.minimumSpanningForest().size());
+        ga.getGraph().addNode(1);
+        assertEquals(0, ga.minimumSpanningForest(SpanningForest.Engine.BORUVKA, 1).size());
+    }
+
+    @Test
+    void enginesMatchPrim() {
+        for (int seed = 1; seed <= 4; seed++) {
+            weighted_graph g = WGraph_DSTest.graph_creator(2000, 5000, seed);
+            WGraph_Algo ga = new WGraph_Algo();
+            ga.init(g);
+            double expected = prim(g);
+            SpanningForest k = ga.minimumSpanningForest(SpanningForest.Engine.KRUSKAL, 3);
+            SpanningForest b = ga.minimumSpanningForest(SpanningForest.Engine.BORUVKA, 3);
+            assertEquals(expected, k.totalWeight(), 1e-9);
+            assertEquals(expected, b.totalWeight(), 1e-9);
+            assertEquals(k.size(), b.size());
+            for (int i = 0; i < k.size(); i++)
+                assertEquals(k.weights()[i], g.getEdge(k.from()[i], k.to()[i]));
+        }
+    }
+
+    @Test
+    void benchmark() {
+        weighted_graph g = WGraph_DSTest.graph_creator(100000, 500000, 9);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        int max = Math.max(4, Runtime.getRuntime().availableProcessors());
+        for (SpanningForest.Engine engine : SpanningForest.Engine.values()) {
+            double weight = -1;
+            for (int threads = 1; threads <= max; threads *= 2) {
+                ga.minimumSpanningForest(engine, threads); //warm up
+                long start = System.nanoTime();
+                SpanningForest f = ga.minimumSpanningForest(engine, threads);
+                long ms = (System.nanoTime() - start) / 1000000;
+                System.out.printf("MSF %s, |E|=%d, %d threads: %d ms%n", engine, g.edgeSize(), threads, ms);
+                if (weight != -1) assertEquals(weight, f.totalWeight(), 1e-6);
+                weight = f.totalWeight();
+            }
+        }
+    }
+
+    //Reference: lazy Prim from every unvisited node
+    private static double prim(weighted_graph g) {
+        HashSet<Integer> visited = new HashSet<>();
+        double total = 0;
+        for (node_info start : g.getV()) {
+            if (!visited.add(start.getKey())) continue;
+            PriorityQueue<double[]> q = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+            for (node_info n : g.getV(start.getKey()))
+                q.add(new double[]{g.getEdge(start.getKey(), n.getKey()), n.getKey()});
+            while (!q.isEmpty()) {
+                double[] e = q.poll();
+                int v = (int) e[1];
+                if (!visited.add(v)) continue;
+                total += e[0];
+                for (node_info n : g.getV(v))
+                    if (!visited.contains(n.getKey()))
+                        q.add(new double[]{g.getEdge(v, n.getKey()), n.getKey()});
+            }
+        }
+        return total;
+    }
+}
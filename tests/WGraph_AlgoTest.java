@@ -3,6 +3,9 @@ package ex1.tests;
 import ex1.src.*;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -77,6 +80,198 @@ class WGraph_AlgoTest {
         assertNotEquals(g0,g1);
     }
 
+    @Test
+    void withinDistance() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        NodeDistances ball = ag0.withinDistance(0, 3.1);
+        int[] checkKey = {0, 1, 2, 3, 4, 5, 7};
+        int[] keys = ball.keys().clone();
+        Arrays.sort(keys);
+        assertArrayEquals(checkKey, keys);
+        assertEquals(3.1, ball.dist(6));
+        assertEquals(0, ag0.withinDistance(42, 10).size());
+        assertEquals(11, ag0.withinDistance(0, Double.POSITIVE_INFINITY).size());
+
+        weighted_graph g1 = WGraph_DSTest.graph_creator(500, 1500, 3);
+        ag0.init(g1);
+        for (int src = 0; src < 500; src += 50) {
+            NodeDistances b = ag0.withinDistance(src, 0.5);
+            int inside = 0;
+            for (int i = 0; i < 500; i++) {
+                double d = ag0.shortestPathDist(src, i);
+                if (d != -1 && d <= 0.5) inside++;
+            }
+            assertEquals(inside, b.size());
+            for (int i = 0; i < b.size(); i++)
+                assertEquals(ag0.shortestPathDist(src, b.key(i)), b.dist(i), 1e-12);
+        }
+    }
+
+    @Test
+    void withinDistanceOverlapping() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        NodeDistances[] balls = ag0.withinDistance(new int[]{0, 10}, new double[]{1, 2});
+        assertArrayEquals(new int[]{0, 1}, balls[0].keys());
+        assertArrayEquals(new int[]{10, 7}, balls[1].keys());
+        balls = ag0.withinDistance(new int[]{1, 5}, 1);
+        assertArrayEquals(new int[]{1, 0, 5}, balls[0].keys());
+        assertArrayEquals(new int[]{5, 1}, balls[1].keys());
+    }
+
+    @Test
+    void nearestTargets() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        NodeDistances near = ag0.nearestTargets(0, new int[]{10, 6, 7, 9, 42, 7}, 3);
+        assertArrayEquals(new int[]{7, 10, 9}, near.keys());
+        assertArrayEquals(new double[]{3.1, 5.1, 13}, near.distances(), 1e-12);
+        assertEquals(4, ag0.nearestTargets(0, new int[]{10, 6, 7, 9}, 10).size());
+        assertEquals(0, ag0.nearestTargets(0, new int[]{1, 2}, 0).size());
+        g0.addNode(11);
+        assertEquals(0, ag0.nearestTargets(11, new int[]{1, 2}, 2).size());
+    }
+
+    @Test
+    void nearestFacility() {
+        weighted_graph g0 = WGraph_DSTest.graph_creator(400, 1200, 5);
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        int[] facilities = {3, 77, 150, 299};
+        FacilityLabels labels = ag0.nearestFacility(facilities);
+        int reached = 0;
+        for (node_info n : g0.getV())
+            if (ag0.shortestPathDist(facilities[0], n.getKey()) != -1) reached++;
+        assertEquals(reached, labels.size());
+        for (int i = 0; i < labels.size(); i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int f : facilities) {
+                double d = ag0.shortestPathDist(f, labels.key(i));
+                if (d != -1) best = Math.min(best, d);
+            }
+            assertEquals(best, labels.dist(i), 1e-12);
+            assertEquals(labels.dist(i), ag0.shortestPathDist(labels.facility(i), labels.key(i)), 1e-12);
+        }
+    }
+
+    @Test
+    void distanceTable() {
+        weighted_graph g0 = WGraph_DSTest.graph_creator(1000, 3000, 6);
+        g0.addNode(5000);
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        int[] rows = {0, 5, 17, 17, 400, 999, 5000, 123456};
+        int[] cols = new int[30];
+        for (int j = 0; j < cols.length; j++) cols[j] = j * 33;
+        cols[29] = 5000;
+        double[] table = ag0.distanceTable(rows, cols);
+        double[] transposed = ag0.distanceTable(cols, rows);
+        assertEquals(rows.length * cols.length, table.length);
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < cols.length; j++) {
+                double d = rows[i] == 123456 ? -1 : ag0.shortestPathDist(rows[i], cols[j]);
+                assertEquals(d, table[i * cols.length + j], 1e-12);
+                assertEquals(d, transposed[j * rows.length + i], 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void kShortestPaths() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        List<NodePath> paths = ag0.kShortestPaths(0, 10, 3);
+        assertEquals(3, paths.size());
+        assertArrayEquals(new int[]{0, 1, 5, 7, 10}, paths.get(0).keys());
+        assertEquals(5.1, paths.get(0).cost(), 1e-12);
+        assertArrayEquals(new int[]{0, 3, 5, 7, 10}, paths.get(1).keys());
+        assertEquals(16.1, paths.get(1).cost(), 1e-12);
+        int mc = g0.getMC();
+        assertEquals(0, ag0.kShortestPaths(0, 42, 3).size());
+        assertEquals(1, ag0.kShortestPaths(4, 4, 3).size());
+        assertEquals(mc, g0.getMC());
+
+        for (int seed = 1; seed <= 5; seed++) {
+            weighted_graph g1 = WGraph_DSTest.graph_creator(9, 18, seed);
+            ag0.init(g1);
+            List<Double> all = new ArrayList<>();
+            allSimplePaths(g1, 0, 8, new ArrayList<>(List.of(0)), 0, all);
+            Collections.sort(all);
+            List<NodePath> k = ag0.kShortestPaths(0, 8, 20);
+            assertEquals(Math.min(20, all.size()), k.size());
+            for (int i = 0; i < k.size(); i++)
+                assertEquals(all.get(i), k.get(i).cost(), 1e-9);
+        }
+    }
+
+    private static void allSimplePaths(weighted_graph g, int v, int dest, List<Integer> path, double cost, List<Double> out) {
+        if (v == dest) {
+            out.add(cost);
+            return;
+        }
+        for (node_info n : g.getV(v)) {
+            if (path.contains(n.getKey())) continue;
+            path.add(n.getKey());
+            allSimplePaths(g, n.getKey(), dest, path, cost + g.getEdge(v, n.getKey()), out);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    @Test
+    void hopDistances() {
+        weighted_graph g0 = small_graph();
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        assertEquals(3, ag0.hopDistance(0, 10));
+        assertEquals(0, ag0.hopDistance(3, 3));
+        assertEquals(-1, ag0.hopDistance(0, 42));
+        NodeDistances hops = ag0.hopDistances(9);
+        assertEquals(11, hops.size());
+        assertEquals(9, hops.key(0));
+        assertEquals(3, hops.key(1));
+        assertEquals(4, hops.dist(10));
+    }
+
+    @Test
+    void bfsOnLargeGraph() {
+        //big enough for the parallel, bottom-up steps
+        int n = 200000;
+        weighted_graph g0 = WGraph_DSTest.graph_creator(n, 3 * n, 8);
+        WGraph_Algo ag0 = new WGraph_Algo();
+        ag0.init(g0);
+        NodeDistances hops = ag0.hopDistances(0);
+        //reference: a plain queue based BFS
+        int[] level = new int[n];
+        java.util.Arrays.fill(level, -1);
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        queue[tail++] = 0;
+        level[0] = 0;
+        while (head < tail) {
+            int v = queue[head++];
+            for (node_info u : g0.getV(v)) {
+                if (level[u.getKey()] == -1) {
+                    level[u.getKey()] = level[v] + 1;
+                    queue[tail++] = u.getKey();
+                }
+            }
+        }
+        assertEquals(tail, hops.size());
+        for (int i = 0; i < hops.size(); i++)
+            assertEquals(level[hops.key(i)], (int) hops.dist(i));
+        assertEquals(tail == n, ag0.isConnected());
+        for (int i = 1; i < n; i++)
+            if (level[i] == -1) g0.connect(0, i, 1);
+        assertTrue(ag0.isConnected());
+        g0.removeNode(12345);
+        assertTrue(ag0.isConnected() == (ag0.hopDistances(0).size() == n - 1));
+    }
+
     private weighted_graph small_graph() {
         weighted_graph g0 = WGraph_DSTest.graph_creator(11,0,1);
         g0.connect(0,1,1);
@@ -0,0 +1,201 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_CompressedTest {
+
+    @Test
+    void sameGraph() {
+        weighted_graph g = WGraph_DSTest.graph_creator(300, 2000, 7);
+        g.getNode(5).setInfo("five");
+        WGraph_Compressed c = new WGraph_Compressed(g);
+        assertEquals(g.nodeSize(), c.nodeSize());
+        assertEquals(g.edgeSize(), c.edgeSize());
+        assertEquals(0, c.maxWeightError());
+        assertEquals("five", c.getNode(5).getInfo());
+        for (node_info n : g.getV()) {
+            Set<Integer> expected = new HashSet<>(), actual = new HashSet<>();
+            for (node_info ni : g.getV(n.getKey())) expected.add(ni.getKey());
+            for (node_info ni : c.getV(n.getKey())) actual.add(ni.getKey());
+            assertEquals(expected, actual);
+            for (int k : expected) assertEquals(g.getEdge(n.getKey(), k), c.getEdge(n.getKey(), k));
+        }
+        assertFalse(c.hasEdge(0, -1));
+        assertNull(c.getNode(1000));
+        //the slot API, read in order and at random positions
+        for (int s = 0; s < c.slotCount(); s++) {
+            for (int i = c.degree(s) - 1; i >= 0; i--)
+                assertEquals(g.getEdge(c.keyAt(s), c.keyAt(c.neighborAt(s, i))), c.weightAt(s, i));
+            for (int i = 1; i < c.degree(s); i++)
+                assertTrue(c.neighborAt(s, i - 1) < c.neighborAt(s, i));
+        }
+        assertEquals(new WGraph_DS(g), new WGraph_DS(c));
+    }
+
+    @Test
+    void readOnly() {
+        WGraph_Compressed c = new WGraph_Compressed(WGraph_DSTest.graph_creator(10, 20, 1));
+        assertThrows(UnsupportedOperationException.class, () -> c.addNode(100));
+        assertThrows(UnsupportedOperationException.class, () -> c.connect(1, 2, 3));
+        assertThrows(UnsupportedOperationException.class, () -> c.removeNode(1));
+        assertThrows(UnsupportedOperationException.class, () -> c.removeEdge(1, 2));
+        assertThrows(UnsupportedOperationException.class, () -> c.updateWeight(1, 2, 3));
+        c.getNode(1).setTag(4);
+        assertEquals(4, c.getNode(1).getTag());
+    }
+
+    @Test
+    void quantizedWeights() {
+        weighted_graph g = new WGraph_DS();
+        Random rnd = new Random(3);
+        for (int i = 0; i < 1000; i++) g.addNode(i * 3);
+        while (g.edgeSize() < 5000) g.connect(3 * rnd.nextInt(1000), 3 * rnd.nextInt(1000), 1 + rnd.nextDouble() * 99);
+        WGraph_Compressed f = new WGraph_Compressed(g, WGraph_Compressed.WeightPrecision.FLOAT);
+        WGraph_Compressed q = new WGraph_Compressed(g, WGraph_Compressed.WeightPrecision.INT16);
+        assertTrue(f.maxWeightError() <= 100 * Math.pow(2, -24));
+        assertTrue(q.maxWeightError() <= 99.0 / 131070 + 1e-12);
+        assertTrue(q.maxWeightError() > 0);
+        for (node_info n : g.getV()) {
+            for (node_info ni : g.getV(n.getKey())) {
+                double w = g.getEdge(n.getKey(), ni.getKey());
+                assertEquals(w, f.getEdge(n.getKey(), ni.getKey()), f.maxWeightError());
+                assertEquals(w, q.getEdge(n.getKey(), ni.getKey()), q.maxWeightError());
+            }
+        }
+        assertTrue(q.bytesPerEdge() < f.bytesPerEdge());
+        //a path has at most length*error of error
+        WGraph_Algo exact = new WGraph_Algo(), approx = new WGraph_Algo();
+        exact.init(g);
+        approx.init(q);
+        for (int i = 0; i < 20; i++) {
+            int s = 3 * rnd.nextInt(1000), t = 3 * rnd.nextInt(1000);
+            double d = exact.shortestPathDist(s, t);
+            if (d == -1) assertEquals(-1, approx.shortestPathDist(s, t));
+            else assertEquals(d, approx.shortestPathDist(s, t), 1000 * q.maxWeightError());
+        }
+    }
+
+    @Test
+    void algorithmsAndSize() {
+        int n = 200000, e = 1000000;
+        weighted_graph g = new WGraph_DS();
+        Random rnd = new Random(5);
+        for (int i = 0; i < n; i++) g.addNode(i);
+        //mostly local edges, as in road and mesh graphs
+        while (g.edgeSize() < e) {
+            int a = rnd.nextInt(n);
+            g.connect(a, Math.floorMod(a + rnd.nextInt(200) - 100, n), 1 + rnd.nextInt(1000));
+        }
+        long before = usedHeap();
+        WGraph_DS copy = new WGraph_DS(g);
+        long dsBytes = usedHeap() - before;
+        WGraph_Compressed c = new WGraph_Compressed(g, WGraph_Compressed.WeightPrecision.INT16);
+        WGraph_Compressed exact = new WGraph_Compressed(g);
+
+        WGraph_Algo a = new WGraph_Algo(), b = new WGraph_Algo();
+        a.init(copy);
+        b.init(exact);
+        long start = System.nanoTime();
+        NodeDistances da = a.withinDistance(0, 20000);
+        long ta = System.nanoTime() - start;
+        start = System.nanoTime();
+        NodeDistances db = b.withinDistance(0, 20000);
+        long tb = System.nanoTime() - start;
+        assertEquals(da.size(), db.size());
+        for (int i = 0; i < da.size(); i++) assertEquals(da.dist(i), db.dist(i));
+        assertEquals(a.isConnected(), b.isConnected());
+        System.out.printf("bytes/edge: WGraph_DS ~%.1f, compressed exact %.2f, int16 %.2f (max error %.4f); " +
+                        "search %d nodes: WGraph_DS %.0f ms, compressed %.0f ms%n",
+                (double) dsBytes / e, exact.bytesPerEdge(), c.bytesPerEdge(), c.maxWeightError(),
+                da.size(), ta / 1e6, tb / 1e6);
+        assertTrue(c.bytesPerEdge() < (double) dsBytes / e);
+    }
+
+    @Test
+    void interleavedTraversal() {
+        //a hub of 100000 leaves, every pair of leaves closes a triangle: the depth first search
+        //returns to the hub after every pair
+        int n = 100001;
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < n; i++) g.addNode(i);
+        for (int i = 1; i < n; i++) g.connect(0, i, i % 7);
+        for (int i = 1; i + 1 < n; i += 2) g.connect(i, i + 1, 1);
+        WGraph_Compressed c = new WGraph_Compressed(g);
+        indexed_graph.Neighbors hub = c.neighbors(0);
+        for (int i = 0; i < c.degree(0); i++) {
+            assertTrue(hub.hasNext());
+            assertEquals(c.neighborAt(0, i), hub.next());
+            assertEquals(c.weightAt(0, i), hub.weight());
+        }
+        assertFalse(hub.hasNext());
+        WGraph_Algo a = new WGraph_Algo(), b = new WGraph_Algo();
+        a.init(g);
+        b.init(c);
+        long start = System.nanoTime();
+        BiconnectedComponents ds = a.biconnectedComponents();
+        double tds = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        BiconnectedComponents compressed = b.biconnectedComponents();
+        double tc = (System.nanoTime() - start) / 1e6;
+        System.out.printf("biconnected components of a %d leaf hub: WGraph_DS %.0f ms, compressed %.0f ms%n",
+                n - 1, tds, tc);
+        assertEquals(ds.componentCount(), compressed.componentCount());
+        assertArrayEquals(ds.articulationPoints(), compressed.articulationPoints());
+        //the search reads the hub through one cursor: its block is decoded once, where reading
+        //it by positions restarted the decoder after every pair - about 2.5*10^9 varints
+        long[] hubReads = new long[2]; //by position, through a cursor
+        WGraph_View counted = new WGraph_View(c, (IntPredicate) null) {
+            @Override
+            public int neighborAt(int slot, int i) {
+                if (slot == 0) hubReads[0]++;
+                return super.neighborAt(slot, i);
+            }
+
+            @Override
+            public Neighbors neighbors(int slot) {
+                Neighbors all = super.neighbors(slot);
+                if (slot != 0) return all;
+                return new Neighbors() {
+                    @Override
+                    public boolean hasNext() {
+                        return all.hasNext();
+                    }
+
+                    @Override
+                    public int next() {
+                        hubReads[1]++;
+                        return all.next();
+                    }
+
+                    @Override
+                    public double weight() {
+                        return all.weight();
+                    }
+                };
+            }
+        };
+        b.init(counted);
+        assertEquals(compressed.componentCount(), b.biconnectedComponents().componentCount());
+        assertEquals(0, hubReads[0]);
+        assertEquals(c.degree(0), hubReads[1]);
+        //a view of the compressed graph keeps the independent decoders
+        b.init(new WGraph_View(c, WGraph_View.EdgeFilter.maxWeight(5)));
+        a.init(new WGraph_View(g, WGraph_View.EdgeFilter.maxWeight(5)));
+        assertEquals(a.biconnectedComponents().componentCount(), b.biconnectedComponents().componentCount());
+        assertArrayEquals(a.biconnectedComponents().articulationPoints(), b.biconnectedComponents().articulationPoints());
+    }
+
+    private static long usedHeap() {
+        Runtime r = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return r.totalMemory() - r.freeMemory();
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import ex1.src.*;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Random;
 
@@ -132,6 +133,115 @@ class WGraph_DSTest {
     }
 
 
+    @Test
+    void updateWeight() {
+        weighted_graph g = new WGraph_DS();
+        g.addNode(0);
+        g.addNode(1);
+        g.addNode(2);
+        g.connect(0,1,1);
+        int mc = g.getMC();
+        g.updateWeight(1,0,4.5);
+        assertEquals(4.5, g.getEdge(0,1));
+        assertEquals(4.5, g.getEdge(1,0));
+        assertEquals(mc+1, g.getMC());
+        g.updateWeight(0,1,4.5);
+        g.updateWeight(0,2,3);
+        assertFalse(g.hasEdge(0,2));
+        assertEquals(mc+1, g.getMC());
+        assertEquals(1, g.edgeSize());
+    }
+
+    @Test
+    void updateWeights() {
+        weighted_graph g = graph_creator(100, 400, 4);
+        int[] a = new int[1000], b = new int[1000];
+        double[] w = new double[1000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = nextRnd(0, 100);
+            b[i] = nextRnd(0, 100);
+            w[i] = i;
+        }
+        int mc = g.getMC();
+        int edges = g.edgeSize();
+        g.updateWeights(a, b, w);
+        assertEquals(mc+1, g.getMC());
+        assertEquals(edges, g.edgeSize());
+        for (int i = a.length - 1; i >= 0; i--) {
+            if (g.hasEdge(a[i], b[i])) {
+                double last = -1;
+                for (int j = 0; j < a.length; j++)
+                    if ((a[j] == a[i] && b[j] == b[i]) || (a[j] == b[i] && b[j] == a[i])) last = w[j];
+                assertEquals(last, g.getEdge(b[i], a[i]));
+            }
+        }
+        for (int i = 0; i < a.length; i++)
+            w[i] = g.getEdge(a[i], b[i]);
+        g.updateWeights(a, b, w);
+        assertEquals(mc+1, g.getMC());
+    }
+
+    @Test
+    void setInfoKeepsEdges() {
+        weighted_graph g = graph_creator(1000, 5000, 2);
+        _rnd = new Random(5);
+        HashSet<Long> edges = new HashSet<>();
+        for (node_info n : g.getV())
+            for (node_info ni : g.getV(n.getKey()))
+                edges.add(edgeId(n.getKey(), ni.getKey()));
+        for (int round = 0; round < 200000; round++) {
+            int a = nextRnd(0, 1000);
+            int b = nextRnd(0, 1000);
+            g.getNode(a).setInfo("info-" + round);
+            g.getNode(b).setTag(round);
+            if (a == b) continue;
+            if (round % 3 == 0) {
+                g.removeEdge(a, b);
+                edges.remove(edgeId(a, b));
+            } else {
+                g.connect(a, b, 1);
+                edges.add(edgeId(a, b));
+            }
+            assertTrue(g.getV(a).contains(g.getNode(b)) == g.hasEdge(a, b));
+        }
+        assertEquals(edges.size(), g.edgeSize());
+        for (long id : edges)
+            assertTrue(g.hasEdge((int) (id >> 32), (int) id));
+    }
+
+    @Test
+    void setInfoConcurrentWithReads() throws InterruptedException {
+        weighted_graph g = graph_creator(2000, 10000, 3);
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        ga.init(new WGraph_DS(g));
+        double expected = ga.shortestPathDist(0, 1999);
+        Thread writer = new Thread(() -> {
+            Random r = new Random(7);
+            for (int i = 0; i < 2000000; i++)
+                g.getNode(r.nextInt(2000)).setInfo("w" + i);
+        });
+        writer.start();
+        int degrees = 0;
+        for (node_info n : g.getV()) degrees += g.getV(n.getKey()).size();
+        while (writer.isAlive()) {
+            int d = 0;
+            for (node_info n : g.getV()) {
+                for (node_info ni : g.getV(n.getKey()))
+                    assertTrue(g.hasEdge(ni.getKey(), n.getKey()));
+                d += g.getV(n.getKey()).size();
+            }
+            assertEquals(degrees, d);
+        }
+        writer.join();
+        ga.init(g);
+        assertEquals(expected, ga.shortestPathDist(0, 1999));
+        assertEquals(10000, g.edgeSize());
+    }
+
+    private static long edgeId(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
     ///////////////////////////////////
     /**
      * Generate a random graph with v_size nodes and e_size edges
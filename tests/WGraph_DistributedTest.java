@@ -0,0 +1,90 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_DistributedTest {
+
+    @Test
+    void sameDistancesAsOneGraph() throws IOException {
+        weighted_graph g = WGraph_DSTest.graph_creator(3000, 9000, 5);
+        for (int i = 0; i < 5; i++) g.addNode(-1 - i); //unreachable nodes
+        Path dir = Files.createTempDirectory("partitions");
+        int cut = WGraph_Distributed.partition(g, 3, dir.toString());
+        assertTrue(cut > 0 && cut < g.edgeSize());
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        try (WGraph_Distributed d = WGraph_Distributed.launch(dir.toString(), 3)) {
+            assertEquals(3, d.partitions());
+            Random rnd = new Random(1);
+            for (int i = 0; i < 60; i++) {
+                int s = rnd.nextInt(3000), t = rnd.nextInt(3000);
+                assertEquals(ga.shortestPathDist(s, t), d.shortestPathDist(s, t), 1e-9);
+            }
+            assertEquals(0, d.shortestPathDist(7, 7));
+            assertEquals(-1, d.shortestPathDist(7, -1));
+            assertEquals(-1, d.shortestPathDist(7, 100000));
+            assertEquals(0, d.shortestPathDist(-2, -2));
+            assertEquals(-1, d.shortestPathDist(-3, -2));
+            assertEquals(-1, d.shortestPathDist(-7, -7));
+        }
+        delete(dir);
+    }
+
+    @Test
+    void gridAcrossManyPartitions() throws IOException {
+        //a long grid: shortest paths cross all the partitions, back and forth
+        int rows = 20, cols = 200;
+        weighted_graph g = new WGraph_DS();
+        Random rnd = new Random(2);
+        for (int i = 0; i < rows * cols; i++) g.addNode(i);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (c + 1 < cols) g.connect(r * cols + c, r * cols + c + 1, 1 + rnd.nextInt(9));
+                if (r + 1 < rows) g.connect(r * cols + c, (r + 1) * cols + c, 1 + rnd.nextInt(9));
+            }
+        }
+        Path dir = Files.createTempDirectory("partitions");
+        int cut = WGraph_Distributed.partition(g, 4, dir.toString());
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        try (WGraph_Distributed d = WGraph_Distributed.launch(dir.toString(), 4)) {
+            long start = System.nanoTime();
+            int rounds = 0;
+            for (int i = 0; i < 20; i++) {
+                int s = i * 17 % cols, t = (rows - 1) * cols + cols - 1 - i;
+                assertEquals(ga.shortestPathDist(s, t), d.shortestPathDist(s, t), 1e-9);
+                rounds += d.lastRounds();
+            }
+            System.out.printf("%d nodes in 4 processes, %d cut edges: %.1f rounds and %.1f ms per query%n",
+                    rows * cols, cut, rounds / 20.0, (System.nanoTime() - start) / 1e6 / 20);
+        }
+        delete(dir);
+    }
+
+    @Test
+    void failedStartsAreReported() throws IOException {
+        Path dir = Files.createTempDirectory("partitions");
+        WGraph_Distributed.partition(WGraph_DSTest.graph_creator(100, 300, 3), 2, dir.toString());
+        //no JVM reports its port within a millisecond: the coordinator gives up instead of waiting
+        IOException e = assertThrows(IOException.class, () -> WGraph_Distributed.launch(dir.toString(), 2, 1));
+        assertTrue(e.getMessage().contains("within 1 ms"), e.getMessage());
+        //a server that exits before reporting its port (a missing partition file)
+        e = assertThrows(IOException.class, () -> WGraph_Distributed.launch(dir.toString(), 3));
+        assertEquals("partition 2 did not start", e.getMessage());
+        delete(dir);
+    }
+
+    private static void delete(Path dir) {
+        for (File f : dir.toFile().listFiles()) f.delete();
+        dir.toFile().delete();
+    }
+}
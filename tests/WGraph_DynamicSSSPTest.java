@@ -0,0 +1,126 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_DynamicSSSPTest {
+
+    @Test
+    void smallGraph() {
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 5; i++) g.addNode(i);
+        g.connect(0,1,1);
+        g.connect(1,2,1);
+        g.connect(0,2,5);
+        g.connect(2,3,1);
+        WGraph_DynamicSSSP sp = new WGraph_DynamicSSSP(g, 0);
+        assertEquals(3, sp.dist(3));
+        assertEquals(-1, sp.dist(4));
+        sp.updateWeight(1,2,10);
+        assertEquals(6, sp.dist(3));
+        sp.removeEdge(0,2);
+        assertEquals(12, sp.dist(3));
+        sp.connect(3,4,1);
+        sp.connect(0,4,1);
+        assertEquals(2, sp.dist(3));
+        List<node_info> path = sp.path(3);
+        assertEquals(3, path.size());
+        assertEquals(0, path.get(0).getKey());
+        assertEquals(4, path.get(1).getKey());
+        sp.removeNode(4);
+        assertEquals(12, sp.dist(3));
+        sp.removeNode(0);
+        assertEquals(-1, sp.dist(3));
+        sp.addNode(0);
+        sp.connect(0,3,2);
+        assertEquals(3, sp.dist(2));
+    }
+
+    @Test
+    void directChangesAreDetected() {
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 3; i++) g.addNode(i);
+        g.connect(0,1,1);
+        WGraph_DynamicSSSP sp = new WGraph_DynamicSSSP(g, 0);
+        assertEquals(-1, sp.dist(2));
+        g.connect(1,2,1);
+        assertEquals(2, sp.dist(2));
+    }
+
+    @Test
+    void randomUpdatesMatchRecomputation() {
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(300, 900, 11);
+        WGraph_DynamicSSSP sp = new WGraph_DynamicSSSP(g, 0);
+        Random rnd = new Random(12);
+        for (int round = 0; round < 3000; round++) {
+            int a = rnd.nextInt(300), b = rnd.nextInt(300);
+            switch (rnd.nextInt(6)) {
+                case 0: sp.connect(a, b, rnd.nextDouble()); break;
+                case 1: sp.removeEdge(a, b); break;
+                case 2:
+                    if (rnd.nextInt(20) == 0) {
+                        sp.removeNode(a);
+                        sp.addNode(a);
+                    }
+                    break;
+                case 3: {
+                    int[] k1 = new int[8], k2 = new int[8];
+                    double[] w = new double[8];
+                    for (int i = 0; i < 8; i++) {
+                        k1[i] = rnd.nextInt(300);
+                        k2[i] = rnd.nextInt(300);
+                        w[i] = rnd.nextDouble() * 2;
+                    }
+                    sp.updateWeights(k1, k2, w);
+                    break;
+                }
+                default: sp.updateWeight(a, b, rnd.nextDouble() * 2);
+            }
+            if (round % 50 == 0) assertSameDistances(g, sp);
+        }
+        assertSameDistances(g, sp);
+        weighted_graph_algorithms ga = new WGraph_Algo();
+        ga.init(g);
+        for (int i = 0; i < 300; i += 17)
+            assertEquals(ga.shortestPathDist(0, i), sp.dist(i), 1e-9);
+    }
+
+    @Test
+    void benchmark() {
+        int n = 100000;
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(n, 4 * n, 21);
+        WGraph_DynamicSSSP sp = new WGraph_DynamicSSSP(g, 0);
+        Random rnd = new Random(22);
+        int updates = 20000, full = 20;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            int a = rnd.nextInt(n);
+            int d = g.degree(g.slotOf(a));
+            if (d == 0) continue;
+            int b = g.keyAt(g.neighborAt(g.slotOf(a), rnd.nextInt(d)));
+            sp.updateWeight(a, b, rnd.nextDouble());
+        }
+        double incremental = (System.nanoTime() - start) / 1e6 / updates;
+
+        start = System.nanoTime();
+        for (int i = 0; i < full; i++) sp.recompute();
+        double recompute = (System.nanoTime() - start) / 1e6 / full;
+
+        System.out.printf("dynamic SSSP, |V|=%d |E|=%d: repair %.4f ms/update, recompute %.2f ms (x%.0f)%n",
+                g.nodeSize(), g.edgeSize(), incremental, recompute, recompute / incremental);
+        assertTrue(incremental < recompute);
+        assertSameDistances(g, sp);
+    }
+
+    private static void assertSameDistances(WGraph_DS g, WGraph_DynamicSSSP sp) {
+        WGraph_DynamicSSSP fresh = new WGraph_DynamicSSSP(g, sp.getSource());
+        for (node_info n : g.getV())
+            assertEquals(fresh.dist(n.getKey()), sp.dist(n.getKey()), 1e-9);
+    }
+}
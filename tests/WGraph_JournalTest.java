@@ -0,0 +1,289 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_JournalTest {
+
+    //The process that crashes: makes the changes of mutate(.., 3000, 1), commits and halts
+    public static void main(String[] args) throws IOException {
+        WGraph_Journal j = new WGraph_Journal(Paths.get(args[0]));
+        mutate(j, new WGraph_DS(), 3000, 1);
+        j.commit();
+        Runtime.getRuntime().halt(0);
+    }
+
+    @Test
+    void recoversAfterACrash() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        //no close(): the process dies after commit(), only what commit() forced is on the disk
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                WGraph_JournalTest.class.getName(), dir.toString()).inheritIO().start();
+        assertEquals(0, p.waitFor());
+        weighted_graph expected = new WGraph_DS();
+        mutate(new WGraph_DS(), expected, 3000, 1);
+        WGraph_Journal r = new WGraph_Journal(dir);
+        assertEquals(expected, new WGraph_DS(r));
+        assertTrue(r.replayedRecords() > 0);
+        r.connect(1, 2, 9);
+        expected.connect(1, 2, 9);
+        r.close();
+        WGraph_Journal again = new WGraph_Journal(dir);
+        assertEquals(expected, new WGraph_DS(again));
+        again.close();
+        delete(dir);
+    }
+
+    @Test
+    void tornTailIsDropped() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_Journal j = new WGraph_Journal(dir, true, 1, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++) j.addNode(i);
+        j.connect(1, 2, 3);
+        j.close();
+        Path log = dir.resolve("log-0.wal");
+        long size = Files.size(log);
+        //a crash in the middle of the last record, and garbage after it
+        try (RandomAccessFile f = new RandomAccessFile(log.toFile(), "rw")) {
+            f.setLength(size - 3);
+            f.seek(size - 3);
+            f.write(new byte[]{0, 0, 0, 9, 7, 7});
+        }
+        WGraph_Journal r = new WGraph_Journal(dir);
+        assertEquals(10, r.nodeSize());
+        assertEquals(0, r.edgeSize());
+        assertEquals(10, r.replayedRecords());
+        r.connect(4, 5, 1);
+        r.close();
+        WGraph_Journal again = new WGraph_Journal(dir);
+        assertTrue(again.hasEdge(4, 5));
+        assertEquals(11, again.replayedRecords());
+        again.close();
+        delete(dir);
+    }
+
+    @Test
+    void snapshotsCompactTheLog() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_Journal j = new WGraph_Journal(dir, false, 1, 20000);
+        weighted_graph expected = new WGraph_DS();
+        mutate(j, expected, 20000, 2);
+        j.snapshot();
+        mutate(j, expected, 100, 3);
+        j.close();
+        //only the last snapshot and the logs after it are kept
+        List<String> files = names(dir);
+        assertEquals(1, files.stream().filter(f -> f.endsWith(".bin")).count(), files.toString());
+        assertTrue(files.stream().filter(f -> f.endsWith(".wal")).count() <= 2, files.toString());
+        WGraph_Journal r = new WGraph_Journal(dir);
+        assertEquals(expected, new WGraph_DS(r));
+        assertTrue(r.replayedRecords() <= 100 + 20000 / 13, "replayed " + r.replayedRecords());
+        r.close();
+        delete(dir);
+    }
+
+    @Test
+    void logsAreReplayedInOrder() throws IOException {
+        //a crash during a compaction: log-6 was started, snapshot-6 was not written yet
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_DS base = new WGraph_DS();
+        base.addNode(1);
+        base.addNode(2);
+        try (ObjectOutputStream o = new ObjectOutputStream(Files.newOutputStream(dir.resolve("snapshot-5.bin")))) {
+            o.writeObject(base);
+        }
+        Files.write(dir.resolve("log-5.wal"), record(2, 1, 2, 4.0)); //connect(1, 2, 4)
+        Files.write(dir.resolve("log-6.wal"), record(3, 1, 2, null)); //removeEdge(1, 2)
+        WGraph_Journal r = new WGraph_Journal(dir);
+        assertFalse(r.hasEdge(1, 2));
+        assertEquals(2, r.replayedRecords());
+        r.close();
+        delete(dir);
+        //a corrupt log before the last one: the changes after it are not applied over the gap
+        dir = Files.createTempDirectory("journal");
+        try (ObjectOutputStream o = new ObjectOutputStream(Files.newOutputStream(dir.resolve("snapshot-5.bin")))) {
+            o.writeObject(base);
+        }
+        byte[] connect = record(2, 1, 2, 4.0), torn = Arrays.copyOf(record(2, 1, 2, 8.0), 9);
+        byte[] log5 = Arrays.copyOf(connect, connect.length + torn.length);
+        System.arraycopy(torn, 0, log5, connect.length, torn.length);
+        Files.write(dir.resolve("log-5.wal"), log5);
+        Files.write(dir.resolve("log-6.wal"), record(3, 1, 2, null));
+        r = new WGraph_Journal(dir);
+        assertEquals(4.0, r.getEdge(1, 2));
+        assertEquals(1, r.replayedRecords());
+        r.addNode(3);
+        r.close();
+        assertFalse(names(dir).contains("log-6.wal"), names(dir).toString());
+        r = new WGraph_Journal(dir);
+        assertEquals(4.0, r.getEdge(1, 2));
+        assertNotNull(r.getNode(3));
+        r.close();
+        delete(dir);
+    }
+
+    @Test
+    void openOnlyOnce() throws IOException {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_Journal j = new WGraph_Journal(dir);
+        assertThrows(IOException.class, () -> new WGraph_Journal(dir));
+        j.close();
+        WGraph_Journal again = new WGraph_Journal(dir);
+        again.addNode(1);
+        again.close();
+        //a closed journal rejects a change before applying it
+        assertThrows(IllegalStateException.class, () -> again.addNode(2));
+        assertThrows(IllegalStateException.class, () -> again.removeNode(1));
+        assertEquals(1, again.nodeSize());
+        assertEquals(1, again.getMC());
+        delete(dir);
+    }
+
+    @Test
+    void listenersFollowTheLog() throws IOException {
+        for (boolean synchronous : new boolean[]{false, true}) {
+            Path dir = Files.createTempDirectory("journal");
+            WGraph_Journal j = new WGraph_Journal(dir, synchronous, 1, Long.MAX_VALUE);
+            j.addNode(1);
+            j.addNode(2);
+            List<GraphEvent> seen = new ArrayList<>();
+            boolean[] fail = {true};
+            j.addListener(events -> {
+                seen.addAll(events);
+                if (fail[0]) throw new IllegalStateException("listener failed");
+            });
+            assertThrows(IllegalStateException.class, () -> j.connect(1, 2, 3));
+            assertEquals(1, seen.size());
+            assertTrue(j.hasEdge(1, 2));
+            //a node with more edges than a batch holds: every event arrives after the record
+            fail[0] = false;
+            j.addNode(0);
+            for (int i = 3; i < 5003; i++) {
+                j.addNode(i);
+                j.connect(0, i, 1);
+            }
+            long before = seen.size();
+            fail[0] = true;
+            assertThrows(IllegalStateException.class, () -> j.removeNode(0));
+            assertTrue(seen.size() > before);
+            j.close();
+            WGraph_Journal r = new WGraph_Journal(dir);
+            assertTrue(r.hasEdge(1, 2));
+            assertNull(r.getNode(0));
+            assertEquals(5002, r.nodeSize());
+            r.close();
+            delete(dir);
+        }
+    }
+
+    @Test
+    void groupCommit() throws Exception {
+        Path dir = Files.createTempDirectory("journal");
+        WGraph_Journal j = new WGraph_Journal(dir, true, 2, Long.MAX_VALUE);
+        int threads = 8, per = 200;
+        for (int i = 0; i < threads * per; i++) j.addNode(i);
+        long start = System.nanoTime();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int base = t * per;
+            Thread w = new Thread(() -> {
+                for (int i = 0; i < per - 1; i++) j.connect(base + i, base + i + 1, i);
+            });
+            writers.add(w);
+            w.start();
+        }
+        for (Thread w : writers) w.join();
+        double ms = (System.nanoTime() - start) / 1e6;
+        assertEquals(threads * (per - 1), j.edgeSize());
+        j.close();
+        WGraph_Journal r = new WGraph_Journal(dir);
+        assertEquals(threads * (per - 1), r.edgeSize());
+        assertEquals(threads * per + threads * (per - 1), r.replayedRecords());
+        System.out.printf("%d synchronous changes from %d threads: %.0f ms (%.1f us each)%n",
+                threads * (per - 1), threads, ms, ms * 1000 / (threads * (per - 1)));
+        r.close();
+        delete(dir);
+    }
+
+    //Random changes of both graphs
+    private static void mutate(weighted_graph j, weighted_graph expected, int count, long seed) {
+        Random rnd = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            int a = rnd.nextInt(300), b = rnd.nextInt(300);
+            double w = rnd.nextInt(100);
+            switch (rnd.nextInt(6)) {
+                case 0:
+                    j.addNode(a);
+                    expected.addNode(a);
+                    break;
+                case 1:
+                case 2:
+                    j.addNode(a);
+                    j.addNode(b);
+                    j.connect(a, b, w);
+                    expected.addNode(a);
+                    expected.addNode(b);
+                    expected.connect(a, b, w);
+                    break;
+                case 3:
+                    j.updateWeight(a, b, w);
+                    expected.updateWeight(a, b, w);
+                    break;
+                case 4:
+                    j.removeEdge(a, b);
+                    expected.removeEdge(a, b);
+                    break;
+                default:
+                    if (rnd.nextInt(4) == 0) {
+                        j.removeNode(a);
+                        expected.removeNode(a);
+                    }
+            }
+        }
+    }
+
+    //A log record: [payload length][type][payload][CRC32 of type and payload]
+    private static byte[] record(int type, int key1, int key2, Double w) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream p = new DataOutputStream(payload);
+        p.writeByte(type);
+        p.writeInt(key1);
+        p.writeInt(key2);
+        if (w != null) p.writeDouble(w);
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        DataOutputStream r = new DataOutputStream(record);
+        r.writeInt(payload.size());
+        r.write(payload.toByteArray());
+        r.writeInt((int) crc.getValue());
+        return record.toByteArray();
+    }
+
+    private static List<String> names(Path dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (Stream<Path> s = Files.list(dir)) {
+            s.forEach(p -> names.add(p.getFileName().toString()));
+        }
+        return names;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> s = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) s::iterator) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+}
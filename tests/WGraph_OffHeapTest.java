@@ -0,0 +1,137 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_OffHeapTest {
+
+    @Test
+    void basicOperations() {
+        WGraph_OffHeap g = new WGraph_OffHeap();
+        for (int i = 0; i < 4; i++) g.addNode(i);
+        g.addNode(1);
+        g.connect(0, 1, 1);
+        g.connect(0, 2, 2);
+        g.connect(0, 3, 3);
+        g.connect(0, 1, 5);
+        assertEquals(4, g.nodeSize());
+        assertEquals(3, g.edgeSize());
+        assertEquals(3, g.getEdge(3, 0));
+        assertEquals(1, g.getEdge(0, 1));
+        assertEquals(-1, g.getEdge(1, 2));
+        g.getNode(2).setInfo("two");
+        g.getNode(2).setTag(7);
+        assertEquals("two", g.getNode(2).getInfo());
+        assertEquals(7, g.getNode(2).getTag());
+        assertEquals(3, g.getV(0).size());
+        node_info removed = g.removeNode(2);
+        assertEquals("two", removed.getInfo());
+        assertEquals(7, removed.getTag());
+        assertNull(g.getNode(2));
+        assertFalse(g.hasEdge(0, 2));
+        assertEquals(2, g.edgeSize());
+        g.close();
+    }
+
+    @Test
+    void matchesWGraph_DS() {
+        Random rnd = new Random(11);
+        WGraph_DS expected = new WGraph_DS();
+        WGraph_OffHeap g = new WGraph_OffHeap();
+        int n = 300;
+        for (int op = 0; op < 60000; op++) {
+            int a = rnd.nextInt(n), b = rnd.nextInt(n), kind = rnd.nextInt(100);
+            double w = rnd.nextInt(20);
+            if (kind < 10) {
+                expected.addNode(a);
+                g.addNode(a);
+            } else if (kind < 70) {
+                expected.connect(a, b, w);
+                g.connect(a, b, w);
+            } else if (kind < 85) {
+                expected.removeEdge(a, b);
+                g.removeEdge(a, b);
+            } else if (kind < 95) {
+                expected.updateWeight(a, b, w);
+                g.updateWeight(a, b, w);
+            } else {
+                assertEquals(expected.removeNode(a) == null, g.removeNode(a) == null);
+            }
+            assertEquals(expected.getMC(), g.getMC());
+        }
+        assertEquals(expected.nodeSize(), g.nodeSize());
+        assertEquals(expected.edgeSize(), g.edgeSize());
+        for (int a = 0; a < n; a++) {
+            assertEquals(expected.getNode(a) == null, g.getNode(a) == null);
+            assertEquals(expected.getV(a).size(), g.getV(a).size());
+            for (int b = 0; b < n; b++) assertEquals(expected.getEdge(a, b), g.getEdge(a, b));
+        }
+        assertEquals(expected, new WGraph_DS(g));
+        g.close();
+    }
+
+    @Test
+    void algorithmsRunUnchanged() {
+        weighted_graph on = WGraph_DSTest.graph_creator(500, 2000, 5);
+        WGraph_OffHeap off = new WGraph_OffHeap(on);
+        WGraph_Algo a = new WGraph_Algo(), b = new WGraph_Algo();
+        a.init(on);
+        b.init(off);
+        assertEquals(a.isConnected(), b.isConnected());
+        Random rnd = new Random(2);
+        for (int i = 0; i < 20; i++) {
+            int s = rnd.nextInt(500), t = rnd.nextInt(500);
+            assertEquals(a.shortestPathDist(s, t), b.shortestPathDist(s, t), 1e-9);
+            assertEquals(a.hopDistance(s, t), b.hopDistance(s, t));
+        }
+        assertEquals(a.minimumSpanningForest().totalWeight(), b.minimumSpanningForest().totalWeight(), 1e-9);
+        assertEquals(a.shortestPath(1, 400).size(), b.shortestPath(1, 400).size());
+        assertEquals(on, b.copy());
+
+        String file = "offheap_graph.obj";
+        assertTrue(b.save(file));
+        WGraph_Algo c = new WGraph_Algo();
+        assertTrue(c.load(file));
+        assertEquals(off, c.getGraph());
+        assertEquals(off.getMC(), c.getGraph().getMC());
+        new File(file).delete();
+        ((WGraph_OffHeap) c.getGraph()).close();
+        off.close();
+    }
+
+    @Test
+    void closeReleases() {
+        WGraph_OffHeap g = new WGraph_OffHeap();
+        g.addNode(1);
+        assertTrue(g.offHeapBytes() > 0);
+        g.close();
+        g.close();
+        assertEquals(0, g.offHeapBytes());
+        assertThrows(IllegalStateException.class, () -> g.getNode(1));
+    }
+
+    @Test
+    void largeGraph() {
+        int n = 500000, e = 2000000;
+        Random rnd = new Random(1);
+        long start = System.nanoTime();
+        WGraph_OffHeap g = new WGraph_OffHeap();
+        for (int i = 0; i < n; i++) g.addNode(i);
+        while (g.edgeSize() < e) g.connect(rnd.nextInt(n), rnd.nextInt(n), 1 + rnd.nextInt(10));
+        long build = System.nanoTime() - start;
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        start = System.nanoTime();
+        NodeDistances d = ga.withinDistance(0, 20);
+        long search = System.nanoTime() - start;
+        assertTrue(d.size() > 1);
+        System.out.printf("off-heap graph %d nodes / %d edges: build %.0f ms, %.1f bytes/edge off-heap, search %.0f ms%n",
+                n, e, build / 1e6, (double) g.offHeapBytes() / e, search / 1e6);
+        g.close();
+    }
+}
@@ -0,0 +1,132 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_OverlayTest {
+
+    @Test
+    void sameDistances() {
+        WGraph_DS g = new WGraph_DS();
+        Random rnd = new Random(3);
+        for (int i = 0; i < 2000; i++) g.addNode(i * 5);
+        while (g.edgeSize() < 5000) g.connect(5 * rnd.nextInt(2000), 5 * rnd.nextInt(2000), 1 + rnd.nextInt(20));
+        g.addNode(-1);
+        WGraph_Overlay o = new WGraph_Overlay(g, new int[]{8, 32, 128}, 2);
+        assertArrayEquals(new int[]{2001, 251, 63, 16}, o.cellCounts());
+        check(g, o, rnd, 200);
+        assertEquals(-1, o.shortestPathDist(0, -1));
+        assertEquals(-1, o.shortestPathDist(0, 3));
+        assertEquals(0, o.shortestPathDist(5, 5));
+        assertThrows(IllegalArgumentException.class, () -> new WGraph_Overlay(g, new int[]{8, 12}, 1));
+    }
+
+    @Test
+    void customizationAfterChanges() {
+        WGraph_DS g = grid(40, 4);
+        WGraph_Overlay o = new WGraph_Overlay(g, new int[]{16, 64, 256}, 2);
+        Random rnd = new Random(5);
+        check(g, o, rnd, 50);
+        //weight changes through the overlay
+        for (int round = 0; round < 5; round++) {
+            int[] a = new int[30], b = new int[30];
+            double[] w = new double[30];
+            for (int i = 0; i < 30; i++) {
+                a[i] = rnd.nextInt(1600);
+                b[i] = rnd.nextBoolean() ? a[i] + 1 : a[i] + 40;
+                w[i] = 1 + rnd.nextInt(30);
+            }
+            o.updateWeights(a, b, w);
+            o.updateWeight(a[0], b[0], 100);
+            check(g, o, rnd, 30);
+        }
+        //new and removed edges change the boundaries
+        for (int i = 0; i < 40; i++) {
+            int a = rnd.nextInt(1600), b = rnd.nextInt(1600);
+            if (rnd.nextBoolean()) o.connect(a, b, 1 + rnd.nextInt(5));
+            else o.removeEdge(a, a + 1);
+        }
+        check(g, o, rnd, 50);
+        //changes made to the graph directly, and new nodes
+        g.updateWeight(0, 1, 0.5);
+        g.connect(7, 1500, 0.25);
+        check(g, o, rnd, 30);
+        g.addNode(5000);
+        g.connect(5000, 3, 1);
+        g.removeNode(800);
+        check(g, o, rnd, 30);
+        assertEquals(g.getEdge(5000, 3) + new WGraph_Overlay(g, new int[]{16}, 1).shortestPathDist(3, 10), o.shortestPathDist(5000, 10));
+    }
+
+    @Test
+    void customizationIsLocal() {
+        int side = 160;
+        WGraph_DS g = grid(side, 7);
+        long start = System.nanoTime();
+        WGraph_Overlay o = new WGraph_Overlay(g);
+        double build = (System.nanoTime() - start) / 1e6;
+        int[] cells = o.cellCounts(), boundary = o.boundaryCounts();
+        int total = 0;
+        for (int l = 1; l < cells.length; l++) total += cells[l];
+        assertEquals(total, o.customizedCells());
+        Random rnd = new Random(8);
+        int[] a = new int[1000], b = new int[1000];
+        double[] w = new double[1000];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i < 20 ? 1000 + rnd.nextInt(side * 10) : rnd.nextInt(side * (side - 1));
+            b[i] = a[i] + side;
+            w[i] = 1 + rnd.nextInt(10);
+        }
+        start = System.nanoTime();
+        g.updateWeights(a, b, w); //directly: everything is customized
+        o.customize();
+        double full = (System.nanoTime() - start) / 1e6;
+        assertEquals(total, o.customizedCells());
+        start = System.nanoTime();
+        for (int i = 0; i < 20; i++) o.updateWeight(a[i], b[i], w[i] + 1);
+        o.customize();
+        double partial = (System.nanoTime() - start) / 1e6;
+        //only the cells of the changed edges' endpoints, and their ancestors
+        int local = o.customizedCells();
+        assertTrue(local >= cells.length - 1 && local <= 2 * 20 * (cells.length - 1), local + " of " + total);
+        assertTrue(local * 4 < total, local + " of " + total);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        for (int i = 0; i < 20; i++) {
+            int s = rnd.nextInt(side * side), t = rnd.nextInt(side * side);
+            assertEquals(ga.shortestPathDist(s, t), o.shortestPathDist(s, t), 1e-9);
+        }
+        System.out.printf("%dx%d grid, cells %s, boundary nodes %s: preprocessing+customization %.0f ms, " +
+                        "full customization %.0f ms, 20 changes %.1f ms (%d of %d cells)%n",
+                side, side, java.util.Arrays.toString(cells), java.util.Arrays.toString(boundary), build, full, partial,
+                local, total);
+    }
+
+    private static void check(weighted_graph g, WGraph_Overlay o, Random rnd, int pairs) {
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(g);
+        Object[] nodes = g.getV().toArray();
+        for (int i = 0; i < pairs; i++) {
+            int s = ((node_info) nodes[rnd.nextInt(nodes.length)]).getKey();
+            int t = ((node_info) nodes[rnd.nextInt(nodes.length)]).getKey();
+            assertEquals(ga.shortestPathDist(s, t), o.shortestPathDist(s, t), 1e-9);
+        }
+    }
+
+    private static WGraph_DS grid(int side, long seed) {
+        WGraph_DS g = new WGraph_DS();
+        Random rnd = new Random(seed);
+        for (int i = 0; i < side * side; i++) g.addNode(i);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                if (c + 1 < side) g.connect(r * side + c, r * side + c + 1, 1 + rnd.nextInt(10));
+                if (r + 1 < side) g.connect(r * side + c, (r + 1) * side + c, 1 + rnd.nextInt(10));
+            }
+        }
+        return g;
+    }
+}
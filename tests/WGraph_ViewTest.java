@@ -0,0 +1,107 @@
+package ex1.tests;
+
+import ex1.src.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WGraph_ViewTest {
+
+    @Test
+    void sameAsACopiedSubgraph() {
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(2000, 8000, 4);
+        WGraph_View v = new WGraph_View(g, key -> key % 3 != 0, WGraph_View.EdgeFilter.maxWeight(0.5));
+        WGraph_DS expected = new WGraph_DS();
+        for (node_info n : g.getV()) if (n.getKey() % 3 != 0) expected.addNode(n.getKey());
+        for (node_info n : g.getV())
+            for (node_info ni : g.getV(n.getKey()))
+                if (g.getEdge(n.getKey(), ni.getKey()) <= 0.5) expected.connect(n.getKey(), ni.getKey(), g.getEdge(n.getKey(), ni.getKey()));
+        assertEquals(expected.nodeSize(), v.nodeSize());
+        assertEquals(expected.edgeSize(), v.edgeSize());
+        assertEquals(expected, new WGraph_DS(v));
+        assertNull(v.getNode(3));
+        assertNotNull(v.getNode(4));
+        assertEquals(-1, v.getEdge(3, 4));
+        WGraph_Algo onView = new WGraph_Algo(), onCopy = new WGraph_Algo();
+        onView.init(v);
+        onCopy.init(expected);
+        Random rnd = new Random(2);
+        for (int i = 0; i < 20; i++) {
+            int s = rnd.nextInt(2000), t = rnd.nextInt(2000);
+            assertEquals(onCopy.shortestPathDist(s, t), onView.shortestPathDist(s, t), 1e-9);
+            assertEquals(onCopy.hopDistance(s, t), onView.hopDistance(s, t));
+        }
+        assertEquals(onCopy.isConnected(), onView.isConnected());
+        assertEquals(onCopy.minimumSpanningForest().totalWeight(), onView.minimumSpanningForest().totalWeight(), 1e-9);
+    }
+
+    @Test
+    void followsTheGraph() {
+        WGraph_DS g = new WGraph_DS();
+        for (int i = 0; i < 6; i++) g.addNode(i);
+        g.connect(0, 1, 1);
+        g.connect(1, 2, 5);
+        g.connect(2, 3, 1);
+        g.connect(4, 5, 1);
+        WGraph_View v = new WGraph_View(g, WGraph_View.EdgeFilter.maxWeight(2));
+        assertEquals(6, v.nodeSize());
+        assertEquals(3, v.edgeSize());
+        assertEquals(1, v.getV(1).size());
+        assertFalse(v.hasEdge(2, 1));
+        g.updateWeight(1, 2, 2);
+        assertEquals(4, v.edgeSize());
+        assertEquals(2, v.getV(1).size());
+        assertEquals(2, v.getEdge(2, 1));
+        g.removeNode(4);
+        g.addNode(9);
+        assertEquals(6, v.nodeSize());
+        assertEquals(3, v.edgeSize());
+        assertEquals(g.getMC(), v.getMC());
+        assertThrows(UnsupportedOperationException.class, () -> v.addNode(7));
+        assertThrows(UnsupportedOperationException.class, () -> v.connect(0, 3, 1));
+        assertThrows(UnsupportedOperationException.class, () -> v.removeNode(0));
+        //a bitset of slots, and a view of a view
+        BitSet slots = new BitSet();
+        for (int key : new int[]{0, 1, 2, 9}) slots.set(g.slotOf(key));
+        WGraph_View region = new WGraph_View(g, slots, null);
+        assertEquals(4, region.nodeSize());
+        assertEquals(2, region.edgeSize());
+        assertNull(region.getNode(3));
+        slots.set(g.slotOf(3));
+        region.refresh();
+        assertEquals(3, region.edgeSize());
+        WGraph_View light = new WGraph_View(region, (a, b, w) -> w < 2);
+        assertEquals(5, light.nodeSize());
+        assertEquals(2, light.edgeSize());
+        //tags set on a view are set on the graph
+        v.getNode(0).setTag(7);
+        assertEquals(7, g.getNode(0).getTag());
+    }
+
+    @Test
+    void viewIsCheaperThanACopy() {
+        WGraph_DS g = (WGraph_DS) WGraph_DSTest.graph_creator(200000, 1000000, 8);
+        long start = System.nanoTime();
+        WGraph_DS copy = new WGraph_DS();
+        for (node_info n : g.getV()) if (n.getKey() < 100000) copy.addNode(n.getKey());
+        for (node_info n : copy.getV())
+            for (node_info ni : g.getV(n.getKey()))
+                if (ni.getKey() < 100000) copy.connect(n.getKey(), ni.getKey(), g.getEdge(n.getKey(), ni.getKey()));
+        double copied = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        WGraph_View v = new WGraph_View(g, key -> key < 100000);
+        WGraph_Algo ga = new WGraph_Algo();
+        ga.init(v);
+        NodeDistances d = ga.withinDistance(5, 0.5);
+        double viewed = (System.nanoTime() - start) / 1e6;
+        System.out.printf("half of a 200000 node graph: copy %.0f ms, view and a local search %.1f ms (%d nodes)%n",
+                copied, viewed, d.size());
+        ga.init(copy);
+        assertEquals(ga.withinDistance(5, 0.5).size(), d.size());
+        assertEquals(copy.edgeSize(), v.edgeSize());
+        assertTrue(viewed < copied);
+    }
+}